@@ -11,6 +11,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class DemoWorkflowConfig {
 
@@ -68,14 +71,14 @@ public class DemoWorkflowConfig {
             @Override
             public void run(WorkflowContext context, WorkflowData data) throws Exception {
                 executeWithTiming(context, data, () -> {
-                    System.out.println("[Demo Workflow] Validating data...");
-                    Integer qualityScore = (Integer) data.get("qualityScore");
-                    if (qualityScore != null && qualityScore > 90) {
+                    System.out.println("[Demo Workflow] Validating extracted data...");
+                    Integer records = (Integer) data.get("recordsExtracted");
+                    if (records != null && records > 0) {
                         data.put("validationPassed", true);
-                        data.put("validationMessage", "Data quality meets standards");
+                        data.put("validationMessage", "Extracted data meets standards");
                     } else {
                         data.put("validationPassed", false);
-                        data.put("validationMessage", "Data quality below threshold");
+                        data.put("validationMessage", "No records extracted");
                     }
                     // Simulate some processing time
                     Thread.sleep(200);
@@ -126,6 +129,19 @@ public class DemoWorkflowConfig {
             }
         };
         
+        // Declare the data each step touches so the engine can schedule
+        // non-conflicting steps concurrently: Transform and Validate both only
+        // need the extracted data, so they run in parallel before Load
+        extractStep.writes("source", "recordsExtracted", "extractionTime");
+        transformStep.reads("recordsExtracted")
+                .writes("recordsTransformed", "transformationType", "qualityScore");
+        validateStep.reads("recordsExtracted")
+                .writes("validationPassed", "validationMessage");
+        loadStep.reads("validationPassed", "recordsTransformed")
+                .writes("destination", "loadSuccessful", "recordsLoaded", "completionTime", "error");
+        reportStep.reads("loadSuccessful")
+                .writes("reportGenerated", "reportId", "summary");
+        
         // Add all steps to workflow
         workflow.addStep(extractStep)
                 .addStep(transformStep)
@@ -194,4 +210,57 @@ public class DemoWorkflowConfig {
         
         return workflow;
     }
+
+    @Bean
+    public Workflow parallelDemoWorkflow() {
+        // Fan-out workflow: five independent lookups run concurrently, so the step
+        // takes roughly as long as the slowest lookup instead of the sum of all of them
+        Workflow workflow = new Workflow("parallel-demo", "Parallel Demo Workflow - Fan-out Lookups");
+        
+        List<ChildStep> lookups = new ArrayList<>();
+        for (String source : List.of("accounts", "cards", "loans", "deposits", "investments")) {
+            lookups.add(new ChildStep(
+                    source,
+                    (context, data) -> source,
+                    (context, data) -> {
+                        // Simulate a blocking call to a downstream system
+                        primitives.primitive().sleep(300).join();
+                        return source + "-snapshot";
+                    },
+                    response -> {
+                        if (!(response instanceof String)) {
+                            throw new IllegalStateException("Unexpected lookup response: " + response);
+                        }
+                    }));
+        }
+        
+        Step fanOutStep = new Step("Fan-out Lookups", lookups, true) {
+            @Override
+            public void run(WorkflowContext context, WorkflowData data) throws Exception {
+                executeWithTiming(context, data, () -> executeChildSteps(context, data));
+            }
+        };
+        
+        Step summaryStep = new Step("Summarize") {
+            @Override
+            public void run(WorkflowContext context, WorkflowData data) throws Exception {
+                executeWithTiming(context, data, () -> {
+                    System.out.println("[Parallel Demo] Summarizing lookups...");
+                    long completed = lookups.stream()
+                            .filter(lookup -> Boolean.TRUE.equals(data.get(fanOutStep.getChildStepCompletedKey(lookup))))
+                            .count();
+                    data.put("lookupsCompleted", completed);
+                });
+            }
+        };
+        
+        workflow.addStep(fanOutStep)
+                .addStep(summaryStep);
+        
+        workflow.setPrimitives(primitives);
+        workflowRegistry.registerWorkflow(workflow);
+        System.out.println("[Demo Workflow] Parallel demo workflow registered with ID: " + workflow.getId());
+        
+        return workflow;
+    }
 }
@@ -1,12 +1,24 @@
 package com.uwf.workflow.api.controller;
 
+import com.uwf.workflow.common.deadletter.DeadLetter;
+import com.uwf.workflow.common.deadletter.DeadLetterReason;
 import com.uwf.workflow.common.model.Workflow;
+import com.uwf.workflow.common.model.WorkflowPriority;
+import com.uwf.workflow.engine.AdmissionStats;
+import com.uwf.workflow.engine.DeadLetterStats;
+import com.uwf.workflow.engine.DelayedQueueStats;
+import com.uwf.workflow.engine.WorkerPoolStats;
 import com.uwf.workflow.engine.WorkflowExecutor;
+import com.uwf.workflow.engine.diagnostics.PinningReport;
+import com.uwf.workflow.engine.exception.WorkflowRejectedException;
 import com.uwf.workflow.primitive.model.WorkflowContext;
 import com.uwf.workflow.primitive.model.WorkflowData;
 import com.uwf.workflow.engine.state.StateManagement;
+import com.uwf.workflow.queue.TenantStats;
 import com.uwf.workflow.registry.WorkflowRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -33,8 +45,9 @@ public class WorkflowController {
     }
 
     @PostMapping("/run")
-    public ResponseEntity<Map<String, String>> runWorkflow(@RequestBody Workflow workflow) {
-        String runId = workflowExecutor.submitWorkflow(workflow);
+    public ResponseEntity<Map<String, String>> runWorkflow(@RequestBody Workflow workflow,
+                                                           @RequestParam(required = false) WorkflowPriority priority) {
+        String runId = workflowExecutor.submitWorkflow(workflow, priority != null ? priority : workflow.getPriority());
         return ResponseEntity.ok(Map.of(
             "runId", runId,
             "message", "Workflow submitted for execution",
@@ -43,8 +56,11 @@ public class WorkflowController {
     }
 
     @PostMapping("/run/{workflowId}")
-    public ResponseEntity<Map<String, String>> runWorkflowById(@PathVariable String workflowId) {
-        String runId = workflowExecutor.submitWorkflow(workflowId);
+    public ResponseEntity<Map<String, String>> runWorkflowById(@PathVariable String workflowId,
+                                                               @RequestParam(required = false) WorkflowPriority priority) {
+        String runId = priority != null
+                ? workflowExecutor.submitWorkflow(workflowId, priority)
+                : workflowExecutor.submitWorkflow(workflowId);
         return ResponseEntity.ok(Map.of(
             "runId", runId,
             "message", "Workflow submitted for execution",
@@ -52,6 +68,14 @@ public class WorkflowController {
         ));
     }
 
+    @PostMapping("/cancel/{runId}")
+    public ResponseEntity<Map<String, Boolean>> cancelWorkflow(@PathVariable String runId) {
+        if (stateManagement.getContext(runId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("canceled", workflowExecutor.cancel(runId)));
+    }
+
     @GetMapping("/status/{runId}")
     public ResponseEntity<WorkflowContext> getWorkflowStatus(@PathVariable String runId) {
         WorkflowContext context = stateManagement.getContext(runId);
@@ -111,6 +135,60 @@ public class WorkflowController {
         return ResponseEntity.ok(metrics);
     }
 
+    @GetMapping("/executor/stats")
+    public ResponseEntity<WorkerPoolStats> getExecutorStats() {
+        return ResponseEntity.ok(workflowExecutor.getWorkerPoolStats());
+    }
+
+    @GetMapping("/executor/queue/delayed")
+    public ResponseEntity<DelayedQueueStats> getDelayedQueueStats() {
+        return ResponseEntity.ok(workflowExecutor.getDelayedQueueStats());
+    }
+
+    @GetMapping("/executor/queue/tenants")
+    public ResponseEntity<List<TenantStats>> getTenantStats() {
+        return ResponseEntity.ok(workflowExecutor.getTenantStats());
+    }
+
+    @GetMapping("/executor/admission")
+    public ResponseEntity<AdmissionStats> getAdmissionStats() {
+        return ResponseEntity.ok(workflowExecutor.getAdmissionStats());
+    }
+
+    @GetMapping("/executor/dead-letters")
+    public ResponseEntity<List<DeadLetter>> getDeadLetters(@RequestParam(required = false) DeadLetterReason reason,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(workflowExecutor.getDeadLetters(reason, limit));
+    }
+
+    @GetMapping("/executor/dead-letters/stats")
+    public ResponseEntity<DeadLetterStats> getDeadLetterStats() {
+        return ResponseEntity.ok(workflowExecutor.getDeadLetterStats());
+    }
+
+    /**
+     * Redrives dead-lettered runs in one batch: the run IDs in the body if given,
+     * otherwise the oldest {@code max} runs, optionally only those with the given reason.
+     * The runs are re-enqueued asynchronously at the configured redrive rate.
+     */
+    @PostMapping("/executor/dead-letters/redrive")
+    public ResponseEntity<Map<String, Integer>> redriveDeadLetters(@RequestParam(required = false) DeadLetterReason reason,
+                                                                   @RequestParam(defaultValue = "1000") int max,
+                                                                   @RequestBody(required = false) List<String> runIds) {
+        int scheduled = runIds != null && !runIds.isEmpty()
+                ? workflowExecutor.redriveDeadLetters(runIds)
+                : workflowExecutor.redriveDeadLetters(reason, max);
+        return ResponseEntity.accepted().body(Map.of(
+            "scheduled", scheduled,
+            "pendingRedrives", workflowExecutor.getDeadLetterStats().pendingRedrives()
+        ));
+    }
+
+    @GetMapping("/executor/pinning")
+    public ResponseEntity<PinningReport> getPinningReport() {
+        return ResponseEntity.ok(workflowExecutor.getPinningReport());
+    }
+
     @GetMapping("/list")
     public ResponseEntity<List<Map<String, String>>> listWorkflows() {
         String[] workflowIds = workflowRegistry.getAllWorkflowIds();
@@ -128,4 +206,18 @@ public class WorkflowController {
         
         return ResponseEntity.ok(workflows);
     }
+
+    /**
+     * Sheds submissions refused by admission control with 429 Too Many Requests,
+     * telling the client when the queue is expected to have room again.
+     */
+    @ExceptionHandler(WorkflowRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleWorkflowRejected(WorkflowRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(Map.of(
+                "message", e.getMessage(),
+                "retryAfterSeconds", String.valueOf(e.getRetryAfterSeconds())
+            ));
+    }
 }
@@ -0,0 +1,21 @@
+package com.uwf.workflow.common.deadletter;
+
+import java.time.Instant;
+
+/**
+ * Immutable record of a workflow run in the dead-letter queue.
+ *
+ * @param runId the workflow run ID
+ * @param workflowId the ID of the workflow definition of the run
+ * @param reason why the run was dead-lettered
+ * @param errorMessage the failure that caused it
+ * @param deadLetteredAt when the run was dead-lettered
+ */
+public record DeadLetter(
+        String runId,
+        String workflowId,
+        DeadLetterReason reason,
+        String errorMessage,
+        Instant deadLetteredAt
+) {
+}
@@ -0,0 +1,36 @@
+package com.uwf.workflow.common.deadletter;
+
+/**
+ * Enum describing why a workflow run was moved to the dead-letter queue instead of being retried.
+ */
+public enum DeadLetterReason {
+    /**
+     * The workflow definition of the run is not registered.
+     */
+    WORKFLOW_NOT_FOUND,
+
+    /**
+     * A step failed and its retry policy allows no further attempts.
+     */
+    RETRIES_EXHAUSTED,
+
+    /**
+     * A step failed with a failure that its retry policy does not retry.
+     */
+    NON_RETRYABLE_FAILURE,
+
+    /**
+     * A step without a retry policy failed.
+     */
+    STEP_FAILED,
+
+    /**
+     * The run could not be executed for a reason outside its steps.
+     */
+    EXECUTION_ERROR,
+
+    /**
+     * The run was dropped from a full queue to admit a run of higher priority.
+     */
+    SHED
+}
@@ -0,0 +1,43 @@
+package com.uwf.workflow.common.exception;
+
+/**
+ * Thrown when a child step fails, wrapping its failure.
+ * Names the child step that failed, so the retry policy of that child step can be applied
+ * even when its siblings ran in parallel or out of order.
+ */
+public class ChildStepException extends RuntimeException {
+
+    private final String stepName;
+    private final String childStepName;
+
+    /**
+     * Constructs a new child step exception.
+     *
+     * @param stepName the name of the parent step
+     * @param childStepName the name of the child step that failed
+     * @param cause the failure of the child step
+     */
+    public ChildStepException(String stepName, String childStepName, Throwable cause) {
+        super("Child step '" + childStepName + "' failed: " + cause.getMessage(), cause);
+        this.stepName = stepName;
+        this.childStepName = childStepName;
+    }
+
+    /**
+     * Gets the name of the parent step.
+     *
+     * @return the step name
+     */
+    public String getStepName() {
+        return stepName;
+    }
+
+    /**
+     * Gets the name of the child step that failed.
+     *
+     * @return the child step name
+     */
+    public String getChildStepName() {
+        return childStepName;
+    }
+}
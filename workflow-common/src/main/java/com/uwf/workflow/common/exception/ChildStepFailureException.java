@@ -0,0 +1,57 @@
+package com.uwf.workflow.common.exception;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thrown when one or more child steps of a parallel step fail.
+ * Carries the failure of every child step that was attempted, keyed by child step name.
+ */
+public class ChildStepFailureException extends RuntimeException {
+
+    private final String stepName;
+    private final Map<String, Exception> failures;
+
+    /**
+     * Constructs a new child step failure exception.
+     *
+     * @param stepName the name of the parent step
+     * @param failures the failures keyed by child step name, in child step order
+     */
+    public ChildStepFailureException(String stepName, Map<String, Exception> failures) {
+        super(buildMessage(stepName, failures), failures.isEmpty() ? null : failures.values().iterator().next());
+        this.stepName = stepName;
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        failures.values().stream().skip(1).forEach(this::addSuppressed);
+    }
+
+    /**
+     * Gets the name of the parent step.
+     *
+     * @return the step name
+     */
+    public String getStepName() {
+        return stepName;
+    }
+
+    /**
+     * Gets the failures keyed by child step name.
+     *
+     * @return an unmodifiable map of child step failures
+     */
+    public Map<String, Exception> getFailures() {
+        return failures;
+    }
+
+    private static String buildMessage(String stepName, Map<String, Exception> failures) {
+        StringBuilder message = new StringBuilder()
+                .append(failures.size())
+                .append(" child step(s) failed in step '")
+                .append(stepName)
+                .append("'");
+        failures.forEach((childName, failure) ->
+                message.append("; ").append(childName).append(": ").append(failure.getMessage()));
+        return message.toString();
+    }
+}
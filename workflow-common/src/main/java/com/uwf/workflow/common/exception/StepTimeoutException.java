@@ -0,0 +1,43 @@
+package com.uwf.workflow.common.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a step or child step does not finish within its configured timeout.
+ */
+public class StepTimeoutException extends RuntimeException {
+
+    private final String stepName;
+    private final Duration timeout;
+
+    /**
+     * Constructs a new step timeout exception.
+     *
+     * @param stepName the name of the step or child step that timed out
+     * @param timeout the configured timeout
+     * @param cause the failure the step ended with when it was aborted, or null
+     */
+    public StepTimeoutException(String stepName, Duration timeout, Throwable cause) {
+        super("Step '" + stepName + "' timed out after " + timeout.toMillis() + " ms", cause);
+        this.stepName = stepName;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets the name of the step or child step that timed out.
+     *
+     * @return the step name
+     */
+    public String getStepName() {
+        return stepName;
+    }
+
+    /**
+     * Gets the configured timeout.
+     *
+     * @return the timeout
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
@@ -0,0 +1,34 @@
+package com.uwf.workflow.common.execution;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Immutable record of one execution of a child step within a single workflow run.
+ *
+ * @param childStepName the name of the executed child step
+ * @param parentStepName the name of the step owning the child step
+ * @param startTime when the child step started
+ * @param endTime when the child step finished
+ * @param errorMessage the failure message, or null if the child step succeeded
+ */
+public record ChildStepExecution(
+        String childStepName,
+        String parentStepName,
+        Instant startTime,
+        Instant endTime,
+        String errorMessage
+) {
+
+    /**
+     * Gets the duration of the child step execution in milliseconds.
+     *
+     * @return the duration in milliseconds, or null if not completed
+     */
+    public Long durationMillis() {
+        if (startTime != null && endTime != null) {
+            return Duration.between(startTime, endTime).toMillis();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.uwf.workflow.common.execution;
+
+/**
+ * Receives the per-run execution records produced while steps execute.
+ * Injected into step definitions by the engine, which keeps the records per run ID.
+ */
+public interface ExecutionListener {
+
+    /**
+     * Called when a step execution finishes, successfully or not.
+     *
+     * @param runId the workflow run ID
+     * @param execution the step execution record
+     */
+    void onStepExecuted(String runId, StepExecution execution);
+
+    /**
+     * Called when a child step execution finishes, successfully or not.
+     *
+     * @param runId the workflow run ID
+     * @param execution the child step execution record
+     */
+    default void onChildStepExecuted(String runId, ChildStepExecution execution) {
+        // Default implementation ignores child step records
+    }
+}
@@ -0,0 +1,54 @@
+package com.uwf.workflow.common.execution;
+
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Immutable record of one execution of a step within a single workflow run.
+ * Step definitions are shared between runs, so everything that describes a particular
+ * execution (timings and snapshots) lives here instead of on the step.
+ *
+ * @param stepName the name of the executed step
+ * @param startTime when the step started
+ * @param endTime when the step finished
+ * @param contextBefore the context the step was started with
+ * @param contextAfter the context after the step finished
+ * @param dataBefore a deep copy of the data before the step ran
+ * @param dataAfter a deep copy of the data after the step ran
+ * @param errorMessage the failure message, or null if the step succeeded
+ */
+public record StepExecution(
+        String stepName,
+        Instant startTime,
+        Instant endTime,
+        WorkflowContext contextBefore,
+        WorkflowContext contextAfter,
+        WorkflowData dataBefore,
+        WorkflowData dataAfter,
+        String errorMessage
+) {
+
+    /**
+     * Gets the duration of the step execution in milliseconds.
+     *
+     * @return the duration in milliseconds, or null if not completed
+     */
+    public Long durationMillis() {
+        if (startTime != null && endTime != null) {
+            return Duration.between(startTime, endTime).toMillis();
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the step execution failed.
+     *
+     * @return true if the step failed, false otherwise
+     */
+    public boolean failed() {
+        return errorMessage != null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.uwf.workflow.common.execution;
+
+import com.uwf.workflow.primitive.model.WorkflowData;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * View of a run's data handed to one step execution. Every read and write goes to the run's
+ * data, and the keys the step puts or removes are recorded, so the data diff of the step
+ * only reports its own writes while other steps of the run write to the same data concurrently.
+ */
+public class StepScopedData extends WorkflowData {
+
+    private final WorkflowData data;
+    private final Set<String> writtenKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a view of a run's data for one step execution.
+     *
+     * @param data the run's data
+     */
+    public StepScopedData(WorkflowData data) {
+        this.data = data;
+    }
+
+    /**
+     * Gets the keys put or removed through this view so far.
+     *
+     * @return an unmodifiable snapshot of the written keys
+     */
+    public Set<String> getWrittenKeys() {
+        return Set.copyOf(writtenKeys);
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        writtenKeys.add(key);
+        data.put(key, value);
+    }
+
+    @Override
+    public Object get(String key) {
+        return data.get(key);
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> clazz) {
+        return data.get(key, clazz);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return data.containsKey(key);
+    }
+
+    @Override
+    public Object remove(String key) {
+        writtenKeys.add(key);
+        return data.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        writtenKeys.addAll(data.toMap().keySet());
+        data.clear();
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        return data.toMap();
+    }
+
+    @Override
+    public WorkflowData deepCopy() {
+        return data.deepCopy();
+    }
+
+    @Override
+    public WorkflowData shallowCopy() {
+        return data.shallowCopy();
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return data.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WorkflowData that)) return false;
+        return toMap().equals(that.toMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return data.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return data.toString();
+    }
+}
@@ -3,6 +3,7 @@ package com.uwf.workflow.common.model;
 import com.uwf.workflow.primitive.model.WorkflowContext;
 import com.uwf.workflow.primitive.model.WorkflowData;
 
+import java.time.Duration;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -18,6 +19,10 @@ public class ChildStep {
     private final BiFunction<WorkflowContext, WorkflowData, Object> requestHook;   // Prepare
     private final BiFunction<WorkflowContext, WorkflowData, Object> responseHook;  // Execute (calls Primitive)
     private final Consumer<Object> validateHook;                                   // Validate
+    private final String resultKey;
+    private final String metricsKey;
+    private Duration timeout;
+    private RetryPolicy retryPolicy;
 
     /**
      * Constructs a new ChildStep with the specified hooks.
@@ -35,6 +40,8 @@ public class ChildStep {
         this.requestHook = requestHook;
         this.responseHook = responseHook;
         this.validateHook = validateHook;
+        this.resultKey = name + "Result";
+        this.metricsKey = "childStep_" + name + "_metrics";
     }
 
     /**
@@ -73,6 +80,67 @@ public class ChildStep {
         return validateHook;
     }
 
+    /**
+     * Gets the workflow data key under which this child step's response is stored.
+     *
+     * @return the result key
+     */
+    public String getResultKey() {
+        return resultKey;
+    }
+
+    /**
+     * Gets the maximum time a single execution of this child step may take.
+     *
+     * @return the timeout, or null if the child step is only bounded by its step and run
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum time a single execution of this child step may take.
+     * On expiry the child step is interrupted and fails with a
+     * {@link com.uwf.workflow.common.exception.StepTimeoutException}.
+     *
+     * @param timeout the timeout, or null for none
+     * @return this child step for method chaining
+     */
+    public ChildStep withTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Gets the retry policy applied when this child step fails.
+     *
+     * @return the retry policy, or null to fall back to the policy of the parent step
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the retry policy applied when this child step fails.
+     * A retried run resumes at this child step; completed siblings are not executed again.
+     *
+     * @param retryPolicy the retry policy, or null to fall back to the policy of the parent step
+     * @return this child step for method chaining
+     */
+    public ChildStep withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Gets the workflow data key under which this child step's metrics are stored.
+     *
+     * @return the metrics key
+     */
+    public String getMetricsKey() {
+        return metricsKey;
+    }
+
     @Override
     public String toString() {
         return "ChildStep{" +
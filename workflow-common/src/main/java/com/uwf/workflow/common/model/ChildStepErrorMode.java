@@ -0,0 +1,17 @@
+package com.uwf.workflow.common.model;
+
+/**
+ * Enum describing how a parallel step reacts when one of its child steps fails.
+ */
+public enum ChildStepErrorMode {
+    /**
+     * Stop starting new child steps after the first failure, cancel the ones still running
+     * and rethrow it.
+     */
+    FAIL_FAST,
+
+    /**
+     * Run every child step and report all failures together.
+     */
+    COLLECT_ALL
+}
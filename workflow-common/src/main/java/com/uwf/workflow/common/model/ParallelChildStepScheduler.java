@@ -0,0 +1,165 @@
+package com.uwf.workflow.common.model;
+
+import com.uwf.workflow.common.exception.ChildStepException;
+import com.uwf.workflow.common.exception.ChildStepFailureException;
+import com.uwf.workflow.primitive.model.CancellationToken;
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fork/join scheduler for the child steps of a parallel {@link Step}.
+ * <p>
+ * Child steps are pulled from a shared index by at most {@code maxParallelism} lanes,
+ * so a step with many children never occupies more than that many threads. Each child
+ * writes to a private shallow copy of the workflow data; once every lane has finished,
+ * the keys each child put or removed are merged into the shared data in child step order,
+ * so the result does not depend on completion order and children never race on writes.
+ * Values are compared by identity, so a child that modifies a shared list or map in
+ * place is neither isolated nor merged; children must put a new value instead.
+ * <p>
+ * Lanes run with a child of the run's {@link CancellationToken} bound and stop pulling
+ * children once it is cancelled. In fail-fast mode the first failure cancels that token,
+ * interrupting the siblings still running without cancelling the run.
+ */
+class ParallelChildStepScheduler {
+
+    private final Step step;
+    private final List<ChildStep> childSteps;
+    private final Executor executor;
+    private final int maxParallelism;
+    private final ChildStepErrorMode errorMode;
+
+    ParallelChildStepScheduler(Step step, Executor executor) {
+        this.step = step;
+        this.childSteps = step.getChildSteps();
+        this.executor = executor;
+        int configured = step.getMaxParallelism();
+        this.maxParallelism = configured > 0 ? Math.min(configured, childSteps.size()) : childSteps.size();
+        this.errorMode = step.getErrorMode();
+    }
+
+    /**
+     * Runs all child steps and merges their results into the shared workflow data.
+     *
+     * @param context the workflow execution context
+     * @param data the shared workflow data
+     * @throws Exception the first child failure in fail-fast mode, or a
+     *                   {@link ChildStepFailureException} describing all failures in collect-all mode
+     */
+    void execute(WorkflowContext context, WorkflowData data) throws Exception {
+        Map<String, Object> snapshot = data.toMap();
+        WorkflowData[] results = new WorkflowData[childSteps.size()];
+        Exception[] failures = new Exception[childSteps.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        CancellationToken runToken = CancellationToken.current();
+        CancellationToken token = runToken.newChild(null, null);
+
+        try {
+            CompletableFuture<?>[] lanes = new CompletableFuture<?>[maxParallelism];
+            for (int lane = 0; lane < maxParallelism; lane++) {
+                lanes[lane] = CompletableFuture.runAsync(token.wrap(() -> runLane(context, snapshot, results,
+                        failures, nextIndex, failed, runToken, token)), executor);
+            }
+
+            try {
+                CompletableFuture.allOf(lanes).get();
+            } catch (InterruptedException e) {
+                failed.set(true);
+                token.cancel();
+                Thread.currentThread().interrupt();
+                throw e;
+            } catch (ExecutionException e) {
+                // Lanes record child failures themselves; this only happens if the executor rejected a lane
+                token.cancel();
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        } finally {
+            token.finish();
+        }
+
+        runToken.throwIfCancelled();
+        mergeResults(snapshot, results, data);
+        throwFailures(failures);
+    }
+
+    private void runLane(WorkflowContext context, Map<String, Object> snapshot, WorkflowData[] results,
+                         Exception[] failures, AtomicInteger nextIndex, AtomicBoolean failed,
+                         CancellationToken runToken, CancellationToken token) {
+        int index;
+        while ((index = nextIndex.getAndIncrement()) < childSteps.size()) {
+            if (token.isCancelled() || (failed.get() && errorMode == ChildStepErrorMode.FAIL_FAST)) {
+                return;
+            }
+            WorkflowData childData = new WorkflowData(snapshot);
+            if (step.isChildStepCompleted(childSteps.get(index), childData)) {
+                continue;
+            }
+            try {
+                step.executeChildStepWithTiming(childSteps.get(index), context, childData);
+            } catch (Exception e) {
+                // A child interrupted by a sibling's failure is not a failure of its own
+                if (!token.isCancelled() || runToken.isCancelled()) {
+                    failures[index] = e;
+                    if (failed.compareAndSet(false, true) && errorMode == ChildStepErrorMode.FAIL_FAST) {
+                        token.cancel();
+                    }
+                }
+            }
+            // Failed children still publish their metrics
+            results[index] = childData;
+        }
+    }
+
+    /**
+     * Applies the keys each child added, replaced or removed relative to the snapshot.
+     */
+    private void mergeResults(Map<String, Object> snapshot, WorkflowData[] results, WorkflowData data) {
+        for (WorkflowData result : results) {
+            if (result == null) {
+                continue;
+            }
+            Map<String, Object> childMap = result.toMap();
+            for (Map.Entry<String, Object> entry : childMap.entrySet()) {
+                if (!snapshot.containsKey(entry.getKey()) || snapshot.get(entry.getKey()) != entry.getValue()) {
+                    data.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (String key : snapshot.keySet()) {
+                if (!childMap.containsKey(key)) {
+                    data.remove(key);
+                }
+            }
+        }
+    }
+
+    private void throwFailures(Exception[] failures) throws Exception {
+        Map<String, Exception> byChild = new LinkedHashMap<>();
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                byChild.put(childSteps.get(i).getName(), failures[i]);
+            }
+        }
+        if (byChild.isEmpty()) {
+            return;
+        }
+        if (errorMode == ChildStepErrorMode.FAIL_FAST) {
+            Exception first = byChild.values().iterator().next();
+            byChild.values().stream().skip(1).forEach(first::addSuppressed);
+            throw first;
+        }
+        // Keyed by child step name already, so the failures are reported unwrapped
+        byChild.replaceAll((childName, failure) -> failure instanceof ChildStepException
+                && failure.getCause() instanceof Exception cause ? cause : failure);
+        throw new ChildStepFailureException(step.getName(), byChild);
+    }
+}
@@ -0,0 +1,152 @@
+package com.uwf.workflow.common.model;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable retry policy of a step or child step: how often a failed execution is retried,
+ * how long to back off between attempts and which failures are worth retrying.
+ * <p>
+ * The backoff grows exponentially from {@code initialDelay} by {@code multiplier} per attempt,
+ * capped at {@code maxDelay}, and is then reduced by a random share of up to {@code jitter}
+ * so that runs failing together do not retry in lockstep.
+ *
+ * @param maxAttempts the maximum number of executions, including the first one
+ * @param initialDelay the backoff before the first retry
+ * @param maxDelay the upper bound of the backoff
+ * @param multiplier the factor the backoff grows by per attempt
+ * @param jitter the maximum share of the backoff, between 0 and 1, removed at random
+ * @param retryOn the failure types that are retried; empty to retry any failure
+ * @param abortOn the failure types that are never retried, even if listed in {@code retryOn}
+ */
+public record RetryPolicy(
+        int maxAttempts,
+        Duration initialDelay,
+        Duration maxDelay,
+        double multiplier,
+        double jitter,
+        List<Class<? extends Throwable>> retryOn,
+        List<Class<? extends Throwable>> abortOn
+) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+        }
+        if (multiplier < 1.0) {
+            throw new IllegalArgumentException("multiplier must be at least 1: " + multiplier);
+        }
+        if (jitter < 0.0 || jitter > 1.0) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+        }
+        retryOn = List.copyOf(retryOn);
+        abortOn = List.copyOf(abortOn);
+    }
+
+    /**
+     * Creates a policy with exponential backoff doubling from the initial delay,
+     * up to 20% jitter, retrying any failure.
+     *
+     * @param maxAttempts the maximum number of executions, including the first one
+     * @param initialDelay the backoff before the first retry
+     * @param maxDelay the upper bound of the backoff
+     * @return the retry policy
+     */
+    public static RetryPolicy exponential(int maxAttempts, Duration initialDelay, Duration maxDelay) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, 2.0, 0.2, List.of(), List.of());
+    }
+
+    /**
+     * Creates a copy of this policy with a different backoff multiplier.
+     *
+     * @param newMultiplier the factor the backoff grows by per attempt
+     * @return a new RetryPolicy with updated multiplier
+     */
+    public RetryPolicy withMultiplier(double newMultiplier) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, newMultiplier, jitter, retryOn, abortOn);
+    }
+
+    /**
+     * Creates a copy of this policy with a different jitter.
+     *
+     * @param newJitter the maximum share of the backoff, between 0 and 1, removed at random
+     * @return a new RetryPolicy with updated jitter
+     */
+    public RetryPolicy withJitter(double newJitter) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, multiplier, newJitter, retryOn, abortOn);
+    }
+
+    /**
+     * Creates a copy of this policy that only retries the given failure types.
+     *
+     * @param types the failure types to retry
+     * @return a new RetryPolicy with updated retryable types
+     */
+    @SafeVarargs
+    public final RetryPolicy retryingOn(Class<? extends Throwable>... types) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, multiplier, jitter, List.of(types), abortOn);
+    }
+
+    /**
+     * Creates a copy of this policy that never retries the given failure types.
+     *
+     * @param types the failure types to abort on
+     * @return a new RetryPolicy with updated non-retryable types
+     */
+    @SafeVarargs
+    public final RetryPolicy abortingOn(Class<? extends Throwable>... types) {
+        return new RetryPolicy(maxAttempts, initialDelay, maxDelay, multiplier, jitter, retryOn, List.of(types));
+    }
+
+    /**
+     * Checks whether another attempt is allowed after the given number of failed attempts.
+     *
+     * @param failedAttempts the number of attempts that have failed so far
+     * @return true if another attempt is allowed, false otherwise
+     */
+    public boolean allowsAttempt(int failedAttempts) {
+        return failedAttempts < maxAttempts;
+    }
+
+    /**
+     * Checks whether a failure is retryable according to the configured types.
+     * The failure and its causes are matched, so wrapped failures are classified by their cause.
+     *
+     * @param failure the failure
+     * @return true if the failure is retryable, false otherwise
+     */
+    public boolean isRetryable(Throwable failure) {
+        if (matches(abortOn, failure)) {
+            return false;
+        }
+        return retryOn.isEmpty() || matches(retryOn, failure);
+    }
+
+    /**
+     * Computes the backoff before the next attempt, including jitter.
+     *
+     * @param failedAttempts the number of attempts that have failed so far, at least 1
+     * @return the backoff delay
+     */
+    public Duration backoff(int failedAttempts) {
+        double exponential = initialDelay.toMillis() * Math.pow(multiplier, Math.max(0, failedAttempts - 1));
+        long capped = (long) Math.min(exponential, (double) maxDelay.toMillis());
+        long jitterMillis = jitter == 0.0 ? 0 : (long) (capped * jitter * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(capped - jitterMillis);
+    }
+
+    private static boolean matches(List<Class<? extends Throwable>> types, Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            for (Class<? extends Throwable> type : types) {
+                if (type.isInstance(current)) {
+                    return true;
+                }
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+}
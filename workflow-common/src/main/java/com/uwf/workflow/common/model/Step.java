@@ -1,35 +1,54 @@
 package com.uwf.workflow.common.model;
 
+import com.uwf.workflow.common.exception.ChildStepException;
+import com.uwf.workflow.common.exception.StepTimeoutException;
+import com.uwf.workflow.common.execution.ChildStepExecution;
+import com.uwf.workflow.common.execution.ExecutionListener;
+import com.uwf.workflow.common.execution.StepExecution;
+import com.uwf.workflow.common.execution.StepScopedData;
 import com.uwf.workflow.primitive.api.Primitives;
+import com.uwf.workflow.primitive.model.CancellationToken;
 import com.uwf.workflow.primitive.model.WorkflowContext;
 import com.uwf.workflow.primitive.model.WorkflowData;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents a logical grouping of operations (a "Branch") that manages
  * the flow control (looping through children, handling their requests/responses).
  * This is the logic engine that coordinates ChildStep execution.
+ * <p>
+ * A step is a shared, read-only definition: the same instance is executed by every run
+ * of its workflow, possibly concurrently. Per-run state such as timings and snapshots
+ * is never stored on the step; it is captured in {@link StepExecution} records that are
+ * handed to the injected {@link ExecutionListener} and written to the run's data.
  */
 public abstract class Step {
     private final String name;
     private final List<ChildStep> childSteps;
     private final boolean parallel;
+    private final String metricsKey;
     private Primitives primitives;
-    private Instant startTime;
-    private Instant endTime;
-    private WorkflowContext contextBefore;
-    private WorkflowContext contextAfter;
-    private WorkflowData dataBefore;
-    private WorkflowData dataAfter;
+    private Executor parallelExecutor;
+    private int maxParallelism;
+    private ChildStepErrorMode errorMode = ChildStepErrorMode.FAIL_FAST;
+    private final Set<String> readKeys = new LinkedHashSet<>();
+    private final Set<String> writeKeys = new LinkedHashSet<>();
+    private ExecutionListener executionListener;
+    private Duration timeout;
+    private RetryPolicy retryPolicy;
 
     /**
      * Constructs a new step with the specified name.
@@ -51,6 +70,7 @@ public abstract class Step {
         this.name = name;
         this.childSteps = new ArrayList<>();
         this.parallel = parallel;
+        this.metricsKey = "step_" + name + "_metrics";
     }
 
     /**
@@ -75,6 +95,7 @@ public abstract class Step {
         this.name = name;
         this.childSteps = new ArrayList<>(childSteps);
         this.parallel = parallel;
+        this.metricsKey = "step_" + name + "_metrics";
     }
 
     /**
@@ -86,6 +107,15 @@ public abstract class Step {
         return name;
     }
 
+    /**
+     * Gets the workflow data key under which this step's metrics are stored.
+     *
+     * @return the metrics key
+     */
+    public String getMetricsKey() {
+        return metricsKey;
+    }
+
     /**
      * Gets an unmodifiable view of the child steps in this step.
      *
@@ -97,6 +127,9 @@ public abstract class Step {
     
     /**
      * Checks if child steps in this step should be executed in parallel.
+     * Parallel child steps each see a shallow copy of the workflow data: they must store
+     * new values with {@code put} rather than modify a shared list or map in place, as
+     * in-place changes race between child steps and are not merged back.
      *
      * @return true if child steps should be executed in parallel, false for sequential execution
      */
@@ -105,87 +138,192 @@ public abstract class Step {
     }
 
     /**
-     * Injects primitives into this step.
+     * Declares workflow data keys this step reads.
+     * Steps that declare their keys may run concurrently with steps they do not conflict with.
      *
-     * @param primitives the primitives registry to inject
+     * @param keys the keys read by this step
+     * @return this step for method chaining
      */
-    public void setPrimitives(Primitives primitives) {
-        this.primitives = primitives;
+    public Step reads(String... keys) {
+        readKeys.addAll(List.of(keys));
+        return this;
     }
 
     /**
-     * Gets the primitives registry.
+     * Declares workflow data keys this step writes.
+     * Steps that declare their keys may run concurrently with steps they do not conflict with.
      *
-     * @return the primitives registry
+     * @param keys the keys written by this step
+     * @return this step for method chaining
      */
-    public Primitives getPrimitives() {
-        return primitives;
+    public Step writes(String... keys) {
+        writeKeys.addAll(List.of(keys));
+        return this;
     }
 
     /**
-     * Gets the start time of this step execution.
+     * Gets the workflow data keys this step declares it reads.
      *
-     * @return the start time, or null if not started
+     * @return an unmodifiable view of the read keys
      */
-    public Instant getStartTime() {
-        return startTime;
+    public Set<String> getReadKeys() {
+        return Collections.unmodifiableSet(readKeys);
     }
 
     /**
-     * Gets the end time of this step execution.
+     * Gets the workflow data keys this step declares it writes.
      *
-     * @return the end time, or null if not completed
+     * @return an unmodifiable view of the write keys
      */
-    public Instant getEndTime() {
-        return endTime;
+    public Set<String> getWriteKeys() {
+        return Collections.unmodifiableSet(writeKeys);
     }
 
     /**
-     * Gets the duration of this step execution in milliseconds.
+     * Checks if this step declares the workflow data keys it reads or writes.
+     * Steps without declarations are executed in strict declaration order.
      *
-     * @return the duration in milliseconds, or null if not completed
+     * @return true if any read or write keys are declared, false otherwise
      */
-    public Long getDurationMillis() {
-        if (startTime != null && endTime != null) {
-            return java.time.Duration.between(startTime, endTime).toMillis();
-        }
-        return null;
+    public boolean declaresDataDependencies() {
+        return !readKeys.isEmpty() || !writeKeys.isEmpty();
+    }
+
+    /**
+     * Gets the maximum number of child steps executed concurrently when this step is parallel.
+     *
+     * @return the maximum parallelism, or 0 if all child steps may run at once
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    /**
+     * Limits how many child steps run concurrently when this step is parallel.
+     *
+     * @param maxParallelism the maximum parallelism, or 0 to run all child steps at once
+     * @return this step for method chaining
+     */
+    public Step withMaxParallelism(int maxParallelism) {
+        this.maxParallelism = Math.max(0, maxParallelism);
+        return this;
+    }
+
+    /**
+     * Gets how this step reacts to failing child steps when it is parallel.
+     *
+     * @return the child step error mode
+     */
+    public ChildStepErrorMode getErrorMode() {
+        return errorMode;
+    }
+
+    /**
+     * Sets how this step reacts to failing child steps when it is parallel.
+     *
+     * @param errorMode the child step error mode
+     * @return this step for method chaining
+     */
+    public Step withErrorMode(ChildStepErrorMode errorMode) {
+        this.errorMode = Objects.requireNonNull(errorMode, "errorMode");
+        return this;
+    }
+
+    /**
+     * Gets the maximum time a single execution of this step may take.
+     *
+     * @return the timeout, or null if the step is only bounded by its run
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum time a single execution of this step may take.
+     * On expiry the engine interrupts the step and fails it with a {@link StepTimeoutException}.
+     *
+     * @param timeout the timeout, or null for none
+     * @return this step for method chaining
+     */
+    public Step withTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Gets the retry policy applied when this step fails.
+     *
+     * @return the retry policy, or null if the step is not retried
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the retry policy applied when this step fails, or when one of its child steps
+     * without a policy of its own fails.
+     *
+     * @param retryPolicy the retry policy, or null to not retry the step
+     * @return this step for method chaining
+     */
+    public Step withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
     }
 
     /**
-     * Gets the context before step execution.
+     * Injects primitives into this step.
+     *
+     * @param primitives the primitives registry to inject
+     */
+    public void setPrimitives(Primitives primitives) {
+        this.primitives = primitives;
+    }
+
+    /**
+     * Gets the primitives registry.
+     *
+     * @return the primitives registry
+     */
+    public Primitives getPrimitives() {
+        return primitives;
+    }
+
+    /**
+     * Injects the executor that parallel child steps are forked onto.
      *
-     * @return the context before execution, or null if not started
+     * @param parallelExecutor the executor for parallel child steps
      */
-    public WorkflowContext getContextBefore() {
-        return contextBefore;
+    public void setParallelExecutor(Executor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
     }
 
     /**
-     * Gets the context after step execution.
+     * Gets the executor that parallel child steps are forked onto.
+     * Falls back to the common fork/join pool.
      *
-     * @return the context after execution, or null if not completed
+     * @return the executor for parallel child steps
      */
-    public WorkflowContext getContextAfter() {
-        return contextAfter;
+    public Executor getParallelExecutor() {
+        return parallelExecutor != null ? parallelExecutor : ForkJoinPool.commonPool();
     }
 
     /**
-     * Gets the data before step execution (deep copy).
+     * Injects the listener that receives this step's per-run execution records.
      *
-     * @return the data before execution, or null if not started
+     * @param executionListener the execution listener, or null to only record metrics in workflow data
      */
-    public WorkflowData getDataBefore() {
-        return dataBefore;
+    public void setExecutionListener(ExecutionListener executionListener) {
+        this.executionListener = executionListener;
     }
 
     /**
-     * Gets the data after step execution (deep copy).
+     * Gets the listener that receives this step's per-run execution records.
      *
-     * @return the data after execution, or null if not completed
+     * @return the execution listener, or null if none is injected
      */
-    public WorkflowData getDataAfter() {
-        return dataAfter;
+    public ExecutionListener getExecutionListener() {
+        return executionListener;
     }
 
     /**
@@ -252,7 +390,9 @@ public abstract class Step {
 
     /**
      * Template method that concrete Step implementations can call to execute with timing.
-     * This method sets start/end times, captures context/data before/after, and stores metrics.
+     * Captures start/end times and context/data before/after into a per-run
+     * {@link StepExecution}, stores its metrics in the run's data and reports it to the
+     * execution listener. Nothing is stored on the step itself.
      *
      * @param context the workflow execution context
      * @param data the shared workflow data
@@ -261,61 +401,68 @@ public abstract class Step {
      */
     protected void executeWithTiming(WorkflowContext context, WorkflowData data, StepLogic stepLogic) throws Exception {
         // Capture state before execution
-        startTime = Instant.now();
-        contextBefore = context;
-        dataBefore = data.deepCopy();
+        Instant startTime = Instant.now();
+        WorkflowData dataBefore = data.deepCopy();
         
         try {
             stepLogic.execute();
-            endTime = Instant.now();
             // Capture state after successful execution
-            contextAfter = context;
-            dataAfter = data.deepCopy();
-            storeStepMetrics(context, data);
+            recordStepExecution(new StepExecution(getName(), startTime, Instant.now(), context, context,
+                    dataBefore, data.deepCopy(), null), data);
         } catch (Exception e) {
-            endTime = Instant.now();
             // Capture state after failed execution
-            contextAfter = context;
-            dataAfter = data.deepCopy();
-            storeStepMetrics(context, data);
+            recordStepExecution(new StepExecution(getName(), startTime, Instant.now(), context, context,
+                    dataBefore, data.deepCopy(), e.getMessage()), data);
             throw e;
         }
     }
 
+    private void recordStepExecution(StepExecution execution, WorkflowData data) {
+        storeStepMetrics(execution, data);
+        if (executionListener != null) {
+            executionListener.onStepExecuted(execution.contextBefore().runId(), execution);
+        }
+    }
+
     /**
      * Stores step execution metrics in workflow data.
-     * Includes context/data diffs for tracking changes.
+     * Includes context/data diffs for tracking changes. When the data is a {@link StepScopedData},
+     * the data diff only covers the keys this step wrote, since steps running alongside it in the
+     * dependency graph change the same data meanwhile.
      *
-     * @param context the workflow execution context
+     * @param execution the step execution record
      * @param data the shared workflow data
      */
-    protected void storeStepMetrics(WorkflowContext context, WorkflowData data) {
-        String stepKey = "step_" + getName() + "_metrics";
+    protected void storeStepMetrics(StepExecution execution, WorkflowData data) {
         Map<String, Object> metrics = new HashMap<>();
         metrics.put("stepName", getName());
-        metrics.put("startTime", startTime);
-        metrics.put("endTime", endTime);
-        if (startTime != null && endTime != null) {
-            metrics.put("durationMillis", java.time.Duration.between(startTime, endTime).toMillis());
+        metrics.put("startTime", execution.startTime());
+        metrics.put("endTime", execution.endTime());
+        if (execution.durationMillis() != null) {
+            metrics.put("durationMillis", execution.durationMillis());
         }
         metrics.put("childStepCount", getChildStepCount());
         metrics.put("parallel", isParallel());
         
         // Store context before/after for diff tracking
-        if (contextBefore != null) {
-            metrics.put("contextBefore", contextBefore);
+        if (execution.contextBefore() != null) {
+            metrics.put("contextBefore", execution.contextBefore());
         }
-        if (contextAfter != null) {
-            metrics.put("contextAfter", contextAfter);
+        if (execution.contextAfter() != null) {
+            metrics.put("contextAfter", execution.contextAfter());
         }
         
         // Store data diffs
-        if (dataBefore != null && dataAfter != null) {
-            Map<String, Object> dataDiff = calculateDataDiff(dataBefore, dataAfter);
+        if (execution.dataBefore() != null && execution.dataAfter() != null) {
+            Set<String> writtenKeys = data instanceof StepScopedData scoped ? scoped.getWrittenKeys() : null;
+            Map<String, Object> dataDiff = calculateDataDiff(execution.dataBefore(), execution.dataAfter(), writtenKeys);
             metrics.put("dataDiff", dataDiff);
         }
+        if (execution.errorMessage() != null) {
+            metrics.put("errorMessage", execution.errorMessage());
+        }
         
-        data.put(stepKey, metrics);
+        data.put(metricsKey, metrics);
     }
 
     /**
@@ -324,16 +471,21 @@ public abstract class Step {
      *
      * @param before the data before execution
      * @param after the data after execution
+     * @param writtenKeys the keys to compare, or null to compare all keys
      * @return a map describing the changes
      */
-    private Map<String, Object> calculateDataDiff(WorkflowData before, WorkflowData after) {
+    private Map<String, Object> calculateDataDiff(WorkflowData before, WorkflowData after, Set<String> writtenKeys) {
         Map<String, Object> diff = new HashMap<>();
         Map<String, Object> beforeMap = before.toMap();
         Map<String, Object> afterMap = after.toMap();
         
         Set<String> allKeys = new HashSet<>();
-        allKeys.addAll(beforeMap.keySet());
-        allKeys.addAll(afterMap.keySet());
+        if (writtenKeys != null) {
+            allKeys.addAll(writtenKeys);
+        } else {
+            allKeys.addAll(beforeMap.keySet());
+            allKeys.addAll(afterMap.keySet());
+        }
         
         Map<String, Object> added = new HashMap<>();
         Map<String, Object> modified = new HashMap<>();
@@ -372,8 +524,60 @@ public abstract class Step {
     }
 
     /**
-     * Executes a child step using the standard request/response/validate pattern.
-     * This is a helper method that concrete Step implementations can use.
+     * Executes all child steps of this step.
+     * Parallel steps fork their child steps onto the parallel executor, bounded by
+     * {@link #getMaxParallelism()}, and merge each child's changes into the shared data
+     * once all have finished; other steps execute their child steps one after another.
+     * Child steps already marked completed in the data are skipped, see
+     * {@link #isChildStepCompleted(ChildStep, WorkflowData)}, and no further child step
+     * is started once the run's {@link CancellationToken} is cancelled.
+     *
+     * @param context the workflow execution context
+     * @param data the shared workflow data
+     * @throws Exception if a child step fails, according to {@link #getErrorMode()} for parallel steps
+     */
+    protected void executeChildSteps(WorkflowContext context, WorkflowData data) throws Exception {
+        if (parallel && childSteps.size() > 1) {
+            new ParallelChildStepScheduler(this, getParallelExecutor()).execute(context, data);
+            return;
+        }
+        for (ChildStep childStep : childSteps) {
+            if (isChildStepCompleted(childStep, data)) {
+                continue;
+            }
+            CancellationToken.current().throwIfCancelled();
+            executeChildStep(childStep, context, data);
+        }
+    }
+
+    /**
+     * Checks if a child step already completed in an earlier attempt of the run.
+     * The completed marker is only written after the child step succeeded, so a run
+     * resumed from a checkpoint does not repeat child steps whose results it already holds.
+     *
+     * @param childStep the child step
+     * @param data the workflow data of the run
+     * @return true if the child step is marked completed, false otherwise
+     */
+    protected boolean isChildStepCompleted(ChildStep childStep, WorkflowData data) {
+        return Boolean.TRUE.equals(data.get(getChildStepCompletedKey(childStep)));
+    }
+
+    /**
+     * Gets the workflow data key marking a child step of this step as completed. The key is
+     * scoped by the step name, so child steps of the same name in different steps of a
+     * workflow are completed independently.
+     *
+     * @param childStep the child step
+     * @return the completed key
+     */
+    public String getChildStepCompletedKey(ChildStep childStep) {
+        return name + "/" + childStep.getName() + "Completed";
+    }
+
+    /**
+     * Executes a child step using the standard request/response/validate pattern, on the
+     * calling thread. This is a helper method that concrete Step implementations can use.
      *
      * @param childStep the child step to execute
      * @param context the workflow execution context
@@ -386,17 +590,52 @@ public abstract class Step {
 
     /**
      * Executes a child step with timing metrics using the standard request/response/validate pattern.
+     * A child step with a timeout runs under its own deadline, which is also passed to its
+     * hooks through the context; on expiry it is interrupted and fails with a {@link StepTimeoutException}.
      *
      * @param childStep the child step to execute
      * @param context the workflow execution context
      * @param data the shared workflow data
-     * @throws Exception if the child step execution fails
+     * @throws ChildStepException wrapping the failure of the child step
+     * @throws InterruptedException if interrupted while the child step waited
      */
     protected void executeChildStepWithTiming(ChildStep childStep, WorkflowContext context, WorkflowData data) throws Exception {
         if (primitives == null) {
             throw new IllegalStateException("Primitives not injected into step: " + name);
         }
+        try {
+            executeChildStepWithinTimeout(childStep, context, data);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ChildStepException(name, childStep.getName(), e);
+        }
+    }
+
+    private void executeChildStepWithinTimeout(ChildStep childStep, WorkflowContext context, WorkflowData data) throws Exception {
+        Duration childTimeout = childStep.getTimeout();
+        if (childTimeout == null) {
+            runChildStep(childStep, context, data);
+            return;
+        }
+
+        Instant deadline = Instant.now().plus(childTimeout);
+        CancellationToken parentToken = CancellationToken.current();
+        CancellationToken childToken = parentToken.newChild(deadline,
+                "Child step '" + childStep.getName() + "' timed out after " + childTimeout.toMillis() + " ms");
+        try (CancellationToken.Scope ignored = childToken.bind()) {
+            runChildStep(childStep, context.withEarlierDeadline(deadline), data);
+        } catch (Exception e) {
+            if (childToken.isExpired() && !parentToken.isCancelled()) {
+                throw new StepTimeoutException(childStep.getName(), childTimeout, e);
+            }
+            throw e;
+        } finally {
+            childToken.finish();
+        }
+    }
 
+    private void runChildStep(ChildStep childStep, WorkflowContext context, WorkflowData data) throws Exception {
         Instant childStartTime = Instant.now();
         try {
             System.out.println("Processing Child: " + childStep.getName());
@@ -414,18 +653,28 @@ public abstract class Step {
             
             // Store results in workflow data
             if (response != null) {
-                data.put(childStep.getName() + "Result", response);
+                data.put(childStep.getResultKey(), response);
             }
-            data.put(childStep.getName() + "Completed", true);
+            data.put(getChildStepCompletedKey(childStep), true);
             
             // Store child step metrics
-            storeChildStepMetrics(childStep, context, data, childStartTime, Instant.now(), null);
+            recordChildStepExecution(childStep, context, data, childStartTime, null);
         } catch (Exception e) {
-            storeChildStepMetrics(childStep, context, data, childStartTime, Instant.now(), e.getMessage());
+            recordChildStepExecution(childStep, context, data, childStartTime, e.getMessage());
             throw e;
         }
     }
 
+    private void recordChildStepExecution(ChildStep childStep, WorkflowContext context, WorkflowData data,
+                                          Instant startTime, String errorMessage) {
+        Instant endTime = Instant.now();
+        storeChildStepMetrics(childStep, context, data, startTime, endTime, errorMessage);
+        if (executionListener != null) {
+            executionListener.onChildStepExecuted(context.runId(),
+                    new ChildStepExecution(childStep.getName(), name, startTime, endTime, errorMessage));
+        }
+    }
+
     /**
      * Stores child step execution metrics in workflow data.
      *
@@ -438,7 +687,6 @@ public abstract class Step {
      */
     protected void storeChildStepMetrics(ChildStep childStep, WorkflowContext context, WorkflowData data,
                                         Instant startTime, Instant endTime, String errorMessage) {
-        String childStepKey = "childStep_" + childStep.getName() + "_metrics";
         Map<String, Object> metrics = new HashMap<>();
         metrics.put("childStepName", childStep.getName());
         metrics.put("parentStepName", getName());
@@ -448,7 +696,7 @@ public abstract class Step {
             metrics.put("durationMillis", java.time.Duration.between(startTime, endTime).toMillis());
         }
         metrics.put("errorMessage", errorMessage);
-        data.put(childStepKey, metrics);
+        data.put(childStep.getMetricsKey(), metrics);
     }
 
     @Override
@@ -472,8 +720,6 @@ public abstract class Step {
                 "name='" + name + '\'' +
                 ", childSteps=" + childSteps +
                 ", parallel=" + parallel +
-                ", startTime=" + startTime +
-                ", endTime=" + endTime +
                 '}';
     }
 }
@@ -1,14 +1,19 @@
 package com.uwf.workflow.common.model;
 
+import com.uwf.workflow.common.execution.ExecutionListener;
+import com.uwf.workflow.common.plan.ExecutionPlan;
+import com.uwf.workflow.common.plan.StepDependencyGraph;
 import com.uwf.workflow.primitive.api.Primitives;
 import com.uwf.workflow.primitive.model.WorkflowContext;
 import com.uwf.workflow.primitive.model.WorkflowData;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 /**
  * Represents a complete workflow with a unique ID, description, and ordered steps.
@@ -17,6 +22,9 @@ public class Workflow {
     private final String id;
     private final String description;
     private final List<Step> steps;
+    private volatile ExecutionPlan executionPlan;
+    private Duration timeout;
+    private WorkflowPriority priority = WorkflowPriority.NORMAL;
 
     /**
      * Constructs a new workflow with the specified description.
@@ -101,6 +109,7 @@ public class Workflow {
      */
     public Workflow addStep(Step step) {
         steps.add(step);
+        executionPlan = null;
         return this;
     }
 
@@ -112,6 +121,48 @@ public class Workflow {
      */
     public Workflow addSteps(List<Step> stepsToAdd) {
         steps.addAll(stepsToAdd);
+        executionPlan = null;
+        return this;
+    }
+
+    /**
+     * Gets the maximum time a run of this workflow may take, measured from its start.
+     *
+     * @return the run timeout, or null if runs are unbounded
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum time a run of this workflow may take, measured from its start.
+     * On expiry the run is aborted and marked failed with a timeout reason.
+     *
+     * @param timeout the run timeout, or null for none
+     * @return this workflow for method chaining
+     */
+    public Workflow withTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Gets the priority that runs of this workflow are queued with unless the submission overrides it.
+     *
+     * @return the default run priority
+     */
+    public WorkflowPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority that runs of this workflow are queued with unless the submission overrides it.
+     *
+     * @param priority the default run priority
+     * @return this workflow for method chaining
+     */
+    public Workflow withPriority(WorkflowPriority priority) {
+        this.priority = Objects.requireNonNull(priority, "priority");
         return this;
     }
 
@@ -135,15 +186,37 @@ public class Workflow {
         return steps.get(index);
     }
 
+    /**
+     * Gets the compiled execution plan of this workflow.
+     * The plan is compiled on first use and recompiled after steps are added.
+     *
+     * @return the execution plan
+     */
+    public ExecutionPlan getExecutionPlan() {
+        ExecutionPlan plan = executionPlan;
+        if (plan == null) {
+            plan = ExecutionPlan.compile(this);
+            executionPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Gets the dependency graph between the steps of this workflow.
+     *
+     * @return the step dependency graph
+     */
+    public StepDependencyGraph getDependencyGraph() {
+        return getExecutionPlan().getDependencyGraph();
+    }
+
     /**
      * Gets the total number of child steps across all steps.
      *
      * @return the total number of child steps
      */
     public int getTotalChildStepCount() {
-        return steps.stream()
-                .mapToInt(Step::getChildStepCount)
-                .sum();
+        return getExecutionPlan().getTotalChildStepCount();
     }
 
     /**
@@ -154,15 +227,7 @@ public class Workflow {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public ChildStep getChildStepByGlobalIndex(int globalChildStepIndex) {
-        int currentIndex = 0;
-        for (Step step : steps) {
-            int stepChildStepCount = step.getChildStepCount();
-            if (globalChildStepIndex < currentIndex + stepChildStepCount) {
-                return step.getChildStep(globalChildStepIndex - currentIndex);
-            }
-            currentIndex += stepChildStepCount;
-        }
-        throw new IndexOutOfBoundsException("Global child step index out of range: " + globalChildStepIndex);
+        return getExecutionPlan().getChildStep(globalChildStepIndex);
     }
 
     /**
@@ -173,16 +238,8 @@ public class Workflow {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public int[] getStepAndChildStepIndices(int globalChildStepIndex) {
-        int currentIndex = 0;
-        for (int stepIndex = 0; stepIndex < steps.size(); stepIndex++) {
-            Step step = steps.get(stepIndex);
-            int stepChildStepCount = step.getChildStepCount();
-            if (globalChildStepIndex < currentIndex + stepChildStepCount) {
-                return new int[]{stepIndex, globalChildStepIndex - currentIndex};
-            }
-            currentIndex += stepChildStepCount;
-        }
-        throw new IndexOutOfBoundsException("Global child step index out of range: " + globalChildStepIndex);
+        ExecutionPlan plan = getExecutionPlan();
+        return new int[]{plan.getStepIndex(globalChildStepIndex), plan.getLocalChildStepIndex(globalChildStepIndex)};
     }
     
     /**
@@ -192,12 +249,11 @@ public class Workflow {
      * @return the current step, or null if index is at the end
      */
     public Step getCurrentStep(int globalChildStepIndex) {
-        if (globalChildStepIndex >= getTotalChildStepCount()) {
+        ExecutionPlan plan = getExecutionPlan();
+        if (globalChildStepIndex >= plan.getTotalChildStepCount()) {
             return null;
         }
-        
-        int[] indices = getStepAndChildStepIndices(globalChildStepIndex);
-        return steps.get(indices[0]);
+        return plan.getStep(plan.getStepIndex(globalChildStepIndex));
     }
     
     /**
@@ -207,8 +263,9 @@ public class Workflow {
      * @return true if the current step is parallel, false otherwise
      */
     public boolean isCurrentStepParallel(int globalChildStepIndex) {
-        Step step = getCurrentStep(globalChildStepIndex);
-        return step != null && step.isParallel();
+        ExecutionPlan plan = getExecutionPlan();
+        return globalChildStepIndex < plan.getTotalChildStepCount()
+                && plan.isParallel(plan.getStepIndex(globalChildStepIndex));
     }
     
     /**
@@ -232,11 +289,7 @@ public class Workflow {
      * @return the starting global child step index for the step
      */
     public int getStepStartIndex(int stepIndex) {
-        int startIndex = 0;
-        for (int i = 0; i < stepIndex; i++) {
-            startIndex += steps.get(i).getChildStepCount();
-        }
-        return startIndex;
+        return getExecutionPlan().getStepStartIndex(stepIndex);
     }
 
     /**
@@ -259,6 +312,28 @@ public class Workflow {
         }
     }
 
+    /**
+     * Injects the parallel child step executor into all steps in this workflow.
+     *
+     * @param parallelExecutor the executor for parallel child steps
+     */
+    public void setParallelExecutor(Executor parallelExecutor) {
+        for (Step step : steps) {
+            step.setParallelExecutor(parallelExecutor);
+        }
+    }
+
+    /**
+     * Injects the execution listener into all steps in this workflow.
+     *
+     * @param executionListener the listener receiving per-run execution records
+     */
+    public void setExecutionListener(ExecutionListener executionListener) {
+        for (Step step : steps) {
+            step.setExecutionListener(executionListener);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,21 @@
+package com.uwf.workflow.common.model;
+
+/**
+ * Enum describing how urgently the runs of a workflow are dequeued by a priority-aware queue.
+ */
+public enum WorkflowPriority {
+    /**
+     * Batch and backfill runs that only get the capacity left over by other runs.
+     */
+    LOW,
+
+    /**
+     * Regular runs.
+     */
+    NORMAL,
+
+    /**
+     * Interactive runs that should wait as little as possible in the queue.
+     */
+    HIGH
+}
@@ -0,0 +1,180 @@
+package com.uwf.workflow.common.plan;
+
+import com.uwf.workflow.common.model.ChildStep;
+import com.uwf.workflow.common.model.Step;
+import com.uwf.workflow.common.model.Workflow;
+
+import java.util.List;
+
+/**
+ * Immutable, precompiled view of a workflow definition used by the engine at run time.
+ * <p>
+ * Holds prefix-sum offsets of child steps per step, a flattened child step array with
+ * its owning step indices, the parallel flags and the step dependency graph, so every
+ * lookup the engine performs per step or child step is a constant-time array access
+ * with no allocation.
+ * <p>
+ * A plan is a snapshot: steps or child steps added to the definition after compilation
+ * are not reflected. Definitions are expected to be complete once registered.
+ */
+public final class ExecutionPlan {
+
+    private final String workflowId;
+    private final Step[] steps;
+    private final int[] stepStartOffsets;
+    private final ChildStep[] childSteps;
+    private final int[] childStepOwners;
+    private final boolean[] parallel;
+    private final StepDependencyGraph dependencyGraph;
+
+    private ExecutionPlan(String workflowId, Step[] steps, int[] stepStartOffsets, ChildStep[] childSteps,
+                          int[] childStepOwners, boolean[] parallel, StepDependencyGraph dependencyGraph) {
+        this.workflowId = workflowId;
+        this.steps = steps;
+        this.stepStartOffsets = stepStartOffsets;
+        this.childSteps = childSteps;
+        this.childStepOwners = childStepOwners;
+        this.parallel = parallel;
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    /**
+     * Compiles the execution plan for a workflow definition.
+     *
+     * @param workflow the workflow definition
+     * @return the compiled execution plan
+     */
+    public static ExecutionPlan compile(Workflow workflow) {
+        List<Step> stepList = workflow.getSteps();
+        int stepCount = stepList.size();
+        Step[] steps = stepList.toArray(new Step[0]);
+
+        int[] offsets = new int[stepCount + 1];
+        for (int i = 0; i < stepCount; i++) {
+            offsets[i + 1] = offsets[i] + steps[i].getChildStepCount();
+        }
+
+        int totalChildSteps = offsets[stepCount];
+        ChildStep[] childSteps = new ChildStep[totalChildSteps];
+        int[] owners = new int[totalChildSteps];
+        boolean[] parallel = new boolean[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            parallel[i] = steps[i].isParallel();
+            for (int j = 0; j < steps[i].getChildStepCount(); j++) {
+                int global = offsets[i] + j;
+                childSteps[global] = steps[i].getChildStep(j);
+                owners[global] = i;
+            }
+        }
+
+        return new ExecutionPlan(workflow.getId(), steps, offsets, childSteps, owners, parallel,
+                StepDependencyGraph.build(stepList));
+    }
+
+    /**
+     * Gets the ID of the compiled workflow definition.
+     *
+     * @return the workflow ID
+     */
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    /**
+     * Gets the number of steps.
+     *
+     * @return the step count
+     */
+    public int getStepCount() {
+        return steps.length;
+    }
+
+    /**
+     * Gets a step by its index.
+     *
+     * @param stepIndex the step index
+     * @return the step
+     */
+    public Step getStep(int stepIndex) {
+        return steps[stepIndex];
+    }
+
+    /**
+     * Gets the total number of child steps across all steps.
+     *
+     * @return the total child step count
+     */
+    public int getTotalChildStepCount() {
+        return childSteps.length;
+    }
+
+    /**
+     * Gets a child step by its global index across all steps.
+     *
+     * @param globalChildStepIndex the global child step index
+     * @return the child step
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public ChildStep getChildStep(int globalChildStepIndex) {
+        checkChildStepIndex(globalChildStepIndex);
+        return childSteps[globalChildStepIndex];
+    }
+
+    /**
+     * Gets the index of the step owning the child step at a global index.
+     *
+     * @param globalChildStepIndex the global child step index
+     * @return the owning step index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getStepIndex(int globalChildStepIndex) {
+        checkChildStepIndex(globalChildStepIndex);
+        return childStepOwners[globalChildStepIndex];
+    }
+
+    /**
+     * Gets the index of a child step within its owning step.
+     *
+     * @param globalChildStepIndex the global child step index
+     * @return the child step index within its step
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getLocalChildStepIndex(int globalChildStepIndex) {
+        return globalChildStepIndex - stepStartOffsets[getStepIndex(globalChildStepIndex)];
+    }
+
+    /**
+     * Gets the global index of the first child step of a step.
+     *
+     * @param stepIndex the step index
+     * @return the global child step index at which the step starts
+     */
+    public int getStepStartIndex(int stepIndex) {
+        return stepStartOffsets[stepIndex];
+    }
+
+    /**
+     * Checks whether a step executes its child steps in parallel.
+     *
+     * @param stepIndex the step index
+     * @return true if the step is parallel, false otherwise
+     */
+    public boolean isParallel(int stepIndex) {
+        return parallel[stepIndex];
+    }
+
+    /**
+     * Gets the dependency graph between the steps.
+     *
+     * @return the step dependency graph
+     */
+    public StepDependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
+    private void checkChildStepIndex(int globalChildStepIndex) {
+        if (globalChildStepIndex < 0 || globalChildStepIndex >= childSteps.length) {
+            throw new IndexOutOfBoundsException("Global child step index out of range: " + globalChildStepIndex);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.uwf.workflow.common.plan;
+
+import com.uwf.workflow.common.model.Step;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable dependency graph between the steps of a workflow, derived from the
+ * workflow data keys each step declares it reads and writes.
+ * <p>
+ * A later step depends on an earlier one when they conflict on a key (read-after-write,
+ * write-after-read or write-after-write). A step that declares no keys is a barrier:
+ * it depends on every earlier step and every later step depends on it, so workflows
+ * without declarations keep their strict declaration order.
+ */
+public final class StepDependencyGraph {
+
+    private final int[][] predecessors;
+    private final int[][] successors;
+    private final boolean sequential;
+
+    private StepDependencyGraph(int[][] predecessors, int[][] successors, boolean sequential) {
+        this.predecessors = predecessors;
+        this.successors = successors;
+        this.sequential = sequential;
+    }
+
+    /**
+     * Builds the dependency graph for the given steps.
+     *
+     * @param steps the steps in declaration order
+     * @return the dependency graph
+     */
+    public static StepDependencyGraph build(List<Step> steps) {
+        int stepCount = steps.size();
+        List<List<Integer>> preds = new ArrayList<>(stepCount);
+        List<List<Integer>> succs = new ArrayList<>(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            preds.add(new ArrayList<>());
+            succs.add(new ArrayList<>());
+        }
+
+        boolean sequential = true;
+        for (int later = 1; later < stepCount; later++) {
+            for (int earlier = 0; earlier < later; earlier++) {
+                if (dependsOn(steps.get(later), steps.get(earlier))) {
+                    preds.get(later).add(earlier);
+                    succs.get(earlier).add(later);
+                }
+            }
+            if (!preds.get(later).contains(later - 1)) {
+                sequential = false;
+            }
+        }
+
+        return new StepDependencyGraph(toArrays(preds), toArrays(succs), sequential);
+    }
+
+    private static boolean dependsOn(Step later, Step earlier) {
+        if (!later.declaresDataDependencies() || !earlier.declaresDataDependencies()) {
+            return true;
+        }
+        return intersects(earlier.getWriteKeys(), later.getReadKeys())
+                || intersects(earlier.getWriteKeys(), later.getWriteKeys())
+                || intersects(earlier.getReadKeys(), later.getWriteKeys());
+    }
+
+    private static boolean intersects(Set<String> a, Set<String> b) {
+        return !Collections.disjoint(a, b);
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < lists.size(); i++) {
+            arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+
+    /**
+     * Gets the number of steps in the graph.
+     *
+     * @return the step count
+     */
+    public int getStepCount() {
+        return predecessors.length;
+    }
+
+    /**
+     * Gets the number of steps that must complete before the given step can start.
+     *
+     * @param stepIndex the step index
+     * @return the in-degree of the step
+     */
+    public int getDependencyCount(int stepIndex) {
+        return predecessors[stepIndex].length;
+    }
+
+    /**
+     * Gets the indices of the steps the given step depends on.
+     *
+     * @param stepIndex the step index
+     * @return a copy of the predecessor indices
+     */
+    public int[] getDependencies(int stepIndex) {
+        return predecessors[stepIndex].clone();
+    }
+
+    /**
+     * Gets the indices of the steps that depend on the given step.
+     *
+     * @param stepIndex the step index
+     * @return a copy of the successor indices
+     */
+    public int[] getDependents(int stepIndex) {
+        return successors[stepIndex].clone();
+    }
+
+    /**
+     * Checks whether every step depends on its predecessor, in which case the steps
+     * can only run one after another in declaration order.
+     *
+     * @return true if the graph is a chain, false if some steps can run concurrently
+     */
+    public boolean isSequential() {
+        return sequential;
+    }
+}
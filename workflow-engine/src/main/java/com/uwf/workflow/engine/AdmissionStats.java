@@ -0,0 +1,23 @@
+package com.uwf.workflow.engine;
+
+import com.uwf.workflow.engine.config.AdmissionPolicy;
+
+/**
+ * Immutable snapshot of the admission control in front of the workflow queue.
+ *
+ * @param policy what happens to submissions while the queue is at capacity
+ * @param maxQueuedRuns the queue capacity, 0 if unbounded
+ * @param queuedRuns the number of run IDs currently waiting in the queue
+ * @param drainRatePerSecond the estimated number of runs the workers complete per second, -1 if not measured yet
+ * @param rejectedRuns the number of submissions rejected since startup
+ * @param shedRuns the number of queued runs dropped to admit a run of higher priority
+ */
+public record AdmissionStats(
+        AdmissionPolicy policy,
+        int maxQueuedRuns,
+        int queuedRuns,
+        double drainRatePerSecond,
+        long rejectedRuns,
+        long shedRuns
+) {
+}
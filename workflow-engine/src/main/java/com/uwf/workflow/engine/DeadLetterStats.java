@@ -0,0 +1,27 @@
+package com.uwf.workflow.engine;
+
+import com.uwf.workflow.common.deadletter.DeadLetterReason;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the dead-letter queue and of the redrives in progress.
+ *
+ * @param deadLetteredRuns the number of runs currently in the dead-letter queue
+ * @param countsByReason the number of runs currently in the dead-letter queue, per reason
+ * @param totalCountsByReason the number of runs ever dead-lettered, per reason
+ * @param evictedRuns the number of dead letters dropped because the queue was full
+ * @param pendingRedrives the number of redriven runs waiting to be re-enqueued
+ * @param redrivenRuns the number of runs re-enqueued by redrives
+ * @param skippedRedrives the number of redriven runs not re-enqueued because they were no longer FAILED or their state was gone
+ */
+public record DeadLetterStats(
+        int deadLetteredRuns,
+        Map<DeadLetterReason, Integer> countsByReason,
+        Map<DeadLetterReason, Long> totalCountsByReason,
+        long evictedRuns,
+        int pendingRedrives,
+        long redrivenRuns,
+        long skippedRedrives
+) {
+}
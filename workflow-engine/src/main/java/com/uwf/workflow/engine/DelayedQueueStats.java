@@ -0,0 +1,17 @@
+package com.uwf.workflow.engine;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the run IDs waiting in the workflow queue for a retry backoff or
+ * scheduled start to elapse.
+ *
+ * @param delayedRuns the number of delayed run IDs
+ * @param depthByDueTimeMillis the number of delayed run IDs per due-time horizon in milliseconds,
+ *                             nearest horizon first; empty if the queue does not track it
+ */
+public record DelayedQueueStats(
+        int delayedRuns,
+        Map<Long, Long> depthByDueTimeMillis
+) {
+}
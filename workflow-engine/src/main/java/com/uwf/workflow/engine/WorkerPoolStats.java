@@ -0,0 +1,31 @@
+package com.uwf.workflow.engine;
+
+import com.uwf.workflow.engine.config.ExecutionMode;
+
+/**
+ * Immutable snapshot of the workflow executor's worker pool.
+ *
+ * @param executionMode whether runs execute on platform worker threads or virtual threads
+ * @param poolSize the number of worker loops draining the queue
+ * @param activeWorkers the number of platform workers currently executing a run
+ * @param inFlightRuns the number of runs dequeued and not yet finished
+ * @param queueDepth the number of run IDs waiting in the queue
+ * @param submittedRuns the total number of runs submitted since startup
+ * @param completedRuns the total number of runs processed since startup
+ * @param averageQueueWaitMillis the mean time a run spent queued before a worker picked it up
+ * @param maxQueueWaitMillis the longest time a run spent queued before a worker picked it up
+ * @param processingEnabled whether the queue currently allows new runs to be dequeued
+ */
+public record WorkerPoolStats(
+        ExecutionMode executionMode,
+        int poolSize,
+        int activeWorkers,
+        int inFlightRuns,
+        int queueDepth,
+        long submittedRuns,
+        long completedRuns,
+        double averageQueueWaitMillis,
+        long maxQueueWaitMillis,
+        boolean processingEnabled
+) {
+}
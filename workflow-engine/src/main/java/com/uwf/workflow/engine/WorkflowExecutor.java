@@ -1,56 +1,244 @@
 package com.uwf.workflow.engine;
 
+import com.uwf.workflow.common.deadletter.DeadLetter;
+import com.uwf.workflow.common.deadletter.DeadLetterReason;
+import com.uwf.workflow.common.exception.StepTimeoutException;
+import com.uwf.workflow.common.execution.ChildStepExecution;
+import com.uwf.workflow.common.execution.ExecutionListener;
+import com.uwf.workflow.common.execution.StepExecution;
+import com.uwf.workflow.common.execution.StepScopedData;
 import com.uwf.workflow.common.model.Step;
 import com.uwf.workflow.common.model.Workflow;
+import com.uwf.workflow.common.model.WorkflowPriority;
+import com.uwf.workflow.common.plan.ExecutionPlan;
+import com.uwf.workflow.engine.config.AdmissionPolicy;
+import com.uwf.workflow.engine.config.ExecutionMode;
+import com.uwf.workflow.engine.config.WorkflowExecutorProperties;
+import com.uwf.workflow.engine.deadletter.DeadLetterRedriver;
+import com.uwf.workflow.engine.diagnostics.PinningReport;
+import com.uwf.workflow.engine.diagnostics.VirtualThreadPinningMonitor;
+import com.uwf.workflow.engine.exception.WorkflowRejectedException;
+import com.uwf.workflow.engine.execution.DrainRateEstimator;
+import com.uwf.workflow.engine.execution.RunExecution;
+import com.uwf.workflow.engine.execution.RunExecutionTracker;
+import com.uwf.workflow.engine.retry.RetryDecision;
+import com.uwf.workflow.engine.retry.RetryPlanner;
+import com.uwf.workflow.engine.scheduling.StepGraphRunner;
 import com.uwf.workflow.engine.state.StateManagement;
+import com.uwf.workflow.engine.state.WorkflowCheckpoint;
 import com.uwf.workflow.primitive.api.Primitives;
+import com.uwf.workflow.primitive.model.CancellationToken;
+import com.uwf.workflow.queue.DeadLetterQueue;
+import com.uwf.workflow.queue.TenantStats;
 import com.uwf.workflow.queue.WorkflowQueue;
 import com.uwf.workflow.registry.WorkflowRegistry;
 import com.uwf.workflow.primitive.model.WorkflowContext;
 import com.uwf.workflow.primitive.model.WorkflowData;
 import com.uwf.workflow.primitive.model.WorkflowStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Core orchestration service for executing workflows asynchronously.
- * Simplified version that provides basic workflow execution functionality.
+ * Submitted runs are placed on the {@link WorkflowQueue} and drained by a fixed
+ * pool of worker loops, so a submission burst grows the queue rather than the thread count.
+ * In {@link ExecutionMode#VIRTUAL} mode the workers only dispatch, and each run executes
+ * on its own virtual thread, bounded by {@code workflow.executor.max-concurrent-runs}.
+ * <p>
+ * A checkpoint is saved after every completed step. On startup, runs that the state store
+ * still holds in a non-terminal status are re-enqueued and resume after their last
+ * completed step instead of starting over.
+ * <p>
+ * Each executing run has a {@link CancellationToken} bound to all threads working for it;
+ * {@link #cancel(String)} removes a queued run from the queue or cancels the token of a
+ * running one, interrupting its steps and cancelling its pending primitive futures.
+ * Run, step and child step timeouts use the same mechanism: the token expires at the
+ * deadline, which is also handed to the steps through {@link WorkflowContext#deadline()}.
+ * <p>
+ * A failed step or child step with a {@link com.uwf.workflow.common.model.RetryPolicy} is
+ * retried by rejecting the run back to the queue with the backoff as delay; the worker is
+ * freed immediately and the next attempt resumes from the run's checkpoint.
+ * <p>
+ * A run that fails for good, or whose workflow definition is missing, is marked FAILED and
+ * moved to the {@link DeadLetterQueue} with its reason. Dead-lettered runs can be redriven
+ * in bulk; they are re-enqueued at {@code workflow.executor.redrive-rate-per-second} and
+ * resume from their checkpoint with their retry attempts reset.
+ * <p>
+ * Submissions pass admission control: while the queue holds {@code workflow.executor.max-queued-runs}
+ * run IDs, a submission is rejected, waits for room, or sheds a queued run of lower priority,
+ * depending on the {@link AdmissionPolicy}. The bound is checked, not reserved, so concurrent
+ * submitters can overshoot it by at most their number. A rejection carries a retry delay
+ * estimated from the current drain rate.
+ * <p>
+ * If the queue leases delivered run IDs, every run that was dequeued and not yet settled
+ * has its lease extended at a third of the visibility timeout, so long runs are not
+ * redelivered while this node is alive, and runs of a node that died are.
  */
 @Service
 public class WorkflowExecutor {
 
+    private static final String WORKFLOW_METRICS_KEY = "workflow_metrics";
+
     private final StateManagement stateManagement;
     private final WorkflowQueue workflowQueue;
+    private final DeadLetterQueue deadLetterQueue;
     private final WorkflowRegistry workflowRegistry;
     private final Primitives primitives;
-    
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final WorkflowExecutorProperties properties;
+
+    private final ExecutorService workerPool;
+    private final ExecutorService runExecutor;
+    private final ExecutorService parallelExecutor;
+    private final ExecutorService stepExecutor;
+    private final StepGraphRunner stepGraphRunner;
+    private final RunExecutionTracker runExecutions = new RunExecutionTracker();
+    private final RetryPlanner retryPlanner = new RetryPlanner();
+    private final ExecutionListener executionListener = new CheckpointingExecutionListener();
+    private final Map<String, WorkflowData> activeRunData = new ConcurrentHashMap<>();
+    private final Map<String, CancellationToken> runTokens = new ConcurrentHashMap<>();
+    // Run IDs dequeued and not yet acknowledged or rejected, whose leases the heartbeat extends
+    private final Set<String> deliveredRuns = ConcurrentHashMap.newKeySet();
+    private final Semaphore runPermits;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final ScheduledExecutorService leaseHeartbeat;
+    private final DeadLetterRedriver deadLetterRedriver;
+    private final ConcurrentLinkedQueue<Thread> idleWorkers = new ConcurrentLinkedQueue<>();
+    // Submitters waiting for room in the queue under the BLOCK admission policy
+    private final ConcurrentLinkedQueue<Thread> admissionWaiters = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> enqueueTimes = new ConcurrentHashMap<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicInteger inFlightRuns = new AtomicInteger();
+    private final LongAdder submittedRuns = new LongAdder();
+    private final LongAdder completedRuns = new LongAdder();
+    private final LongAdder queueWaitSamples = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final LongAdder rejectedRuns = new LongAdder();
+    private final LongAdder shedRuns = new LongAdder();
+    private final DrainRateEstimator drainRate = new DrainRateEstimator(completedRuns::sum);
+    private volatile boolean running;
+
+    public WorkflowExecutor(StateManagement stateManagement,
+                           WorkflowQueue workflowQueue,
+                           WorkflowRegistry workflowRegistry,
+                           Primitives primitives,
+                           WorkflowExecutorProperties properties) {
+        this(stateManagement, workflowQueue, new DeadLetterQueue(), workflowRegistry, primitives, properties);
+    }
 
     @Autowired
     public WorkflowExecutor(StateManagement stateManagement,
                            WorkflowQueue workflowQueue,
+                           DeadLetterQueue deadLetterQueue,
                            WorkflowRegistry workflowRegistry,
-                           Primitives primitives) {
+                           Primitives primitives,
+                           WorkflowExecutorProperties properties) {
+        if (properties.getAdmissionPolicy() == AdmissionPolicy.SHED_LOWEST_PRIORITY
+                && !workflowQueue.supportsPriorityShedding()) {
+            throw new IllegalStateException("Admission policy SHED_LOWEST_PRIORITY needs a queue that sheds by priority, but "
+                    + workflowQueue.getClass().getSimpleName() + " does not; set workflow.queue.type=priority "
+                    + "or choose another workflow.executor.admission-policy");
+        }
         this.stateManagement = stateManagement;
         this.workflowQueue = workflowQueue;
+        this.deadLetterQueue = deadLetterQueue;
         this.workflowRegistry = workflowRegistry;
         this.primitives = primitives;
+        this.properties = properties;
+        this.workerPool = Executors.newFixedThreadPool(getPoolSize(), new WorkerThreadFactory("workflow-worker-"));
+        this.runExecutor = properties.getExecutionMode() == ExecutionMode.VIRTUAL
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("workflow-run-", 0).factory())
+                : null;
+        this.runPermits = runExecutor != null ? new Semaphore(Math.max(1, properties.getMaxConcurrentRuns())) : null;
+        this.parallelExecutor = properties.isVirtualChildSteps()
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("workflow-child-step-", 0).factory())
+                : Executors.newFixedThreadPool(Math.max(1, properties.getParallelChildStepPoolSize()),
+                        new WorkerThreadFactory("workflow-parallel-"));
+        this.stepExecutor = runExecutor != null
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("workflow-step-", 0).factory())
+                : Executors.newFixedThreadPool(Math.max(1, properties.getStepPoolSize()),
+                        new WorkerThreadFactory("workflow-step-"));
+        this.stepGraphRunner = new StepGraphRunner(stepExecutor);
+        this.pinningMonitor = properties.isPinningDetectionEnabled()
+                ? new VirtualThreadPinningMonitor(properties.getPinningThresholdMillis())
+                : null;
+        this.leaseHeartbeat = workflowQueue.getVisibilityTimeoutMillis() > 0
+                ? Executors.newSingleThreadScheduledExecutor(new WorkerThreadFactory("workflow-lease-heartbeat-"))
+                : null;
+        this.deadLetterRedriver = new DeadLetterRedriver(properties.getRedriveRatePerSecond(), this::redrive);
     }
 
     /**
-     * Submits a workflow for execution and returns a run ID.
+     * Starts the worker loops that drain the workflow queue.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (pinningMonitor != null) {
+            pinningMonitor.start();
+        }
+        if (leaseHeartbeat != null) {
+            long intervalMillis = Math.max(1, workflowQueue.getVisibilityTimeoutMillis() / 3);
+            leaseHeartbeat.scheduleAtFixedRate(this::extendLeases, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        // Workers sharing a partition of a partitioned queue form its worker group
+        int partitions = Math.max(1, workflowQueue.getPartitionCount());
+        for (int i = 0; i < getPoolSize(); i++) {
+            int partition = i % partitions;
+            workerPool.submit(() -> workerLoop(partition));
+        }
+    }
+
+    /**
+     * Submits a workflow for execution with the workflow's own priority and returns a run ID.
      *
      * @param workflow the workflow to execute
      * @return the unique run ID for this execution
      */
     public String submitWorkflow(Workflow workflow) {
+        return submitWorkflow(workflow, workflow.getPriority());
+    }
+
+    /**
+     * Submits a workflow for execution with the given priority and returns a run ID.
+     *
+     * @param workflow the workflow to execute
+     * @param priority the priority the run is queued with
+     * @return the unique run ID for this execution
+     * @throws WorkflowRejectedException if the queue is at capacity and the admission policy refuses the run
+     */
+    public String submitWorkflow(Workflow workflow, WorkflowPriority priority) {
+        admit(priority);
         String runId = UUID.randomUUID().toString();
         
         // Create initial context
@@ -68,8 +256,8 @@ public class WorkflowExecutor {
         
         WorkflowData initialData = new WorkflowData();
 
-        // Inject primitives into the workflow and all its steps
-        workflow.setPrimitives(primitives);
+        // Inject primitives and executors into the workflow and all its steps
+        prepareWorkflow(workflow);
 
         // Register workflow if not already registered
         if (!workflowRegistry.containsWorkflow(workflow.getId())) {
@@ -78,14 +266,156 @@ public class WorkflowExecutor {
 
         stateManagement.saveContext(initialContext);
         stateManagement.saveData(runId, initialData);
-        workflowQueue.enqueue(runId);
+        enqueueTimes.put(runId, System.nanoTime());
+        submittedRuns.increment();
+        workflowQueue.enqueue(runId, priority, workflow.getId());
 
-        // Start processing
-        executorService.submit(() -> processWorkflow(runId));
+        // Wake an idle worker instead of waiting for its next poll
+        wakeIdleWorker();
 
         return runId;
     }
 
+    /**
+     * Applies the admission policy if the queue is at capacity.
+     *
+     * @throws WorkflowRejectedException if the submission is not admitted
+     */
+    private void admit(WorkflowPriority priority) {
+        int capacity = properties.getMaxQueuedRuns();
+        if (capacity <= 0 || workflowQueue.size() < capacity) {
+            return;
+        }
+        switch (properties.getAdmissionPolicy()) {
+            case BLOCK -> {
+                if (awaitQueueCapacity(capacity)) {
+                    return;
+                }
+            }
+            case SHED_LOWEST_PRIORITY -> {
+                String shedRunId = workflowQueue.shedLowerPriority(priority);
+                if (shedRunId != null) {
+                    shed(shedRunId);
+                    return;
+                }
+            }
+            case REJECT -> {
+                // rejected below
+            }
+        }
+        rejectedRuns.increment();
+        throw new WorkflowRejectedException("Workflow queue is at capacity (" + capacity + " queued runs)",
+                estimateRetryAfterSeconds(capacity));
+    }
+
+    /**
+     * Parks the submitter until workers take runs off the queue or the admission timeout elapses.
+     * The waiter is registered before the size is read, so a dequeue in between unparks it
+     * ahead of the park instead of being missed.
+     */
+    private boolean awaitQueueCapacity(int capacity) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getAdmissionTimeoutMillis());
+        Thread current = Thread.currentThread();
+        admissionWaiters.offer(current);
+        try {
+            while (workflowQueue.size() >= capacity) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || current.isInterrupted()) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            return true;
+        } finally {
+            admissionWaiters.remove(current);
+        }
+    }
+
+    private void wakeAdmissionWaiters() {
+        for (Thread waiter : admissionWaiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Estimates the seconds until the queue has drained below capacity, between 1 and 60.
+     * Without a measured drain rate the shortest delay is used; a stalled drain gets the longest.
+     */
+    private long estimateRetryAfterSeconds(int capacity) {
+        double rate = drainRate.getRatePerSecond();
+        if (rate < 0) {
+            return 1;
+        }
+        if (rate == 0) {
+            return 60;
+        }
+        long excess = workflowQueue.size() - capacity + 1L;
+        return Math.max(1, Math.min(60, (long) Math.ceil(excess / rate)));
+    }
+
+    /**
+     * Marks a run that was dropped from the queue FAILED and dead-letters it, so it can be redriven later.
+     */
+    private void shed(String runId) {
+        shedRuns.increment();
+        enqueueTimes.remove(runId);
+        WorkflowContext context = stateManagement.getContext(runId);
+        if (context != null) {
+            failAndDeadLetter(context, DeadLetterReason.SHED, "Shed from the full workflow queue to admit a higher priority run");
+        }
+    }
+
+    private void prepareWorkflow(Workflow workflow) {
+        workflow.setPrimitives(primitives);
+        workflow.setParallelExecutor(parallelExecutor);
+        workflow.setExecutionListener(executionListener);
+    }
+
+    /**
+     * Recovers unfinished runs once the application is ready, so that every
+     * workflow definition has been registered before the runs are resumed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        if (properties.isRecoverOnStartup()) {
+            recoverRuns();
+        }
+    }
+
+    /**
+     * Re-enqueues the runs that the state store holds in a non-terminal status,
+     * typically because the node stopped while they were queued or running.
+     * Runs the queue already holds, such as those a durable queue replayed, are left as they are.
+     * Each recovered run resumes from its last checkpoint.
+     *
+     * @return the number of recovered runs
+     */
+    public int recoverRuns() {
+        int recovered = 0;
+        for (String runId : stateManagement.getNonTerminalRunIds()) {
+            WorkflowContext context = stateManagement.getContext(runId);
+            if (context == null || context.status().isTerminal() || !stateManagement.containsData(runId)) {
+                continue;
+            }
+            // Recovered definitions have not been through submitWorkflow on this node
+            Optional<Workflow> workflow = workflowRegistry.getWorkflow(context.workflowDefinitionId());
+            workflow.ifPresent(this::prepareWorkflow);
+            // A durable queue replays the runs it still holds, keeping the backoff of pending retries
+            if (workflowQueue.contains(runId)) {
+                continue;
+            }
+            enqueueTimes.put(runId, System.nanoTime());
+            workflowQueue.enqueue(runId, workflow.map(Workflow::getPriority).orElse(WorkflowPriority.NORMAL),
+                    context.workflowDefinitionId());
+            recovered++;
+        }
+        if (recovered > 0) {
+            System.out.println("[WorkflowExecutor] Recovered " + recovered + " unfinished run(s) from the state store");
+            wakeIdleWorker();
+        }
+        return recovered;
+    }
+
     /**
      * Submits a workflow by ID for execution and returns a run ID.
      *
@@ -100,107 +430,521 @@ public class WorkflowExecutor {
     }
 
     /**
-     * Processes a workflow from the queue.
+     * Submits a workflow by ID for execution with the given priority and returns a run ID.
+     *
+     * @param workflowId the ID of the workflow to execute
+     * @param priority the priority the run is queued with
+     * @return the unique run ID for this execution
+     * @throws IllegalArgumentException if the workflow is not found
      */
-    private void processWorkflow(String runId) {
-        WorkflowContext context = stateManagement.getContext(runId);
-        WorkflowData data = stateManagement.getData(runId);
+    public String submitWorkflow(String workflowId, WorkflowPriority priority) {
+        Workflow workflow = workflowRegistry.getWorkflow(workflowId)
+                .orElseThrow(() -> new IllegalArgumentException("Workflow not found: " + workflowId));
+        return submitWorkflow(workflow, priority);
+    }
 
-        if (context == null || data == null) {
-            return;
+    /**
+     * Worker loop: repeatedly takes a batch of run IDs from the queue and processes them,
+     * either inline or, in virtual mode, each on a new virtual thread.
+     * Waits inside the queue while it is empty and parks while processing is disabled.
+     *
+     * @param partition the queue partition this worker dequeues from first
+     */
+    private void workerLoop(int partition) {
+        while (running) {
+            int permits = acquireRunPermits();
+            if (permits == 0) {
+                continue;
+            }
+
+            if (!workflowQueue.isProcessingEnabled()) {
+                releaseRunPermits(permits);
+                awaitWork();
+                continue;
+            }
+
+            List<String> batch;
+            try {
+                batch = workflowQueue.dequeueBatch(partition, batchLimit(permits),
+                        properties.getIdlePollMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                releaseRunPermits(permits);
+                continue;
+            }
+            releaseRunPermits(permits - batch.size());
+            deliveredRuns.addAll(batch);
+            if (!batch.isEmpty()) {
+                wakeAdmissionWaiters();
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                String runId = batch.get(i);
+                if (!running && runExecutor == null) {
+                    // Hand the rest of the batch back so it survives the shutdown in the queue
+                    for (String undispatched : batch.subList(i, batch.size())) {
+                        deliveredRuns.remove(undispatched);
+                        workflowQueue.reject(undispatched, 0);
+                    }
+                    break;
+                }
+                dispatch(runId);
+            }
         }
+    }
 
-        if (context.status().isTerminal()) {
-            return;
+    /**
+     * Caps a batch at the free run permits in virtual mode. Platform workers run their batch
+     * inline one run after another, so they take no more than their share of the backlog.
+     */
+    private int batchLimit(int permits) {
+        int batchSize = Math.max(1, properties.getDequeueBatchSize());
+        if (runExecutor != null) {
+            return Math.min(batchSize, permits);
         }
+        return Math.max(1, Math.min(batchSize, workflowQueue.size() / getPoolSize()));
+    }
 
+    private void dispatch(String runId) {
+        recordQueueWait(runId);
+        inFlightRuns.incrementAndGet();
+        if (runExecutor != null) {
+            runExecutor.execute(() -> runDequeued(runId));
+        } else {
+            activeWorkers.incrementAndGet();
+            try {
+                runDequeued(runId);
+            } finally {
+                activeWorkers.decrementAndGet();
+            }
+        }
+    }
+
+    private void runDequeued(String runId) {
         try {
-            Workflow workflow = workflowRegistry.getWorkflow(context.workflowDefinitionId())
-                    .orElseThrow(() -> new IllegalArgumentException("Workflow not found: " + context.workflowDefinitionId()));
+            processWorkflow(runId);
+        } catch (Throwable t) {
+            System.err.println("[WorkflowExecutor] Worker failed processing run " + runId + ": " + t.getMessage());
+        } finally {
+            inFlightRuns.decrementAndGet();
+            completedRuns.increment();
+            drainRate.sample();
+            releaseRunPermit();
+        }
+    }
 
-            executeWorkflow(runId, context, data, workflow);
-        } catch (Exception e) {
-            WorkflowContext failedContext = context.withStatus(WorkflowStatus.FAILED)
-                    .withErrorMessage("Execution error: " + e.getMessage())
-                    .withEndTime(Instant.now());
-            stateManagement.saveContext(failedContext);
+    /**
+     * Waits for a free run slot in virtual mode, where the thread count no longer bounds concurrency,
+     * then takes further free slots without waiting, up to the dequeue batch size.
+     *
+     * @return the number of slots acquired (always 1 in platform mode), 0 if the wait timed out
+     */
+    private int acquireRunPermits() {
+        if (runPermits == null) {
+            return 1;
+        }
+        try {
+            if (!runPermits.tryAcquire(properties.getIdlePollMillis(), TimeUnit.MILLISECONDS)) {
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        int permits = 1;
+        int batchSize = Math.max(1, properties.getDequeueBatchSize());
+        while (permits < batchSize && runPermits.tryAcquire()) {
+            permits++;
+        }
+        return permits;
+    }
+
+    private void releaseRunPermit() {
+        releaseRunPermits(1);
+    }
+
+    private void releaseRunPermits(int permits) {
+        if (runPermits != null && permits > 0) {
+            runPermits.release(permits);
+        }
+    }
+
+    /**
+     * Parks the calling worker until it is woken by a submission or the idle poll interval elapses.
+     */
+    private void awaitWork() {
+        Thread current = Thread.currentThread();
+        idleWorkers.offer(current);
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(properties.getIdlePollMillis()));
+        idleWorkers.remove(current);
+    }
+
+    private void wakeIdleWorker() {
+        Thread idle = idleWorkers.poll();
+        if (idle != null) {
+            LockSupport.unpark(idle);
+        }
+    }
+
+    private void recordQueueWait(String runId) {
+        Long enqueuedAt = enqueueTimes.remove(runId);
+        if (enqueuedAt == null) {
+            return;
+        }
+        long waitNanos = System.nanoTime() - enqueuedAt;
+        queueWaitSamples.increment();
+        totalQueueWaitNanos.add(waitNanos);
+        maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Processes a workflow from the queue.
+     */
+    private void processWorkflow(String runId) {
+        // Publish the token before reading the context, so a concurrent cancel either
+        // finds the token or has already marked the run cancelled
+        CancellationToken token = new CancellationToken();
+        runTokens.put(runId, token);
+        boolean rescheduled = false;
+        try (CancellationToken.Scope ignored = token.bind()) {
+            WorkflowContext context = stateManagement.getContext(runId);
+            WorkflowData data = stateManagement.getData(runId);
+
+            if (context == null || data == null) {
+                return;
+            }
+
+            if (context.status().isTerminal()) {
+                return;
+            }
+
+            Optional<Workflow> definition = workflowRegistry.getWorkflow(context.workflowDefinitionId());
+            if (definition.isEmpty()) {
+                failAndDeadLetter(context, DeadLetterReason.WORKFLOW_NOT_FOUND,
+                        "Workflow not found: " + context.workflowDefinitionId());
+                return;
+            }
+
+            try {
+                Workflow workflow = definition.get();
+                ExecutionPlan plan = workflowRegistry.getExecutionPlan(context.workflowDefinitionId())
+                        .orElseGet(workflow::getExecutionPlan);
+
+                rescheduled = executeWorkflow(runId, context, data, workflow, plan, token);
+            } catch (FinalStepFailureException e) {
+                // The failed context is already saved with the progress of the run
+                deadLetter(e.failedContext, e.reason);
+            } catch (Exception e) {
+                failAndDeadLetter(context, DeadLetterReason.EXECUTION_ERROR, "Execution error: " + e.getMessage());
+            }
+        } finally {
+            runTokens.remove(runId);
+            deliveredRuns.remove(runId);
+            // Every delivery that is not retried is settled, so durable queues can release it
+            if (!rescheduled) {
+                workflowQueue.acknowledge(runId);
+            }
+        }
+    }
+
+    /**
+     * Marks a run FAILED and moves it to the dead-letter queue.
+     */
+    private void failAndDeadLetter(WorkflowContext context, DeadLetterReason reason, String errorMessage) {
+        WorkflowContext failedContext = context.withStatus(WorkflowStatus.FAILED)
+                .withErrorMessage(errorMessage)
+                .withEndTime(Instant.now());
+        stateManagement.saveContext(failedContext);
+        deadLetter(failedContext, reason);
+    }
+
+    /**
+     * Moves a run whose FAILED context has been saved to the dead-letter queue. Its state is kept
+     * while it is dead-lettered, so it can still be redriven after the terminal-run TTL; the state
+     * of a dead letter evicted to make room goes back to the normal retention.
+     */
+    private void deadLetter(WorkflowContext failedContext, DeadLetterReason reason) {
+        stateManagement.keepState(failedContext.runId());
+        DeadLetter evicted = deadLetterQueue.add(new DeadLetter(failedContext.runId(),
+                failedContext.workflowDefinitionId(), reason, failedContext.errorMessage(), failedContext.endTime()));
+        if (evicted != null) {
+            stateManagement.releaseState(evicted.runId());
+        }
+        System.err.println("[WorkflowExecutor] Dead-lettered run " + failedContext.runId() + " (" + reason + "): "
+                + failedContext.errorMessage());
+    }
+
+    /**
+     * Heartbeat: extends the leases of all delivered runs that are not settled yet.
+     * A run whose lease could not be extended has already been delivered again.
+     */
+    private void extendLeases() {
+        for (String runId : deliveredRuns) {
+            if (!workflowQueue.extendLease(runId) && deliveredRuns.contains(runId)) {
+                System.err.println("[WorkflowExecutor] Lease of run " + runId + " was lost, the run may execute twice");
+            }
         }
     }
 
     /**
      * Executes a workflow.
+     *
+     * @return true if the run was rejected back to the queue for a retry, false if it finished
      */
-    private void executeWorkflow(String runId, WorkflowContext context, WorkflowData data, Workflow workflow) throws Exception {
-        WorkflowContext runningContext = context.withStatus(WorkflowStatus.RUNNING).withStartTime(Instant.now());
+    private boolean executeWorkflow(String runId, WorkflowContext context, WorkflowData data,
+                                 Workflow workflow, ExecutionPlan plan, CancellationToken token) throws Exception {
+        // A resumed run keeps its original start time, and with it its deadline
+        Instant startTime = context.startTime() != null ? context.startTime() : Instant.now();
+        Instant deadline = workflow.getTimeout() != null ? startTime.plus(workflow.getTimeout()) : null;
+        WorkflowContext runningContext = context.withStatus(WorkflowStatus.RUNNING)
+                .withErrorMessage(null)
+                .withStartTime(startTime)
+                .withDeadline(deadline);
         stateManagement.saveContext(runningContext);
+        if (deadline != null) {
+            token.expireAt(deadline, "Workflow run timed out after " + workflow.getTimeout().toMillis() + " ms");
+        }
+        runExecutions.begin(runId, workflow.getId(), runningContext.startTime());
+        activeRunData.put(runId, data);
+
+        WorkflowCheckpoint savedCheckpoint = stateManagement.getCheckpoint(runId);
+        AtomicReference<WorkflowCheckpoint> checkpoint = new AtomicReference<>(
+                savedCheckpoint != null ? savedCheckpoint : WorkflowCheckpoint.empty(runId));
+        if (!checkpoint.get().completedSteps().isEmpty()) {
+            System.out.println("[WorkflowExecutor] Resuming run " + runId + " after "
+                    + checkpoint.get().completedSteps().size() + " completed step(s)");
+        }
 
         // Store workflow metrics
-        storeWorkflowMetrics(workflow, data, runningContext.startTime(), null);
+        storeWorkflowMetrics(workflow, plan, data, runningContext.startTime(), null);
+        AtomicInteger failedStep = new AtomicInteger(-1);
 
         try {
-            // Execute all steps in the workflow
-            for (int stepIndex = 0; stepIndex < workflow.getStepCount(); stepIndex++) {
-                Step step = workflow.getStep(stepIndex);
-                
+            // Execute all steps in the workflow; steps without declared data
+            // dependencies run in order, independent branches run concurrently
+            stepGraphRunner.run(plan.getDependencyGraph(), stepIndex -> {
+                if (checkpoint.get().isStepCompleted(stepIndex)) {
+                    return;
+                }
+                token.throwIfCancelled();
+                Step step = plan.getStep(stepIndex);
+
                 // Update context with current step
                 WorkflowContext stepContext = runningContext
                         .withCurrentStepIndex(stepIndex)
                         .withLastAttemptedStep(step.getName());
                 stateManagement.saveContext(stepContext);
 
-                // Execute the step
-                step.run(stepContext, data);
+                // Execute the step on a view that records its writes, for its data diff
+                try {
+                    runStep(step, stepContext, new StepScopedData(data));
+                } catch (Exception e) {
+                    failedStep.compareAndSet(-1, stepIndex);
+                    throw e;
+                }
                 
-                // Save updated data
+                // Save updated data before the checkpoint that refers to it
                 stateManagement.saveData(runId, data);
-            }
+                stateManagement.saveCheckpoint(checkpoint.updateAndGet(c -> c.withCompletedStep(stepIndex)));
+            });
 
-            // Workflow completed successfully
+            // Workflow completed successfully, unless it was cancelled or timed out after its last step
             Instant endTime = Instant.now();
-            WorkflowContext completedContext = runningContext
-                    .withStatus(WorkflowStatus.COMPLETED)
-                    .withEndTime(endTime);
+            WorkflowContext completedContext = token.finish()
+                    ? runningContext.withStatus(WorkflowStatus.COMPLETED).withEndTime(endTime)
+                    : abortedContext(token, runningContext, endTime);
             stateManagement.saveContext(completedContext);
             
             // Update workflow metrics with completion time
-            storeWorkflowMetrics(workflow, data, runningContext.startTime(), endTime);
+            storeWorkflowMetrics(workflow, plan, data, runningContext.startTime(), endTime);
+            return false;
 
         } catch (Exception e) {
-            // Workflow failed
             Instant endTime = Instant.now();
-            WorkflowContext failedContext = runningContext
+            if (!token.finish()) {
+                // Workflow cancelled or timed out; failures caused by the interruption are expected
+                stateManagement.saveContext(abortedContext(token, runningContext, endTime));
+                storeWorkflowMetrics(workflow, plan, data, runningContext.startTime(), endTime);
+                return false;
+            }
+
+            // Step failed with a retry policy that allows another attempt
+            if (failedStep.get() >= 0) {
+                Optional<RetryDecision> retry = retryPlanner.plan(plan.getStep(failedStep.get()), checkpoint.get(), e);
+                if (retry.isPresent()) {
+                    scheduleRetry(runId, runningContext, data, checkpoint, retry.get(), e);
+                    return true;
+                }
+            }
+
+            // Workflow failed; the caller dead-letters the run with the reason the failure is final
+            DeadLetterReason reason = failedStep.get() >= 0
+                    ? retryPlanner.classifyFinalFailure(plan.getStep(failedStep.get()), e)
+                    : DeadLetterReason.EXECUTION_ERROR;
+            WorkflowContext failedContext = (failedStep.get() >= 0
+                    ? runningContext.withCurrentStepIndex(failedStep.get())
+                            .withLastAttemptedStep(plan.getStep(failedStep.get()).getName())
+                    : runningContext)
                     .withStatus(WorkflowStatus.FAILED)
                     .withErrorMessage("Step execution failed: " + e.getMessage())
                     .withEndTime(endTime);
             stateManagement.saveContext(failedContext);
             
             // Update workflow metrics with failure time
-            storeWorkflowMetrics(workflow, data, runningContext.startTime(), endTime);
+            storeWorkflowMetrics(workflow, plan, data, runningContext.startTime(), endTime);
+            throw new FinalStepFailureException(reason, failedContext, e);
+        } finally {
+            activeRunData.remove(runId);
+            runExecutions.end(runId);
+        }
+    }
+
+    /**
+     * Records a failed attempt and rejects the run back to the queue, which makes it
+     * available again once the backoff has elapsed. No thread waits for the backoff.
+     */
+    private void scheduleRetry(String runId, WorkflowContext runningContext, WorkflowData data,
+                               AtomicReference<WorkflowCheckpoint> checkpoint, RetryDecision retry,
+                               Exception failure) {
+        long backoffMillis = retry.backoff().toMillis();
+        stateManagement.saveData(runId, data);
+        stateManagement.saveCheckpoint(checkpoint.updateAndGet(c -> c.withFailedAttempt(retry.retryKey())));
+        stateManagement.saveContext(runningContext
+                .withStatus(WorkflowStatus.PENDING)
+                .withErrorMessage("Attempt " + retry.failedAttempts() + " of " + retry.maxAttempts()
+                        + " of '" + retry.retryKey() + "' failed, retrying in " + backoffMillis + " ms: "
+                        + failure.getMessage()));
+        System.out.println("[WorkflowExecutor] Retrying '" + retry.retryKey() + "' of run " + runId
+                + " in " + backoffMillis + " ms (attempt " + (retry.failedAttempts() + 1)
+                + " of " + retry.maxAttempts() + ")");
+        workflowQueue.reject(runId, backoffMillis);
+    }
+
+    /**
+     * Runs a step, bounded by its timeout if it has one.
+     * The step runs under a child token of the run that expires at the step deadline,
+     * and sees the earlier of the step and run deadlines in its context.
+     */
+    private void runStep(Step step, WorkflowContext stepContext, WorkflowData data) throws Exception {
+        Duration timeout = step.getTimeout();
+        if (timeout == null) {
+            step.run(stepContext, data);
+            return;
+        }
+
+        Instant deadline = Instant.now().plus(timeout);
+        CancellationToken runToken = CancellationToken.current();
+        CancellationToken stepToken = runToken.newChild(deadline,
+                "Step '" + step.getName() + "' timed out after " + timeout.toMillis() + " ms");
+        try (CancellationToken.Scope ignored = stepToken.bind()) {
+            step.run(stepContext.withEarlierDeadline(deadline), data);
+        } catch (Exception e) {
+            if (stepToken.isExpired() && !runToken.isCancelled()) {
+                throw new StepTimeoutException(step.getName(), timeout, e);
+            }
             throw e;
+        } finally {
+            stepToken.finish();
+        }
+    }
+
+    /**
+     * Builds the final context of a run whose token was cancelled: failed with the
+     * timeout reason if its deadline passed, cancelled otherwise.
+     */
+    private WorkflowContext abortedContext(CancellationToken token, WorkflowContext context, Instant endTime) {
+        if (token.isExpired()) {
+            return context.withStatus(WorkflowStatus.FAILED)
+                    .withErrorMessage(token.getReason())
+                    .withEndTime(endTime);
         }
+        return cancelledContext(context, endTime);
+    }
+
+    /**
+     * Cancels a workflow run.
+     * A queued run is removed from the queue; a running run has its threads interrupted
+     * and its pending primitive futures cancelled, and stops before its next step or child step.
+     * The run is reported as {@link WorkflowStatus#CANCELLED} as soon as this method returns.
+     *
+     * @param runId the workflow run ID
+     * @return true if the run was cancelled, false if it is unknown or already finished
+     */
+    public boolean cancel(String runId) {
+        WorkflowContext context = stateManagement.getContext(runId);
+        if (context == null || context.status().isTerminal()) {
+            return false;
+        }
+
+        if (workflowQueue.remove(runId)) {
+            enqueueTimes.remove(runId);
+            wakeAdmissionWaiters();
+            stateManagement.saveContext(cancelledContext(context, Instant.now()));
+            System.out.println("[WorkflowExecutor] Cancelled queued run " + runId);
+            return true;
+        }
+
+        CancellationToken token = runTokens.get(runId);
+        if (token == null) {
+            // Dequeued but not started yet: the worker skips runs in a terminal status
+            stateManagement.saveContext(cancelledContext(context, Instant.now()));
+            token = runTokens.get(runId);
+            if (token != null) {
+                token.cancel();
+            }
+            System.out.println("[WorkflowExecutor] Cancelled run " + runId + " before it started");
+            return true;
+        }
+
+        if (!token.cancel()) {
+            return false;
+        }
+        WorkflowContext current = stateManagement.getContext(runId);
+        stateManagement.saveContext(cancelledContext(current != null ? current : context, Instant.now()));
+        System.out.println("[WorkflowExecutor] Cancelled running run " + runId);
+        return true;
+    }
+
+    private WorkflowContext cancelledContext(WorkflowContext context, Instant endTime) {
+        return context.withStatus(WorkflowStatus.CANCELLED)
+                .withErrorMessage("Workflow run cancelled")
+                .withEndTime(endTime);
     }
 
     /**
      * Stores workflow execution metrics in workflow data.
      *
      * @param workflow the workflow being executed
+     * @param plan the compiled execution plan of the workflow
      * @param data the workflow data
      * @param startTime the workflow start time
      * @param endTime the workflow end time, or null if not completed
      */
-    private void storeWorkflowMetrics(Workflow workflow, WorkflowData data, Instant startTime, Instant endTime) {
-        String workflowMetricsKey = "workflow_metrics";
+    private void storeWorkflowMetrics(Workflow workflow, ExecutionPlan plan, WorkflowData data,
+                                      Instant startTime, Instant endTime) {
         Map<String, Object> metrics = new HashMap<>();
         metrics.put("workflowId", workflow.getId());
         metrics.put("workflowDescription", workflow.getDescription());
-        metrics.put("stepCount", workflow.getStepCount());
-        metrics.put("totalChildStepCount", workflow.getTotalChildStepCount());
+        metrics.put("stepCount", plan.getStepCount());
+        metrics.put("totalChildStepCount", plan.getTotalChildStepCount());
         metrics.put("startTime", startTime);
         metrics.put("endTime", endTime);
         if (startTime != null && endTime != null) {
             metrics.put("durationMillis", java.time.Duration.between(startTime, endTime).toMillis());
         }
-        data.put(workflowMetricsKey, metrics);
+        data.put(WORKFLOW_METRICS_KEY, metrics);
+    }
+
+    /**
+     * Gets the execution record of a run that is currently executing.
+     * Step timings and snapshots are kept per run, so concurrent runs of the
+     * same definition never overwrite each other's records.
+     *
+     * @param runId the workflow run ID
+     * @return an Optional containing the execution record, empty if the run is not executing
+     */
+    public Optional<RunExecution> getRunExecution(String runId) {
+        return runExecutions.get(runId);
     }
 
     /**
@@ -213,9 +957,286 @@ public class WorkflowExecutor {
     }
 
     /**
-     * Shuts down the executor service gracefully.
+     * Gets the configured number of worker loops.
+     *
+     * @return the worker pool size
+     */
+    public int getPoolSize() {
+        return Math.max(1, properties.getWorkerCount());
+    }
+
+    /**
+     * Gets the number of runs that have been dequeued and are still executing.
+     *
+     * @return the in-flight run count
+     */
+    public int getInFlightCount() {
+        return inFlightRuns.get();
+    }
+
+    /**
+     * Gets the configured execution mode.
+     *
+     * @return the execution mode
+     */
+    public ExecutionMode getExecutionMode() {
+        return properties.getExecutionMode();
+    }
+
+    /**
+     * Builds a report of virtual thread pinning hot spots.
+     *
+     * @return the pinning report, which is empty if pinning detection is disabled
+     */
+    public PinningReport getPinningReport() {
+        if (pinningMonitor == null) {
+            return new PinningReport(false, properties.getPinningThresholdMillis(), 0, List.of());
+        }
+        return pinningMonitor.report();
+    }
+
+    /**
+     * Lists dead-lettered runs, oldest first.
+     *
+     * @param reason the reason to filter by, or null for all reasons
+     * @param limit the maximum number of dead letters to return
+     * @return the dead letters
+     */
+    public List<DeadLetter> getDeadLetters(DeadLetterReason reason, int limit) {
+        return deadLetterQueue.list(reason, limit);
+    }
+
+    /**
+     * Redrives the oldest dead-lettered runs: they leave the dead-letter queue at once and are
+     * re-enqueued at the configured redrive rate, after the runs of earlier redrives.
+     *
+     * @param reason the reason to filter by, or null for all reasons
+     * @param maxRuns the maximum number of runs to redrive
+     * @return the number of runs scheduled for redrive
+     */
+    public int redriveDeadLetters(DeadLetterReason reason, int maxRuns) {
+        return scheduleRedrive(deadLetterQueue.take(reason, maxRuns));
+    }
+
+    /**
+     * Redrives the given dead-lettered runs; run IDs that are not dead-lettered are skipped.
+     *
+     * @param runIds the workflow run IDs to redrive
+     * @return the number of runs scheduled for redrive
+     */
+    public int redriveDeadLetters(Collection<String> runIds) {
+        return scheduleRedrive(deadLetterQueue.take(runIds));
+    }
+
+    /**
+     * Takes a snapshot of the dead-letter queue and the redrives in progress.
+     *
+     * @return the current dead-letter statistics
      */
-    public void shutdown() {
-        executorService.shutdown();
+    public DeadLetterStats getDeadLetterStats() {
+        return new DeadLetterStats(
+                deadLetterQueue.size(),
+                deadLetterQueue.getCountsByReason(),
+                deadLetterQueue.getTotalCountsByReason(),
+                deadLetterQueue.getEvictedCount(),
+                deadLetterRedriver.getPendingCount(),
+                deadLetterRedriver.getRedrivenCount(),
+                deadLetterRedriver.getSkippedCount()
+        );
+    }
+
+    private int scheduleRedrive(List<DeadLetter> deadLetters) {
+        if (!deadLetters.isEmpty()) {
+            deadLetterRedriver.submit(deadLetters.stream().map(DeadLetter::runId).toList());
+            System.out.println("[WorkflowExecutor] Scheduled " + deadLetters.size() + " dead-lettered run(s) for redrive");
+        }
+        return deadLetters.size();
+    }
+
+    /**
+     * Resets a dead-lettered run to PENDING, clearing its retry attempts and timing but keeping
+     * its completed steps, and re-enqueues it. Runs that are no longer FAILED or whose state is
+     * gone are skipped, and their state goes back to the normal retention.
+     *
+     * @return true if the run was re-enqueued, false if it was skipped
+     */
+    private boolean redrive(String runId) {
+        WorkflowContext context = stateManagement.getContext(runId);
+        if (context == null || context.status() != WorkflowStatus.FAILED || !stateManagement.containsData(runId)) {
+            stateManagement.releaseState(runId);
+            System.err.println("[WorkflowExecutor] Skipped redrive of run " + runId
+                    + (context == null ? ": its state is gone" : ": it is " + context.status()));
+            return false;
+        }
+        WorkflowCheckpoint checkpoint = stateManagement.getCheckpoint(runId);
+        if (checkpoint != null) {
+            stateManagement.saveCheckpoint(checkpoint.withoutFailedAttempts());
+        }
+        stateManagement.saveContext(context.withStatus(WorkflowStatus.PENDING)
+                .withErrorMessage(null)
+                .withStartTime(null)
+                .withEndTime(null)
+                .withDeadline(null));
+        Optional<Workflow> workflow = workflowRegistry.getWorkflow(context.workflowDefinitionId());
+        workflow.ifPresent(this::prepareWorkflow);
+        enqueueTimes.put(runId, System.nanoTime());
+        stateManagement.releaseState(runId);
+        workflowQueue.enqueue(runId, workflow.map(Workflow::getPriority).orElse(WorkflowPriority.NORMAL),
+                context.workflowDefinitionId());
+        wakeIdleWorker();
+        return true;
+    }
+
+    /**
+     * Takes a snapshot of the worker pool and queue-wait statistics.
+     *
+     * @return the current worker pool statistics
+     */
+    public WorkerPoolStats getWorkerPoolStats() {
+        long samples = queueWaitSamples.sum();
+        double averageWaitMillis = samples == 0 ? 0.0
+                : totalQueueWaitNanos.sum() / (double) samples / 1_000_000.0;
+        return new WorkerPoolStats(
+                properties.getExecutionMode(),
+                getPoolSize(),
+                activeWorkers.get(),
+                inFlightRuns.get(),
+                workflowQueue.size(),
+                submittedRuns.sum(),
+                completedRuns.sum(),
+                averageWaitMillis,
+                TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get()),
+                workflowQueue.isProcessingEnabled()
+        );
+    }
+
+    /**
+     * Takes a snapshot of the admission control in front of the queue.
+     *
+     * @return the current admission statistics
+     */
+    public AdmissionStats getAdmissionStats() {
+        return new AdmissionStats(
+                properties.getAdmissionPolicy(),
+                Math.max(0, properties.getMaxQueuedRuns()),
+                workflowQueue.size(),
+                drainRate.getRatePerSecond(),
+                rejectedRuns.sum(),
+                shedRuns.sum()
+        );
+    }
+
+    /**
+     * Takes a snapshot of the run IDs waiting in the queue for their delay to elapse.
+     *
+     * @return the current delayed queue statistics
+     */
+    public DelayedQueueStats getDelayedQueueStats() {
+        return new DelayedQueueStats(workflowQueue.delayedSize(), workflowQueue.getDelayedDepthByDueTime());
+    }
+
+    /**
+     * Takes a snapshot of the tenants sharing the queue, if it is a fair-share queue.
+     *
+     * @return the statistics per tenant, empty for other queues
+     */
+    public List<TenantStats> getTenantStats() {
+        return workflowQueue.getTenantStats();
+    }
+
+    /**
+     * Shuts down the worker pool gracefully, waiting for in-flight runs to finish.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        deadLetterRedriver.close();
+        for (Thread idle : idleWorkers) {
+            LockSupport.unpark(idle);
+        }
+        awaitTermination(workerPool);
+        if (runExecutor != null) {
+            awaitTermination(runExecutor);
+        }
+        awaitTermination(parallelExecutor);
+        awaitTermination(stepExecutor);
+        // Stopped last, so leases keep being extended while in-flight runs finish
+        if (leaseHeartbeat != null) {
+            leaseHeartbeat.shutdownNow();
+        }
+        if (pinningMonitor != null) {
+            pinningMonitor.close();
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(properties.getShutdownTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Execution listener installed into the workflow definitions: records executions per run
+     * and, when child step checkpoints are enabled, saves the run's data after each completed child step.
+     * Child steps of parallel steps only reach the shared data when their step completes,
+     * so for them the step checkpoint is the effective one.
+     */
+    private class CheckpointingExecutionListener implements ExecutionListener {
+
+        @Override
+        public void onStepExecuted(String runId, StepExecution execution) {
+            runExecutions.onStepExecuted(runId, execution);
+        }
+
+        @Override
+        public void onChildStepExecuted(String runId, ChildStepExecution execution) {
+            runExecutions.onChildStepExecuted(runId, execution);
+            if (properties.isCheckpointChildSteps() && execution.errorMessage() == null) {
+                WorkflowData data = activeRunData.get(runId);
+                if (data != null) {
+                    stateManagement.saveData(runId, data);
+                }
+            }
+        }
+    }
+
+    /**
+     * Step failure that no retry policy retries, carrying the reason the run is dead-lettered with
+     * and the FAILED context already saved for it.
+     */
+    private static final class FinalStepFailureException extends Exception {
+        private final DeadLetterReason reason;
+        private final WorkflowContext failedContext;
+
+        FinalStepFailureException(DeadLetterReason reason, WorkflowContext failedContext, Exception cause) {
+            super(cause.getMessage(), cause);
+            this.reason = reason;
+            this.failedContext = failedContext;
+        }
+    }
+
+    /**
+     * Thread factory naming executor threads so they are identifiable in thread dumps.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        WorkerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.uwf.workflow.engine.config;
+
+/**
+ * Enum describing what happens to a submission while the workflow queue is at capacity.
+ */
+public enum AdmissionPolicy {
+    /**
+     * The submission is rejected immediately.
+     */
+    REJECT,
+
+    /**
+     * The submitter waits for room in the queue, up to the admission timeout, and is rejected after it.
+     */
+    BLOCK,
+
+    /**
+     * A queued run of lower priority is dropped to the dead-letter queue to make room;
+     * the submission is rejected if there is none. Needs a queue that sheds by priority,
+     * such as {@code workflow.queue.type=priority}; the executor fails to start with any other.
+     */
+    SHED_LOWEST_PRIORITY
+}
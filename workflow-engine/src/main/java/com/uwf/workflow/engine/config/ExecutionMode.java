@@ -0,0 +1,16 @@
+package com.uwf.workflow.engine.config;
+
+/**
+ * Enum describing which kind of threads execute workflow runs.
+ */
+public enum ExecutionMode {
+    /**
+     * Each run executes on one of the fixed platform worker threads.
+     */
+    PLATFORM,
+
+    /**
+     * Worker threads only dispatch; each run executes on its own virtual thread.
+     */
+    VIRTUAL
+}
@@ -0,0 +1,242 @@
+package com.uwf.workflow.engine.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the workflow executor.
+ * Controls the size and idle behaviour of the worker pool that drains the workflow queue.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "workflow.executor")
+public class WorkflowExecutorProperties {
+
+    /**
+     * Number of worker loops pulling run IDs from the workflow queue.
+     */
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum time in milliseconds an idle worker waits in the queue before checking for shutdown again.
+     */
+    private long idlePollMillis = 50;
+
+    /**
+     * Maximum number of run IDs a worker takes from the queue at once.
+     * Platform workers take at most their fair share of the current backlog,
+     * so batching never leaves another worker idle while runs are waiting.
+     */
+    private int dequeueBatchSize = 16;
+
+    /**
+     * Maximum time in milliseconds to wait for in-flight runs when shutting down.
+     */
+    private long shutdownTimeoutMillis = 30000;
+
+    /**
+     * Whether runs execute on the platform worker threads or on virtual threads.
+     */
+    private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+
+    /**
+     * Maximum number of runs executing concurrently in {@link ExecutionMode#VIRTUAL} mode.
+     */
+    private int maxConcurrentRuns = 100000;
+
+    /**
+     * Whether the child steps of parallel steps are forked onto virtual threads, one per child
+     * step, instead of the platform pool. Child steps of sequential steps always run on the
+     * thread of their step.
+     */
+    private boolean virtualChildSteps = false;
+
+    /**
+     * Number of platform threads that parallel child steps are forked onto.
+     * Ignored when child steps run on virtual threads.
+     */
+    private int parallelChildStepPoolSize = 64;
+
+    /**
+     * Number of platform threads that independent steps of a workflow run on.
+     * Ignored in {@link ExecutionMode#VIRTUAL} mode, where each step gets a virtual thread.
+     */
+    private int stepPoolSize = 64;
+
+    /**
+     * Whether virtual thread pinning events are recorded for the pinning report.
+     */
+    private boolean pinningDetectionEnabled = false;
+
+    /**
+     * Minimum duration in milliseconds for a pinned virtual thread to be reported.
+     */
+    private long pinningThresholdMillis = 20;
+
+    /**
+     * Whether the run's data is also checkpointed after each completed child step,
+     * in addition to the checkpoint taken after each completed step.
+     */
+    private boolean checkpointChildSteps = false;
+
+    /**
+     * Whether non-terminal runs found in the state store are re-enqueued on startup
+     * and resumed from their last checkpoint.
+     */
+    private boolean recoverOnStartup = true;
+
+    /**
+     * Maximum number of dead-lettered runs re-enqueued per second by a redrive.
+     */
+    private int redriveRatePerSecond = 200;
+
+    /**
+     * Maximum number of run IDs waiting in the queue before admission control applies; 0 for unbounded.
+     */
+    private int maxQueuedRuns = 100000;
+
+    /**
+     * What happens to submissions while the queue holds {@code max-queued-runs} run IDs.
+     */
+    private AdmissionPolicy admissionPolicy = AdmissionPolicy.REJECT;
+
+    /**
+     * Maximum time in milliseconds a submission waits for room with the {@link AdmissionPolicy#BLOCK} policy.
+     */
+    private long admissionTimeoutMillis = 1000;
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    public long getIdlePollMillis() {
+        return idlePollMillis;
+    }
+
+    public void setIdlePollMillis(long idlePollMillis) {
+        this.idlePollMillis = idlePollMillis;
+    }
+
+    public int getDequeueBatchSize() {
+        return dequeueBatchSize;
+    }
+
+    public void setDequeueBatchSize(int dequeueBatchSize) {
+        this.dequeueBatchSize = dequeueBatchSize;
+    }
+
+    public long getShutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+
+    public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getMaxConcurrentRuns() {
+        return maxConcurrentRuns;
+    }
+
+    public void setMaxConcurrentRuns(int maxConcurrentRuns) {
+        this.maxConcurrentRuns = maxConcurrentRuns;
+    }
+
+    public boolean isVirtualChildSteps() {
+        return virtualChildSteps;
+    }
+
+    public void setVirtualChildSteps(boolean virtualChildSteps) {
+        this.virtualChildSteps = virtualChildSteps;
+    }
+
+    public int getParallelChildStepPoolSize() {
+        return parallelChildStepPoolSize;
+    }
+
+    public void setParallelChildStepPoolSize(int parallelChildStepPoolSize) {
+        this.parallelChildStepPoolSize = parallelChildStepPoolSize;
+    }
+
+    public int getStepPoolSize() {
+        return stepPoolSize;
+    }
+
+    public void setStepPoolSize(int stepPoolSize) {
+        this.stepPoolSize = stepPoolSize;
+    }
+
+    public boolean isPinningDetectionEnabled() {
+        return pinningDetectionEnabled;
+    }
+
+    public void setPinningDetectionEnabled(boolean pinningDetectionEnabled) {
+        this.pinningDetectionEnabled = pinningDetectionEnabled;
+    }
+
+    public long getPinningThresholdMillis() {
+        return pinningThresholdMillis;
+    }
+
+    public void setPinningThresholdMillis(long pinningThresholdMillis) {
+        this.pinningThresholdMillis = pinningThresholdMillis;
+    }
+
+    public boolean isCheckpointChildSteps() {
+        return checkpointChildSteps;
+    }
+
+    public void setCheckpointChildSteps(boolean checkpointChildSteps) {
+        this.checkpointChildSteps = checkpointChildSteps;
+    }
+
+    public boolean isRecoverOnStartup() {
+        return recoverOnStartup;
+    }
+
+    public void setRecoverOnStartup(boolean recoverOnStartup) {
+        this.recoverOnStartup = recoverOnStartup;
+    }
+
+    public int getRedriveRatePerSecond() {
+        return redriveRatePerSecond;
+    }
+
+    public void setRedriveRatePerSecond(int redriveRatePerSecond) {
+        this.redriveRatePerSecond = redriveRatePerSecond;
+    }
+
+    public int getMaxQueuedRuns() {
+        return maxQueuedRuns;
+    }
+
+    public void setMaxQueuedRuns(int maxQueuedRuns) {
+        this.maxQueuedRuns = maxQueuedRuns;
+    }
+
+    public AdmissionPolicy getAdmissionPolicy() {
+        return admissionPolicy;
+    }
+
+    public void setAdmissionPolicy(AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    public long getAdmissionTimeoutMillis() {
+        return admissionTimeoutMillis;
+    }
+
+    public void setAdmissionTimeoutMillis(long admissionTimeoutMillis) {
+        this.admissionTimeoutMillis = admissionTimeoutMillis;
+    }
+}
@@ -0,0 +1,206 @@
+package com.uwf.workflow.engine.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the workflow state store.
+ * Controls where workflow state is stored and how long the state of finished runs is kept.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "workflow.state")
+public class WorkflowStateProperties {
+
+    /**
+     * State store implementation: {@code in-memory}, {@code log}, which keeps the state in memory
+     * and persists every change to a write-ahead log with periodic snapshots, or {@code jdbc}, which
+     * keeps the state in memory and writes changed runs behind to a database table in batches.
+     */
+    private String type = "in-memory";
+
+    /**
+     * Time in milliseconds the state of a run is kept after it reaches a terminal status. 0 keeps it until evicted.
+     */
+    private long terminalRunTtlMillis = 3600000;
+
+    /**
+     * Maximum number of finished runs whose state is kept; the least recently used are evicted beyond it.
+     * Runs that have not finished are never evicted. 0 for no limit.
+     */
+    private int maxRetainedRuns = 100000;
+
+    /**
+     * Resolution in milliseconds of the timer that expires finished runs.
+     */
+    private long expiryTickMillis = 1000;
+
+    /**
+     * Directory holding the write-ahead log segments and snapshots of the log state store.
+     */
+    private String logDirectory = "data/workflow-state";
+
+    /**
+     * Size in bytes after which the active write-ahead log segment rolls over.
+     */
+    private long logSegmentBytes = 64L * 1024 * 1024;
+
+    /**
+     * Maximum time in milliseconds between group-commit flushes of the write-ahead log.
+     */
+    private long logFlushIntervalMillis = 5;
+
+    /**
+     * Whether state changes wait until their record has been forced to disk.
+     */
+    private boolean logSyncWrites = false;
+
+    /**
+     * Interval in milliseconds between snapshots of the live state, after which older log segments are deleted.
+     */
+    private long snapshotIntervalMillis = 60000;
+
+    /**
+     * JDBC URL of the database of the JDBC state store.
+     */
+    private String jdbcUrl = "jdbc:h2:file:./data/workflow-state-db";
+
+    private String jdbcUsername = "sa";
+
+    private String jdbcPassword = "";
+
+    /**
+     * Maximum number of changed runs written in one JDBC batch; a flush starts early once this many runs changed.
+     */
+    private int jdbcBatchSize = 500;
+
+    /**
+     * Maximum time in milliseconds a change waits before it is written to the database.
+     */
+    private long jdbcFlushIntervalMillis = 100;
+
+    /**
+     * Whether the JDBC state store creates its table on startup if it does not exist; supported on H2,
+     * PostgreSQL and MySQL/MariaDB.
+     */
+    private boolean jdbcInitializeSchema = true;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getTerminalRunTtlMillis() {
+        return terminalRunTtlMillis;
+    }
+
+    public void setTerminalRunTtlMillis(long terminalRunTtlMillis) {
+        this.terminalRunTtlMillis = terminalRunTtlMillis;
+    }
+
+    public int getMaxRetainedRuns() {
+        return maxRetainedRuns;
+    }
+
+    public void setMaxRetainedRuns(int maxRetainedRuns) {
+        this.maxRetainedRuns = maxRetainedRuns;
+    }
+
+    public long getExpiryTickMillis() {
+        return expiryTickMillis;
+    }
+
+    public void setExpiryTickMillis(long expiryTickMillis) {
+        this.expiryTickMillis = expiryTickMillis;
+    }
+
+    public String getLogDirectory() {
+        return logDirectory;
+    }
+
+    public void setLogDirectory(String logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+
+    public long getLogSegmentBytes() {
+        return logSegmentBytes;
+    }
+
+    public void setLogSegmentBytes(long logSegmentBytes) {
+        this.logSegmentBytes = logSegmentBytes;
+    }
+
+    public long getLogFlushIntervalMillis() {
+        return logFlushIntervalMillis;
+    }
+
+    public void setLogFlushIntervalMillis(long logFlushIntervalMillis) {
+        this.logFlushIntervalMillis = logFlushIntervalMillis;
+    }
+
+    public boolean isLogSyncWrites() {
+        return logSyncWrites;
+    }
+
+    public void setLogSyncWrites(boolean logSyncWrites) {
+        this.logSyncWrites = logSyncWrites;
+    }
+
+    public long getSnapshotIntervalMillis() {
+        return snapshotIntervalMillis;
+    }
+
+    public void setSnapshotIntervalMillis(long snapshotIntervalMillis) {
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public void setJdbcUrl(String jdbcUrl) {
+        this.jdbcUrl = jdbcUrl;
+    }
+
+    public String getJdbcUsername() {
+        return jdbcUsername;
+    }
+
+    public void setJdbcUsername(String jdbcUsername) {
+        this.jdbcUsername = jdbcUsername;
+    }
+
+    public String getJdbcPassword() {
+        return jdbcPassword;
+    }
+
+    public void setJdbcPassword(String jdbcPassword) {
+        this.jdbcPassword = jdbcPassword;
+    }
+
+    public int getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
+
+    public void setJdbcBatchSize(int jdbcBatchSize) {
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    public long getJdbcFlushIntervalMillis() {
+        return jdbcFlushIntervalMillis;
+    }
+
+    public void setJdbcFlushIntervalMillis(long jdbcFlushIntervalMillis) {
+        this.jdbcFlushIntervalMillis = jdbcFlushIntervalMillis;
+    }
+
+    public boolean isJdbcInitializeSchema() {
+        return jdbcInitializeSchema;
+    }
+
+    public void setJdbcInitializeSchema(boolean jdbcInitializeSchema) {
+        this.jdbcInitializeSchema = jdbcInitializeSchema;
+    }
+}
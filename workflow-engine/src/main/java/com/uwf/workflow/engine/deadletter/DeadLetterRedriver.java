@@ -0,0 +1,109 @@
+package com.uwf.workflow.engine.deadletter;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Hands redriven runs back to execution at a bounded rate, so that redriving thousands of
+ * dead letters at once does not flood the workers and starve newly submitted runs.
+ * <p>
+ * Submitted run IDs wait in a FIFO buffer; a single timer thread releases one batch of them
+ * every tick, sized to keep the configured number of runs per second.
+ */
+public class DeadLetterRedriver implements AutoCloseable {
+
+    private static final long TICK_MILLIS = 100;
+
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final LongAdder redriven = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final Predicate<String> redrive;
+    private final int runsPerTick;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Creates a redriver.
+     *
+     * @param ratePerSecond the maximum number of runs handed back per second
+     * @param redrive called with each run ID to re-enqueue it, on the redriver thread; returns
+     *               false if the run could not be redriven and was skipped
+     */
+    public DeadLetterRedriver(int ratePerSecond, Predicate<String> redrive) {
+        this.redrive = redrive;
+        this.runsPerTick = (int) Math.max(1, Math.max(1, ratePerSecond) * TICK_MILLIS / 1000);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "workflow-dead-letter-redrive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::releaseBatch, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules runs to be redriven after the runs submitted before them.
+     *
+     * @param runIds the workflow run IDs
+     */
+    public void submit(Collection<String> runIds) {
+        pending.addAll(runIds);
+        pendingCount.addAndGet(runIds.size());
+    }
+
+    /**
+     * Gets the number of runs waiting to be redriven.
+     *
+     * @return the number of pending runs
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Gets the number of runs redriven so far.
+     *
+     * @return the number of redriven runs
+     */
+    public long getRedrivenCount() {
+        return redriven.sum();
+    }
+
+    /**
+     * Gets the number of runs skipped because they could no longer be redriven, such as runs whose state is gone.
+     *
+     * @return the number of skipped runs
+     */
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    /**
+     * Stops the timer; runs still pending are not redriven.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private void releaseBatch() {
+        String runId;
+        for (int i = 0; i < runsPerTick && (runId = pending.poll()) != null; i++) {
+            pendingCount.decrementAndGet();
+            try {
+                if (redrive.test(runId)) {
+                    redriven.increment();
+                } else {
+                    skipped.increment();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("[DeadLetterRedriver] Failed to redrive run " + runId + ": " + e.getMessage());
+            }
+        }
+    }
+}
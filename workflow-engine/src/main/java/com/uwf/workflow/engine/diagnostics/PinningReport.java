@@ -0,0 +1,35 @@
+package com.uwf.workflow.engine.diagnostics;
+
+import java.util.List;
+
+/**
+ * Immutable report of virtual thread pinning observed since the monitor started.
+ *
+ * @param enabled whether pinning detection is running
+ * @param thresholdMillis the minimum pinned duration that is recorded
+ * @param totalEvents the total number of pinning events recorded
+ * @param hotSpots the pinning locations, ordered by total pinned time descending
+ */
+public record PinningReport(
+        boolean enabled,
+        long thresholdMillis,
+        long totalEvents,
+        List<HotSpot> hotSpots
+) {
+
+    /**
+     * Aggregated pinning statistics for a single code location.
+     *
+     * @param frame the first application frame of the pinned stack (class.method:line)
+     * @param events the number of pinning events at this location
+     * @param totalPinnedMillis the accumulated pinned duration
+     * @param maxPinnedMillis the longest single pinned duration
+     */
+    public record HotSpot(
+            String frame,
+            long events,
+            long totalPinnedMillis,
+            long maxPinnedMillis
+    ) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.uwf.workflow.engine.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects virtual threads pinned to their carrier thread using the JFR
+ * {@code jdk.VirtualThreadPinned} event, and aggregates the events by the first
+ * application frame on the pinned stack. Pinning typically comes from blocking
+ * while holding a {@code synchronized} monitor, which defeats virtual thread scaling.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final long thresholdMillis;
+    private final Map<String, Aggregate> hotSpots = new ConcurrentHashMap<>();
+    private final LongAdder totalEvents = new LongAdder();
+    private RecordingStream stream;
+
+    /**
+     * Creates a monitor that records pinning events longer than the given threshold.
+     *
+     * @param thresholdMillis the minimum pinned duration to record
+     */
+    public VirtualThreadPinningMonitor(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Starts listening for pinning events in the background.
+     */
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        RecordingStream recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(thresholdMillis))
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::record);
+        recordingStream.startAsync();
+        stream = recordingStream;
+    }
+
+    /**
+     * Checks whether the monitor is currently listening for events.
+     *
+     * @return true if started, false otherwise
+     */
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    private void record(RecordedEvent event) {
+        totalEvents.increment();
+        long pinnedMillis = event.getDuration().toMillis();
+        hotSpots.computeIfAbsent(topApplicationFrame(event.getStackTrace()), k -> new Aggregate())
+                .add(pinnedMillis);
+    }
+
+    /**
+     * Finds the first frame outside the JDK, which is where application code blocked while pinned.
+     */
+    private static String topApplicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<unknown>";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String className = frame.getMethod().getType().getName();
+            if (!className.startsWith("java.") && !className.startsWith("jdk.") && !className.startsWith("sun.")) {
+                return describe(frame);
+            }
+        }
+        return describe(stackTrace.getFrames().get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    /**
+     * Builds a report of the pinning hot spots recorded so far.
+     *
+     * @return the pinning report
+     */
+    public PinningReport report() {
+        List<PinningReport.HotSpot> spots = new ArrayList<>();
+        hotSpots.forEach((frame, aggregate) -> spots.add(new PinningReport.HotSpot(
+                frame, aggregate.events.sum(), aggregate.totalMillis.sum(), aggregate.maxMillis.get())));
+        spots.sort(Comparator.comparingLong(PinningReport.HotSpot::totalPinnedMillis).reversed());
+        return new PinningReport(isRunning(), thresholdMillis, totalEvents.sum(), spots);
+    }
+
+    /**
+     * Stops listening for pinning events. Recorded statistics are kept.
+     */
+    @Override
+    public synchronized void close() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private static class Aggregate {
+        private final LongAdder events = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        void add(long millis) {
+            events.increment();
+            totalMillis.add(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+        }
+    }
+}
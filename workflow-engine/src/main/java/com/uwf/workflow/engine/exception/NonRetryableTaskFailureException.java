@@ -0,0 +1,36 @@
+package com.uwf.workflow.engine.exception;
+
+/**
+ * Task failure that retrying cannot fix, such as invalid input or a rejected request.
+ * Never retried, even if the failing step or child step has a retry policy with attempts left.
+ */
+public class NonRetryableTaskFailureException extends WorkflowTaskFailureException {
+
+    /**
+     * Constructs a new non-retryable task failure exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public NonRetryableTaskFailureException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new non-retryable task failure exception with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause of the exception
+     */
+    public NonRetryableTaskFailureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Constructs a new non-retryable task failure exception with the specified cause.
+     *
+     * @param cause the cause of the exception
+     */
+    public NonRetryableTaskFailureException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,37 @@
+package com.uwf.workflow.engine.exception;
+
+/**
+ * Task failure that is worth retrying, such as a timeout or a temporarily unavailable downstream.
+ * Retried whenever the failing step or child step has a retry policy with attempts left,
+ * regardless of the failure types the policy lists.
+ */
+public class RetryableTaskFailureException extends WorkflowTaskFailureException {
+
+    /**
+     * Constructs a new retryable task failure exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public RetryableTaskFailureException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new retryable task failure exception with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause of the exception
+     */
+    public RetryableTaskFailureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Constructs a new retryable task failure exception with the specified cause.
+     *
+     * @param cause the cause of the exception
+     */
+    public RetryableTaskFailureException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,30 @@
+package com.uwf.workflow.engine.exception;
+
+/**
+ * Exception thrown when a workflow submission is refused because the workflow queue is at capacity.
+ * Carries an estimate of when the queue will have drained enough to admit it.
+ */
+public class WorkflowRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new workflow rejected exception.
+     *
+     * @param message the detail message
+     * @param retryAfterSeconds the estimated number of seconds until a retry can be admitted
+     */
+    public WorkflowRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Gets the estimated number of seconds until a retry can be admitted.
+     *
+     * @return the retry delay in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
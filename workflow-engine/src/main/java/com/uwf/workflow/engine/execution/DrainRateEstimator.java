@@ -0,0 +1,64 @@
+package com.uwf.workflow.engine.execution;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Estimates how many runs per second the workers drain from the queue, as an exponentially
+ * weighted moving average of the completion count sampled at most once per interval.
+ * <p>
+ * Sampling is driven by the callers: {@link #sample()} is cheap enough to call on every
+ * completion and only takes a sample once the interval has elapsed.
+ */
+public class DrainRateEstimator {
+
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double SMOOTHING = 0.5;
+
+    private final LongSupplier completedRuns;
+    private final AtomicReference<Sample> lastSample;
+    private volatile double ratePerSecond = -1;
+
+    /**
+     * Creates an estimator.
+     *
+     * @param completedRuns supplies the total number of completed runs
+     */
+    public DrainRateEstimator(LongSupplier completedRuns) {
+        this.completedRuns = completedRuns;
+        this.lastSample = new AtomicReference<>(new Sample(System.nanoTime(), completedRuns.getAsLong()));
+    }
+
+    /**
+     * Takes a sample if the sample interval has elapsed since the last one.
+     */
+    public void sample() {
+        Sample last = lastSample.get();
+        long now = System.nanoTime();
+        long elapsed = now - last.nanos();
+        if (elapsed < SAMPLE_INTERVAL_NANOS) {
+            return;
+        }
+        long completed = completedRuns.getAsLong();
+        if (!lastSample.compareAndSet(last, new Sample(now, completed))) {
+            return;
+        }
+        double measured = (completed - last.completed()) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        double previous = ratePerSecond;
+        ratePerSecond = previous < 0 ? measured : SMOOTHING * measured + (1 - SMOOTHING) * previous;
+    }
+
+    /**
+     * Gets the estimated drain rate, taking a sample first if one is due.
+     *
+     * @return the drain rate in runs per second, or -1 if no sample has been taken yet
+     */
+    public double getRatePerSecond() {
+        sample();
+        return ratePerSecond;
+    }
+
+    private record Sample(long nanos, long completed) {
+    }
+}
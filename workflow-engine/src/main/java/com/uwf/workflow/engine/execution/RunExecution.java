@@ -0,0 +1,74 @@
+package com.uwf.workflow.engine.execution;
+
+import com.uwf.workflow.common.execution.ChildStepExecution;
+import com.uwf.workflow.common.execution.StepExecution;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Execution record of a single workflow run, owned by the engine.
+ * Holds the step and child step execution records produced by the run, so that
+ * concurrent runs of the same definition never share mutable state.
+ */
+public class RunExecution {
+
+    private final String runId;
+    private final String workflowId;
+    private final Instant startTime;
+    private final Map<String, StepExecution> stepExecutions = new ConcurrentHashMap<>();
+    private final Map<String, ChildStepExecution> childStepExecutions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new execution record for a run.
+     *
+     * @param runId the workflow run ID
+     * @param workflowId the workflow definition ID
+     * @param startTime when the run started executing
+     */
+    public RunExecution(String runId, String workflowId, Instant startTime) {
+        this.runId = runId;
+        this.workflowId = workflowId;
+        this.startTime = startTime;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the step execution records keyed by step name.
+     *
+     * @return an unmodifiable view of the step executions
+     */
+    public Map<String, StepExecution> getStepExecutions() {
+        return Collections.unmodifiableMap(stepExecutions);
+    }
+
+    /**
+     * Gets the child step execution records keyed by child step name.
+     *
+     * @return an unmodifiable view of the child step executions
+     */
+    public Map<String, ChildStepExecution> getChildStepExecutions() {
+        return Collections.unmodifiableMap(childStepExecutions);
+    }
+
+    void recordStep(StepExecution execution) {
+        stepExecutions.put(execution.stepName(), execution);
+    }
+
+    void recordChildStep(ChildStepExecution execution) {
+        childStepExecutions.put(execution.childStepName(), execution);
+    }
+}
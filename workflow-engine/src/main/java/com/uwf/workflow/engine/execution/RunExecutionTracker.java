@@ -0,0 +1,70 @@
+package com.uwf.workflow.engine.execution;
+
+import com.uwf.workflow.common.execution.ChildStepExecution;
+import com.uwf.workflow.common.execution.ExecutionListener;
+import com.uwf.workflow.common.execution.StepExecution;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the execution records of the runs currently executing, keyed by run ID.
+ * Injected into the shared step definitions as their {@link ExecutionListener}, so
+ * each step execution lands in the record of the run that produced it.
+ */
+public class RunExecutionTracker implements ExecutionListener {
+
+    private final Map<String, RunExecution> activeRuns = new ConcurrentHashMap<>();
+
+    /**
+     * Starts tracking a run.
+     *
+     * @param runId the workflow run ID
+     * @param workflowId the workflow definition ID
+     * @param startTime when the run started executing
+     * @return the new execution record
+     */
+    public RunExecution begin(String runId, String workflowId, Instant startTime) {
+        RunExecution execution = new RunExecution(runId, workflowId, startTime);
+        activeRuns.put(runId, execution);
+        return execution;
+    }
+
+    /**
+     * Stops tracking a run.
+     *
+     * @param runId the workflow run ID
+     * @return the execution record of the run, or null if it was not tracked
+     */
+    public RunExecution end(String runId) {
+        return activeRuns.remove(runId);
+    }
+
+    /**
+     * Gets the execution record of a run that is currently executing.
+     *
+     * @param runId the workflow run ID
+     * @return an Optional containing the execution record, empty if the run is not executing
+     */
+    public Optional<RunExecution> get(String runId) {
+        return Optional.ofNullable(activeRuns.get(runId));
+    }
+
+    @Override
+    public void onStepExecuted(String runId, StepExecution execution) {
+        RunExecution run = activeRuns.get(runId);
+        if (run != null) {
+            run.recordStep(execution);
+        }
+    }
+
+    @Override
+    public void onChildStepExecuted(String runId, ChildStepExecution execution) {
+        RunExecution run = activeRuns.get(runId);
+        if (run != null) {
+            run.recordChildStep(execution);
+        }
+    }
+}
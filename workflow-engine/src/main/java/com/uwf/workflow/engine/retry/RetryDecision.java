@@ -0,0 +1,19 @@
+package com.uwf.workflow.engine.retry;
+
+import java.time.Duration;
+
+/**
+ * Decision to retry a failed step or child step of a run after a backoff.
+ *
+ * @param retryKey the key identifying the failed step or child step in the run's checkpoint
+ * @param failedAttempts the number of failed attempts, including the one that triggered the retry
+ * @param maxAttempts the maximum number of attempts allowed by the retry policy
+ * @param backoff the delay before the run is dequeued again
+ */
+public record RetryDecision(
+        String retryKey,
+        int failedAttempts,
+        int maxAttempts,
+        Duration backoff
+) {
+}
@@ -0,0 +1,119 @@
+package com.uwf.workflow.engine.retry;
+
+import com.uwf.workflow.common.deadletter.DeadLetterReason;
+import com.uwf.workflow.common.exception.ChildStepException;
+import com.uwf.workflow.common.exception.ChildStepFailureException;
+import com.uwf.workflow.common.model.ChildStep;
+import com.uwf.workflow.common.model.RetryPolicy;
+import com.uwf.workflow.common.model.Step;
+import com.uwf.workflow.engine.exception.NonRetryableTaskFailureException;
+import com.uwf.workflow.engine.exception.RetryableTaskFailureException;
+import com.uwf.workflow.engine.state.WorkflowCheckpoint;
+
+import java.util.Optional;
+
+/**
+ * Decides whether a failed step of a run is retried, and after which backoff.
+ * <p>
+ * The policy of the failing child step applies if it has one, otherwise the policy of its
+ * step. The failing child step is the one named by the {@link ChildStepException} in the
+ * failure's cause chain, or the first failed child of a {@link ChildStepFailureException},
+ * so it is found however the child steps were scheduled. Failures are
+ * classified by their {@link com.uwf.workflow.engine.exception.WorkflowTaskFailureException}
+ * subclass first: {@link NonRetryableTaskFailureException} is never retried and
+ * {@link RetryableTaskFailureException} always is; any other failure is classified by the policy.
+ */
+public class RetryPlanner {
+
+    /**
+     * Plans the retry of a failed step.
+     *
+     * @param step the step that failed
+     * @param checkpoint the run's checkpoint, holding the failed attempts so far
+     * @param failure the failure
+     * @return the retry decision, or empty if the failure is final
+     */
+    public Optional<RetryDecision> plan(Step step, WorkflowCheckpoint checkpoint, Throwable failure) {
+        ApplicablePolicy applicable = findApplicablePolicy(step, failure);
+        RetryPolicy policy = applicable.policy();
+        if (policy == null || !isRetryable(policy, failure)) {
+            return Optional.empty();
+        }
+        int failedAttempts = checkpoint.getFailedAttempts(applicable.retryKey()) + 1;
+        if (!policy.allowsAttempt(failedAttempts)) {
+            return Optional.empty();
+        }
+        return Optional.of(new RetryDecision(applicable.retryKey(), failedAttempts, policy.maxAttempts(),
+                policy.backoff(failedAttempts)));
+    }
+
+    /**
+     * Classifies why a step failure that {@link #plan} did not retry is final.
+     *
+     * @param step the step that failed
+     * @param failure the failure
+     * @return the dead-letter reason of the failure
+     */
+    public DeadLetterReason classifyFinalFailure(Step step, Throwable failure) {
+        RetryPolicy policy = findApplicablePolicy(step, failure).policy();
+        if (policy == null) {
+            return DeadLetterReason.STEP_FAILED;
+        }
+        return isRetryable(policy, failure) ? DeadLetterReason.RETRIES_EXHAUSTED : DeadLetterReason.NON_RETRYABLE_FAILURE;
+    }
+
+    private ApplicablePolicy findApplicablePolicy(Step step, Throwable failure) {
+        ChildStep failedChild = findFailedChildStep(step, failure);
+        if (failedChild != null && failedChild.getRetryPolicy() != null) {
+            return new ApplicablePolicy(failedChild.getRetryPolicy(), step.getName() + "/" + failedChild.getName());
+        }
+        return new ApplicablePolicy(step.getRetryPolicy(), step.getName());
+    }
+
+    private ChildStep findFailedChildStep(Step step, Throwable failure) {
+        String childStepName = findFailedChildStepName(step, failure);
+        if (childStepName == null) {
+            return null;
+        }
+        for (ChildStep childStep : step.getChildSteps()) {
+            if (childStep.getName().equals(childStepName)) {
+                return childStep;
+            }
+        }
+        return null;
+    }
+
+    private String findFailedChildStepName(Step step, Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof ChildStepException childFailure && step.getName().equals(childFailure.getStepName())) {
+                return childFailure.getChildStepName();
+            }
+            if (current instanceof ChildStepFailureException childFailures && step.getName().equals(childFailures.getStepName())
+                    && !childFailures.getFailures().isEmpty()) {
+                return childFailures.getFailures().keySet().iterator().next();
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private boolean isRetryable(RetryPolicy policy, Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof NonRetryableTaskFailureException) {
+                return false;
+            }
+            if (current instanceof RetryableTaskFailureException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return policy.isRetryable(failure);
+    }
+
+    private record ApplicablePolicy(RetryPolicy policy, String retryKey) {
+    }
+}
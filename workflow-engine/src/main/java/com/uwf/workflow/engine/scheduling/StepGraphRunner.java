@@ -0,0 +1,182 @@
+package com.uwf.workflow.engine.scheduling;
+
+import com.uwf.workflow.common.plan.StepDependencyGraph;
+import com.uwf.workflow.primitive.model.CancellationToken;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the steps of a workflow in topological order of their dependency graph.
+ * <p>
+ * Steps whose dependencies have all completed are placed on a ready queue. The calling
+ * thread runs one ready step inline and submits the others to the step executor, so
+ * independent branches run concurrently while a chain of steps continues on the calling
+ * thread without a hand-off. Steps submitted to the executor run with the caller's
+ * {@link CancellationToken} bound.
+ */
+public class StepGraphRunner {
+
+    /**
+     * Callback executing a single step by index.
+     */
+    @FunctionalInterface
+    public interface StepTask {
+        void run(int stepIndex) throws Exception;
+    }
+
+    private final Executor stepExecutor;
+
+    /**
+     * Creates a runner that submits ready steps to the given executor.
+     *
+     * @param stepExecutor the executor that independent steps run on
+     */
+    public StepGraphRunner(Executor stepExecutor) {
+        this.stepExecutor = stepExecutor;
+    }
+
+    /**
+     * Runs every step of the graph, respecting its dependencies.
+     * After the first failure no further steps are started; steps already running
+     * are allowed to finish before the failure is rethrown. The same holds when the
+     * calling thread is interrupted while waiting, as when the run is cancelled: the
+     * {@link InterruptedException} is rethrown, with the interrupt status restored,
+     * only once no step of the run is executing anymore.
+     *
+     * @param graph the step dependency graph
+     * @param task the callback executing a step
+     * @throws Exception the first step failure
+     */
+    public void run(StepDependencyGraph graph, StepTask task) throws Exception {
+        int stepCount = graph.getStepCount();
+        CancellationToken token = CancellationToken.current();
+        if (graph.isSequential()) {
+            for (int stepIndex = 0; stepIndex < stepCount; stepIndex++) {
+                token.throwIfCancelled();
+                task.run(stepIndex);
+            }
+            return;
+        }
+
+        int[] remainingDependencies = new int[stepCount];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int stepIndex = 0; stepIndex < stepCount; stepIndex++) {
+            remainingDependencies[stepIndex] = graph.getDependencyCount(stepIndex);
+            if (remainingDependencies[stepIndex] == 0) {
+                ready.add(stepIndex);
+            }
+        }
+
+        CompletionService<Integer> completions = new ExecutorCompletionService<>(stepExecutor);
+        // Set once no further step may start; submitted steps that have not started yet skip themselves
+        AtomicBoolean stopped = new AtomicBoolean();
+        int running = 0;
+        Exception failure = null;
+        while (true) {
+            if (failure == null && !ready.isEmpty()) {
+                int inlineStep = ready.poll();
+                while (!ready.isEmpty()) {
+                    submit(completions, task, ready.poll(), token, stopped);
+                    running++;
+                }
+                try {
+                    token.throwIfCancelled();
+                    task.run(inlineStep);
+                    release(graph, inlineStep, remainingDependencies, ready);
+                } catch (Exception e) {
+                    failure = e;
+                    stopped.set(true);
+                }
+            }
+            // Collect finished steps without blocking while a step is ready to run inline
+            while (running > 0) {
+                Future<Integer> completed;
+                try {
+                    completed = failure == null && !ready.isEmpty()
+                            ? completions.poll()
+                            : completions.take();
+                } catch (InterruptedException e) {
+                    stopped.set(true);
+                    awaitRunning(completions, running);
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                if (completed == null) {
+                    break;
+                }
+                running--;
+                int stepIndex;
+                try {
+                    stepIndex = completed.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception cause ? cause : e;
+                        stopped.set(true);
+                    }
+                    continue;
+                }
+                if (failure != null) {
+                    continue;
+                }
+                if (token.isCancelled()) {
+                    failure = new CancellationException("Workflow run cancelled");
+                    stopped.set(true);
+                    continue;
+                }
+                release(graph, stepIndex, remainingDependencies, ready);
+            }
+            if (running == 0 && (failure != null || ready.isEmpty())) {
+                break;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void release(StepDependencyGraph graph, int stepIndex, int[] remainingDependencies,
+                                Deque<Integer> ready) {
+        for (int dependent : graph.getDependents(stepIndex)) {
+            if (--remainingDependencies[dependent] == 0) {
+                ready.add(dependent);
+            }
+        }
+    }
+
+    /**
+     * Waits, ignoring interrupts, until the given number of submitted steps have completed
+     * or skipped themselves.
+     */
+    private static void awaitRunning(CompletionService<Integer> completions, int running) {
+        while (running > 0) {
+            try {
+                completions.take();
+                running--;
+            } catch (InterruptedException e) {
+                // Keep waiting: returning now would leave steps changing the data of the run
+            }
+        }
+    }
+
+    private void submit(CompletionService<Integer> completions, StepTask task, int stepIndex,
+                        CancellationToken token, AtomicBoolean stopped) {
+        completions.submit(() -> {
+            if (stopped.get()) {
+                throw new CancellationException("Step " + stepIndex + " not started");
+            }
+            try (CancellationToken.Scope ignored = token.bind()) {
+                task.run(stepIndex);
+            }
+            return stepIndex;
+        });
+    }
+}
@@ -1,29 +1,106 @@
 package com.uwf.workflow.engine.state;
 
+import com.uwf.workflow.engine.config.WorkflowStateProperties;
 import com.uwf.workflow.primitive.model.WorkflowContext;
 import com.uwf.workflow.primitive.model.WorkflowData;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Component for managing workflow state in memory using ConcurrentHashMap.
  * Provides thread-safe operations for storing and retrieving workflow context and data.
+ * <p>
+ * The state of finished runs is not kept forever. A run whose context is saved with a terminal
+ * status expires after the terminal-run TTL, and beyond the maximum number of retained runs the
+ * least recently read finished run is evicted. Expiries are timeouts on a {@link TimingWheel},
+ * so no thread ever scans the stores. Runs that have not finished are only removed by
+ * {@link #removeState(String)} or an explicit {@link #setTtl(String, long)}, and neither are
+ * finished runs kept with {@link #keepState(String)}, such as dead-lettered ones.
+ * <p>
+ * Enabled with {@code workflow.state.type=in-memory}, the default.
  */
 @Component
+@ConditionalOnProperty(name = "workflow.state.type", havingValue = "in-memory", matchIfMissing = true)
 public class InMemoryStateManagement implements StateManagement {
 
+    private static final long DEFAULT_EXPIRY_TICK_MILLIS = 1000;
+
     private final ConcurrentMap<String, WorkflowContext> contextStore = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, WorkflowData> dataStore = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, WorkflowCheckpoint> checkpointStore = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TimingWheel.Timeout<String>> expiries = new ConcurrentHashMap<>();
+    private final Set<String> finishedRuns = ConcurrentHashMap.newKeySet();
+    private final Set<String> keptRuns = ConcurrentHashMap.newKeySet();
+    // Finished runs, least recently used first; guarded by itself
+    private final LinkedHashMap<String, Boolean> recentlyUsed = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder expiredRuns = new LongAdder();
+    private final LongAdder evictedRuns = new LongAdder();
+    private final long terminalRunTtlMillis;
+    private final int maxRetainedRuns;
+    private final long expiryTickMillis;
+    private volatile TimingWheel<String> expiryWheel;
+
+    /**
+     * Creates a store that keeps the state of finished runs until it is removed.
+     */
+    public InMemoryStateManagement() {
+        this(0, 0, DEFAULT_EXPIRY_TICK_MILLIS);
+    }
+
+    @Autowired
+    public InMemoryStateManagement(WorkflowStateProperties properties) {
+        this(properties.getTerminalRunTtlMillis(), properties.getMaxRetainedRuns(), properties.getExpiryTickMillis());
+    }
+
+    /**
+     * Creates a store with bounded retention of finished runs.
+     *
+     * @param terminalRunTtlMillis the time in milliseconds a finished run is kept, 0 to keep it until evicted
+     * @param maxRetainedRuns the maximum number of finished runs kept, 0 for no limit
+     * @param expiryTickMillis the resolution of the expiry timer in milliseconds
+     */
+    public InMemoryStateManagement(long terminalRunTtlMillis, int maxRetainedRuns, long expiryTickMillis) {
+        this.terminalRunTtlMillis = Math.max(0, terminalRunTtlMillis);
+        this.maxRetainedRuns = Math.max(0, maxRetainedRuns);
+        this.expiryTickMillis = Math.max(1, expiryTickMillis);
+    }
 
     /**
      * Saves the workflow context to the store.
+     * Saving a terminal status starts the retention of the run; saving a non-terminal status
+     * again, as when a failed run is redriven, ends it.
      *
      * @param context the workflow context to save
      */
     public void saveContext(WorkflowContext context) {
         contextStore.put(context.runId(), context);
+        if (terminalRunTtlMillis == 0 && maxRetainedRuns == 0) {
+            return;
+        }
+        if (context.status().isTerminal()) {
+            if (!keptRuns.contains(context.runId())) {
+                retainFinished(context.runId());
+            }
+        } else if (finishedRuns.remove(context.runId())) {
+            synchronized (recentlyUsed) {
+                recentlyUsed.remove(context.runId());
+            }
+            cancelExpiry(context.runId());
+        }
     }
 
     /**
@@ -33,7 +110,11 @@ public class InMemoryStateManagement implements StateManagement {
      * @return the workflow context, or null if not found
      */
     public WorkflowContext getContext(String runId) {
-        return contextStore.get(runId);
+        WorkflowContext context = contextStore.get(runId);
+        if (context != null && maxRetainedRuns > 0 && context.status().isTerminal()) {
+            touch(runId);
+        }
+        return context;
     }
 
     /**
@@ -53,17 +134,77 @@ public class InMemoryStateManagement implements StateManagement {
      * @return the workflow data, or null if not found
      */
     public WorkflowData getData(String runId) {
+        if (maxRetainedRuns > 0 && finishedRuns.contains(runId)) {
+            touch(runId);
+        }
         return dataStore.get(runId);
     }
 
     /**
-     * Removes all state (both context and data) for the given run ID.
+     * Removes all state (context, data and checkpoint) for the given run ID.
      *
      * @param runId the workflow run ID
      */
     public void removeState(String runId) {
         contextStore.remove(runId);
         dataStore.remove(runId);
+        checkpointStore.remove(runId);
+        keptRuns.remove(runId);
+        cancelExpiry(runId);
+        if (finishedRuns.remove(runId)) {
+            synchronized (recentlyUsed) {
+                recentlyUsed.remove(runId);
+            }
+        }
+    }
+
+    /**
+     * Removes all state of a run once the given time has elapsed, whatever its status,
+     * replacing an earlier TTL or the terminal-run TTL.
+     *
+     * @param runId the workflow run ID
+     * @param ttlSeconds time to live in seconds, 0 or less to cancel the TTL
+     */
+    @Override
+    public void setTtl(String runId, long ttlSeconds) {
+        if (ttlSeconds <= 0) {
+            cancelExpiry(runId);
+        } else {
+            scheduleExpiry(runId, ttlSeconds * 1000);
+        }
+    }
+
+    /**
+     * Keeps the state of a run until it is released or removed, cancelling its terminal-run TTL
+     * and taking it out of the least-recently-used order.
+     *
+     * @param runId the workflow run ID
+     */
+    @Override
+    public void keepState(String runId) {
+        keptRuns.add(runId);
+        if (finishedRuns.remove(runId)) {
+            synchronized (recentlyUsed) {
+                recentlyUsed.remove(runId);
+            }
+            cancelExpiry(runId);
+        }
+    }
+
+    /**
+     * Releases a kept run; if it is still finished, its retention starts over as if it had just finished.
+     *
+     * @param runId the workflow run ID
+     */
+    @Override
+    public void releaseState(String runId) {
+        if (!keptRuns.remove(runId) || (terminalRunTtlMillis == 0 && maxRetainedRuns == 0)) {
+            return;
+        }
+        WorkflowContext context = contextStore.get(runId);
+        if (context != null && context.status().isTerminal()) {
+            retainFinished(runId);
+        }
     }
 
     /**
@@ -85,4 +226,179 @@ public class InMemoryStateManagement implements StateManagement {
     public boolean containsData(String runId) {
         return dataStore.containsKey(runId);
     }
+
+    /**
+     * Saves the checkpoint of a workflow run.
+     *
+     * @param checkpoint the checkpoint to save
+     */
+    @Override
+    public void saveCheckpoint(WorkflowCheckpoint checkpoint) {
+        checkpointStore.put(checkpoint.runId(), checkpoint);
+    }
+
+    /**
+     * Retrieves the checkpoint of a workflow run.
+     *
+     * @param runId the workflow run ID
+     * @return the checkpoint, or null if none was saved
+     */
+    @Override
+    public WorkflowCheckpoint getCheckpoint(String runId) {
+        return checkpointStore.get(runId);
+    }
+
+    /**
+     * Lists the runs whose context is not in a terminal status.
+     *
+     * @return the IDs of the non-terminal runs
+     */
+    @Override
+    public List<String> getNonTerminalRunIds() {
+        return contextStore.values().stream()
+                .filter(context -> !context.status().isTerminal())
+                .map(WorkflowContext::runId)
+                .toList();
+    }
+
+    /**
+     * Gets the number of finished runs whose state is retained.
+     *
+     * @return the number of retained finished runs
+     */
+    public int getRetainedRunCount() {
+        return finishedRuns.size();
+    }
+
+    /**
+     * Gets the number of runs removed because their TTL elapsed.
+     *
+     * @return the number of expired runs
+     */
+    public long getExpiredRunCount() {
+        return expiredRuns.sum();
+    }
+
+    /**
+     * Gets the number of finished runs evicted to stay within the maximum number of retained runs.
+     *
+     * @return the number of evicted runs
+     */
+    public long getEvictedRunCount() {
+        return evictedRuns.sum();
+    }
+
+    /**
+     * Visits every stored context, data and checkpoint, without counting as a use of the runs.
+     *
+     * @param contexts called with each context
+     * @param data called with each run ID and its data
+     * @param checkpoints called with each checkpoint
+     */
+    void forEachState(Consumer<WorkflowContext> contexts, BiConsumer<String, WorkflowData> data,
+                      Consumer<WorkflowCheckpoint> checkpoints) {
+        contextStore.values().forEach(contexts);
+        dataStore.forEach(data);
+        checkpointStore.values().forEach(checkpoints);
+    }
+
+    /**
+     * Retrieves the context of a run without counting as a use of the run.
+     *
+     * @param runId the workflow run ID
+     * @return the workflow context, or null if not found
+     */
+    WorkflowContext peekContext(String runId) {
+        return contextStore.get(runId);
+    }
+
+    /**
+     * Retrieves the data of a run without counting as a use of the run.
+     *
+     * @param runId the workflow run ID
+     * @return the workflow data, or null if not found
+     */
+    WorkflowData peekData(String runId) {
+        return dataStore.get(runId);
+    }
+
+    /**
+     * Stops the expiry timer; state is no longer expired afterwards.
+     */
+    @PreDestroy
+    public void shutdown() {
+        TimingWheel<String> wheel = expiryWheel;
+        if (wheel != null) {
+            wheel.close();
+        }
+    }
+
+    private void retainFinished(String runId) {
+        finishedRuns.add(runId);
+        if (terminalRunTtlMillis > 0) {
+            scheduleExpiry(runId, terminalRunTtlMillis);
+        }
+        if (maxRetainedRuns == 0) {
+            return;
+        }
+        String eldest = null;
+        synchronized (recentlyUsed) {
+            recentlyUsed.put(runId, Boolean.TRUE);
+            if (recentlyUsed.size() > maxRetainedRuns) {
+                Iterator<String> iterator = recentlyUsed.keySet().iterator();
+                eldest = iterator.next();
+                iterator.remove();
+            }
+        }
+        if (eldest != null) {
+            evictedRuns.increment();
+            removeState(eldest);
+        }
+    }
+
+    private void touch(String runId) {
+        synchronized (recentlyUsed) {
+            recentlyUsed.get(runId);
+        }
+    }
+
+    private void scheduleExpiry(String runId, long delayMillis) {
+        TimingWheel.Timeout<String> previous = expiries.put(runId, expiryWheel().schedule(runId, delayMillis));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void cancelExpiry(String runId) {
+        TimingWheel.Timeout<String> pending = expiries.remove(runId);
+        if (pending != null) {
+            pending.cancel();
+        }
+    }
+
+    private void expire(String runId) {
+        TimingWheel.Timeout<String> timeout = expiries.get(runId);
+        // A timeout that was replaced by a later TTL is not expired yet
+        if (timeout != null && timeout.isExpired() && expiries.remove(runId, timeout)) {
+            expiredRuns.increment();
+            removeState(runId);
+        }
+    }
+
+    /**
+     * Starts the expiry timer on first use, so stores without TTLs run no timer thread.
+     */
+    private TimingWheel<String> expiryWheel() {
+        TimingWheel<String> wheel = expiryWheel;
+        if (wheel == null) {
+            synchronized (this) {
+                wheel = expiryWheel;
+                if (wheel == null) {
+                    wheel = new TimingWheel<>("workflow-state-expiry", expiryTickMillis, 512, this::expire);
+                    expiryWheel = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
 }
@@ -0,0 +1,589 @@
+package com.uwf.workflow.engine.state;
+
+import com.uwf.workflow.engine.config.WorkflowStateProperties;
+import com.uwf.workflow.engine.state.log.StateCodec;
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+import com.uwf.workflow.primitive.model.WorkflowStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent state store that keeps the state in memory, like {@link InMemoryStateManagement},
+ * and writes it behind to the {@code workflow_state} table of a database.
+ * <p>
+ * A change only marks its run as dirty, so the several saves of one step coalesce into a single
+ * row write. A flusher thread writes the current state of the dirty runs every flush interval,
+ * or as soon as a batch worth of runs changed, as JDBC batches of upserts and of deletes for
+ * removed runs, one transaction per batch. Upserts use the native statement of the database
+ * ({@code MERGE} on H2, {@code ON CONFLICT} on PostgreSQL, {@code ON DUPLICATE KEY UPDATE} on
+ * MySQL/MariaDB), so writers racing on a new run never collide on its primary key. On other
+ * databases runs are updated, and inserted when the update matched no row. A failed batch
+ * is marked dirty again and retried on the next flush. Changes made in the last flush interval
+ * before a crash are lost; runs recovered from the table resume from their last written step.
+ * <p>
+ * The context is stored in columns; the data and checkpoint are stored as {@link StateCodec}
+ * records. On startup every row is loaded back into memory. Retention runs as in the in-memory
+ * store and deletes the rows of evicted and expired runs.
+ * <p>
+ * The table is created from the schema script of the database under {@code db/workflow-state/},
+ * shipped for H2, PostgreSQL and MySQL/MariaDB. On other databases create the table from one of
+ * these scripts and disable schema initialization.
+ * <p>
+ * Enabled with {@code workflow.state.type=jdbc}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.state.type", havingValue = "jdbc")
+public class JdbcStateManagement extends InMemoryStateManagement {
+
+    private static final String SCHEMA_LOCATION = "/db/workflow-state/";
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 4000;
+    private static final String COLUMNS = "workflow_definition_id, status, current_step_index, current_child_step_index, "
+            + "start_time, end_time, error_message, last_attempted_step, deadline, data, checkpoint, updated_at";
+    private static final String SELECT_SQL = "SELECT run_id, " + COLUMNS + " FROM workflow_state";
+    private static final String UPDATE_SQL = "UPDATE workflow_state SET workflow_definition_id = ?, status = ?, "
+            + "current_step_index = ?, current_child_step_index = ?, start_time = ?, end_time = ?, error_message = ?, "
+            + "last_attempted_step = ?, deadline = ?, data = ?, checkpoint = ?, updated_at = ? WHERE run_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO workflow_state (" + COLUMNS + ", run_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM workflow_state WHERE run_id = ?";
+    private static final String H2_UPSERT_SQL = "MERGE INTO workflow_state (" + COLUMNS + ", run_id) KEY (run_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String POSTGRESQL_UPSERT_SQL = INSERT_SQL + " ON CONFLICT (run_id) DO UPDATE SET "
+            + assignments("EXCLUDED.%s");
+    private static final String MYSQL_UPSERT_SQL = INSERT_SQL + " ON DUPLICATE KEY UPDATE " + assignments("VALUES(%s)");
+
+    private final DataSource dataSource;
+    private final Dialect dialect;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Set<String> dirtyRuns = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private final LongAdder writtenRuns = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final Thread flusher;
+    private volatile boolean loading = true;
+    private volatile boolean running = true;
+
+    @Autowired
+    public JdbcStateManagement(WorkflowStateProperties properties) {
+        this(DataSourceBuilder.create()
+                        .url(properties.getJdbcUrl())
+                        .username(properties.getJdbcUsername())
+                        .password(properties.getJdbcPassword())
+                        .build(),
+                properties.getJdbcBatchSize(), properties.getJdbcFlushIntervalMillis(),
+                properties.isJdbcInitializeSchema(), properties.getTerminalRunTtlMillis(),
+                properties.getMaxRetainedRuns(), properties.getExpiryTickMillis());
+    }
+
+    /**
+     * Opens the store on a database and loads the state stored there.
+     *
+     * @param dataSource the database holding the {@code workflow_state} table
+     * @param batchSize the maximum number of runs written in one JDBC batch
+     * @param flushIntervalMillis the maximum time in milliseconds a change waits before it is written
+     * @param initializeSchema whether to create the table if it does not exist
+     * @param terminalRunTtlMillis the time in milliseconds a finished run is kept, 0 to keep it until evicted
+     * @param maxRetainedRuns the maximum number of finished runs kept, 0 for no limit
+     * @param expiryTickMillis the resolution of the expiry timer in milliseconds
+     */
+    public JdbcStateManagement(DataSource dataSource, int batchSize, long flushIntervalMillis,
+                               boolean initializeSchema, long terminalRunTtlMillis, int maxRetainedRuns,
+                               long expiryTickMillis) {
+        super(terminalRunTtlMillis, maxRetainedRuns, expiryTickMillis);
+        this.dataSource = dataSource;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        String databaseProductName = databaseProductName();
+        this.dialect = Dialect.of(databaseProductName);
+        if (initializeSchema) {
+            createTable(databaseProductName);
+        }
+        load();
+        this.flusher = new Thread(this::flushLoop, "workflow-state-jdbc-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void saveContext(WorkflowContext context) {
+        super.saveContext(context);
+        changed(context.runId());
+    }
+
+    @Override
+    public void saveData(String runId, WorkflowData data) {
+        super.saveData(runId, data);
+        changed(runId);
+    }
+
+    @Override
+    public void saveCheckpoint(WorkflowCheckpoint checkpoint) {
+        super.saveCheckpoint(checkpoint);
+        changed(checkpoint.runId());
+    }
+
+    /**
+     * Removes all state for the given run ID; its row is deleted on the next flush.
+     * Runs evicted while the state is loaded are deleted too.
+     *
+     * @param runId the workflow run ID
+     */
+    @Override
+    public void removeState(String runId) {
+        super.removeState(runId);
+        dirtyRuns.add(runId);
+    }
+
+    /**
+     * Writes every changed run to the database now.
+     *
+     * @return true if every changed run was written, false if a batch failed and will be retried
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            if (dirtyRuns.isEmpty()) {
+                return true;
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                while (!dirtyRuns.isEmpty()) {
+                    // Unmarked before the state is read, so a change racing with the write marks the run again
+                    List<String> runIds = new ArrayList<>(Math.min(batchSize, 1024));
+                    Iterator<String> iterator = dirtyRuns.iterator();
+                    while (runIds.size() < batchSize && iterator.hasNext()) {
+                        runIds.add(iterator.next());
+                        iterator.remove();
+                    }
+                    try {
+                        writeBatch(connection, runIds);
+                    } catch (SQLException | RuntimeException e) {
+                        dirtyRuns.addAll(runIds);
+                        rollbackQuietly(connection);
+                        throw e;
+                    }
+                }
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("[JdbcStateManagement] Failed to write " + dirtyRuns.size()
+                        + " changed runs, retrying on the next flush: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of runs changed since they were last written.
+     *
+     * @return the number of changed runs
+     */
+    public int getPendingRunCount() {
+        return dirtyRuns.size();
+    }
+
+    /**
+     * Gets the number of run rows written or deleted.
+     *
+     * @return the number of written runs
+     */
+    public long getWrittenRunCount() {
+        return writtenRuns.sum();
+    }
+
+    /**
+     * Gets the number of JDBC batches committed.
+     *
+     * @return the number of batches
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Stops the flusher and the expiry timer, and writes the remaining changes.
+     */
+    @Override
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.shutdown();
+        if (!flush()) {
+            System.err.println("[JdbcStateManagement] " + dirtyRuns.size() + " changed runs were not written");
+        }
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("[JdbcStateManagement] Failed to close the data source: " + e.getMessage());
+            }
+        }
+    }
+
+    private void changed(String runId) {
+        if (loading) {
+            return;
+        }
+        dirtyRuns.add(runId);
+        if (dirtyRuns.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void writeBatch(Connection connection, List<String> runIds) throws SQLException {
+        Instant now = Instant.now();
+        List<Row> rows = new ArrayList<>(runIds.size());
+        List<String> removed = new ArrayList<>();
+        for (String runId : runIds) {
+            // Read in the reverse order of the executor's saves, which saves the data before the checkpoint
+            // that refers to it: the data read here is never older than the steps the checkpoint completed
+            WorkflowCheckpoint checkpoint = getCheckpoint(runId);
+            WorkflowData data = peekData(runId);
+            Map<String, Object> entries = data != null ? data.toMap() : null;
+            WorkflowContext context = peekContext(runId);
+            if (context == null && entries == null && checkpoint == null) {
+                removed.add(runId);
+                continue;
+            }
+            byte[] encodedData;
+            try {
+                encodedData = entries != null ? StateCodec.encodeData(runId, entries) : null;
+            } catch (ConcurrentModificationException e) {
+                // A running step is modifying one of the values; the run is written on the next flush
+                dirtyRuns.add(runId);
+                continue;
+            }
+            rows.add(new Row(runId, context, encodedData,
+                    checkpoint != null ? StateCodec.encodeCheckpoint(checkpoint) : null));
+        }
+        if (!rows.isEmpty() && dialect.upsertSql != null) {
+            try (PreparedStatement upsert = connection.prepareStatement(dialect.upsertSql)) {
+                for (Row row : rows) {
+                    bind(upsert, row, now);
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+            }
+        } else if (!rows.isEmpty()) {
+            updateOrInsert(connection, rows, now);
+        }
+        if (!removed.isEmpty()) {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+                for (String runId : removed) {
+                    delete.setString(1, runId);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+        }
+        connection.commit();
+        writtenRuns.add(rows.size() + removed.size());
+        batches.increment();
+    }
+
+    /**
+     * Writes rows on a database without a known upsert: updates them in a batch, then inserts
+     * the rows whose update matched none. Drivers may report a batched update as
+     * {@link Statement#SUCCESS_NO_INFO}, as MySQL's does when it rewrites batches; those rows are
+     * updated again one by one to learn whether they exist.
+     */
+    private static void updateOrInsert(Connection connection, List<Row> rows, Instant now) throws SQLException {
+        List<Row> missing = new ArrayList<>();
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+            for (Row row : rows) {
+                bind(update, row, now);
+                update.addBatch();
+            }
+            int[] counts = update.executeBatch();
+            List<Row> unknown = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    missing.add(rows.get(i));
+                } else if (counts[i] < 0) {
+                    unknown.add(rows.get(i));
+                }
+            }
+            for (Row row : unknown) {
+                bind(update, row, now);
+                if (update.executeUpdate() == 0) {
+                    missing.add(row);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                for (Row row : missing) {
+                    bind(insert, row, now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Row row, Instant now) throws SQLException {
+        WorkflowContext context = row.context();
+        if (context != null) {
+            statement.setString(1, context.workflowDefinitionId());
+            statement.setString(2, context.status().name());
+            statement.setInt(3, context.currentStepIndex());
+            statement.setInt(4, context.currentChildStepIndex());
+            setInstant(statement, 5, context.startTime());
+            setInstant(statement, 6, context.endTime());
+            statement.setString(7, truncate(context.errorMessage()));
+            statement.setString(8, context.lastAttemptedStep());
+            setInstant(statement, 9, context.deadline());
+        } else {
+            statement.setNull(1, Types.VARCHAR);
+            statement.setNull(2, Types.VARCHAR);
+            statement.setNull(3, Types.INTEGER);
+            statement.setNull(4, Types.INTEGER);
+            setInstant(statement, 5, null);
+            setInstant(statement, 6, null);
+            statement.setNull(7, Types.VARCHAR);
+            statement.setNull(8, Types.VARCHAR);
+            setInstant(statement, 9, null);
+        }
+        setBytes(statement, 10, row.data());
+        setBytes(statement, 11, row.checkpoint());
+        setInstant(statement, 12, now);
+        statement.setString(13, row.runId());
+    }
+
+    private static void setInstant(PreparedStatement statement, int column, Instant value) throws SQLException {
+        if (value == null) {
+            statement.setNull(column, Types.TIMESTAMP_WITH_TIMEZONE);
+        } else {
+            statement.setObject(column, value.atOffset(ZoneOffset.UTC));
+        }
+    }
+
+    private static void setBytes(PreparedStatement statement, int column, byte[] value) throws SQLException {
+        if (value == null) {
+            statement.setNull(column, Types.VARBINARY);
+        } else {
+            statement.setBytes(column, value);
+        }
+    }
+
+    private static String truncate(String errorMessage) {
+        return errorMessage != null && errorMessage.length() > MAX_ERROR_MESSAGE_LENGTH
+                ? errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH)
+                : errorMessage;
+    }
+
+    private static Instant getInstant(ResultSet resultSet, String column) throws SQLException {
+        OffsetDateTime value = resultSet.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+
+    /**
+     * Builds the update clause of an upsert, setting every column but the key from the inserted values.
+     *
+     * @param insertedValue the format of the reference to the inserted value of a column
+     */
+    private static String assignments(String insertedValue) {
+        return Arrays.stream(COLUMNS.split(", "))
+                .map(column -> column + " = " + String.format(insertedValue, column))
+                .collect(Collectors.joining(", "));
+    }
+
+    private String databaseProductName() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to connect to the workflow state database", e);
+        }
+    }
+
+    /**
+     * Creates the table with the schema script of the database, if it does not exist.
+     */
+    private void createTable(String databaseProductName) {
+        if (dialect.schemaScript == null) {
+            throw new IllegalStateException("No workflow_state schema for " + databaseProductName
+                    + "; create the table and set workflow.state.jdbc-initialize-schema=false");
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(schemaScript(dialect.schemaScript));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create the workflow_state table", e);
+        }
+    }
+
+    private static String schemaScript(String script) {
+        try (InputStream in = JdbcStateManagement.class.getResourceAsStream(SCHEMA_LOCATION + script)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing schema script " + SCHEMA_LOCATION + script);
+            }
+            // The scripts hold a single statement, after a comment line
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read schema script " + SCHEMA_LOCATION + script, e);
+        }
+    }
+
+    /**
+     * Loads every stored run into memory.
+     */
+    private void load() {
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        StateCodec.Handler handler = new StateCodec.Handler() {
+            @Override
+            public void onContext(WorkflowContext context) {
+                saveContext(context);
+            }
+
+            @Override
+            public void onData(String runId, WorkflowData data) {
+                saveData(runId, data);
+            }
+
+            @Override
+            public void onCheckpoint(WorkflowCheckpoint checkpoint) {
+                saveCheckpoint(checkpoint);
+            }
+
+            @Override
+            public void onRemove(String runId) {
+                removeState(runId);
+            }
+        };
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setFetchSize(1000);
+            try (ResultSet resultSet = statement.executeQuery(SELECT_SQL)) {
+                while (resultSet.next()) {
+                    String runId = resultSet.getString("run_id");
+                    String status = resultSet.getString("status");
+                    if (status != null) {
+                        saveContext(new WorkflowContext(
+                                runId,
+                                resultSet.getString("workflow_definition_id"),
+                                WorkflowStatus.valueOf(status),
+                                resultSet.getInt("current_step_index"),
+                                resultSet.getInt("current_child_step_index"),
+                                getInstant(resultSet, "start_time"),
+                                getInstant(resultSet, "end_time"),
+                                resultSet.getString("error_message"),
+                                resultSet.getString("last_attempted_step"),
+                                getInstant(resultSet, "deadline")
+                        ));
+                    }
+                    byte[] data = resultSet.getBytes("data");
+                    if (data != null) {
+                        StateCodec.decode(data, handler);
+                    }
+                    byte[] checkpoint = resultSet.getBytes("checkpoint");
+                    if (checkpoint != null) {
+                        StateCodec.decode(checkpoint, handler);
+                    }
+                    rows++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load the workflow_state table", e);
+        } finally {
+            loading = false;
+        }
+        if (rows > 0) {
+            System.out.println("[JdbcStateManagement] Loaded " + rows + " runs in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+            if (running) {
+                flush();
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("[JdbcStateManagement] Rollback failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Database specific schema script and upsert statement.
+     */
+    private enum Dialect {
+        H2("h2.sql", H2_UPSERT_SQL),
+        POSTGRESQL("postgresql.sql", POSTGRESQL_UPSERT_SQL),
+        MYSQL("mysql.sql", MYSQL_UPSERT_SQL),
+        OTHER(null, null);
+
+        private final String schemaScript;
+        private final String upsertSql;
+
+        Dialect(String schemaScript, String upsertSql) {
+            this.schemaScript = schemaScript;
+            this.upsertSql = upsertSql;
+        }
+
+        static Dialect of(String databaseProductName) {
+            String product = databaseProductName.toLowerCase(Locale.ROOT);
+            if (product.contains("h2")) {
+                return H2;
+            } else if (product.contains("postgresql")) {
+                return POSTGRESQL;
+            } else if (product.contains("mysql") || product.contains("mariadb")) {
+                return MYSQL;
+            }
+            return OTHER;
+        }
+    }
+
+    /**
+     * State of a run as written to its row.
+     */
+    private record Row(String runId, WorkflowContext context, byte[] data, byte[] checkpoint) {
+    }
+}
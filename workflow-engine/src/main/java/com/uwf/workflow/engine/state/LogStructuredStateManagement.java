@@ -0,0 +1,240 @@
+package com.uwf.workflow.engine.state;
+
+import com.uwf.workflow.engine.config.WorkflowStateProperties;
+import com.uwf.workflow.engine.state.log.StateCodec;
+import com.uwf.workflow.engine.state.log.StateLog;
+import com.uwf.workflow.engine.state.log.StateSnapshot;
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Persistent state store that keeps the state in memory, like {@link InMemoryStateManagement},
+ * and records every change in a {@link StateLog} write-ahead log.
+ * <p>
+ * Writes only encode the change and append it to the log buffer; a flusher thread writes the
+ * buffer sequentially and forces it once per flush interval, so concurrent changes share one
+ * fsync. With sync writes enabled, each change waits for that flush before returning.
+ * <p>
+ * A snapshot thread periodically rolls the log over to a new segment, writes the live state as
+ * a {@link StateSnapshot} and deletes the segments the snapshot covers, so the log stays about
+ * as large as the live state. On startup the latest snapshot is loaded and the log written after
+ * it is replayed. Retention runs as in the in-memory store; evictions and expiries are logged as
+ * removals, while TTLs themselves are not persisted and finished runs start a new TTL on recovery.
+ * <p>
+ * Enabled with {@code workflow.state.type=log}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.state.type", havingValue = "log")
+public class LogStructuredStateManagement extends InMemoryStateManagement {
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private final long snapshotIntervalMillis;
+    private final Thread snapshotter;
+    private final Object snapshotLock = new Object();
+    // Null while the state is recovered, so replayed changes are not logged again
+    private StateLog log;
+    // Guarded by snapshotLock
+    private long snapshottedBytes;
+    private volatile boolean running = true;
+
+    @Autowired
+    public LogStructuredStateManagement(WorkflowStateProperties properties) {
+        this(Path.of(properties.getLogDirectory()), properties.getLogSegmentBytes(),
+                properties.getLogFlushIntervalMillis(), properties.isLogSyncWrites(),
+                properties.getSnapshotIntervalMillis(), properties.getTerminalRunTtlMillis(),
+                properties.getMaxRetainedRuns(), properties.getExpiryTickMillis());
+    }
+
+    /**
+     * Opens the store in a directory and recovers the state persisted there.
+     *
+     * @param directory the directory holding the log segments and snapshots
+     * @param segmentBytes the size in bytes after which the active log segment rolls over
+     * @param flushIntervalMillis the maximum time in milliseconds between group-commit flushes
+     * @param syncWrites whether changes wait until their record has been forced to disk
+     * @param snapshotIntervalMillis the interval in milliseconds between snapshots, 0 to disable them
+     * @param terminalRunTtlMillis the time in milliseconds a finished run is kept, 0 to keep it until evicted
+     * @param maxRetainedRuns the maximum number of finished runs kept, 0 for no limit
+     * @param expiryTickMillis the resolution of the expiry timer in milliseconds
+     */
+    public LogStructuredStateManagement(Path directory, long segmentBytes, long flushIntervalMillis,
+                                        boolean syncWrites, long snapshotIntervalMillis,
+                                        long terminalRunTtlMillis, int maxRetainedRuns, long expiryTickMillis) {
+        super(terminalRunTtlMillis, maxRetainedRuns, expiryTickMillis);
+        this.directory = directory;
+        this.syncWrites = syncWrites;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        long nextSegmentId = recover();
+        this.log = new StateLog(directory, nextSegmentId, segmentBytes, flushIntervalMillis);
+        if (snapshotIntervalMillis > 0) {
+            this.snapshotter = new Thread(this::snapshotLoop, "workflow-state-snapshot");
+            this.snapshotter.setDaemon(true);
+            this.snapshotter.start();
+        } else {
+            this.snapshotter = null;
+        }
+    }
+
+    @Override
+    public void saveContext(WorkflowContext context) {
+        StateLog current = log;
+        if (current == null) {
+            super.saveContext(context);
+            return;
+        }
+        commit(current.append(StateCodec.encodeContext(context), () -> super.saveContext(context)));
+    }
+
+    @Override
+    public void saveData(String runId, WorkflowData data) {
+        StateLog current = log;
+        if (current == null) {
+            super.saveData(runId, data);
+            return;
+        }
+        commit(current.append(StateCodec.encodeData(runId, data), () -> super.saveData(runId, data)));
+    }
+
+    @Override
+    public void saveCheckpoint(WorkflowCheckpoint checkpoint) {
+        StateLog current = log;
+        if (current == null) {
+            super.saveCheckpoint(checkpoint);
+            return;
+        }
+        commit(current.append(StateCodec.encodeCheckpoint(checkpoint), () -> super.saveCheckpoint(checkpoint)));
+    }
+
+    @Override
+    public void removeState(String runId) {
+        StateLog current = log;
+        if (current == null) {
+            super.removeState(runId);
+            return;
+        }
+        commit(current.append(StateCodec.encodeRemove(runId), () -> super.removeState(runId)));
+    }
+
+    /**
+     * Writes a snapshot of the live state and deletes the log segments it covers.
+     *
+     * @return the number of records in the snapshot
+     */
+    public long snapshot() {
+        synchronized (snapshotLock) {
+            long appended = log.getAppendedBytes();
+            long startNanos = System.nanoTime();
+            // Every change before the roll is in an older segment and already applied to the stores.
+            // Changes made while the stores are visited may or may not be in the snapshot; they are
+            // in the new segment either way, and replaying them over the snapshot is idempotent.
+            long segmentId = log.roll();
+            long records = StateSnapshot.write(directory, segmentId, writer -> forEachState(
+                    context -> writer.write(StateCodec.encodeContext(context)),
+                    (runId, data) -> writer.write(StateCodec.encodeData(runId, data)),
+                    checkpoint -> writer.write(StateCodec.encodeCheckpoint(checkpoint))));
+            int deleted = log.deleteSegmentsBefore(segmentId);
+            snapshottedBytes = appended;
+            System.out.println("[LogStructuredStateManagement] Snapshot of " + records + " records written in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms, "
+                    + deleted + " log segments deleted");
+            return records;
+        }
+    }
+
+    /**
+     * Stops the snapshots and the expiry timer, and forces the remaining log records to disk.
+     */
+    @Override
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (snapshotter != null) {
+            // Unparked rather than interrupted: an interrupt would close the log channel mid-write
+            LockSupport.unpark(snapshotter);
+            try {
+                snapshotter.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.shutdown();
+        log.close();
+    }
+
+    private void commit(long position) {
+        if (syncWrites) {
+            log.awaitFlushed(position);
+        }
+    }
+
+    /**
+     * Loads the latest snapshot and replays the log written after it.
+     *
+     * @return the number of the first log segment to write
+     */
+    private long recover() {
+        long startNanos = System.nanoTime();
+        StateCodec.Handler handler = new StateCodec.Handler() {
+            @Override
+            public void onContext(WorkflowContext context) {
+                saveContext(context);
+            }
+
+            @Override
+            public void onData(String runId, WorkflowData data) {
+                saveData(runId, data);
+            }
+
+            @Override
+            public void onCheckpoint(WorkflowCheckpoint checkpoint) {
+                saveCheckpoint(checkpoint);
+            }
+
+            @Override
+            public void onRemove(String runId) {
+                removeState(runId);
+            }
+        };
+        long[] records = new long[1];
+        Consumer<byte[]> apply = body -> {
+            StateCodec.decode(body, handler);
+            records[0]++;
+        };
+        long snapshotSegmentId = StateSnapshot.load(directory, apply);
+        long snapshotRecords = records[0];
+        long nextSegmentId = StateLog.replay(directory, snapshotSegmentId, apply);
+        if (records[0] > 0) {
+            System.out.println("[LogStructuredStateManagement] Recovered " + snapshotRecords + " snapshot records and "
+                    + (records[0] - snapshotRecords) + " log records from " + directory + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+        }
+        return nextSegmentId;
+    }
+
+    private void snapshotLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMillis));
+            synchronized (snapshotLock) {
+                if (!running || log.getAppendedBytes() == snapshottedBytes) {
+                    continue;
+                }
+                try {
+                    snapshot();
+                } catch (RuntimeException e) {
+                    System.err.println("[LogStructuredStateManagement] Snapshot failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.uwf.workflow.engine.state;
 import com.uwf.workflow.primitive.model.WorkflowContext;
 import com.uwf.workflow.primitive.model.WorkflowData;
 
+import java.util.List;
+
 /**
  * Interface for workflow state management implementations.
  * Provides abstraction for different state storage backends (in-memory, database, distributed cache).
@@ -95,4 +97,54 @@ public interface StateManagement {
     default void setTtl(String runId, long ttlSeconds) {
         // Default implementation (no-op)
     }
+
+    /**
+     * Keeps the state of a finished run until {@link #releaseState(String)} or
+     * {@link #removeState(String)}, exempt from the retention limits of finished runs.
+     * Used for dead-lettered runs, whose state must outlive them in the dead-letter queue.
+     *
+     * @param runId the workflow run ID
+     */
+    default void keepState(String runId) {
+        // Default implementation (no-op, state is never expired)
+    }
+
+    /**
+     * Ends {@link #keepState(String)}: a finished run is retained like any other from now on.
+     *
+     * @param runId the workflow run ID
+     */
+    default void releaseState(String runId) {
+        // Default implementation (no-op)
+    }
+
+    /**
+     * Saves the checkpoint of a workflow run.
+     * Implementations that survive a restart should persist it together with the run's data.
+     *
+     * @param checkpoint the checkpoint to save
+     */
+    default void saveCheckpoint(WorkflowCheckpoint checkpoint) {
+        // Default implementation (no-op, runs restart from the first step)
+    }
+
+    /**
+     * Retrieves the checkpoint of a workflow run.
+     *
+     * @param runId the workflow run ID
+     * @return the checkpoint, or null if none was saved
+     */
+    default WorkflowCheckpoint getCheckpoint(String runId) {
+        return null;
+    }
+
+    /**
+     * Lists the runs whose context is not in a terminal status.
+     * Used on startup to resume runs that were interrupted by a restart.
+     *
+     * @return the IDs of the non-terminal runs
+     */
+    default List<String> getNonTerminalRunIds() {
+        return List.of();
+    }
 }
@@ -0,0 +1,93 @@
+package com.uwf.workflow.engine.state;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable record of the progress of a workflow run, saved at step boundaries.
+ * A resumed run skips every step listed here instead of executing it again.
+ *
+ * @param runId the workflow run ID
+ * @param completedSteps the indices of the steps that completed successfully
+ * @param failedAttempts the number of failed attempts per step or child step, keyed by retry key
+ * @param checkpointTime when the checkpoint was taken
+ */
+public record WorkflowCheckpoint(
+        String runId,
+        Set<Integer> completedSteps,
+        Map<String, Integer> failedAttempts,
+        Instant checkpointTime
+) {
+
+    public WorkflowCheckpoint {
+        completedSteps = Collections.unmodifiableSet(new TreeSet<>(completedSteps));
+        failedAttempts = Map.copyOf(failedAttempts);
+    }
+
+    /**
+     * Creates the checkpoint of a run that has not completed any step yet.
+     *
+     * @param runId the workflow run ID
+     * @return an empty checkpoint
+     */
+    public static WorkflowCheckpoint empty(String runId) {
+        return new WorkflowCheckpoint(runId, Set.of(), Map.of(), null);
+    }
+
+    /**
+     * Creates a new checkpoint that additionally marks a step as completed.
+     *
+     * @param stepIndex the index of the completed step
+     * @return a new WorkflowCheckpoint including the step
+     */
+    public WorkflowCheckpoint withCompletedStep(int stepIndex) {
+        Set<Integer> steps = new TreeSet<>(completedSteps);
+        steps.add(stepIndex);
+        return new WorkflowCheckpoint(runId, steps, failedAttempts, Instant.now());
+    }
+
+    /**
+     * Creates a new checkpoint that counts one more failed attempt for a step or child step.
+     *
+     * @param retryKey the key identifying the step or child step
+     * @return a new WorkflowCheckpoint with the attempt counted
+     */
+    public WorkflowCheckpoint withFailedAttempt(String retryKey) {
+        Map<String, Integer> attempts = new HashMap<>(failedAttempts);
+        attempts.merge(retryKey, 1, Integer::sum);
+        return new WorkflowCheckpoint(runId, completedSteps, attempts, Instant.now());
+    }
+
+    /**
+     * Creates a new checkpoint with the completed steps only, so every retry policy starts over.
+     *
+     * @return a new WorkflowCheckpoint without failed attempts
+     */
+    public WorkflowCheckpoint withoutFailedAttempts() {
+        return new WorkflowCheckpoint(runId, completedSteps, Map.of(), Instant.now());
+    }
+
+    /**
+     * Checks if a step completed in an earlier attempt of the run.
+     *
+     * @param stepIndex the step index
+     * @return true if the step is completed, false otherwise
+     */
+    public boolean isStepCompleted(int stepIndex) {
+        return completedSteps.contains(stepIndex);
+    }
+
+    /**
+     * Gets the number of failed attempts of a step or child step.
+     *
+     * @param retryKey the key identifying the step or child step
+     * @return the number of failed attempts, 0 if it never failed
+     */
+    public int getFailedAttempts(String retryKey) {
+        return failedAttempts.getOrDefault(retryKey, 0);
+    }
+}
@@ -0,0 +1,404 @@
+package com.uwf.workflow.engine.state.log;
+
+import com.uwf.workflow.engine.state.WorkflowCheckpoint;
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+import com.uwf.workflow.primitive.model.WorkflowStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary encoding of the state records of a {@link StateLog}.
+ * <p>
+ * Contexts and checkpoints are written field by field. Workflow data values of the common types
+ * (strings, numbers, booleans, instants, contexts and plain hash maps and array lists of those)
+ * have a compact tagged encoding, so that recovery does not pay for Java serialization; other
+ * {@link java.io.Serializable} values fall back to it. Entries whose value cannot be encoded at
+ * all are left out of the record.
+ */
+public final class StateCodec {
+
+    private static final byte CONTEXT = 1;
+    private static final byte DATA = 2;
+    private static final byte CHECKPOINT = 3;
+    private static final byte REMOVE = 4;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte INSTANT = 6;
+    private static final byte HASH_MAP = 7;
+    private static final byte LINKED_HASH_MAP = 8;
+    private static final byte ARRAY_LIST = 9;
+    private static final byte WORKFLOW_CONTEXT = 10;
+    private static final byte SERIALIZED = 11;
+
+    private static final int MAX_ENCODE_ATTEMPTS = 3;
+    private static final WorkflowStatus[] STATUSES = WorkflowStatus.values();
+    private static final Set<String> reportedKeys = ConcurrentHashMap.newKeySet();
+
+    private StateCodec() {
+    }
+
+    /**
+     * Receives the decoded state records.
+     */
+    public interface Handler {
+
+        void onContext(WorkflowContext context);
+
+        void onData(String runId, WorkflowData data);
+
+        void onCheckpoint(WorkflowCheckpoint checkpoint);
+
+        void onRemove(String runId);
+    }
+
+    public static byte[] encodeContext(WorkflowContext context) {
+        Encoder out = new Encoder();
+        out.writeByte(CONTEXT);
+        out.writeContext(context);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes the workflow data of a run, leaving out the entries whose value cannot be encoded.
+     * A value modified by a running step while it is encoded is encoded again from a new snapshot.
+     *
+     * @param runId the workflow run ID
+     * @param data the workflow data
+     * @return the encoded record
+     * @throws ConcurrentModificationException if values keep being modified while they are encoded
+     */
+    public static byte[] encodeData(String runId, WorkflowData data) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return encodeData(runId, data.toMap());
+            } catch (ConcurrentModificationException e) {
+                if (attempt == MAX_ENCODE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes a snapshot of the workflow data of a run, leaving out the entries whose value cannot be encoded.
+     *
+     * @param runId the workflow run ID
+     * @param entries the data entries, as returned by {@link WorkflowData#toMap()}
+     * @return the encoded record
+     * @throws ConcurrentModificationException if a value is modified while it is encoded
+     */
+    public static byte[] encodeData(String runId, Map<String, Object> entries) {
+        Encoder out = new Encoder();
+        out.writeByte(DATA);
+        out.writeString(runId);
+        Encoder values = new Encoder();
+        int count = 0;
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            int mark = values.size();
+            try {
+                values.writeString(entry.getKey());
+                values.writeValue(entry.getValue());
+                count++;
+            } catch (ConcurrentModificationException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                values.truncate(mark);
+                if (reportedKeys.add(entry.getKey())) {
+                    System.err.println("[StateCodec] Not persisting workflow data key '" + entry.getKey()
+                            + "': " + e.getMessage());
+                }
+            }
+        }
+        out.writeInt(count);
+        out.write(values);
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeCheckpoint(WorkflowCheckpoint checkpoint) {
+        Encoder out = new Encoder();
+        out.writeByte(CHECKPOINT);
+        out.writeString(checkpoint.runId());
+        out.writeInt(checkpoint.completedSteps().size());
+        for (int step : checkpoint.completedSteps()) {
+            out.writeInt(step);
+        }
+        out.writeInt(checkpoint.failedAttempts().size());
+        for (Map.Entry<String, Integer> attempts : checkpoint.failedAttempts().entrySet()) {
+            out.writeString(attempts.getKey());
+            out.writeInt(attempts.getValue());
+        }
+        out.writeInstant(checkpoint.checkpointTime());
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeRemove(String runId) {
+        Encoder out = new Encoder();
+        out.writeByte(REMOVE);
+        out.writeString(runId);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a record and passes it to the handler.
+     *
+     * @param body the encoded record
+     * @param handler receives the decoded record
+     * @throws IllegalStateException if the record cannot be decoded
+     */
+    public static void decode(byte[] body, Handler handler) {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        try {
+            switch (in.get()) {
+                case CONTEXT -> handler.onContext(readContext(in));
+                case DATA -> {
+                    String runId = readString(in);
+                    int count = in.getInt();
+                    Map<String, Object> entries = new HashMap<>(Math.max(16, count * 2));
+                    for (int i = 0; i < count; i++) {
+                        entries.put(readString(in), readValue(in));
+                    }
+                    handler.onData(runId, new WorkflowData(entries));
+                }
+                case CHECKPOINT -> {
+                    String runId = readString(in);
+                    List<Integer> steps = new ArrayList<>();
+                    for (int i = in.getInt(); i > 0; i--) {
+                        steps.add(in.getInt());
+                    }
+                    Map<String, Integer> attempts = new HashMap<>();
+                    for (int i = in.getInt(); i > 0; i--) {
+                        attempts.put(readString(in), in.getInt());
+                    }
+                    handler.onCheckpoint(new WorkflowCheckpoint(runId, Set.copyOf(steps), attempts, readInstant(in)));
+                }
+                case REMOVE -> handler.onRemove(readString(in));
+                default -> throw new IllegalStateException("Unknown state record type " + body[0]);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Failed to decode state record: " + e.getMessage(), e);
+        }
+    }
+
+    private static WorkflowContext readContext(ByteBuffer in) {
+        return new WorkflowContext(
+                readString(in),
+                readString(in),
+                STATUSES[in.get()],
+                in.getInt(),
+                in.getInt(),
+                readInstant(in),
+                readInstant(in),
+                readString(in),
+                readString(in),
+                readInstant(in)
+        );
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return in.getDouble();
+            case BOOLEAN:
+                return in.get() != 0;
+            case INSTANT:
+                return readInstant(in);
+            case HASH_MAP:
+            case LINKED_HASH_MAP: {
+                int count = in.getInt();
+                Map<Object, Object> map = tag == HASH_MAP ? new HashMap<>() : new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case ARRAY_LIST: {
+                int count = in.getInt();
+                List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case WORKFLOW_CONTEXT:
+                return readContext(in);
+            case SERIALIZED: {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objects.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    throw new IllegalStateException("Failed to deserialize workflow data value", e);
+                }
+            }
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static Instant readInstant(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        return Instant.ofEpochSecond(in.getLong(), in.getInt());
+    }
+
+    /**
+     * Growable output buffer with the encoding of each field.
+     */
+    private static final class Encoder extends ByteArrayOutputStream {
+        private final DataOutputStream out = new DataOutputStream(this);
+
+        Encoder() {
+            super(256);
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+
+        void write(Encoder other) {
+            write(other.buf, 0, other.count);
+        }
+
+        void writeByte(int value) {
+            write(value);
+        }
+
+        void writeInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeInstant(Instant value) {
+            if (value == null) {
+                writeByte(0);
+                return;
+            }
+            writeByte(1);
+            try {
+                out.writeLong(value.getEpochSecond());
+                out.writeInt(value.getNano());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeContext(WorkflowContext context) {
+            writeString(context.runId());
+            writeString(context.workflowDefinitionId());
+            writeByte(context.status().ordinal());
+            writeInt(context.currentStepIndex());
+            writeInt(context.currentChildStepIndex());
+            writeInstant(context.startTime());
+            writeInstant(context.endTime());
+            writeString(context.errorMessage());
+            writeString(context.lastAttemptedStep());
+            writeInstant(context.deadline());
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String string) {
+                writeByte(STRING);
+                writeString(string);
+            } else if (value instanceof Integer number) {
+                writeByte(INT);
+                out.writeInt(number);
+            } else if (value instanceof Long number) {
+                writeByte(LONG);
+                out.writeLong(number);
+            } else if (value instanceof Double number) {
+                writeByte(DOUBLE);
+                out.writeDouble(number);
+            } else if (value instanceof Boolean flag) {
+                writeByte(BOOLEAN);
+                writeByte(flag ? 1 : 0);
+            } else if (value instanceof Instant instant) {
+                writeByte(INSTANT);
+                writeInstant(instant);
+            } else if (value instanceof WorkflowContext context) {
+                writeByte(WORKFLOW_CONTEXT);
+                writeContext(context);
+            } else if (value.getClass() == HashMap.class || value.getClass() == LinkedHashMap.class) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeByte(value.getClass() == HashMap.class ? HASH_MAP : LINKED_HASH_MAP);
+                writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (value.getClass() == ArrayList.class) {
+                List<?> list = (List<?>) value;
+                writeByte(ARRAY_LIST);
+                writeInt(list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                    objects.writeObject(value);
+                }
+                writeByte(SERIALIZED);
+                writeInt(bytes.size());
+                bytes.writeTo(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.uwf.workflow.engine.state.log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of state records, stored in numbered segment files.
+ * <p>
+ * Appends only copy the framed record into an in-memory buffer. A flusher thread swaps the
+ * buffer out every flush interval and writes it to the active segment with one sequential
+ * write and one force, so a single fsync commits every record appended meanwhile; writers that
+ * need durability wait for it in {@link #awaitFlushed(long)}. The active segment rolls over to
+ * the next number once it exceeds the segment size.
+ * <p>
+ * On disk each record is a 4-byte body length and a 4-byte CRC32C of the body, followed by the
+ * body. A torn record at the end of the last segment is truncated on recovery.
+ */
+public class StateLog implements AutoCloseable {
+
+    static final int HEADER_BYTES = 8;
+    private static final int MAX_BODY_BYTES = 256 * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long flushIntervalNanos;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private final Thread flusher;
+    // Guarded by appendLock
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private long appendedBytes;
+    // Guarded by flushLock
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(64 * 1024);
+    private FileChannel channel;
+    private long segmentId;
+    private volatile long flushedBytes;
+    private volatile boolean running = true;
+
+    /**
+     * Opens a new segment in the log directory and starts the flusher.
+     *
+     * @param directory the log directory
+     * @param segmentId the number of the first segment to write, after every existing one
+     * @param segmentBytes the size in bytes after which the active segment rolls over
+     * @param flushIntervalMillis the maximum time in milliseconds between flushes
+     */
+    public StateLog(Path directory, long segmentId, long segmentBytes, long flushIntervalMillis) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(4096, segmentBytes);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.segmentId = segmentId;
+        this.channel = openSegment(segmentId);
+        this.flusher = new Thread(this::flushLoop, "workflow-state-log-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends a record body.
+     *
+     * @param body the encoded record
+     * @param onAppended applied under the append lock once the record is buffered, so that the
+     *                   order of the applied changes matches the order of the records
+     * @return the log position after the record, to wait for with {@link #awaitFlushed(long)}
+     */
+    public long append(byte[] body, Runnable onAppended) {
+        byte[] header = header(body);
+        appendLock.lock();
+        try {
+            pending.write(header, 0, HEADER_BYTES);
+            pending.write(body, 0, body.length);
+            appendedBytes += HEADER_BYTES + body.length;
+            onAppended.run();
+            return appendedBytes;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the log has been forced to disk up to a position, triggering a flush right away.
+     *
+     * @param position the log position returned by {@link #append(byte[], Runnable)}
+     */
+    public void awaitFlushed(long position) {
+        if (flushedBytes >= position) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        flushLock.lock();
+        try {
+            while (flushedBytes < position && running) {
+                flushed.awaitNanos(flushIntervalNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes and forces everything appended so far.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            writePending();
+            if (channel.size() >= segmentBytes) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write state log segment " + segmentId + " in " + directory, e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the log and starts a new segment. Every record appended before this call is in an
+     * earlier segment, and its change was applied before this call returns.
+     *
+     * @return the number of the new segment
+     */
+    public long roll() {
+        flushLock.lock();
+        try {
+            writePending();
+            rollSegment();
+            return segmentId;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll state log in " + directory, e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of bytes appended since the log was opened.
+     *
+     * @return the appended bytes
+     */
+    public long getAppendedBytes() {
+        appendLock.lock();
+        try {
+            return appendedBytes;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments numbered below the given one.
+     *
+     * @param segmentId the oldest segment that is still needed
+     * @return the number of deleted segments
+     */
+    public int deleteSegmentsBefore(long segmentId) {
+        int deleted = 0;
+        for (long id : listSegments(directory)) {
+            if (id < segmentId) {
+                try {
+                    Files.deleteIfExists(segmentPath(directory, id));
+                    deleted++;
+                } catch (IOException e) {
+                    System.err.println("[StateLog] Failed to delete segment " + id + ": " + e.getMessage());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Stops the flusher, forces the remaining records and closes the active segment.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushLock.lock();
+        try {
+            writePending();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[StateLog] Failed to close segment " + segmentId + ": " + e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Reads every record of the segments numbered from the given one on, in order.
+     * A torn record at the end of the last segment is truncated.
+     *
+     * @param directory the log directory
+     * @param fromSegmentId the first segment to read
+     * @param handler called with each record body
+     * @return the number of the segment to write next, after every existing one
+     * @throws IllegalStateException if a record before the end of the log is corrupt
+     */
+    public static long replay(Path directory, long fromSegmentId, Consumer<byte[]> handler) {
+        List<Long> segments = listSegments(directory);
+        long next = fromSegmentId;
+        for (int i = 0; i < segments.size(); i++) {
+            long id = segments.get(i);
+            next = Math.max(next, id + 1);
+            if (id < fromSegmentId) {
+                continue;
+            }
+            Path path = segmentPath(directory, id);
+            long valid = readFrames(path, handler);
+            try {
+                long size = Files.size(path);
+                if (valid < size) {
+                    if (i < segments.size() - 1) {
+                        throw new IllegalStateException("Corrupt state log record at byte " + valid + " of " + path);
+                    }
+                    System.err.println("[StateLog] Truncating torn record at byte " + valid + " of " + path);
+                    try (FileChannel torn = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                        torn.truncate(valid);
+                        torn.force(true);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to recover state log segment " + path, e);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Writes one framed record.
+     */
+    static void writeFrame(OutputStream out, byte[] body) throws IOException {
+        out.write(header(body));
+        out.write(body);
+    }
+
+    /**
+     * Reads the framed records of a file until its end or the first torn or corrupt record.
+     *
+     * @return the number of bytes of complete, valid records
+     */
+    static long readFrames(Path path, Consumer<byte[]> handler) {
+        long valid = 0;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 20))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return valid;
+                }
+                if (length < 0 || length > MAX_BODY_BYTES) {
+                    return valid;
+                }
+                int checksum = in.readInt();
+                byte[] body = new byte[length];
+                in.readFully(body);
+                CRC32C crc = new CRC32C();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    return valid;
+                }
+                handler.accept(body);
+                valid += HEADER_BYTES + length;
+            }
+        } catch (EOFException e) {
+            return valid;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + path, e);
+        }
+    }
+
+    private static byte[] header(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(body.length).putInt((int) crc.getValue()).array();
+    }
+
+    private void writePending() throws IOException {
+        long target;
+        appendLock.lock();
+        try {
+            ByteArrayOutputStream full = pending;
+            pending = spare;
+            spare = full;
+            target = appendedBytes;
+        } finally {
+            appendLock.unlock();
+        }
+        if (spare.size() > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(spare.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            spare.reset();
+        }
+        flushedBytes = target;
+        flushed.signalAll();
+    }
+
+    private void rollSegment() throws IOException {
+        channel.close();
+        segmentId++;
+        channel = openSegment(segmentId);
+    }
+
+    private FileChannel openSegment(long id) {
+        try {
+            Files.createDirectories(directory);
+            return FileChannel.open(segmentPath(directory, id),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create state log segment " + id + " in " + directory, e);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                System.err.println("[StateLog] Flush failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Path segmentPath(Path directory, long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> listSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list state log segments in " + directory, e);
+        }
+    }
+}
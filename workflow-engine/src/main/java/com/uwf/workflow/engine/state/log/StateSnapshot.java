@@ -0,0 +1,142 @@
+package com.uwf.workflow.engine.state.log;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot of the live state, written as the same framed records as the {@link StateLog}.
+ * <p>
+ * A snapshot is named after the first log segment it does not cover: recovery loads it and
+ * replays the log from that segment on. It is written to a temporary file, forced and renamed,
+ * so a snapshot file is always complete.
+ */
+public final class StateSnapshot {
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private StateSnapshot() {
+    }
+
+    /**
+     * Receives the records of a snapshot being written.
+     */
+    @FunctionalInterface
+    public interface Writer {
+
+        /**
+         * Writes one record.
+         *
+         * @param body the encoded record
+         */
+        void write(byte[] body);
+    }
+
+    /**
+     * Writes a snapshot and deletes the older ones.
+     *
+     * @param directory the log directory
+     * @param segmentId the first log segment the snapshot does not cover
+     * @param contents writes the records of the snapshot
+     * @return the number of records written
+     */
+    public static long write(Path directory, long segmentId, Consumer<Writer> contents) {
+        Path target = snapshotPath(directory, segmentId);
+        Path temporary = directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+        long[] records = new long[1];
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 20);
+            contents.accept(body -> {
+                try {
+                    StateLog.writeFrame(out, body);
+                    records[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            channel.force(true);
+        } catch (IOException | UncheckedIOException e) {
+            deleteQuietly(temporary);
+            throw new IllegalStateException("Failed to write state snapshot " + target, e);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(temporary);
+            throw new UncheckedIOException("Failed to publish state snapshot " + target, e);
+        }
+        for (long id : listSnapshots(directory)) {
+            if (id < segmentId) {
+                deleteQuietly(snapshotPath(directory, id));
+            }
+        }
+        return records[0];
+    }
+
+    /**
+     * Loads the latest snapshot.
+     *
+     * @param directory the log directory
+     * @param handler called with each record body
+     * @return the first log segment to replay after the snapshot, 0 if there is no snapshot
+     * @throws IllegalStateException if the snapshot is corrupt
+     */
+    public static long load(Path directory, Consumer<byte[]> handler) {
+        List<Long> snapshots = listSnapshots(directory);
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        long segmentId = snapshots.get(snapshots.size() - 1);
+        Path path = snapshotPath(directory, segmentId);
+        long valid = StateLog.readFrames(path, handler);
+        try {
+            if (valid != Files.size(path)) {
+                throw new IllegalStateException("Corrupt state snapshot record at byte " + valid + " of " + path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read state snapshot " + path, e);
+        }
+        return segmentId;
+    }
+
+    private static Path snapshotPath(Path directory, long segmentId) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, segmentId, SUFFIX));
+    }
+
+    private static List<Long> listSnapshots(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list state snapshots in " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("[StateSnapshot] Failed to delete " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- Table of the JDBC workflow state store on MySQL and MariaDB
+CREATE TABLE IF NOT EXISTS workflow_state (
+    run_id VARCHAR(255) PRIMARY KEY,
+    workflow_definition_id VARCHAR(255),
+    status VARCHAR(32),
+    current_step_index INT,
+    current_child_step_index INT,
+    start_time DATETIME(6),
+    end_time DATETIME(6),
+    error_message VARCHAR(4000),
+    last_attempted_step VARCHAR(255),
+    deadline DATETIME(6),
+    data LONGBLOB,
+    checkpoint LONGBLOB,
+    updated_at DATETIME(6)
+)
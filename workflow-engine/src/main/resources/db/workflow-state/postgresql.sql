@@ -0,0 +1,16 @@
+-- Table of the JDBC workflow state store on PostgreSQL
+CREATE TABLE IF NOT EXISTS workflow_state (
+    run_id VARCHAR(255) PRIMARY KEY,
+    workflow_definition_id VARCHAR(255),
+    status VARCHAR(32),
+    current_step_index INT,
+    current_child_step_index INT,
+    start_time TIMESTAMP WITH TIME ZONE,
+    end_time TIMESTAMP WITH TIME ZONE,
+    error_message VARCHAR(4000),
+    last_attempted_step VARCHAR(255),
+    deadline TIMESTAMP WITH TIME ZONE,
+    data BYTEA,
+    checkpoint BYTEA,
+    updated_at TIMESTAMP WITH TIME ZONE
+)
@@ -0,0 +1,117 @@
+package com.uwf.workflow.engine.retry;
+
+import com.uwf.workflow.common.deadletter.DeadLetterReason;
+import com.uwf.workflow.common.exception.ChildStepException;
+import com.uwf.workflow.common.exception.ChildStepFailureException;
+import com.uwf.workflow.common.model.ChildStep;
+import com.uwf.workflow.common.model.RetryPolicy;
+import com.uwf.workflow.common.model.Step;
+import com.uwf.workflow.engine.exception.NonRetryableTaskFailureException;
+import com.uwf.workflow.engine.state.WorkflowCheckpoint;
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for RetryPlanner.
+ */
+class RetryPlannerTest {
+
+    private static final RetryPolicy STEP_POLICY = RetryPolicy.exponential(2, Duration.ofMillis(100), Duration.ofSeconds(1))
+            .withJitter(0);
+    private static final RetryPolicy CHILD_POLICY = RetryPolicy.exponential(3, Duration.ofMillis(10), Duration.ofSeconds(1))
+            .withJitter(0);
+
+    private final RetryPlanner planner = new RetryPlanner();
+
+    private static Step step(RetryPolicy stepPolicy) {
+        ChildStep flaky = new ChildStep("flaky", (context, data) -> null, (context, data) -> null, null)
+                .withRetryPolicy(CHILD_POLICY);
+        ChildStep plain = new ChildStep("plain", (context, data) -> null, (context, data) -> null, null);
+        Step step = new Step("fetch", List.of(flaky, plain), true) {
+            @Override
+            public void run(WorkflowContext context, WorkflowData data) {
+            }
+        };
+        return stepPolicy != null ? step.withRetryPolicy(stepPolicy) : step;
+    }
+
+    private static WorkflowCheckpoint checkpoint(Map<String, Integer> failedAttempts) {
+        return new WorkflowCheckpoint("run-1", Set.of(), failedAttempts, null);
+    }
+
+    @Test
+    void testFailingChildStepRetriesWithItsOwnPolicy() {
+        Exception failure = new ChildStepException("fetch", "flaky", new IllegalStateException("timeout"));
+
+        Optional<RetryDecision> first = planner.plan(step(STEP_POLICY), checkpoint(Map.of()), failure);
+        assertTrue(first.isPresent());
+        assertEquals("fetch/flaky", first.get().retryKey());
+        assertEquals(1, first.get().failedAttempts());
+        assertEquals(3, first.get().maxAttempts());
+        assertEquals(Duration.ofMillis(10), first.get().backoff());
+
+        Optional<RetryDecision> second = planner.plan(step(STEP_POLICY), checkpoint(Map.of("fetch/flaky", 1)), failure);
+        assertEquals(Duration.ofMillis(20), second.orElseThrow().backoff(), "Backoff should grow per attempt");
+    }
+
+    @Test
+    void testChildStepWithoutPolicyRetriesWithTheStepPolicy() {
+        Exception failure = new ChildStepException("fetch", "plain", new IllegalStateException("timeout"));
+
+        RetryDecision decision = planner.plan(step(STEP_POLICY), checkpoint(Map.of()), failure).orElseThrow();
+        assertEquals("fetch", decision.retryKey());
+        assertEquals(2, decision.maxAttempts());
+    }
+
+    @Test
+    void testFirstFailedChildOfCollectedFailuresIsRetried() {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        failures.put("flaky", new IllegalStateException("timeout"));
+        failures.put("plain", new IllegalStateException("timeout"));
+        Exception failure = new RuntimeException(new ChildStepFailureException("fetch", failures));
+
+        assertEquals("fetch/flaky", planner.plan(step(null), checkpoint(Map.of()), failure).orElseThrow().retryKey());
+    }
+
+    @Test
+    void testExhaustedRetriesAreFinal() {
+        Exception failure = new ChildStepException("fetch", "flaky", new IllegalStateException("timeout"));
+
+        assertTrue(planner.plan(step(STEP_POLICY), checkpoint(Map.of("fetch/flaky", 2)), failure).isEmpty());
+        assertEquals(DeadLetterReason.RETRIES_EXHAUSTED, planner.classifyFinalFailure(step(STEP_POLICY), failure));
+    }
+
+    @Test
+    void testNonRetryableFailureIsNeverRetried() {
+        Exception failure = new ChildStepException("fetch", "flaky",
+                new NonRetryableTaskFailureException("invalid input"));
+
+        assertTrue(planner.plan(step(STEP_POLICY), checkpoint(Map.of()), failure).isEmpty());
+        assertEquals(DeadLetterReason.NON_RETRYABLE_FAILURE, planner.classifyFinalFailure(step(STEP_POLICY), failure));
+    }
+
+    @Test
+    void testStepWithoutPolicyFailsRightAway() {
+        Exception failure = new IllegalStateException("timeout");
+
+        assertTrue(planner.plan(step(null), checkpoint(Map.of()), failure).isEmpty());
+        assertEquals(DeadLetterReason.STEP_FAILED, planner.classifyFinalFailure(step(null), failure));
+    }
+
+    @Test
+    void testChildFailureOfAnotherStepIsIgnored() {
+        Exception failure = new ChildStepException("other", "flaky", new IllegalStateException("timeout"));
+
+        assertEquals("fetch", planner.plan(step(STEP_POLICY), checkpoint(Map.of()), failure).orElseThrow().retryKey());
+    }
+}
@@ -0,0 +1,130 @@
+package com.uwf.workflow.engine.scheduling;
+
+import com.uwf.workflow.common.model.Step;
+import com.uwf.workflow.common.plan.StepDependencyGraph;
+import com.uwf.workflow.primitive.model.CancellationToken;
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for StepGraphRunner.
+ */
+class StepGraphRunnerTest {
+
+    private static Step step(String name) {
+        return new Step(name, List.of(), false) {
+            @Override
+            public void run(WorkflowContext context, WorkflowData data) {
+            }
+        };
+    }
+
+    /**
+     * Two independent branches: load then transform on "x", and audit on "y".
+     */
+    private static StepDependencyGraph branches() {
+        return StepDependencyGraph.build(List.of(
+                step("load").writes("x"),
+                step("transform").reads("x").writes("x2"),
+                step("audit").writes("y")));
+    }
+
+    @Test
+    void testStepsRunAfterTheirDependenciesAndBranchesConcurrently() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            List<Integer> completed = new CopyOnWriteArrayList<>();
+            CountDownLatch bothBranchesStarted = new CountDownLatch(2);
+            new StepGraphRunner(executor).run(branches(), stepIndex -> {
+                if (stepIndex != 1) {
+                    bothBranchesStarted.countDown();
+                    assertTrue(bothBranchesStarted.await(5, TimeUnit.SECONDS), "Independent branches should overlap");
+                }
+                completed.add(stepIndex);
+            });
+
+            assertEquals(3, completed.size());
+            assertTrue(completed.indexOf(0) < completed.indexOf(1), "transform depends on load");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureStopsDependentStepsAndIsRethrown() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            List<Integer> started = new CopyOnWriteArrayList<>();
+            IllegalStateException failure = new IllegalStateException("load failed");
+            Exception thrown = assertThrows(Exception.class, () -> new StepGraphRunner(executor).run(branches(), stepIndex -> {
+                started.add(stepIndex);
+                if (stepIndex == 0) {
+                    throw failure;
+                }
+            }));
+
+            assertSame(failure, thrown);
+            assertFalse(started.contains(1), "A step must not start after its dependency failed");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCancellationWaitsForRunningStepsBeforeReturning() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CancellationToken token = new CancellationToken();
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger finished = new AtomicInteger();
+            CountDownLatch bothRunning = new CountDownLatch(2);
+            Thread canceller = new Thread(() -> {
+                try {
+                    bothRunning.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                token.cancel();
+            });
+            canceller.start();
+
+            StepDependencyGraph graph = StepDependencyGraph.build(List.of(step("a").writes("a"), step("b").writes("b")));
+            long start = System.nanoTime();
+            try (CancellationToken.Scope ignored = token.bind()) {
+                assertThrows(Exception.class, () -> new StepGraphRunner(executor).run(graph, stepIndex -> {
+                    running.incrementAndGet();
+                    bothRunning.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } finally {
+                        // Keeps the step busy a little after the interrupt, as a step cleaning up would
+                        long busyUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+                        while (System.nanoTime() < busyUntil) {
+                            Thread.onSpinWait();
+                        }
+                        finished.incrementAndGet();
+                    }
+                }));
+            }
+            canceller.join();
+
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Cancellation should interrupt the steps");
+            assertEquals(2, running.get());
+            assertEquals(2, finished.get(), "No step should still be running once the runner returns");
+            assertTrue(token.isCancelled());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.uwf.workflow.engine.state;
+
+import com.uwf.workflow.primitive.model.WorkflowContext;
+import com.uwf.workflow.primitive.model.WorkflowData;
+import com.uwf.workflow.primitive.model.WorkflowStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for JdbcStateManagement against an embedded H2 database.
+ */
+class JdbcStateManagementTest {
+
+    private static DataSource dataSource(String name) {
+        return DataSourceBuilder.create()
+                .url("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .password("")
+                .build();
+    }
+
+    private static WorkflowContext context(String runId, WorkflowStatus status, int stepIndex) {
+        return new WorkflowContext(runId, "wf", status, stepIndex, -1, Instant.now(), null, null, "step-" + stepIndex, null);
+    }
+
+    private static int countRows(DataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM workflow_state")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Test
+    void testSavesOfOneRunCoalesceIntoOneRowWrite() {
+        JdbcStateManagement state = new JdbcStateManagement(dataSource("coalesce"), 1000, 60000, true, 0, 0, 1000);
+        try {
+            for (int i = 0; i < 250; i++) {
+                String runId = "run-" + i;
+                state.saveContext(context(runId, WorkflowStatus.PENDING, 0));
+                state.saveData(runId, new WorkflowData(Map.of("i", i)));
+                state.saveContext(context(runId, WorkflowStatus.RUNNING, 1));
+                state.saveContext(context(runId, WorkflowStatus.RUNNING, 2));
+            }
+            assertEquals(250, state.getPendingRunCount());
+
+            assertTrue(state.flush());
+
+            assertEquals(0, state.getPendingRunCount());
+            assertEquals(250, state.getWrittenRunCount(), "Each run should be written once");
+            assertEquals(1, state.getBatchCount());
+        } finally {
+            state.shutdown();
+        }
+    }
+
+    @Test
+    void testStateIsReloadedAfterRestart() throws Exception {
+        JdbcStateManagement state = new JdbcStateManagement(dataSource("reload"), 100, 10, true, 0, 0, 1000);
+        state.saveContext(context("running", WorkflowStatus.RUNNING, 2));
+        state.saveData("running", new WorkflowData(Map.of("key", "value")));
+        state.saveCheckpoint(new WorkflowCheckpoint("running", Set.of(0, 1), Map.of("step-2", 1), Instant.now()));
+        state.saveContext(context("removed", WorkflowStatus.COMPLETED, 3));
+        state.flush();
+        state.removeState("removed");
+        state.shutdown();
+
+        DataSource dataSource = dataSource("reload");
+        assertEquals(1, countRows(dataSource));
+        JdbcStateManagement reloaded = new JdbcStateManagement(dataSource, 100, 10, true, 0, 0, 1000);
+        try {
+            WorkflowContext context = reloaded.getContext("running");
+            assertNotNull(context);
+            assertEquals(WorkflowStatus.RUNNING, context.status());
+            assertEquals(2, context.currentStepIndex());
+            assertEquals("step-2", context.lastAttemptedStep());
+            assertEquals("value", reloaded.getData("running").get("key"));
+            assertEquals(Set.of(0, 1), reloaded.getCheckpoint("running").completedSteps());
+            assertEquals(1, reloaded.getCheckpoint("running").failedAttempts().get("step-2"));
+            assertFalse(reloaded.containsContext("removed"));
+            assertEquals(0, reloaded.getPendingRunCount(), "Loading should not mark runs as changed");
+        } finally {
+            reloaded.shutdown();
+        }
+    }
+
+    @Test
+    void testStoresWritingTheSameNewRunsUpsertTheirRows() throws Exception {
+        DataSource dataSource = dataSource("upsert");
+        JdbcStateManagement first = new JdbcStateManagement(dataSource, 100, 60000, true, 0, 0, 1000);
+        JdbcStateManagement second = new JdbcStateManagement(dataSource, 100, 60000, true, 0, 0, 1000);
+        try {
+            for (int i = 0; i < 50; i++) {
+                first.saveContext(context("run-" + i, WorkflowStatus.RUNNING, 1));
+                second.saveContext(context("run-" + i, WorkflowStatus.COMPLETED, 2));
+            }
+
+            assertTrue(first.flush());
+            assertTrue(second.flush(), "Rows inserted by another store should be updated");
+
+            assertEquals(50, countRows(dataSource));
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "SELECT COUNT(*) FROM workflow_state WHERE status = 'COMPLETED' AND current_step_index = 2")) {
+                resultSet.next();
+                assertEquals(50, resultSet.getInt(1));
+            }
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.uwf.workflow.primitive.api.annotation;
 
+import com.uwf.workflow.primitive.model.CancellationToken;
+
 import java.lang.reflect.Method;
 import java.util.concurrent.CompletableFuture;
 
@@ -62,13 +64,15 @@ public class PrimitiveMethod {
     /**
      * Invokes the primitive method with the given arguments.
      * Wraps the result in a CompletableFuture if it's not already one.
+     * A pending future is registered with the calling run's {@link CancellationToken},
+     * so cancelling the run cancels the invocation.
      */
     @SuppressWarnings("unchecked")
     public CompletableFuture<Object> invoke(Object... args) {
         try {
             Object result = method.invoke(target, args);
             if (result instanceof CompletableFuture) {
-                return (CompletableFuture<Object>) result;
+                return CancellationToken.current().register((CompletableFuture<Object>) result);
             } else {
                 return CompletableFuture.completedFuture(result);
             }
@@ -0,0 +1,320 @@
+package com.uwf.workflow.primitive.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative cancellation signal for a single workflow run.
+ * <p>
+ * The engine binds the token of a run to every thread that executes work for it, so
+ * steps, child steps and primitives can reach it through {@link #current()} without it
+ * being passed around. Cancelling the token interrupts those threads and cancels the
+ * futures registered with it, such as pending primitive invocations; code that does not
+ * block should poll {@link #throwIfCancelled()} between units of work.
+ * <p>
+ * A token can be given a deadline, after which it expires: it is cancelled with the
+ * timeout as reason. Child tokens scope a deadline to a step or child step; they are
+ * cancelled with their parent, but expiring a child leaves the parent untouched.
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+    private static final CancellationToken NONE = new CancellationToken();
+    private static final String CANCELLED_REASON = "Workflow run cancelled";
+
+    private final CancellationToken parent;
+    private final Set<Thread> boundThreads = ConcurrentHashMap.newKeySet();
+    private final Set<Future<?>> futures = ConcurrentHashMap.newKeySet();
+    private final Set<CancellationToken> children = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+    private volatile boolean expired;
+    private volatile boolean finished;
+    private volatile String reason;
+    private volatile ScheduledFuture<?> expiry;
+
+    /**
+     * Creates a root token for a workflow run.
+     */
+    public CancellationToken() {
+        this(null);
+    }
+
+    private CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Gets the token bound to the calling thread.
+     *
+     * @return the bound token, or a token that is never cancelled if none is bound
+     */
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token != null ? token : NONE;
+    }
+
+    /**
+     * Binds this token to the calling thread until the returned scope is closed.
+     * While bound, cancelling the token interrupts the thread.
+     *
+     * @return the scope to close when the thread stops working for the run
+     */
+    public Scope bind() {
+        CancellationToken previous = CURRENT.get();
+        Thread thread = Thread.currentThread();
+        CURRENT.set(this);
+        if (this != NONE && previous != this) {
+            boundThreads.add(thread);
+            if (cancelled) {
+                thread.interrupt();
+            }
+        }
+        return new Scope(thread, previous);
+    }
+
+    /**
+     * Wraps a task so that it runs with this token bound to the executing thread.
+     *
+     * @param task the task to wrap
+     * @return the wrapped task
+     */
+    public Runnable wrap(Runnable task) {
+        if (this == NONE) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = bind()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * Registers a future to be cancelled together with this token.
+     * A future registered after cancellation is cancelled immediately.
+     *
+     * @param future the future to register
+     * @param <F> the future type
+     * @return the same future
+     */
+    public <F extends Future<?>> F register(F future) {
+        if (this == NONE || future.isDone()) {
+            return future;
+        }
+        futures.add(future);
+        if (future instanceof CompletableFuture<?> completable) {
+            completable.whenComplete((result, error) -> futures.remove(completable));
+        }
+        if (cancelled) {
+            future.cancel(true);
+        }
+        return future;
+    }
+
+    /**
+     * Creates a child token, typically scoping a step or child step, that expires at the
+     * given deadline. The child is cancelled whenever this token is cancelled.
+     *
+     * @param deadline the deadline of the child, or null for none
+     * @param expiryReason the reason reported if the child expires
+     * @return the child token
+     */
+    public CancellationToken newChild(Instant deadline, String expiryReason) {
+        CancellationToken child = new CancellationToken(this == NONE ? null : this);
+        if (child.parent != null) {
+            children.add(child);
+            if (cancelled) {
+                child.cancel(reason, expired);
+            }
+        }
+        child.expireAt(deadline, expiryReason);
+        return child;
+    }
+
+    /**
+     * Makes the token expire at the given deadline.
+     * A deadline that has already passed expires the token immediately.
+     *
+     * @param deadline the deadline, or null for none
+     * @param expiryReason the reason reported when the token expires
+     */
+    public void expireAt(Instant deadline, String expiryReason) {
+        if (deadline == null || this == NONE) {
+            return;
+        }
+        long delayNanos = Duration.between(Instant.now(), deadline).toNanos();
+        if (delayNanos <= 0) {
+            expire(expiryReason);
+            return;
+        }
+        expiry = DeadlineTimer.INSTANCE.schedule(() -> expire(expiryReason), delayNanos, TimeUnit.NANOSECONDS);
+        if (finished) {
+            expiry.cancel(false);
+        }
+    }
+
+    /**
+     * Cancels the token, interrupting the bound threads and cancelling the registered futures.
+     *
+     * @return true if the token was cancelled by this call, false if it was already
+     *         cancelled or its run had already finished
+     */
+    public boolean cancel() {
+        return cancel(CANCELLED_REASON, false);
+    }
+
+    /**
+     * Cancels the token because its deadline has passed.
+     *
+     * @param expiryReason the timeout reason
+     * @return true if the token expired by this call, false if it was already
+     *         cancelled or its work had already finished
+     */
+    public boolean expire(String expiryReason) {
+        return cancel(expiryReason, true);
+    }
+
+    private boolean cancel(String cancelReason, boolean expiry) {
+        synchronized (this) {
+            if (cancelled || finished || this == NONE) {
+                return false;
+            }
+            reason = cancelReason;
+            expired = expiry;
+            cancelled = true;
+            for (Thread thread : boundThreads) {
+                thread.interrupt();
+            }
+        }
+        for (CancellationToken child : children) {
+            child.cancel(cancelReason, expiry);
+        }
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+        futures.clear();
+        return true;
+    }
+
+    /**
+     * Marks the work guarded by the token as finished, after which the token can no longer
+     * be cancelled and its deadline no longer applies.
+     *
+     * @return true if the work finished before being cancelled, false if it was cancelled
+     */
+    public boolean finish() {
+        synchronized (this) {
+            if (!cancelled) {
+                finished = true;
+            }
+        }
+        ScheduledFuture<?> scheduledExpiry = expiry;
+        if (scheduledExpiry != null) {
+            scheduledExpiry.cancel(false);
+        }
+        if (parent != null) {
+            parent.children.remove(this);
+        }
+        return !cancelled;
+    }
+
+    /**
+     * Checks if the token has been cancelled.
+     *
+     * @return true if cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks if the token was cancelled because a deadline passed.
+     *
+     * @return true if expired, false otherwise
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Gets the reason the token was cancelled.
+     *
+     * @return the cancellation or timeout reason, or null if the token is not cancelled
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Throws if the token has been cancelled.
+     *
+     * @throws CancellationException if the token has been cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException(reason);
+        }
+    }
+
+    /**
+     * Binding of a token to a thread. Closing it restores the previously bound token
+     * and clears any interrupt caused by the cancellation, so pooled threads are
+     * handed back without a stray interrupt.
+     */
+    public final class Scope implements AutoCloseable {
+        private final Thread thread;
+        private final CancellationToken previous;
+
+        private Scope(Thread thread, CancellationToken previous) {
+            this.thread = thread;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            if (CancellationToken.this == NONE || previous == CancellationToken.this) {
+                return;
+            }
+            synchronized (CancellationToken.this) {
+                boundThreads.remove(thread);
+                if (cancelled) {
+                    Thread.interrupted();
+                }
+            }
+            if (previous != null && previous.cancelled) {
+                // The enclosing work was cancelled too and still has to observe it
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Single daemon thread firing the deadlines of all tokens.
+     */
+    private static final class DeadlineTimer {
+        private static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "workflow-deadline-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.uwf.workflow.primitive.model;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
 
 /**
  * Immutable record representing workflow execution metadata.
  * Contains information about the current state of workflow execution.
+ * The optional deadline is the instant by which the run, or the step or child step
+ * currently executing, must finish; primitives can bound their own calls with it.
  */
 public record WorkflowContext(
         String runId,
@@ -16,9 +19,30 @@ public record WorkflowContext(
         Instant startTime,
         Instant endTime,
         String errorMessage,
-        String lastAttemptedStep
+        String lastAttemptedStep,
+        Instant deadline
 ) {
 
+    /**
+     * Creates a workflow context without a deadline.
+     *
+     * @param runId the workflow run ID
+     * @param workflowDefinitionId the ID of the workflow definition
+     * @param status the execution status
+     * @param currentStepIndex the index of the current step
+     * @param currentChildStepIndex the index of the current child step
+     * @param startTime when the run started executing
+     * @param endTime when the run finished
+     * @param errorMessage the error message, if the run failed
+     * @param lastAttemptedStep the name of the last attempted step
+     */
+    public WorkflowContext(String runId, String workflowDefinitionId, WorkflowStatus status,
+                           int currentStepIndex, int currentChildStepIndex, Instant startTime,
+                           Instant endTime, String errorMessage, String lastAttemptedStep) {
+        this(runId, workflowDefinitionId, status, currentStepIndex, currentChildStepIndex,
+                startTime, endTime, errorMessage, lastAttemptedStep, null);
+    }
+
     /**
      * Factory method to create a new workflow execution context.
      *
@@ -35,6 +59,7 @@ public record WorkflowContext(
                 null,
                 null,
                 null,
+                null,
                 null
         );
     }
@@ -55,7 +80,8 @@ public record WorkflowContext(
                 startTime,
                 endTime,
                 errorMessage,
-                lastAttemptedStep
+                lastAttemptedStep,
+                deadline
         );
     }
 
@@ -76,7 +102,8 @@ public record WorkflowContext(
                 startTime,
                 endTime,
                 errorMessage,
-                lastAttemptedStep
+                lastAttemptedStep,
+                deadline
         );
     }
 
@@ -96,7 +123,8 @@ public record WorkflowContext(
                 startTime,
                 endTime,
                 newErrorMessage,
-                lastAttemptedStep
+                lastAttemptedStep,
+                deadline
         );
     }
 
@@ -116,7 +144,8 @@ public record WorkflowContext(
                 newStartTime,
                 endTime,
                 errorMessage,
-                lastAttemptedStep
+                lastAttemptedStep,
+                deadline
         );
     }
 
@@ -136,7 +165,8 @@ public record WorkflowContext(
                 startTime,
                 newEndTime,
                 errorMessage,
-                lastAttemptedStep
+                lastAttemptedStep,
+                deadline
         );
     }
 
@@ -156,7 +186,8 @@ public record WorkflowContext(
                 startTime,
                 endTime,
                 errorMessage,
-                lastAttemptedStep
+                lastAttemptedStep,
+                deadline
         );
     }
 
@@ -176,7 +207,8 @@ public record WorkflowContext(
                 startTime,
                 endTime,
                 errorMessage,
-                lastAttemptedStep
+                lastAttemptedStep,
+                deadline
         );
     }
 
@@ -196,7 +228,56 @@ public record WorkflowContext(
                 startTime,
                 endTime,
                 errorMessage,
-                newLastAttemptedStep
+                newLastAttemptedStep,
+                deadline
+        );
+    }
+
+    /**
+     * Creates a new context with updated deadline.
+     *
+     * @param newDeadline the new deadline, or null for no deadline
+     * @return a new WorkflowContext with updated deadline
+     */
+    public WorkflowContext withDeadline(Instant newDeadline) {
+        return new WorkflowContext(
+                runId,
+                workflowDefinitionId,
+                status,
+                currentStepIndex,
+                currentChildStepIndex,
+                startTime,
+                endTime,
+                errorMessage,
+                lastAttemptedStep,
+                newDeadline
         );
     }
+
+    /**
+     * Creates a new context whose deadline is the earlier of the current deadline and the given one,
+     * so a step or child step can tighten, but never extend, the deadline of its run.
+     *
+     * @param candidate the candidate deadline, or null to keep the current deadline
+     * @return a new WorkflowContext with the earlier deadline, or this context if unchanged
+     */
+    public WorkflowContext withEarlierDeadline(Instant candidate) {
+        if (candidate == null || (deadline != null && !candidate.isBefore(deadline))) {
+            return this;
+        }
+        return withDeadline(candidate);
+    }
+
+    /**
+     * Gets the time left until the deadline, for primitives to bound their own calls.
+     *
+     * @return the remaining time, zero if the deadline has passed, or null if there is no deadline
+     */
+    public Duration remainingTime() {
+        if (deadline == null) {
+            return null;
+        }
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
 }
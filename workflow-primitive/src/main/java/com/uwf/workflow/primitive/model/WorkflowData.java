@@ -8,13 +8,21 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Serializable class for mutable, shared data between workflow tasks.
  * Provides thread-safe access to shared workflow data.
+ * Guarded by a read/write lock rather than {@code synchronized}, so readers do not
+ * contend with each other and virtual threads blocking on the lock are not pinned
+ * to their carrier thread.
  */
 public class WorkflowData implements Serializable {
     private final Map<String, Object> data;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
 
     /**
      * Creates a new empty WorkflowData instance.
@@ -38,8 +46,13 @@ public class WorkflowData implements Serializable {
      * @param key   the key
      * @param value the value
      */
-    public synchronized void put(String key, Object value) {
-        data.put(key, value);
+    public void put(String key, Object value) {
+        writeLock.lock();
+        try {
+            data.put(key, value);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -48,8 +61,13 @@ public class WorkflowData implements Serializable {
      * @param key the key
      * @return the value, or null if not found
      */
-    public synchronized Object get(String key) {
-        return data.get(key);
+    public Object get(String key) {
+        readLock.lock();
+        try {
+            return data.get(key);
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -61,12 +79,17 @@ public class WorkflowData implements Serializable {
      * @return the value, or null if not found or type mismatch
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get(String key, Class<T> clazz) {
-        Object value = data.get(key);
-        if (value != null && clazz.isInstance(value)) {
-            return (T) value;
+    public <T> T get(String key, Class<T> clazz) {
+        readLock.lock();
+        try {
+            Object value = data.get(key);
+            if (value != null && clazz.isInstance(value)) {
+                return (T) value;
+            }
+            return null;
+        } finally {
+            readLock.unlock();
         }
-        return null;
     }
 
     /**
@@ -75,8 +98,13 @@ public class WorkflowData implements Serializable {
      * @param key the key to check
      * @return true if the key exists, false otherwise
      */
-    public synchronized boolean containsKey(String key) {
-        return data.containsKey(key);
+    public boolean containsKey(String key) {
+        readLock.lock();
+        try {
+            return data.containsKey(key);
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -85,15 +113,25 @@ public class WorkflowData implements Serializable {
      * @param key the key to remove
      * @return the removed value, or null if not found
      */
-    public synchronized Object remove(String key) {
-        return data.remove(key);
+    public Object remove(String key) {
+        writeLock.lock();
+        try {
+            return data.remove(key);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
      * Clears all data from the workflow data.
      */
-    public synchronized void clear() {
-        data.clear();
+    public void clear() {
+        writeLock.lock();
+        try {
+            data.clear();
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -101,21 +139,28 @@ public class WorkflowData implements Serializable {
      *
      * @return a copy of the data map
      */
-    public synchronized Map<String, Object> toMap() {
-        return new HashMap<>(data);
+    public Map<String, Object> toMap() {
+        readLock.lock();
+        try {
+            return new HashMap<>(data);
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
      * Creates a deep copy of this WorkflowData.
      * Attempts to deep copy all values using serialization.
      * If serialization fails for any value, falls back to shallow copy.
+     * Values are serialized from a snapshot taken under the read lock, so writers are
+     * not blocked while the copy is made.
      *
      * @return a deep copy of this WorkflowData
      */
-    public synchronized WorkflowData deepCopy() {
+    public WorkflowData deepCopy() {
         Map<String, Object> copiedData = new HashMap<>();
         
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
+        for (Map.Entry<String, Object> entry : toMap().entrySet()) {
             String key = entry.getKey();
             Object value = entry.getValue();
             
@@ -154,8 +199,13 @@ public class WorkflowData implements Serializable {
      *
      * @return a shallow copy of this WorkflowData
      */
-    public synchronized WorkflowData shallowCopy() {
-        return new WorkflowData(new HashMap<>(data));
+    public WorkflowData shallowCopy() {
+        readLock.lock();
+        try {
+            return new WorkflowData(new HashMap<>(data));
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -163,8 +213,13 @@ public class WorkflowData implements Serializable {
      *
      * @return the number of key-value pairs
      */
-    public synchronized int size() {
-        return data.size();
+    public int size() {
+        readLock.lock();
+        try {
+            return data.size();
+        } finally {
+            readLock.unlock();
+        }
     }
 
     /**
@@ -172,27 +227,32 @@ public class WorkflowData implements Serializable {
      *
      * @return true if empty, false otherwise
      */
-    public synchronized boolean isEmpty() {
-        return data.isEmpty();
+    public boolean isEmpty() {
+        readLock.lock();
+        try {
+            return data.isEmpty();
+        } finally {
+            readLock.unlock();
+        }
     }
 
     @Override
-    public synchronized boolean equals(Object o) {
+    public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         WorkflowData that = (WorkflowData) o;
-        return Objects.equals(data, that.data);
+        return Objects.equals(toMap(), that.toMap());
     }
 
     @Override
-    public synchronized int hashCode() {
-        return Objects.hash(data);
+    public int hashCode() {
+        return Objects.hash(toMap());
     }
 
     @Override
-    public synchronized String toString() {
+    public String toString() {
         return "WorkflowData{" +
-                "data=" + data +
+                "data=" + toMap() +
                 '}';
     }
 }
@@ -0,0 +1,105 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.ring.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-off latency of the {@link InMemoryWorkflowQueue} against the
+ * {@link RingBufferWorkflowQueue} with each {@link WaitStrategy}.
+ * <p>
+ * The ping-pong group bounces a run ID between two threads through a pair of queues, so each
+ * operation is one round trip of two hand-offs including the consumer wake-up; sample time
+ * mode reports its percentiles. The busy-spin variant needs at least two free cores.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.SampleTime, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueueHandoffBenchmark {
+
+    private static final String RUN_ID = "run-0";
+
+    @Param({"in-memory", "ring-busy-spin", "ring-yield", "ring-park"})
+    public String queueType;
+
+    private WorkflowQueue ping;
+    private WorkflowQueue pong;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ping = createQueue(queueType);
+        pong = createQueue(queueType);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        close(ping);
+        close(pong);
+    }
+
+    /**
+     * Sends a run ID and waits for it to come back.
+     */
+    @Benchmark
+    @Group("pingPong")
+    @GroupThreads(1)
+    public String roundTrip() throws InterruptedException {
+        ping.enqueue(RUN_ID);
+        // The timeout lets the thread finish when the echo thread has already stopped
+        return pong.poll(10, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Echoes every run ID it receives.
+     */
+    @Benchmark
+    @Group("pingPong")
+    @GroupThreads(1)
+    public String echo() throws InterruptedException {
+        String runId = ping.poll(10, TimeUnit.MILLISECONDS);
+        if (runId != null) {
+            pong.enqueue(runId);
+        }
+        return runId;
+    }
+
+    /**
+     * Enqueues and dequeues on one thread: the uncontended cost of the queue operations alone.
+     */
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public String enqueueDequeue() {
+        ping.enqueue(RUN_ID);
+        return ping.dequeue();
+    }
+
+    private static WorkflowQueue createQueue(String queueType) {
+        return switch (queueType) {
+            case "ring-busy-spin" -> new RingBufferWorkflowQueue(1024, WaitStrategy.BUSY_SPIN, 10, 1, 512);
+            case "ring-yield" -> new RingBufferWorkflowQueue(1024, WaitStrategy.YIELD, 10, 1, 512);
+            case "ring-park" -> new RingBufferWorkflowQueue(1024, WaitStrategy.PARK, 10, 1, 512);
+            default -> new InMemoryWorkflowQueue();
+        };
+    }
+
+    private static void close(WorkflowQueue queue) {
+        if (queue instanceof RingBufferWorkflowQueue ring) {
+            ring.shutdown();
+        } else if (queue instanceof InMemoryWorkflowQueue inMemory) {
+            inMemory.shutdown();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.uwf.workflow.queue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@code contains}, {@code remove} and the enqueue/dequeue hand-off of the
+ * scanning {@link InMemoryWorkflowQueue} against the {@link IndexedWorkflowQueue}
+ * with a deep backlog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueueIndexBenchmark {
+
+    @Param({"in-memory", "indexed"})
+    public String queueType;
+
+    @Param({"1000", "100000"})
+    public int depth;
+
+    private WorkflowQueue queue;
+    private String[] runIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = "indexed".equals(queueType) ? new IndexedWorkflowQueue(1, 512) : new InMemoryWorkflowQueue();
+        runIds = new String[depth];
+        for (int i = 0; i < depth; i++) {
+            runIds[i] = "run-" + i;
+            queue.enqueue(runIds[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (queue instanceof IndexedWorkflowQueue indexed) {
+            indexed.shutdown();
+        } else if (queue instanceof InMemoryWorkflowQueue inMemory) {
+            inMemory.shutdown();
+        }
+    }
+
+    @Benchmark
+    public boolean containsQueued() {
+        return queue.contains(runIds[ThreadLocalRandom.current().nextInt(depth)]);
+    }
+
+    @Benchmark
+    public boolean containsMissing() {
+        return queue.contains("missing-run");
+    }
+
+    /**
+     * Cancels a random queued run and submits it again, keeping the depth constant.
+     */
+    @Benchmark
+    public boolean removeAndEnqueue() {
+        String runId = runIds[ThreadLocalRandom.current().nextInt(depth)];
+        boolean removed = queue.remove(runId);
+        queue.enqueue(runId);
+        return removed;
+    }
+
+    /**
+     * Moves the head run to the tail, the steady-state path of a worker.
+     */
+    @Benchmark
+    public String dequeueAndEnqueue() {
+        String runId = queue.dequeue();
+        queue.enqueue(runId);
+        return runId;
+    }
+}
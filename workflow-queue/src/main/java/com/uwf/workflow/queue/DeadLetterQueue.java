@@ -0,0 +1,201 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.common.deadletter.DeadLetter;
+import com.uwf.workflow.common.deadletter.DeadLetterReason;
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dead-letter stage of the workflow queue: holds the runs that failed for good instead of
+ * retrying them forever, together with the reason, until they are redriven or discarded.
+ * <p>
+ * Dead letters are kept in the order they arrived and counted per {@link DeadLetterReason}.
+ * The queue is bounded; when it is full the oldest dead letter is evicted.
+ */
+@Component
+public class DeadLetterQueue {
+
+    private static final int DEFAULT_CAPACITY = 100000;
+
+    private final int capacity;
+    private final Map<String, DeadLetter> deadLetters = new LinkedHashMap<>();
+    private final int[] counts = new int[DeadLetterReason.values().length];
+    private final LongAdder[] totals = new LongAdder[DeadLetterReason.values().length];
+    private final LongAdder evicted = new LongAdder();
+
+    public DeadLetterQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @Autowired
+    public DeadLetterQueue(WorkflowQueueProperties properties) {
+        this(properties.getDeadLetterCapacity());
+    }
+
+    /**
+     * Creates a dead-letter queue.
+     *
+     * @param capacity the maximum number of dead letters kept
+     */
+    public DeadLetterQueue(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds a dead letter, replacing an earlier one of the same run.
+     *
+     * @param deadLetter the dead letter to add
+     * @return the oldest dead letter, evicted because the queue was full, or null if none was
+     */
+    public synchronized DeadLetter add(DeadLetter deadLetter) {
+        DeadLetter previous = deadLetters.remove(deadLetter.runId());
+        if (previous != null) {
+            counts[previous.reason().ordinal()]--;
+        }
+        deadLetters.put(deadLetter.runId(), deadLetter);
+        counts[deadLetter.reason().ordinal()]++;
+        totals[deadLetter.reason().ordinal()].increment();
+
+        if (deadLetters.size() > capacity) {
+            Iterator<DeadLetter> oldest = deadLetters.values().iterator();
+            DeadLetter dropped = oldest.next();
+            oldest.remove();
+            counts[dropped.reason().ordinal()]--;
+            evicted.increment();
+            System.err.println("[DeadLetterQueue] Capacity of " + capacity + " reached, evicted run " + dropped.runId());
+            return dropped;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the dead letter of a run.
+     *
+     * @param runId the workflow run ID
+     * @return the dead letter, or null if the run is not dead-lettered
+     */
+    public synchronized DeadLetter get(String runId) {
+        return deadLetters.get(runId);
+    }
+
+    /**
+     * Lists dead letters, oldest first, without removing them.
+     *
+     * @param reason the reason to filter by, or null for all reasons
+     * @param limit the maximum number of dead letters to return
+     * @return the matching dead letters
+     */
+    public synchronized List<DeadLetter> list(DeadLetterReason reason, int limit) {
+        List<DeadLetter> result = new ArrayList<>(Math.min(Math.max(limit, 0), deadLetters.size()));
+        for (DeadLetter deadLetter : deadLetters.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (reason == null || deadLetter.reason() == reason) {
+                result.add(deadLetter);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes and returns dead letters, oldest first.
+     *
+     * @param reason the reason to filter by, or null for all reasons
+     * @param maxItems the maximum number of dead letters to remove
+     * @return the removed dead letters
+     */
+    public synchronized List<DeadLetter> take(DeadLetterReason reason, int maxItems) {
+        List<DeadLetter> taken = new ArrayList<>(Math.min(Math.max(maxItems, 0), deadLetters.size()));
+        Iterator<DeadLetter> iterator = deadLetters.values().iterator();
+        while (taken.size() < maxItems && iterator.hasNext()) {
+            DeadLetter deadLetter = iterator.next();
+            if (reason == null || deadLetter.reason() == reason) {
+                iterator.remove();
+                counts[deadLetter.reason().ordinal()]--;
+                taken.add(deadLetter);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Removes and returns the dead letters of the given runs; run IDs that are not dead-lettered are skipped.
+     *
+     * @param runIds the workflow run IDs
+     * @return the removed dead letters
+     */
+    public synchronized List<DeadLetter> take(Collection<String> runIds) {
+        List<DeadLetter> taken = new ArrayList<>(runIds.size());
+        for (String runId : runIds) {
+            DeadLetter deadLetter = deadLetters.remove(runId);
+            if (deadLetter != null) {
+                counts[deadLetter.reason().ordinal()]--;
+                taken.add(deadLetter);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Discards the dead letter of a run.
+     *
+     * @param runId the workflow run ID
+     * @return true if the run was dead-lettered, false otherwise
+     */
+    public synchronized boolean remove(String runId) {
+        DeadLetter deadLetter = deadLetters.remove(runId);
+        if (deadLetter == null) {
+            return false;
+        }
+        counts[deadLetter.reason().ordinal()]--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return deadLetters.size();
+    }
+
+    /**
+     * Counts the dead letters currently held, per reason.
+     *
+     * @return the number of dead letters per reason
+     */
+    public synchronized Map<DeadLetterReason, Integer> getCountsByReason() {
+        Map<DeadLetterReason, Integer> result = new EnumMap<>(DeadLetterReason.class);
+        for (DeadLetterReason reason : DeadLetterReason.values()) {
+            result.put(reason, counts[reason.ordinal()]);
+        }
+        return result;
+    }
+
+    /**
+     * Counts all runs ever dead-lettered, per reason, including redriven and evicted ones.
+     *
+     * @return the total number of dead letters per reason
+     */
+    public Map<DeadLetterReason, Long> getTotalCountsByReason() {
+        Map<DeadLetterReason, Long> result = new EnumMap<>(DeadLetterReason.class);
+        for (DeadLetterReason reason : DeadLetterReason.values()) {
+            result.put(reason, totals[reason.ordinal()].sum());
+        }
+        return result;
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+}
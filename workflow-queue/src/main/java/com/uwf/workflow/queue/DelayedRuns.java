@@ -0,0 +1,138 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.timer.DueTimeDepth;
+import com.uwf.workflow.queue.timer.TimingWheel;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Run IDs waiting out a delay on a {@link TimingWheel} before they are handed back to their
+ * queue, at most one delay per run ID.
+ * <p>
+ * Each delay is registered before its timeout is scheduled and is only released by its own
+ * timeout, so a timeout firing before {@link #delay(String, long)} returns still releases the
+ * run ID, and a timeout replaced by a later delay or cancelled by {@link #cancel(String)} never
+ * does. Whoever removes a delay owns its run ID: either the expiry hands it back, or the
+ * caller of {@code cancel} drops it.
+ */
+final class DelayedRuns {
+
+    private final Map<String, Delay> delays = new ConcurrentHashMap<>();
+    private final Consumer<String> onDue;
+    private final TimingWheel<Delay> wheel;
+
+    /**
+     * Creates the delays of a queue.
+     *
+     * @param name the name of the timing wheel thread
+     * @param tickMillis the resolution of the timing wheel in milliseconds
+     * @param wheelSize the number of slots per level of the timing wheel
+     * @param onDue called with each run ID whose delay has elapsed, on the timing wheel thread
+     */
+    DelayedRuns(String name, long tickMillis, int wheelSize, Consumer<String> onDue) {
+        this.onDue = onDue;
+        this.wheel = new TimingWheel<>(name, tickMillis, wheelSize, this::expire);
+    }
+
+    /**
+     * Delays a run ID, replacing an earlier delay of it.
+     *
+     * @param runId the run ID
+     * @param delayMillis the delay in milliseconds
+     */
+    void delay(String runId, long delayMillis) {
+        Delay delay = new Delay(runId);
+        Delay previous = delays.put(runId, delay);
+        if (previous != null) {
+            previous.cancel();
+        }
+        delay.timeout = wheel.schedule(delay, delayMillis);
+        if (delays.get(runId) != delay) {
+            // Cancelled or replaced before its timeout was set
+            delay.cancel();
+        }
+    }
+
+    /**
+     * Cancels the delay of a run ID.
+     *
+     * @param runId the run ID
+     * @return true if the run ID was delayed and will not be handed back, false otherwise
+     */
+    boolean cancel(String runId) {
+        Delay delay = delays.remove(runId);
+        if (delay == null) {
+            return false;
+        }
+        delay.cancel();
+        return true;
+    }
+
+    boolean contains(String runId) {
+        return delays.containsKey(runId);
+    }
+
+    int size() {
+        return delays.size();
+    }
+
+    Set<String> runIds() {
+        return Collections.unmodifiableSet(delays.keySet());
+    }
+
+    /**
+     * Groups the delayed run IDs by the horizon, in milliseconds from now, that they are due within.
+     *
+     * @return the number of delayed run IDs per due-time horizon, nearest horizon first
+     */
+    Map<Long, Long> getDepthByDueTime() {
+        Map<Long, Long> depth = new LinkedHashMap<>();
+        for (DueTimeDepth level : wheel.getDepthByDueTime()) {
+            depth.put(level.dueWithinMillis(), level.count());
+        }
+        return depth;
+    }
+
+    /**
+     * Cancels every delay; none of the run IDs is handed back.
+     */
+    void clear() {
+        for (String runId : delays.keySet()) {
+            cancel(runId);
+        }
+    }
+
+    /**
+     * Stops the timing wheel; pending delays never elapse.
+     */
+    void close() {
+        wheel.close();
+    }
+
+    private void expire(Delay delay) {
+        if (delays.remove(delay.runId, delay)) {
+            onDue.accept(delay.runId);
+        }
+    }
+
+    private static final class Delay {
+        private final String runId;
+        private volatile TimingWheel.Timeout<Delay> timeout;
+
+        Delay(String runId) {
+            this.runId = runId;
+        }
+
+        void cancel() {
+            TimingWheel.Timeout<Delay> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.common.model.WorkflowPriority;
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Workflow queue that shares the workers fairly between tenants, so that one tenant's
+ * backlog cannot hold up the runs of the others.
+ * <p>
+ * Each tenant has its own FIFO bucket. A run's tenant is looked up from its workflow
+ * definition ID, and definitions not mapped to a tenant form a bucket of their own.
+ * Dequeues visit the non-empty buckets with deficit round robin: each visit adds the tenant's
+ * weight to its deficit, and the tenant is served until the deficit is used up or its bucket
+ * is empty. A tenant with weight w thus gets w runs per round, and an idle tenant accumulates
+ * no credit.
+ * <p>
+ * A tenant with as many runs in flight as its cap is skipped until one of them is acknowledged
+ * or rejected. Priorities are ignored. Delayed run IDs wait on a {@link TimingWheel}, and with a
+ * visibility timeout every dequeued run ID is leased as in {@link InMemoryWorkflowQueue}.
+ * <p>
+ * Enabled with {@code workflow.queue.type=fair}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "fair")
+public class FairWorkflowQueue implements WorkflowQueue {
+
+    private static final String DEFAULT_TENANT = "default";
+
+    private final Map<String, String> tenants;
+    private final Map<String, Integer> weights;
+    private final Map<String, Integer> maxInFlight;
+    private final int defaultWeight;
+    private final int defaultMaxInFlight;
+
+    // Guarded by this
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final ArrayDeque<Bucket> active = new ArrayDeque<>();
+    private final Map<String, QueuedRun> queued = new HashMap<>();
+    private final Map<String, Bucket> runBuckets = new HashMap<>();
+    private final Set<String> delivered = new HashSet<>();
+    private long totalDequeued;
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final DelayedRuns delayed;
+    private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+    private final QueueSignal signal = new QueueSignal();
+    private final LeaseTracker leases;
+
+    @Autowired
+    public FairWorkflowQueue(WorkflowQueueProperties properties) {
+        this(properties.getFairTenants(), properties.getFairWeights(), properties.getFairMaxInFlight(),
+                properties.getFairDefaultWeight(), properties.getFairDefaultMaxInFlight(),
+                properties.getVisibilityTimeoutMillis(), properties.getTimingWheelTickMillis(),
+                properties.getTimingWheelSize());
+    }
+
+    /**
+     * Creates a fair-share queue.
+     *
+     * @param tenants the tenant of each workflow definition ID; unmapped definitions are their own tenant
+     * @param weights the runs per round of each tenant
+     * @param maxInFlight the in-flight cap of each tenant
+     * @param defaultWeight the runs per round of tenants without a weight
+     * @param defaultMaxInFlight the in-flight cap of tenants without one, 0 for unlimited
+     * @param visibilityTimeoutMillis the lease duration in milliseconds, 0 to disable leases
+     * @param tickMillis the resolution of the timing wheel for delayed run IDs
+     * @param wheelSize the number of slots per level of the timing wheel
+     */
+    public FairWorkflowQueue(Map<String, String> tenants, Map<String, Integer> weights,
+                             Map<String, Integer> maxInFlight, int defaultWeight, int defaultMaxInFlight,
+                             long visibilityTimeoutMillis, long tickMillis, int wheelSize) {
+        this.tenants = Map.copyOf(tenants);
+        this.weights = Map.copyOf(weights);
+        this.maxInFlight = Map.copyOf(maxInFlight);
+        this.defaultWeight = Math.max(1, defaultWeight);
+        this.defaultMaxInFlight = Math.max(0, defaultMaxInFlight);
+        this.delayed = new DelayedRuns("workflow-queue-fair-delay", tickMillis, wheelSize, this::enqueue);
+        this.leases = visibilityTimeoutMillis > 0
+                ? new LeaseTracker("workflow-queue-fair-leases", visibilityTimeoutMillis, this::redeliver)
+                : null;
+    }
+
+    /**
+     * Enqueues a run ID to the bucket of its tenant if it was enqueued with a key before,
+     * otherwise to the default tenant.
+     *
+     * @param runId the workflow run ID to enqueue
+     */
+    @Override
+    public void enqueue(String runId) {
+        if (offer(runId, null)) {
+            signal.signal();
+        }
+    }
+
+    /**
+     * Enqueues a run ID to the bucket of the tenant of its workflow definition.
+     *
+     * @param runId the workflow run ID to enqueue
+     * @param priority ignored, buckets are FIFO
+     * @param partitionKey the workflow definition ID of the run
+     */
+    @Override
+    public void enqueue(String runId, WorkflowPriority priority, String partitionKey) {
+        String tenant = partitionKey != null ? tenants.getOrDefault(partitionKey, partitionKey) : null;
+        if (offer(runId, tenant)) {
+            signal.signal();
+        }
+    }
+
+    /**
+     * Dequeues the next run ID in deficit round robin order, skipping tenants at their in-flight cap.
+     *
+     * @return the next run ID to process, or null if the queue is empty or all queued tenants are at their cap
+     */
+    @Override
+    public String dequeue() {
+        if (size.get() == 0) {
+            return null;
+        }
+        String runId = next();
+        if (runId != null && leases != null) {
+            leases.acquire(runId);
+        }
+        return runId;
+    }
+
+    /**
+     * Dequeues a run ID, parking until one is enqueued, a capped tenant settles a run, or the timeout elapses.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the next run ID to process, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(this::dequeue, timeout, unit);
+    }
+
+    /**
+     * Settles a delivered run ID, freeing its slot of the tenant's in-flight cap, and forgets its tenant.
+     *
+     * @param messageId the workflow run ID
+     */
+    @Override
+    public void acknowledge(String messageId) {
+        if (leases != null) {
+            leases.release(messageId);
+        }
+        if (settle(messageId, true)) {
+            signal.signal();
+        }
+    }
+
+    /**
+     * Settles a delivered run ID and re-enqueues it to its tenant's bucket after the given delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID is enqueued again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        if (leases != null) {
+            leases.release(messageId);
+        }
+        boolean freed = settle(messageId, false);
+        if (delayMs <= 0) {
+            enqueue(messageId);
+            return;
+        }
+        delayed.delay(messageId, delayMs);
+        if (freed) {
+            signal.signal();
+        }
+    }
+
+    @Override
+    public long getVisibilityTimeoutMillis() {
+        return leases != null ? leases.getVisibilityTimeoutMillis() : 0;
+    }
+
+    @Override
+    public boolean extendLease(String runId) {
+        return leases != null && leases.extend(runId);
+    }
+
+    @Override
+    public int leasedSize() {
+        return leases != null ? leases.size() : 0;
+    }
+
+    @Override
+    public long getExpiredLeaseCount() {
+        return leases != null ? leases.getExpiredCount() : 0;
+    }
+
+    @Override
+    public int delayedSize() {
+        return delayed.size();
+    }
+
+    @Override
+    public Map<Long, Long> getDelayedDepthByDueTime() {
+        return delayed.getDepthByDueTime();
+    }
+
+    /**
+     * Takes a snapshot of every tenant that has had runs queued.
+     *
+     * @return the statistics per tenant, in order of first appearance
+     */
+    @Override
+    public synchronized List<TenantStats> getTenantStats() {
+        List<TenantStats> stats = new ArrayList<>(buckets.size());
+        for (Bucket bucket : buckets.values()) {
+            stats.add(new TenantStats(
+                    bucket.tenant,
+                    bucket.weight,
+                    bucket.maxInFlight,
+                    bucket.runs.size(),
+                    bucket.inFlight,
+                    bucket.dequeued,
+                    totalDequeued > 0 ? (double) bucket.dequeued / totalDequeued : 0,
+                    bucket.dequeued > 0 ? bucket.totalWaitNanos / 1_000_000.0 / bucket.dequeued : 0,
+                    TimeUnit.NANOSECONDS.toMillis(bucket.maxWaitNanos)
+            ));
+        }
+        return stats;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public synchronized boolean contains(String runId) {
+        return queued.containsKey(runId) || delayed.contains(runId);
+    }
+
+    @Override
+    public boolean remove(String runId) {
+        if (delayed.cancel(runId)) {
+            forget(runId);
+            return true;
+        }
+        return removeQueued(runId);
+    }
+
+    @Override
+    public void disableProcessing() {
+        processingEnabled.set(false);
+    }
+
+    @Override
+    public void enableProcessing() {
+        processingEnabled.set(true);
+    }
+
+    @Override
+    public boolean isProcessingEnabled() {
+        return processingEnabled.get();
+    }
+
+    @Override
+    public void clear() {
+        delayed.clear();
+        synchronized (this) {
+            for (Bucket bucket : buckets.values()) {
+                bucket.runs.clear();
+                bucket.deficit = 0;
+                bucket.active = false;
+            }
+            active.clear();
+            queued.clear();
+            runBuckets.keySet().retainAll(delivered);
+            size.set(0);
+        }
+    }
+
+    /**
+     * Stops the timing wheel and the lease timer; delayed run IDs are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayed.close();
+        if (leases != null) {
+            leases.close();
+        }
+    }
+
+    /**
+     * Adds a run ID to the back of its tenant's bucket, unless it is already queued.
+     *
+     * @param tenant the tenant of the run, or null to keep its earlier tenant
+     * @return true if the run ID was added
+     */
+    private synchronized boolean offer(String runId, String tenant) {
+        if (queued.containsKey(runId)) {
+            return false;
+        }
+        Bucket bucket = tenant != null ? bucket(tenant) : runBuckets.get(runId);
+        if (bucket == null) {
+            bucket = bucket(DEFAULT_TENANT);
+        }
+        runBuckets.put(runId, bucket);
+        QueuedRun entry = new QueuedRun(runId);
+        queued.put(runId, entry);
+        bucket.runs.addLast(entry);
+        if (!bucket.active) {
+            bucket.active = true;
+            active.addLast(bucket);
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * One step of deficit round robin: serves the tenant at the head of the active list,
+     * topping up its deficit by its weight at the start of its turn, and moves it to the back
+     * once its deficit is used up. Tenants at their in-flight cap lose their turn.
+     */
+    private synchronized String next() {
+        for (int visited = 0, count = active.size(); visited < count; visited++) {
+            Bucket bucket = active.peekFirst();
+            if (bucket.isSaturated()) {
+                bucket.deficit = 0;
+                active.addLast(active.pollFirst());
+                continue;
+            }
+            if (bucket.deficit <= 0) {
+                bucket.deficit += bucket.weight;
+            }
+            QueuedRun entry = bucket.runs.pollFirst();
+            bucket.deficit--;
+            if (bucket.runs.isEmpty()) {
+                // An emptied bucket keeps no credit for its next turn
+                active.pollFirst();
+                bucket.active = false;
+                bucket.deficit = 0;
+            } else if (bucket.deficit <= 0) {
+                active.addLast(active.pollFirst());
+            }
+
+            String runId = entry.runId();
+            queued.remove(runId);
+            size.decrementAndGet();
+            delivered.add(runId);
+            bucket.inFlight++;
+            bucket.dequeued++;
+            totalDequeued++;
+            long waitNanos = System.nanoTime() - entry.enqueuedNanos();
+            bucket.totalWaitNanos += waitNanos;
+            bucket.maxWaitNanos = Math.max(bucket.maxWaitNanos, waitNanos);
+            return runId;
+        }
+        return null;
+    }
+
+    /**
+     * Ends the delivery of a run ID.
+     *
+     * @param finished whether the run is done, so that its tenant can be forgotten
+     * @return true if this freed a slot of a tenant that was at its in-flight cap
+     */
+    private synchronized boolean settle(String runId, boolean finished) {
+        Bucket bucket = runBuckets.get(runId);
+        boolean freed = false;
+        if (bucket != null && delivered.remove(runId)) {
+            freed = bucket.isSaturated();
+            bucket.inFlight--;
+        }
+        if (finished && !queued.containsKey(runId) && !delayed.contains(runId)) {
+            runBuckets.remove(runId);
+        }
+        return freed;
+    }
+
+    private synchronized boolean removeQueued(String runId) {
+        QueuedRun entry = queued.remove(runId);
+        if (entry == null) {
+            return false;
+        }
+        Bucket bucket = runBuckets.get(runId);
+        bucket.runs.remove(entry);
+        if (bucket.runs.isEmpty() && bucket.active) {
+            active.remove(bucket);
+            bucket.active = false;
+            bucket.deficit = 0;
+        }
+        size.decrementAndGet();
+        forget(runId);
+        return true;
+    }
+
+    private synchronized void forget(String runId) {
+        if (!delivered.contains(runId)) {
+            runBuckets.remove(runId);
+        }
+    }
+
+    private Bucket bucket(String tenant) {
+        return buckets.computeIfAbsent(tenant, name -> new Bucket(name,
+                Math.max(1, weights.getOrDefault(name, defaultWeight)),
+                Math.max(0, maxInFlight.getOrDefault(name, defaultMaxInFlight))));
+    }
+
+    private void redeliver(String runId) {
+        settle(runId, false);
+        enqueue(runId);
+    }
+
+    private static final class Bucket {
+        private final String tenant;
+        private final int weight;
+        private final int maxInFlight;
+        private final ArrayDeque<QueuedRun> runs = new ArrayDeque<>();
+        private boolean active;
+        private int deficit;
+        private int inFlight;
+        private long dequeued;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        Bucket(String tenant, int weight, int maxInFlight) {
+            this.tenant = tenant;
+            this.weight = weight;
+            this.maxInFlight = maxInFlight;
+        }
+
+        boolean isSaturated() {
+            return maxInFlight > 0 && inFlight >= maxInFlight;
+        }
+    }
+}
@@ -1,36 +1,249 @@
 package com.uwf.workflow.queue;
 
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.log.LogEntry;
+import com.uwf.workflow.queue.log.LogRecord;
+import com.uwf.workflow.queue.log.SegmentLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Component for managing a queue of workflow run IDs that need to be processed.
- * Uses ConcurrentLinkedQueue for thread-safe operations.
+ * Uses ConcurrentLinkedQueue for thread-safe operations, with a separate counter
+ * so that {@link #size()} does not traverse the queue.
+ * Rejected run IDs wait on a single timer thread and are re-enqueued once their delay elapses.
+ * Consumers can park in {@link #poll(long, TimeUnit)} until a run ID is enqueued.
+ * <p>
+ * With a visibility timeout, every dequeued run ID is leased until it is acknowledged or
+ * rejected, and enqueued again if its lease expires first, so a run whose worker died
+ * is not lost.
+ * <p>
+ * With a spill threshold, at most that many run IDs are held in memory. Beyond it, enqueued run
+ * IDs are appended to a {@link SegmentLog} in the spill directory instead, and read back in order
+ * as the in-memory window drains below half the threshold; while anything is spilled, new run IDs
+ * go to the log too, so FIFO order is kept. Spilled run IDs are not seen by {@link #contains(String)}
+ * and {@link #remove(String)} until they are read back. The spill log is a heap overflow, not a
+ * durable store: it is deleted on startup and shutdown, and unfinished runs are recovered from the
+ * state store instead.
  */
 @Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "in-memory", matchIfMissing = true)
 public class InMemoryWorkflowQueue implements WorkflowQueue {
 
+    private static final long SPILL_FLUSH_INTERVAL_MILLIS = 1000;
+
     private final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
     private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+    private final QueueSignal signal = new QueueSignal();
+    // Run ID -> its pending retry; registered before the retry is scheduled
+    private final Map<String, AtomicReference<ScheduledFuture<?>>> delayed = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor delayTimer = createDelayTimer();
+    private final LeaseTracker leases;
+    private final int spillThreshold;
+    private final SegmentLog spill;
+    private final Path spillDirectory;
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private final AtomicInteger spilled = new AtomicInteger();
+    private volatile boolean spilling;
+    private long spillReadOffset;
+
+    /**
+     * Creates a queue without leases: dequeued run IDs are never delivered again.
+     */
+    public InMemoryWorkflowQueue() {
+        this(0);
+    }
+
+    @Autowired
+    public InMemoryWorkflowQueue(WorkflowQueueProperties properties) {
+        this(properties.getVisibilityTimeoutMillis(), properties.getSpillThreshold(),
+                Path.of(properties.getSpillDirectory()), properties.getSpillSegmentBytes());
+    }
+
+    /**
+     * Creates a queue that leases dequeued run IDs.
+     *
+     * @param visibilityTimeoutMillis the lease duration in milliseconds, 0 to disable leases
+     */
+    public InMemoryWorkflowQueue(long visibilityTimeoutMillis) {
+        this(visibilityTimeoutMillis, 0, null, 0);
+    }
+
+    /**
+     * Creates a queue that leases dequeued run IDs and spills beyond a bounded in-memory window.
+     *
+     * @param visibilityTimeoutMillis the lease duration in milliseconds, 0 to disable leases
+     * @param spillThreshold the maximum number of run IDs held in memory, 0 to never spill
+     * @param spillDirectory the directory of the spill log, emptied on startup
+     * @param spillSegmentBytes the size in bytes of each spill segment file
+     */
+    public InMemoryWorkflowQueue(long visibilityTimeoutMillis, int spillThreshold, Path spillDirectory,
+                                 int spillSegmentBytes) {
+        this.leases = visibilityTimeoutMillis > 0
+                ? new LeaseTracker("workflow-queue-leases", visibilityTimeoutMillis, this::enqueue)
+                : null;
+        this.spillThreshold = Math.max(0, spillThreshold);
+        this.spillDirectory = spillDirectory;
+        if (this.spillThreshold > 0) {
+            // Spilled run IDs of an earlier process are recovered from the state store
+            SegmentLog.deleteLog(spillDirectory);
+            // Nothing waits for the spill to be forced, so flush it rarely
+            this.spill = new SegmentLog(spillDirectory, spillSegmentBytes, SPILL_FLUSH_INTERVAL_MILLIS, () -> { });
+        } else {
+            this.spill = null;
+        }
+    }
 
     /**
-     * Enqueues a run ID for processing.
+     * Enqueues a run ID for processing, spilling it to disk if the in-memory window is full
+     * or earlier run IDs are spilled.
      *
      * @param runId the workflow run ID to enqueue
      */
     public void enqueue(String runId) {
-        queue.offer(runId);
+        if (spill == null || (!spilling && size.get() < spillThreshold)) {
+            offer(runId);
+            return;
+        }
+        spillLock.lock();
+        try {
+            if (spilling || size.get() >= spillThreshold) {
+                spilling = true;
+                spill.append(LogRecord.enqueue(runId, 0), offset -> { });
+                spilled.incrementAndGet();
+            } else {
+                add(runId);
+            }
+        } finally {
+            spillLock.unlock();
+        }
+        // Signal outside the spill lock: a waiting consumer holds the signal lock while it refills
+        signal.signal();
     }
 
     /**
-     * Dequeues a run ID for processing.
+     * Dequeues a run ID for processing, leasing it if leases are enabled.
+     * Reads spilled run IDs back once the in-memory window has drained below half the threshold.
      *
      * @return the next run ID to process, or null if the queue is empty
      */
     public String dequeue() {
-        return queue.poll();
+        String runId = queue.poll();
+        if (spilling && (runId == null || size.get() < spillThreshold / 2)) {
+            refill(runId == null);
+            if (runId == null) {
+                runId = queue.poll();
+            }
+        }
+        if (runId == null) {
+            return null;
+        }
+        size.decrementAndGet();
+        if (leases != null) {
+            leases.acquire(runId);
+        }
+        return runId;
+    }
+
+    /**
+     * Dequeues a run ID, parking until one is enqueued or the timeout elapses.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the next run ID to process, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(this::dequeue, timeout, unit);
+    }
+
+    /**
+     * Releases the lease of a delivered run ID.
+     *
+     * @param messageId the workflow run ID
+     */
+    @Override
+    public void acknowledge(String messageId) {
+        if (leases != null) {
+            leases.release(messageId);
+        }
+    }
+
+    /**
+     * Rejects a run ID, releasing its lease, and re-enqueues it after the given delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID is enqueued again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        acknowledge(messageId);
+        if (delayMs <= 0) {
+            enqueue(messageId);
+            return;
+        }
+        AtomicReference<ScheduledFuture<?>> retry = new AtomicReference<>();
+        AtomicReference<ScheduledFuture<?>> previous = delayed.put(messageId, retry);
+        if (previous != null) {
+            cancel(previous);
+        }
+        retry.set(delayTimer.schedule(() -> {
+            // Only the latest retry of the run enqueues it
+            if (delayed.remove(messageId, retry)) {
+                enqueue(messageId);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS));
+        if (delayed.get(messageId) != retry) {
+            // Removed or replaced before the retry was scheduled
+            cancel(retry);
+        }
+    }
+
+    @Override
+    public long getVisibilityTimeoutMillis() {
+        return leases != null ? leases.getVisibilityTimeoutMillis() : 0;
+    }
+
+    @Override
+    public boolean extendLease(String runId) {
+        return leases != null && leases.extend(runId);
+    }
+
+    @Override
+    public int leasedSize() {
+        return leases != null ? leases.size() : 0;
+    }
+
+    @Override
+    public long getExpiredLeaseCount() {
+        return leases != null ? leases.getExpiredCount() : 0;
+    }
+
+    /**
+     * Gets the number of rejected run IDs waiting for their retry delay to elapse.
+     *
+     * @return the number of delayed run IDs
+     */
+    @Override
+    public int delayedSize() {
+        return delayed.size();
     }
 
     /**
@@ -39,16 +252,25 @@ public class InMemoryWorkflowQueue implements WorkflowQueue {
      * @return true if the queue is empty, false otherwise
      */
     public boolean isEmpty() {
-        return queue.isEmpty();
+        return queue.isEmpty() && spilled.get() == 0;
     }
 
     /**
-     * Gets the current size of the queue.
+     * Gets the current size of the queue, including spilled run IDs.
      *
      * @return the number of run IDs in the queue
      */
     public int size() {
-        return queue.size();
+        return Math.max(0, size.get()) + spilled.get();
+    }
+
+    /**
+     * Gets the number of run IDs spilled to disk and not yet read back.
+     *
+     * @return the number of spilled run IDs
+     */
+    public int spilledSize() {
+        return spilled.get();
     }
 
     /**
@@ -58,7 +280,7 @@ public class InMemoryWorkflowQueue implements WorkflowQueue {
      * @return true if the run ID is in the queue, false otherwise
      */
     public boolean contains(String runId) {
-        return queue.contains(runId);
+        return queue.contains(runId) || delayed.containsKey(runId);
     }
 
     /**
@@ -68,7 +290,16 @@ public class InMemoryWorkflowQueue implements WorkflowQueue {
      * @return true if the run ID was removed, false if it wasn't in the queue
      */
     public boolean remove(String runId) {
-        return queue.remove(runId);
+        AtomicReference<ScheduledFuture<?>> pending = delayed.remove(runId);
+        if (pending != null) {
+            cancel(pending);
+            return true;
+        }
+        if (queue.remove(runId)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -99,6 +330,97 @@ public class InMemoryWorkflowQueue implements WorkflowQueue {
      * Clears all run IDs from the queue.
      */
     public void clear() {
-        queue.clear();
+        for (String runId : delayed.keySet()) {
+            AtomicReference<ScheduledFuture<?>> pending = delayed.remove(runId);
+            if (pending != null) {
+                cancel(pending);
+            }
+        }
+        while (queue.poll() != null) {
+            size.decrementAndGet();
+        }
+        if (spill != null) {
+            spillLock.lock();
+            try {
+                spillReadOffset = spill.getWriteOffset();
+                spill.deleteSegmentsBefore(spillReadOffset);
+                spilled.set(0);
+                spilling = false;
+            } finally {
+                spillLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stops the delay timer and the lease timer and deletes the spill log; run IDs still waiting
+     * for their retry delay or spilled are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayTimer.shutdownNow();
+        if (leases != null) {
+            leases.close();
+        }
+        if (spill != null) {
+            spill.close();
+            SegmentLog.deleteLog(spillDirectory);
+        }
+    }
+
+    private void offer(String runId) {
+        add(runId);
+        signal.signal();
+    }
+
+    private void add(String runId) {
+        queue.offer(runId);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Reads spilled run IDs back into memory, oldest first, until the window is full again,
+     * and deletes the spill segments that have been read completely.
+     *
+     * @param wait whether to wait for a refill in progress on another thread instead of returning
+     */
+    private void refill(boolean wait) {
+        if (wait) {
+            spillLock.lock();
+        } else if (!spillLock.tryLock()) {
+            return;
+        }
+        try {
+            LogEntry entry;
+            int room = spillThreshold - size.get();
+            while (room-- > 0 && (entry = spill.read(spillReadOffset)) != null) {
+                spillReadOffset = entry.nextOffset();
+                spilled.decrementAndGet();
+                add(entry.record().runId());
+            }
+            if (spilling && spillReadOffset >= spill.getWriteOffset()) {
+                spilling = false;
+            }
+            spill.deleteSegmentsBefore(spillReadOffset);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private static void cancel(AtomicReference<ScheduledFuture<?>> retry) {
+        ScheduledFuture<?> scheduled = retry.get();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createDelayTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "workflow-queue-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
     }
 }
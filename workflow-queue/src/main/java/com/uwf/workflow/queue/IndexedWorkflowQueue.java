@@ -0,0 +1,297 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FIFO workflow queue with a run ID index, so that {@link #contains(String)} and
+ * {@link #remove(String)} take constant time instead of scanning the backlog.
+ * <p>
+ * Run IDs are kept in a lock-free {@link ConcurrentLinkedQueue} of {@link QueuedRun} nodes,
+ * indexed by run ID. Removing a run claims its node and drops it from the index; the node
+ * stays in the queue as a tombstone that {@link #dequeue()} skips. Once tombstones outnumber
+ * the live run IDs they are purged in one pass, which keeps the memory they hold bounded and
+ * the purge cost amortized over the removals that caused it.
+ * <p>
+ * With a visibility timeout, every dequeued run ID is leased until it is acknowledged or
+ * rejected, and enqueued again if its lease expires first.
+ * <p>
+ * Enabled with {@code workflow.queue.type=indexed}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "indexed")
+public class IndexedWorkflowQueue implements WorkflowQueue {
+
+    private static final int MIN_TOMBSTONES_TO_PURGE = 1024;
+
+    private final ConcurrentLinkedQueue<QueuedRun> queue = new ConcurrentLinkedQueue<>();
+    private final Map<String, QueuedRun> index = new ConcurrentHashMap<>();
+    private final DelayedRuns delayed;
+    private final AtomicInteger size = new AtomicInteger();
+    // Approximate: only decides when a purge pays off
+    private final AtomicInteger tombstones = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+    private final QueueSignal signal = new QueueSignal();
+    private final LeaseTracker leases;
+
+    @Autowired
+    public IndexedWorkflowQueue(WorkflowQueueProperties properties) {
+        this(properties.getTimingWheelTickMillis(), properties.getTimingWheelSize(),
+                properties.getVisibilityTimeoutMillis());
+    }
+
+    /**
+     * Creates an indexed queue without leases.
+     *
+     * @param tickMillis the resolution of the timing wheel for delayed run IDs
+     * @param wheelSize the number of slots per level of the timing wheel
+     */
+    public IndexedWorkflowQueue(long tickMillis, int wheelSize) {
+        this(tickMillis, wheelSize, 0);
+    }
+
+    /**
+     * Creates an indexed queue.
+     *
+     * @param tickMillis the resolution of the timing wheel for delayed run IDs
+     * @param wheelSize the number of slots per level of the timing wheel
+     * @param visibilityTimeoutMillis the lease duration of dequeued run IDs in milliseconds, 0 to disable leases
+     */
+    public IndexedWorkflowQueue(long tickMillis, int wheelSize, long visibilityTimeoutMillis) {
+        this.delayed = new DelayedRuns("workflow-queue-indexed-delay", tickMillis, wheelSize, this::enqueue);
+        this.leases = visibilityTimeoutMillis > 0
+                ? new LeaseTracker("workflow-queue-indexed-leases", visibilityTimeoutMillis, this::enqueue)
+                : null;
+    }
+
+    /**
+     * Enqueues a run ID for processing.
+     * A run ID that is already queued is moved to the back of the queue.
+     *
+     * @param runId the workflow run ID to enqueue
+     */
+    @Override
+    public void enqueue(String runId) {
+        QueuedRun entry = new QueuedRun(runId);
+        QueuedRun previous = index.put(runId, entry);
+        if (previous != null && previous.claim()) {
+            size.decrementAndGet();
+            tombstones.incrementAndGet();
+        }
+        size.incrementAndGet();
+        queue.offer(entry);
+        signal.signal();
+    }
+
+    /**
+     * Dequeues the oldest live run ID, skipping tombstones, and leases it if leases are enabled.
+     *
+     * @return the next run ID to process, or null if the queue is empty
+     */
+    @Override
+    public String dequeue() {
+        QueuedRun entry;
+        while ((entry = queue.poll()) != null) {
+            if (entry.claim()) {
+                size.decrementAndGet();
+                index.remove(entry.runId(), entry);
+                if (leases != null) {
+                    leases.acquire(entry.runId());
+                }
+                return entry.runId();
+            }
+            tombstones.decrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * Dequeues a run ID, parking until one is enqueued or the timeout elapses.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the next run ID to process, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(this::dequeue, timeout, unit);
+    }
+
+    /**
+     * Releases the lease of a delivered run ID.
+     *
+     * @param messageId the workflow run ID
+     */
+    @Override
+    public void acknowledge(String messageId) {
+        if (leases != null) {
+            leases.release(messageId);
+        }
+    }
+
+    /**
+     * Rejects a run ID, releasing its lease, and re-enqueues it after the given delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID is enqueued again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        acknowledge(messageId);
+        if (delayMs <= 0) {
+            enqueue(messageId);
+            return;
+        }
+        delayed.delay(messageId, delayMs);
+    }
+
+    @Override
+    public long getVisibilityTimeoutMillis() {
+        return leases != null ? leases.getVisibilityTimeoutMillis() : 0;
+    }
+
+    @Override
+    public boolean extendLease(String runId) {
+        return leases != null && leases.extend(runId);
+    }
+
+    @Override
+    public int leasedSize() {
+        return leases != null ? leases.size() : 0;
+    }
+
+    @Override
+    public long getExpiredLeaseCount() {
+        return leases != null ? leases.getExpiredCount() : 0;
+    }
+
+    @Override
+    public int delayedSize() {
+        return delayed.size();
+    }
+
+    @Override
+    public Map<Long, Long> getDelayedDepthByDueTime() {
+        return delayed.getDepthByDueTime();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Checks if a run ID is queued or delayed, in constant time.
+     *
+     * @param runId the run ID to check
+     * @return true if the run ID is in the queue, false otherwise
+     */
+    @Override
+    public boolean contains(String runId) {
+        return index.containsKey(runId) || delayed.contains(runId);
+    }
+
+    /**
+     * Removes a run ID in constant time, leaving a tombstone in the queue.
+     *
+     * @param runId the run ID to remove
+     * @return true if the run ID was removed, false if it wasn't in the queue
+     */
+    @Override
+    public boolean remove(String runId) {
+        boolean removed = false;
+        if (delayed.cancel(runId)) {
+            removed = true;
+        }
+        QueuedRun entry = index.remove(runId);
+        if (entry != null && entry.claim()) {
+            size.decrementAndGet();
+            if (tombstones.incrementAndGet() > Math.max(MIN_TOMBSTONES_TO_PURGE, size.get())) {
+                purgeTombstones();
+            }
+            removed = true;
+        }
+        return removed;
+    }
+
+    @Override
+    public void disableProcessing() {
+        processingEnabled.set(false);
+    }
+
+    @Override
+    public void enableProcessing() {
+        processingEnabled.set(true);
+    }
+
+    @Override
+    public boolean isProcessingEnabled() {
+        return processingEnabled.get();
+    }
+
+    /**
+     * Drops every queued and delayed run ID. Queued run IDs are claimed and unindexed without
+     * being delivered, so unlike a drain through {@link #dequeue()} they are not leased and never
+     * come back when the leases expire. Run IDs already delivered keep their leases.
+     */
+    @Override
+    public void clear() {
+        delayed.clear();
+        QueuedRun entry;
+        while ((entry = queue.poll()) != null) {
+            if (entry.claim()) {
+                size.decrementAndGet();
+                index.remove(entry.runId(), entry);
+            } else {
+                tombstones.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Stops the timing wheels; delayed run IDs are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayed.close();
+        if (leases != null) {
+            leases.close();
+        }
+    }
+
+    private void purgeTombstones() {
+        if (!purging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            queue.removeIf(entry -> {
+                if (entry.isClaimed()) {
+                    tombstones.decrementAndGet();
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            purging.set(false);
+        }
+    }
+}
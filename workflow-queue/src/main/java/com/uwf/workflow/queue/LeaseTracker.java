@@ -0,0 +1,138 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.timer.TimingWheel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the leases of delivered run IDs and hands a run ID back to its queue when
+ * its lease expires without being released.
+ * <p>
+ * Each lease is one node on a {@link TimingWheel}, so acquiring, extending and releasing
+ * a lease are constant time and a hundred thousand concurrent leases cost no timer tasks.
+ * <p>
+ * As with {@link DelayedRuns}, each lease is registered before its timeout is scheduled and only
+ * expires by its own timeout, so a timeout firing before {@link #acquire(String)} returns still
+ * hands the run ID back, and a lease replaced or released meanwhile never does.
+ */
+final class LeaseTracker {
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final LongAdder expiredLeases = new LongAdder();
+    private final long visibilityTimeoutMillis;
+    private final Consumer<String> onExpired;
+    private final TimingWheel<Lease> wheel;
+
+    /**
+     * Creates a lease tracker.
+     *
+     * @param name the name of the timing wheel thread
+     * @param visibilityTimeoutMillis the time in milliseconds a lease lasts unless extended
+     * @param onExpired called with the run ID of each expired lease, on the timing wheel thread
+     */
+    LeaseTracker(String name, long visibilityTimeoutMillis, Consumer<String> onExpired) {
+        this.visibilityTimeoutMillis = visibilityTimeoutMillis;
+        this.onExpired = onExpired;
+        this.wheel = new TimingWheel<>(name, 10, 512, this::expire);
+    }
+
+    long getVisibilityTimeoutMillis() {
+        return visibilityTimeoutMillis;
+    }
+
+    /**
+     * Leases a run ID for one visibility timeout, replacing an earlier lease of it.
+     *
+     * @param runId the delivered run ID
+     */
+    void acquire(String runId) {
+        Lease lease = new Lease(runId);
+        Lease previous = leases.put(runId, lease);
+        if (previous != null) {
+            previous.cancel();
+        }
+        schedule(lease);
+    }
+
+    /**
+     * Restarts the visibility timeout of a lease.
+     *
+     * @param runId the leased run ID
+     * @return true if the lease was extended, false if the run ID is not leased
+     */
+    boolean extend(String runId) {
+        Lease current = leases.get(runId);
+        if (current == null) {
+            return false;
+        }
+        Lease extended = new Lease(runId);
+        if (!leases.replace(runId, current, extended)) {
+            return false;
+        }
+        current.cancel();
+        schedule(extended);
+        return true;
+    }
+
+    /**
+     * Releases the lease of a run ID that was settled by its consumer.
+     *
+     * @param runId the leased run ID
+     * @return true if a lease was released, false if the run ID was not leased
+     */
+    boolean release(String runId) {
+        Lease lease = leases.remove(runId);
+        if (lease == null) {
+            return false;
+        }
+        lease.cancel();
+        return true;
+    }
+
+    int size() {
+        return leases.size();
+    }
+
+    long getExpiredCount() {
+        return expiredLeases.sum();
+    }
+
+    void close() {
+        wheel.close();
+    }
+
+    private void schedule(Lease lease) {
+        lease.timeout = wheel.schedule(lease, visibilityTimeoutMillis);
+        if (leases.get(lease.runId) != lease) {
+            // Released or replaced before its timeout was set
+            lease.cancel();
+        }
+    }
+
+    private void expire(Lease lease) {
+        if (leases.remove(lease.runId, lease)) {
+            expiredLeases.increment();
+            System.err.println("[LeaseTracker] Lease of run " + lease.runId + " expired, redelivering");
+            onExpired.accept(lease.runId);
+        }
+    }
+
+    private static final class Lease {
+        private final String runId;
+        private volatile TimingWheel.Timeout<Lease> timeout;
+
+        Lease(String runId) {
+            this.runId = runId;
+        }
+
+        void cancel() {
+            TimingWheel.Timeout<Lease> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+    }
+}
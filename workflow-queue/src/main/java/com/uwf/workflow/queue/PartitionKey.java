@@ -0,0 +1,19 @@
+package com.uwf.workflow.queue;
+
+/**
+ * What the {@link PartitionedWorkflowQueue} hashes to pick the partition of a run ID.
+ */
+public enum PartitionKey {
+
+    /**
+     * Spreads runs evenly over the partitions regardless of their workflow.
+     */
+    RUN_ID,
+
+    /**
+     * Keeps all runs of a workflow definition on one partition, so the workers of that
+     * partition keep reusing the same {@code Workflow} and primitives objects. A busy
+     * definition can fill its partition; idle workers then steal from it.
+     */
+    WORKFLOW_ID
+}
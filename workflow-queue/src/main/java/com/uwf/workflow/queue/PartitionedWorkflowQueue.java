@@ -0,0 +1,391 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.common.model.WorkflowPriority;
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Workflow queue split into independent partitions, so that workers do not all contend on
+ * the head of one shared queue.
+ * <p>
+ * Each run ID is hashed to a partition by its run ID or its workflow definition ID, see
+ * {@link PartitionKey}. Workers dequeue from their home partition with
+ * {@link #dequeueBatch(int, int, long, TimeUnit)}; the workers sharing a home partition form
+ * its worker group. A worker whose home partition is empty steals half of the busiest
+ * partition instead of waiting, so a hot workflow definition does not leave other groups idle.
+ * <p>
+ * Run IDs keep FIFO order within a partition; priorities are ignored. A rejected or expired
+ * run ID returns to the partition it was first enqueued to. Delayed run IDs wait on a
+ * {@link TimingWheel}, and with a visibility timeout every dequeued run ID is leased as in
+ * {@link InMemoryWorkflowQueue}.
+ * <p>
+ * Enabled with {@code workflow.queue.type=partitioned}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "partitioned")
+public class PartitionedWorkflowQueue implements WorkflowQueue {
+
+    private final Partition[] partitions;
+    private final PartitionKey partitionKey;
+    private final Map<String, Integer> partitionOf = new ConcurrentHashMap<>();
+    private final DelayedRuns delayed;
+    private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+    private final QueueSignal signal = new QueueSignal();
+    private final LongAdder stolen = new LongAdder();
+    private final LeaseTracker leases;
+
+    @Autowired
+    public PartitionedWorkflowQueue(WorkflowQueueProperties properties) {
+        this(properties.getPartitionCount(), properties.getPartitionKey(), properties.getVisibilityTimeoutMillis(),
+                properties.getTimingWheelTickMillis(), properties.getTimingWheelSize());
+    }
+
+    /**
+     * Creates a partitioned queue.
+     *
+     * @param partitionCount the number of partitions, 0 for one per available processor
+     * @param partitionKey what run IDs are partitioned by
+     * @param visibilityTimeoutMillis the lease duration in milliseconds, 0 to disable leases
+     * @param tickMillis the resolution of the timing wheel for delayed run IDs
+     * @param wheelSize the number of slots per level of the timing wheel
+     */
+    public PartitionedWorkflowQueue(int partitionCount, PartitionKey partitionKey, long visibilityTimeoutMillis,
+                                    long tickMillis, int wheelSize) {
+        int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        this.partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition();
+        }
+        this.partitionKey = partitionKey;
+        this.delayed = new DelayedRuns("workflow-queue-partition-delay", tickMillis, wheelSize, this::enqueue);
+        this.leases = visibilityTimeoutMillis > 0
+                ? new LeaseTracker("workflow-queue-partition-leases", visibilityTimeoutMillis, this::enqueue)
+                : null;
+    }
+
+    /**
+     * Enqueues a run ID to the partition it was last enqueued to, or else to the partition of its run ID.
+     *
+     * @param runId the workflow run ID to enqueue
+     */
+    @Override
+    public void enqueue(String runId) {
+        offer(runId, partitionOfQueued(runId));
+    }
+
+    /**
+     * Enqueues a run ID to the partition of the given key, or of the run ID if partitioned by run ID.
+     *
+     * @param runId the workflow run ID to enqueue
+     * @param priority ignored, partitions are FIFO
+     * @param partitionKey the workflow definition ID of the run
+     */
+    @Override
+    public void enqueue(String runId, WorkflowPriority priority, String partitionKey) {
+        if (this.partitionKey == PartitionKey.WORKFLOW_ID && partitionKey != null) {
+            int partition = partitionFor(partitionKey);
+            partitionOf.put(runId, partition);
+            offer(runId, partition);
+        } else {
+            enqueue(runId);
+        }
+    }
+
+    @Override
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Dequeues a run ID from the partition of the calling thread, stealing from the busiest
+     * partition if it is empty.
+     *
+     * @return the next run ID to process, or null if all partitions are empty
+     */
+    @Override
+    public String dequeue() {
+        List<String> batch = take(homePartition(), 1);
+        return batch != null ? batch.get(0) : null;
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        List<String> batch = signal.await(() -> take(homePartition(), 1), timeout, unit);
+        return batch != null ? batch.get(0) : null;
+    }
+
+    @Override
+    public List<String> dequeueBatch(int maxItems, long timeout, TimeUnit unit) throws InterruptedException {
+        return dequeueBatch(homePartition(), maxItems, timeout, unit);
+    }
+
+    /**
+     * Dequeues up to {@code maxItems} run IDs from the given partition, waiting up to the given
+     * time for the first. If the partition is empty, up to half of the busiest partition is
+     * stolen instead.
+     *
+     * @param partition the home partition of the calling worker
+     * @param maxItems the maximum number of run IDs to return
+     * @param timeout the maximum time to wait for the first run ID
+     * @param unit the unit of the timeout
+     * @return the dequeued run IDs in partition order, empty if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public List<String> dequeueBatch(int partition, int maxItems, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (maxItems <= 0) {
+            return List.of();
+        }
+        int home = Math.floorMod(partition, partitions.length);
+        List<String> batch = signal.await(() -> take(home, maxItems), timeout, unit);
+        return batch != null ? batch : List.of();
+    }
+
+    /**
+     * Releases the lease of a delivered run ID and forgets its partition.
+     *
+     * @param messageId the workflow run ID
+     */
+    @Override
+    public void acknowledge(String messageId) {
+        partitionOf.remove(messageId);
+        if (leases != null) {
+            leases.release(messageId);
+        }
+    }
+
+    /**
+     * Rejects a run ID, releasing its lease, and re-enqueues it to its partition after the given delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID is enqueued again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        if (leases != null) {
+            leases.release(messageId);
+        }
+        if (delayMs <= 0) {
+            enqueue(messageId);
+            return;
+        }
+        delayed.delay(messageId, delayMs);
+    }
+
+    @Override
+    public long getVisibilityTimeoutMillis() {
+        return leases != null ? leases.getVisibilityTimeoutMillis() : 0;
+    }
+
+    @Override
+    public boolean extendLease(String runId) {
+        return leases != null && leases.extend(runId);
+    }
+
+    @Override
+    public int leasedSize() {
+        return leases != null ? leases.size() : 0;
+    }
+
+    @Override
+    public long getExpiredLeaseCount() {
+        return leases != null ? leases.getExpiredCount() : 0;
+    }
+
+    @Override
+    public int delayedSize() {
+        return delayed.size();
+    }
+
+    @Override
+    public Map<Long, Long> getDelayedDepthByDueTime() {
+        return delayed.getDepthByDueTime();
+    }
+
+    /**
+     * Gets the number of run IDs queued in each partition.
+     *
+     * @return the queued run IDs per partition, indexed by partition
+     */
+    public int[] getPartitionSizes() {
+        int[] sizes = new int[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            sizes[i] = partitions[i].size();
+        }
+        return sizes;
+    }
+
+    /**
+     * Gets the number of run IDs dequeued by a worker outside their partition.
+     *
+     * @return the number of stolen run IDs
+     */
+    public long getStolenCount() {
+        return stolen.sum();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Partition partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean contains(String runId) {
+        return delayed.contains(runId) || partitions[partitionOfQueued(runId)].runs.contains(runId);
+    }
+
+    @Override
+    public boolean remove(String runId) {
+        if (delayed.cancel(runId)) {
+            partitionOf.remove(runId);
+            return true;
+        }
+        Partition partition = partitions[partitionOfQueued(runId)];
+        if (partition.runs.remove(runId)) {
+            partition.size.decrementAndGet();
+            partitionOf.remove(runId);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void disableProcessing() {
+        processingEnabled.set(false);
+    }
+
+    @Override
+    public void enableProcessing() {
+        processingEnabled.set(true);
+    }
+
+    @Override
+    public boolean isProcessingEnabled() {
+        return processingEnabled.get();
+    }
+
+    @Override
+    public void clear() {
+        delayed.clear();
+        for (Partition partition : partitions) {
+            while (partition.runs.poll() != null) {
+                partition.size.decrementAndGet();
+            }
+        }
+        partitionOf.clear();
+    }
+
+    /**
+     * Stops the timing wheel and the lease timer; delayed run IDs are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayed.close();
+        if (leases != null) {
+            leases.close();
+        }
+    }
+
+    /**
+     * Takes up to {@code maxItems} run IDs from the home partition, or, if it is empty, up to
+     * half of the busiest other partition, leaving the rest to its own workers.
+     *
+     * @return the taken run IDs, or null if all partitions are empty
+     */
+    private List<String> take(int home, int maxItems) {
+        List<String> batch = drain(partitions[home], maxItems);
+        if (batch != null) {
+            return batch;
+        }
+        Partition victim = null;
+        int victimSize = 0;
+        for (int i = 0; i < partitions.length; i++) {
+            int size = partitions[i].size();
+            if (i != home && size > victimSize) {
+                victim = partitions[i];
+                victimSize = size;
+            }
+        }
+        if (victim == null) {
+            return null;
+        }
+        batch = drain(victim, Math.min(maxItems, Math.max(1, victimSize / 2)));
+        if (batch != null) {
+            stolen.add(batch.size());
+        }
+        return batch;
+    }
+
+    private List<String> drain(Partition partition, int maxItems) {
+        String runId = partition.runs.poll();
+        if (runId == null) {
+            return null;
+        }
+        List<String> batch = new ArrayList<>(Math.min(maxItems, 64));
+        do {
+            partition.size.decrementAndGet();
+            if (leases != null) {
+                leases.acquire(runId);
+            }
+            batch.add(runId);
+        } while (batch.size() < maxItems && (runId = partition.runs.poll()) != null);
+        return batch;
+    }
+
+    private void offer(String runId, int partition) {
+        partitions[partition].runs.offer(runId);
+        partitions[partition].size.incrementAndGet();
+        signal.signal();
+    }
+
+    private int partitionFor(String key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.length);
+    }
+
+    private int partitionOfQueued(String runId) {
+        Integer partition = partitionOf.get(runId);
+        return partition != null ? partition : partitionFor(runId);
+    }
+
+    /**
+     * Home partition of callers that do not name one, spread by thread.
+     */
+    private int homePartition() {
+        return (int) Math.floorMod(Thread.currentThread().threadId(), (long) partitions.length);
+    }
+
+    private static final class Partition {
+        private final ConcurrentLinkedQueue<String> runs = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        int size() {
+            return Math.max(0, size.get());
+        }
+    }
+}
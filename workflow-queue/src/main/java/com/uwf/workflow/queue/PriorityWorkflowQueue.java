@@ -0,0 +1,354 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.common.model.WorkflowPriority;
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Workflow queue with one lock-free FIFO lane per {@link WorkflowPriority}.
+ * <p>
+ * Dequeues are spread across the lanes by weight, using a precomputed smooth weighted
+ * round-robin schedule, so a deep backlog of low priority runs cannot starve high priority
+ * ones and low priority runs still make progress. An empty lane yields its turn to the
+ * highest non-empty lane. To bound the wait of any run, the head of a lower lane that has
+ * waited longer than the aging threshold is dequeued ahead of the schedule.
+ * <p>
+ * The priority of a dequeued run is remembered until it is acknowledged, so a rejected
+ * run is retried in its original lane. Delayed run IDs wait on a {@link TimingWheel}.
+ * <p>
+ * Enabled with {@code workflow.queue.type=priority}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "priority")
+public class PriorityWorkflowQueue implements WorkflowQueue {
+
+    private static final WorkflowPriority[] PRIORITIES = WorkflowPriority.values();
+
+    private final ConcurrentLinkedQueue<QueuedRun>[] lanes;
+    private final Map<String, QueuedRun> queued = new ConcurrentHashMap<>();
+    private final Map<String, WorkflowPriority> priorities = new ConcurrentHashMap<>();
+    private final DelayedRuns delayed;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+    private final QueueSignal signal = new QueueSignal();
+    private final int[] schedule;
+    private final long agingNanos;
+
+    @Autowired
+    public PriorityWorkflowQueue(WorkflowQueueProperties properties) {
+        this(weights(properties), properties.getPriorityAgingMillis(),
+                properties.getTimingWheelTickMillis(), properties.getTimingWheelSize());
+    }
+
+    /**
+     * Creates a priority queue.
+     *
+     * @param weights the share of dequeues per priority; priorities without a weight get 1
+     * @param agingMillis the wait in milliseconds after which a run is dequeued ahead of higher priorities
+     * @param tickMillis the resolution of the timing wheel for delayed run IDs
+     * @param wheelSize the number of slots per level of the timing wheel
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityWorkflowQueue(Map<WorkflowPriority, Integer> weights, long agingMillis,
+                                 long tickMillis, int wheelSize) {
+        this.lanes = new ConcurrentLinkedQueue[PRIORITIES.length];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            lanes[lane] = new ConcurrentLinkedQueue<>();
+        }
+        this.schedule = buildSchedule(weights);
+        this.agingNanos = agingMillis * 1_000_000L;
+        this.delayed = new DelayedRuns("workflow-queue-priority-delay", tickMillis, wheelSize, this::enqueue);
+    }
+
+    /**
+     * Enqueues a run ID with {@link WorkflowPriority#NORMAL} priority,
+     * or with its earlier priority if it was dequeued before and not yet acknowledged.
+     *
+     * @param runId the workflow run ID to enqueue
+     */
+    @Override
+    public void enqueue(String runId) {
+        enqueue(runId, priorities.getOrDefault(runId, WorkflowPriority.NORMAL));
+    }
+
+    /**
+     * Enqueues a run ID in the lane of its priority.
+     * A run ID that is already queued is moved to the back of the new lane.
+     *
+     * @param runId the workflow run ID to enqueue
+     * @param priority the priority of the run
+     */
+    @Override
+    public void enqueue(String runId, WorkflowPriority priority) {
+        priorities.put(runId, priority);
+        QueuedRun entry = new QueuedRun(runId);
+        QueuedRun previous = queued.put(runId, entry);
+        if (previous != null && previous.claim()) {
+            size.decrementAndGet();
+        }
+        size.incrementAndGet();
+        lanes[priority.ordinal()].offer(entry);
+        signal.signal();
+    }
+
+    /**
+     * Dequeues the next run ID: an aged run from a lower lane if one has waited past the
+     * aging threshold, otherwise the head of the lane whose turn it is in the weighted schedule.
+     *
+     * @return the next run ID to process, or null if the queue is empty
+     */
+    @Override
+    public String dequeue() {
+        if (size.get() == 0) {
+            return null;
+        }
+        QueuedRun entry = pollAged();
+        if (entry == null) {
+            int lane = schedule[(int) (cursor.getAndIncrement() % schedule.length)];
+            entry = poll(lane);
+            for (int fallback = lanes.length - 1; entry == null && fallback >= 0; fallback--) {
+                entry = poll(fallback);
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        queued.remove(entry.runId(), entry);
+        return entry.runId();
+    }
+
+    @Override
+    public boolean supportsPriorityShedding() {
+        return true;
+    }
+
+    /**
+     * Removes the oldest run ID of the lowest non-empty lane below the given priority.
+     *
+     * @param priority the priority of the run that needs room
+     * @return the removed run ID, or null if all queued run IDs have the given priority or a higher one
+     */
+    @Override
+    public String shedLowerPriority(WorkflowPriority priority) {
+        for (int lane = 0; lane < priority.ordinal(); lane++) {
+            QueuedRun entry = poll(lane);
+            if (entry != null) {
+                queued.remove(entry.runId(), entry);
+                priorities.remove(entry.runId());
+                return entry.runId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Dequeues a run ID, parking until one is enqueued or the timeout elapses.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the next run ID to process, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(this::dequeue, timeout, unit);
+    }
+
+    /**
+     * Forgets the priority of a finished run.
+     *
+     * @param messageId the workflow run ID
+     */
+    @Override
+    public void acknowledge(String messageId) {
+        if (!queued.containsKey(messageId) && !delayed.contains(messageId)) {
+            priorities.remove(messageId);
+        }
+    }
+
+    /**
+     * Rejects a run ID and re-enqueues it in its original lane after the given delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID is enqueued again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        if (delayMs <= 0) {
+            enqueue(messageId);
+            return;
+        }
+        delayed.delay(messageId, delayMs);
+    }
+
+    @Override
+    public int delayedSize() {
+        return delayed.size();
+    }
+
+    @Override
+    public Map<Long, Long> getDelayedDepthByDueTime() {
+        return delayed.getDepthByDueTime();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean contains(String runId) {
+        return queued.containsKey(runId) || delayed.contains(runId);
+    }
+
+    /**
+     * Removes a run ID in constant time. A queued entry is left in its lane as a
+     * tombstone and skipped by {@link #dequeue()}.
+     *
+     * @param runId the run ID to remove
+     * @return true if the run ID was removed, false if it wasn't in the queue
+     */
+    @Override
+    public boolean remove(String runId) {
+        boolean removed = false;
+        if (delayed.cancel(runId)) {
+            removed = true;
+        }
+        QueuedRun entry = queued.remove(runId);
+        if (entry != null && entry.claim()) {
+            size.decrementAndGet();
+            removed = true;
+        }
+        if (removed) {
+            priorities.remove(runId);
+        }
+        return removed;
+    }
+
+    @Override
+    public void disableProcessing() {
+        processingEnabled.set(false);
+    }
+
+    @Override
+    public void enableProcessing() {
+        processingEnabled.set(true);
+    }
+
+    @Override
+    public boolean isProcessingEnabled() {
+        return processingEnabled.get();
+    }
+
+    @Override
+    public void clear() {
+        delayed.clear();
+        for (String runId : queued.keySet()) {
+            remove(runId);
+        }
+        for (ConcurrentLinkedQueue<QueuedRun> lane : lanes) {
+            lane.clear();
+        }
+        priorities.clear();
+    }
+
+    /**
+     * Stops the timing wheel; delayed run IDs are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayed.close();
+    }
+
+    private QueuedRun pollAged() {
+        long now = System.nanoTime();
+        for (int lane = 0; lane < lanes.length - 1; lane++) {
+            QueuedRun head = peek(lane);
+            if (head != null && now - head.enqueuedNanos() >= agingNanos) {
+                QueuedRun entry = poll(lane);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private QueuedRun peek(int lane) {
+        ConcurrentLinkedQueue<QueuedRun> queue = lanes[lane];
+        QueuedRun head;
+        while ((head = queue.peek()) != null && head.isClaimed()) {
+            // Drop the tombstone at the head; remove is by identity and finds it first
+            queue.remove(head);
+        }
+        return head;
+    }
+
+    private QueuedRun poll(int lane) {
+        ConcurrentLinkedQueue<QueuedRun> queue = lanes[lane];
+        QueuedRun entry;
+        while ((entry = queue.poll()) != null) {
+            if (entry.claim()) {
+                size.decrementAndGet();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Interleaves the lanes in proportion to their weights with smooth weighted round-robin,
+     * so that a lane with weight w gets w evenly spread turns per round.
+     */
+    private static int[] buildSchedule(Map<WorkflowPriority, Integer> weights) {
+        int[] laneWeights = new int[PRIORITIES.length];
+        int total = 0;
+        for (WorkflowPriority priority : PRIORITIES) {
+            int weight = Math.max(1, weights.getOrDefault(priority, 1));
+            laneWeights[priority.ordinal()] = weight;
+            total += weight;
+        }
+        int[] schedule = new int[total];
+        int[] current = new int[laneWeights.length];
+        for (int turn = 0; turn < total; turn++) {
+            int best = 0;
+            for (int lane = 0; lane < laneWeights.length; lane++) {
+                current[lane] += laneWeights[lane];
+                if (current[lane] > current[best]) {
+                    best = lane;
+                }
+            }
+            current[best] -= total;
+            schedule[turn] = best;
+        }
+        return schedule;
+    }
+
+    private static Map<WorkflowPriority, Integer> weights(WorkflowQueueProperties properties) {
+        Map<WorkflowPriority, Integer> weights = new EnumMap<>(WorkflowPriority.class);
+        weights.put(WorkflowPriority.LOW, properties.getLowPriorityWeight());
+        weights.put(WorkflowPriority.NORMAL, properties.getNormalPriorityWeight());
+        weights.put(WorkflowPriority.HIGH, properties.getHighPriorityWeight());
+        return weights;
+    }
+}
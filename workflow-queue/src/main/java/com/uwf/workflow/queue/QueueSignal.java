@@ -0,0 +1,67 @@
+package com.uwf.workflow.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Lets consumers of a lock-free queue park until an element arrives.
+ * Producers only touch the lock while a consumer is actually waiting,
+ * so enqueueing stays lock-free while the queue is busy.
+ */
+final class QueueSignal {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /**
+     * Wakes one waiting consumer, if any. Called after an element has been added.
+     */
+    void signal() {
+        if (waiters.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Polls until an element is returned or the timeout elapses, parking in between.
+     * A consumer registers as waiting before it polls again, so an element added
+     * after that poll always signals it.
+     *
+     * @param poll the non-blocking poll of the queue
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the element, or null if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    <T> T await(Supplier<T> poll, long timeout, TimeUnit unit) throws InterruptedException {
+        T element = poll.get();
+        if (element != null || timeout <= 0) {
+            return element;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        // Registered only once the lock is held, so an interrupt while acquiring it cannot leak a waiter
+        waiters.incrementAndGet();
+        try {
+            while ((element = poll.get()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return element;
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+}
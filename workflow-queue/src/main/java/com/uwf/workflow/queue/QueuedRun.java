@@ -0,0 +1,35 @@
+package com.uwf.workflow.queue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Run ID held in a lock-free lane of an indexed queue.
+ * Claimed exactly once, either by the dequeue that hands it out or by the remove
+ * that turns it into a tombstone, so both can run without locking the lane.
+ */
+final class QueuedRun {
+    private final String runId;
+    private final long enqueuedNanos;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    QueuedRun(String runId) {
+        this.runId = runId;
+        this.enqueuedNanos = System.nanoTime();
+    }
+
+    String runId() {
+        return runId;
+    }
+
+    long enqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    boolean isClaimed() {
+        return claimed.get();
+    }
+}
@@ -0,0 +1,321 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.ring.RingBuffer;
+import com.uwf.workflow.queue.ring.WaitStrategy;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Low-latency workflow queue on a pre-allocated {@link RingBuffer}.
+ * <p>
+ * Enqueueing and dequeueing cost one CAS on the ring each, and waiting consumers
+ * never park on a lock: they spin, yield or briefly park according to the configured
+ * {@link WaitStrategy}, which trades CPU usage for hand-off latency. Producers wait the same
+ * way while the buffer is full, but only up to the offer timeout: after it the run ID goes to an
+ * overflow list that consumers move back into the ring as slots free up, and later run IDs queue
+ * behind it to keep FIFO order. Delayed run IDs falling due never wait for a slot, so a full ring
+ * cannot stall the timing wheel. {@link #size()} counts occupied slots and overflowed run IDs,
+ * so admission control against {@code workflow.executor.max-queued-runs} sees the real backlog;
+ * size the ring above that limit so that runs rarely overflow.
+ * <p>
+ * Each run ID is published as a {@link QueuedRun}, claimed exactly once: either by the dequeue
+ * that hands it out or by the remove that turns it into a tombstone, so a run ID is never both
+ * removed and delivered. {@link #dequeue()} drops tombstones when they reach the head of the
+ * buffer or of the overflow list. {@link #contains(String)} and {@link #remove(String)} scan the
+ * overflow list and the buffer. Delayed run IDs wait on a {@link TimingWheel}.
+ * <p>
+ * Enabled with {@code workflow.queue.type=ring-buffer}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "ring-buffer")
+public class RingBufferWorkflowQueue implements WorkflowQueue {
+
+    private final RingBuffer<QueuedRun> ring;
+    private final WaitStrategy waitStrategy;
+    private final long offerTimeoutNanos;
+    private final Queue<QueuedRun> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger overflowed = new AtomicInteger();
+    private final ReentrantLock overflowDrain = new ReentrantLock();
+    private final AtomicInteger tombstones = new AtomicInteger();
+    private final DelayedRuns delayed;
+    private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+
+    @Autowired
+    public RingBufferWorkflowQueue(WorkflowQueueProperties properties) {
+        this(properties.getRingBufferSize(), properties.getRingBufferWaitStrategy(),
+                properties.getRingBufferOfferTimeoutMillis(), properties.getTimingWheelTickMillis(),
+                properties.getTimingWheelSize());
+    }
+
+    /**
+     * Creates a ring buffer queue.
+     *
+     * @param capacity the number of slots, rounded up to a power of two
+     * @param waitStrategy how consumers wait for run IDs and producers for free slots
+     * @param offerTimeoutMillis how long producers wait for a free slot before overflowing
+     * @param tickMillis the resolution of the timing wheel for delayed run IDs
+     * @param wheelSize the number of slots per level of the timing wheel
+     */
+    public RingBufferWorkflowQueue(int capacity, WaitStrategy waitStrategy, long offerTimeoutMillis,
+                                   long tickMillis, int wheelSize) {
+        this.ring = new RingBuffer<>(capacity);
+        this.waitStrategy = waitStrategy;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, offerTimeoutMillis));
+        this.delayed = new DelayedRuns("workflow-queue-ring-delay", tickMillis, wheelSize, this::release);
+    }
+
+    /**
+     * Publishes a run ID, waiting with the wait strategy up to the offer timeout while the buffer
+     * is full and then leaving it on the overflow list. Joins the overflow list right away while
+     * earlier run IDs wait on it.
+     *
+     * @param runId the workflow run ID to enqueue
+     */
+    @Override
+    public void enqueue(String runId) {
+        QueuedRun entry = new QueuedRun(runId);
+        if (overflowed.get() > 0) {
+            spill(entry);
+            return;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        for (int attempt = 0; !ring.offer(entry); attempt++) {
+            if (System.nanoTime() - deadline >= 0) {
+                spill(entry);
+                return;
+            }
+            waitStrategy.idle(attempt);
+        }
+    }
+
+    /**
+     * Publishes a run ID whose delay elapsed without waiting, since it runs on the timing wheel thread.
+     */
+    private void release(String runId) {
+        QueuedRun entry = new QueuedRun(runId);
+        if (overflowed.get() > 0 || !ring.offer(entry)) {
+            spill(entry);
+        }
+    }
+
+    /**
+     * Appends an entry to the overflow list and moves what fits into the ring, in case the
+     * consumers freed slots before the entry was added.
+     */
+    private void spill(QueuedRun entry) {
+        overflowed.incrementAndGet();
+        overflow.add(entry);
+        drainOverflow();
+    }
+
+    /**
+     * Moves overflowed entries into the ring while it has free slots, dropping removed ones.
+     * One consumer drains at a time, so the head seen by peek is the one polled.
+     *
+     * @return true if an entry was moved or dropped
+     */
+    private boolean drainOverflow() {
+        if (overflowed.get() == 0 || !overflowDrain.tryLock()) {
+            return false;
+        }
+        boolean drained = false;
+        try {
+            QueuedRun entry;
+            while ((entry = overflow.peek()) != null) {
+                if (entry.isClaimed()) {
+                    tombstones.decrementAndGet();
+                } else if (!ring.offer(entry)) {
+                    break;
+                }
+                // Published to the ring before leaving the list, so scans always see it in one of them
+                overflow.poll();
+                overflowed.decrementAndGet();
+                drained = true;
+            }
+        } finally {
+            overflowDrain.unlock();
+        }
+        return drained;
+    }
+
+    /**
+     * Takes the oldest run ID that has not been removed.
+     *
+     * @return the next run ID to process, or null if the queue is empty
+     */
+    @Override
+    public String dequeue() {
+        while (true) {
+            QueuedRun entry = ring.poll();
+            if (entry == null) {
+                if (drainOverflow()) {
+                    continue;
+                }
+                return null;
+            }
+            // The slot just freed takes the oldest overflowed entry
+            drainOverflow();
+            if (entry.claim()) {
+                return entry.runId();
+            }
+            // Claimed by a remove
+            tombstones.decrementAndGet();
+        }
+    }
+
+    /**
+     * Dequeues a run ID, waiting with the wait strategy until one is published or the timeout elapses.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the next run ID to process, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        String runId;
+        for (int attempt = 0; (runId = dequeue()) == null; attempt++) {
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            waitStrategy.idle(attempt);
+        }
+        return runId;
+    }
+
+    /**
+     * Rejects a run ID and publishes it again after the given delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID is enqueued again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        if (delayMs <= 0) {
+            enqueue(messageId);
+            return;
+        }
+        delayed.delay(messageId, delayMs);
+    }
+
+    @Override
+    public int delayedSize() {
+        return delayed.size();
+    }
+
+    @Override
+    public Map<Long, Long> getDelayedDepthByDueTime() {
+        return delayed.getDepthByDueTime();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ring.size() + overflowed.get() - tombstones.get() <= 0;
+    }
+
+    /**
+     * Gets the number of occupied slots plus the number of overflowed run IDs. Removed run IDs
+     * are counted until a dequeue drops them, since they still hold their slot; delayed run IDs
+     * are not counted, see {@link #delayedSize()}.
+     *
+     * @return the number of queued entries
+     */
+    @Override
+    public int size() {
+        return ring.size() + overflowed.get();
+    }
+
+    @Override
+    public boolean contains(String runId) {
+        return delayed.contains(runId) || findLive(runId) != null;
+    }
+
+    /**
+     * Removes a run ID by claiming its entry, which is dropped when it reaches the head of the buffer.
+     *
+     * @param runId the run ID to remove
+     * @return true if the run ID was removed, false if it wasn't in the queue or a consumer took it first
+     */
+    @Override
+    public boolean remove(String runId) {
+        if (delayed.cancel(runId)) {
+            return true;
+        }
+        QueuedRun entry;
+        while ((entry = findLive(runId)) != null) {
+            if (entry.claim()) {
+                tombstones.incrementAndGet();
+                return true;
+            }
+            // Taken by a consumer meanwhile; look for another copy
+        }
+        return false;
+    }
+
+    @Override
+    public void disableProcessing() {
+        processingEnabled.set(false);
+    }
+
+    @Override
+    public void enableProcessing() {
+        processingEnabled.set(true);
+    }
+
+    @Override
+    public boolean isProcessingEnabled() {
+        return processingEnabled.get();
+    }
+
+    @Override
+    public void clear() {
+        delayed.clear();
+        while (ring.poll() != null) {
+            // drain the buffer
+        }
+        overflowDrain.lock();
+        try {
+            while (overflow.poll() != null) {
+                overflowed.decrementAndGet();
+            }
+        } finally {
+            overflowDrain.unlock();
+        }
+        tombstones.set(0);
+    }
+
+    /**
+     * Stops the timing wheel; delayed run IDs are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayed.close();
+    }
+
+    private QueuedRun findLive(String runId) {
+        // The overflow list first: a drained entry reaches the ring before it leaves the list
+        for (QueuedRun entry : overflow) {
+            if (!entry.isClaimed() && entry.runId().equals(runId)) {
+                return entry;
+            }
+        }
+        return ring.find(entry -> !entry.isClaimed() && entry.runId().equals(runId));
+    }
+}
@@ -0,0 +1,323 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.log.LogEntry;
+import com.uwf.workflow.queue.log.LogRecord;
+import com.uwf.workflow.queue.log.SegmentLog;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable workflow queue backed by a {@link SegmentLog} of memory-mapped segment files,
+ * so queued runs survive a restart without an external broker.
+ * <p>
+ * Enqueueing appends a record; dequeueing reads the log from the consumer position and hands
+ * out each enqueued run ID that is still live. Acknowledging or removing a run ID appends a
+ * done record. Rejecting a run ID appends a new enqueue record carrying the time before which
+ * it must not be delivered, so retries are durable too.
+ * <p>
+ * Delivery is at least once. After each group-commit flush the consumer offset is committed as
+ * the oldest run ID that was delivered but not yet acknowledged, and segments before it are
+ * deleted. On startup the log is replayed from the committed offset: every run ID enqueued and
+ * not done since then is queued again, including runs that were executing when the node stopped.
+ * <p>
+ * Only the run IDs waiting in the log and those in flight are indexed in memory, which
+ * keeps {@link #contains(String)} and {@link #remove(String)} constant time.
+ * <p>
+ * Enabled with {@code workflow.queue.type=segment-log}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "segment-log")
+public class SegmentLogWorkflowQueue implements WorkflowQueue {
+
+    private final SegmentLog log;
+    private final boolean syncWrites;
+    // Run ID -> offset of its live enqueue record not yet read by the consumer
+    private final Map<String, Long> queued = new ConcurrentHashMap<>();
+    // Run ID -> offset of its record, for run IDs delivered or waiting for their delay
+    private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> inFlightOffsets = new ConcurrentSkipListSet<>();
+    private final DelayedRuns delayed;
+    private final ConcurrentLinkedQueue<String> due = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock readLock = new ReentrantLock();
+    private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+    private final QueueSignal signal = new QueueSignal();
+    private volatile long readOffset;
+    private volatile long committedOffset = -1;
+
+    @Autowired
+    public SegmentLogWorkflowQueue(WorkflowQueueProperties properties) {
+        this(Path.of(properties.getLogDirectory()), properties.getLogSegmentBytes(),
+                properties.getLogFlushIntervalMillis(), properties.isLogSyncWrites(),
+                properties.getTimingWheelTickMillis(), properties.getTimingWheelSize());
+    }
+
+    /**
+     * Opens the queue in a directory and recovers the run IDs queued there.
+     *
+     * @param directory the log directory
+     * @param segmentBytes the size of each segment file in bytes
+     * @param flushIntervalMillis the maximum time in milliseconds between group-commit flushes
+     * @param syncWrites whether enqueue waits until its record has been flushed to disk
+     * @param tickMillis the resolution of the timing wheel for delayed run IDs
+     * @param wheelSize the number of slots per level of the timing wheel
+     */
+    public SegmentLogWorkflowQueue(Path directory, int segmentBytes, long flushIntervalMillis,
+                                   boolean syncWrites, long tickMillis, int wheelSize) {
+        this.syncWrites = syncWrites;
+        this.delayed = new DelayedRuns("workflow-queue-log-delay", tickMillis, wheelSize, this::release);
+        this.log = new SegmentLog(directory, segmentBytes, flushIntervalMillis, this::commitConsumerOffset);
+        recover();
+    }
+
+    /**
+     * Appends a run ID to the log.
+     *
+     * @param runId the workflow run ID to enqueue
+     */
+    @Override
+    public void enqueue(String runId) {
+        append(runId, 0);
+        signal.signal();
+    }
+
+    /**
+     * Dequeues the next run ID whose delay has elapsed, reading the log as far as needed.
+     * Run IDs not yet due are moved onto the timing wheel on the way.
+     *
+     * @return the next run ID to process, or null if the queue is empty
+     */
+    @Override
+    public String dequeue() {
+        String dueRunId = due.poll();
+        if (dueRunId != null) {
+            return dueRunId;
+        }
+        readLock.lock();
+        try {
+            LogEntry entry;
+            while ((entry = log.read(readOffset)) != null) {
+                LogRecord record = entry.record();
+                if (record.type() != LogRecord.Type.ENQUEUE || !queued.remove(record.runId(), entry.offset())) {
+                    readOffset = entry.nextOffset();
+                    continue;
+                }
+                // Track the run before moving past it, so the committed offset never skips it
+                inFlightOffsets.add(entry.offset());
+                Long previous = inFlight.put(record.runId(), entry.offset());
+                if (previous != null) {
+                    inFlightOffsets.remove(previous);
+                }
+                readOffset = entry.nextOffset();
+
+                // The newer record supersedes an earlier delay of the run, whose offset was released above
+                long delayMillis = record.notBeforeMillis() - System.currentTimeMillis();
+                if (delayMillis > 0) {
+                    delayed.delay(record.runId(), delayMillis);
+                    continue;
+                }
+                delayed.cancel(record.runId());
+                return record.runId();
+            }
+            return null;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(this::dequeue, timeout, unit);
+    }
+
+    /**
+     * Acknowledges a delivered run ID, so it is not delivered again after a restart.
+     *
+     * @param messageId the workflow run ID
+     */
+    @Override
+    public void acknowledge(String messageId) {
+        Long offset = inFlight.remove(messageId);
+        if (offset != null) {
+            inFlightOffsets.remove(offset);
+            log.append(LogRecord.done(messageId), appended -> { });
+        }
+    }
+
+    /**
+     * Rejects a delivered run ID and durably re-enqueues it to be delivered after the delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID is delivered again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        // Append the retry before releasing the delivery, so a crash in between cannot lose the run
+        Long delivered = inFlight.get(messageId);
+        append(messageId, delayMs > 0 ? System.currentTimeMillis() + delayMs : 0);
+        if (delivered != null) {
+            inFlight.remove(messageId, delivered);
+            inFlightOffsets.remove(delivered);
+        }
+        signal.signal();
+    }
+
+    @Override
+    public int delayedSize() {
+        return delayed.size();
+    }
+
+    @Override
+    public Map<Long, Long> getDelayedDepthByDueTime() {
+        return delayed.getDepthByDueTime();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queued.isEmpty() && due.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queued.size() + due.size();
+    }
+
+    @Override
+    public boolean contains(String runId) {
+        return queued.containsKey(runId) || delayed.contains(runId) || due.contains(runId);
+    }
+
+    /**
+     * Removes a run ID that is queued or waiting for its delay, appending a done record.
+     *
+     * @param runId the run ID to remove
+     * @return true if the run ID was removed, false if it wasn't in the queue
+     */
+    @Override
+    public boolean remove(String runId) {
+        boolean removed = queued.remove(runId) != null;
+        if (delayed.cancel(runId) || due.remove(runId)) {
+            Long offset = inFlight.remove(runId);
+            if (offset != null) {
+                inFlightOffsets.remove(offset);
+            }
+            removed = true;
+        }
+        if (removed) {
+            log.append(LogRecord.done(runId), appended -> { });
+        }
+        return removed;
+    }
+
+    @Override
+    public void disableProcessing() {
+        processingEnabled.set(false);
+    }
+
+    @Override
+    public void enableProcessing() {
+        processingEnabled.set(true);
+    }
+
+    @Override
+    public boolean isProcessingEnabled() {
+        return processingEnabled.get();
+    }
+
+    @Override
+    public void clear() {
+        for (String runId : queued.keySet()) {
+            remove(runId);
+        }
+        for (String runId : delayed.runIds()) {
+            remove(runId);
+        }
+        String runId;
+        while ((runId = due.poll()) != null) {
+            remove(runId);
+        }
+    }
+
+    /**
+     * Gets the number of segment files currently retained on disk.
+     *
+     * @return the segment count
+     */
+    public int getSegmentCount() {
+        return log.getSegmentCount();
+    }
+
+    /**
+     * Flushes the log, commits the consumer offset and closes the segment files.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayed.close();
+        log.close();
+    }
+
+    private void append(String runId, long notBeforeMillis) {
+        long offset = log.append(LogRecord.enqueue(runId, notBeforeMillis), appended -> queued.put(runId, appended));
+        if (syncWrites) {
+            log.awaitFlushed(offset);
+        }
+    }
+
+    private void release(String runId) {
+        due.offer(runId);
+        signal.signal();
+    }
+
+    /**
+     * Commits the oldest offset that may still be needed after a restart: the oldest in-flight
+     * record, or the read position if nothing is in flight. Runs after every flush.
+     */
+    private void commitConsumerOffset() {
+        long offset = readOffset;
+        Long oldestInFlight = inFlightOffsets.ceiling(Long.MIN_VALUE);
+        if (oldestInFlight != null) {
+            offset = Math.min(offset, oldestInFlight);
+        }
+        if (offset == committedOffset) {
+            return;
+        }
+        log.storeConsumerOffset(offset);
+        committedOffset = offset;
+        log.deleteSegmentsBefore(offset);
+    }
+
+    /**
+     * Replays the log from the committed consumer offset and queues every run ID
+     * that was enqueued and not done since.
+     */
+    private void recover() {
+        long start = log.loadConsumerOffset();
+        Map<String, Long> live = new HashMap<>();
+        for (LogEntry entry = log.read(start); entry != null; entry = log.read(entry.nextOffset())) {
+            if (entry.record().type() == LogRecord.Type.ENQUEUE) {
+                live.put(entry.record().runId(), entry.offset());
+            } else {
+                live.remove(entry.record().runId());
+            }
+        }
+        queued.putAll(live);
+        readOffset = start;
+        if (!live.isEmpty()) {
+            System.out.println("[SegmentLogWorkflowQueue] Recovered " + live.size() + " queued run(s) from " + log.getSegmentCount() + " segment(s)");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.uwf.workflow.queue;
+
+/**
+ * Snapshot of one tenant of a fair-share queue.
+ *
+ * @param tenant the tenant, or the workflow definition ID if the definition is not mapped to a tenant
+ * @param weight the number of runs the tenant may dequeue per round
+ * @param maxInFlight the maximum number of runs of the tenant executing at once, 0 if unlimited
+ * @param queued the number of runs of the tenant waiting in the queue
+ * @param inFlight the number of runs of the tenant dequeued and not yet settled
+ * @param dequeued the number of runs of the tenant dequeued so far
+ * @param share the tenant's fraction of all runs dequeued so far
+ * @param averageWaitMillis the average time the tenant's runs waited in the queue
+ * @param maxWaitMillis the longest time one of the tenant's runs waited in the queue
+ */
+public record TenantStats(
+        String tenant,
+        int weight,
+        int maxInFlight,
+        int queued,
+        int inFlight,
+        long dequeued,
+        double share,
+        double averageWaitMillis,
+        long maxWaitMillis
+) {
+}
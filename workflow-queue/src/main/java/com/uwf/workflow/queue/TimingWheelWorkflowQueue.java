@@ -0,0 +1,210 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.config.WorkflowQueueProperties;
+import com.uwf.workflow.queue.timer.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Workflow queue whose delayed run IDs wait on a hierarchical {@link TimingWheel}.
+ * <p>
+ * Scheduling and cancelling a delay are O(1) and cost one wheel node per run ID instead of
+ * a timer task in a heap, so millions of retries and scheduled starts can wait at once with
+ * millisecond precision. Run IDs whose delay has elapsed move to a ready queue that workers
+ * dequeue from. An index of the waiting run IDs backs {@link #contains(String)} and
+ * {@link #remove(String)}.
+ * <p>
+ * Enabled with {@code workflow.queue.type=timing-wheel}.
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.queue.type", havingValue = "timing-wheel")
+public class TimingWheelWorkflowQueue implements WorkflowQueue {
+
+    private final ConcurrentLinkedQueue<String> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger readySize = new AtomicInteger();
+    private final DelayedRuns delayed;
+    private final AtomicBoolean processingEnabled = new AtomicBoolean(true);
+    private final QueueSignal signal = new QueueSignal();
+
+    @Autowired
+    public TimingWheelWorkflowQueue(WorkflowQueueProperties properties) {
+        this(properties.getTimingWheelTickMillis(), properties.getTimingWheelSize());
+    }
+
+    /**
+     * Creates a queue with the given timing wheel geometry.
+     *
+     * @param tickMillis the resolution of the timing wheel in milliseconds
+     * @param wheelSize the number of slots per level of the timing wheel
+     */
+    public TimingWheelWorkflowQueue(long tickMillis, int wheelSize) {
+        this.delayed = new DelayedRuns("workflow-queue-timing-wheel", tickMillis, wheelSize, this::enqueue);
+    }
+
+    /**
+     * Enqueues a run ID for immediate processing.
+     *
+     * @param runId the workflow run ID to enqueue
+     */
+    @Override
+    public void enqueue(String runId) {
+        ready.offer(runId);
+        readySize.incrementAndGet();
+        signal.signal();
+    }
+
+    /**
+     * Dequeues the next ready run ID.
+     *
+     * @return the next run ID to process, or null if no run ID is ready
+     */
+    @Override
+    public String dequeue() {
+        String runId = ready.poll();
+        if (runId != null) {
+            readySize.decrementAndGet();
+        }
+        return runId;
+    }
+
+    /**
+     * Dequeues a run ID, parking until one is enqueued or the timeout elapses.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the next run ID to process, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Override
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(this::dequeue, timeout, unit);
+    }
+
+    /**
+     * Rejects a run ID and places it on the timing wheel until the delay has elapsed.
+     * A run ID that is already waiting is rescheduled with the new delay.
+     *
+     * @param messageId the workflow run ID to retry
+     * @param delayMs delay in milliseconds before the run ID becomes ready again
+     */
+    @Override
+    public void reject(String messageId, long delayMs) {
+        if (delayMs <= 0) {
+            enqueue(messageId);
+            return;
+        }
+        delayed.delay(messageId, delayMs);
+    }
+
+    /**
+     * Gets the number of run IDs waiting on the timing wheel.
+     *
+     * @return the number of delayed run IDs
+     */
+    @Override
+    public int delayedSize() {
+        return delayed.size();
+    }
+
+    /**
+     * Groups the delayed run IDs by the horizon, in milliseconds from now, that they are due within.
+     *
+     * @return the number of delayed run IDs per due-time horizon, nearest horizon first
+     */
+    @Override
+    public Map<Long, Long> getDelayedDepthByDueTime() {
+        return delayed.getDepthByDueTime();
+    }
+
+    /**
+     * Checks if no run ID is ready. Delayed run IDs are not counted.
+     *
+     * @return true if no run ID is ready, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    /**
+     * Gets the number of ready run IDs. Delayed run IDs are not counted.
+     *
+     * @return the number of ready run IDs
+     */
+    @Override
+    public int size() {
+        return readySize.get();
+    }
+
+    /**
+     * Checks if a run ID is ready or delayed.
+     *
+     * @param runId the run ID to check
+     * @return true if the run ID is in the queue, false otherwise
+     */
+    @Override
+    public boolean contains(String runId) {
+        return delayed.contains(runId) || ready.contains(runId);
+    }
+
+    /**
+     * Removes a run ID, cancelling its delay if it is waiting on the timing wheel.
+     *
+     * @param runId the run ID to remove
+     * @return true if the run ID was removed, false if it wasn't in the queue
+     */
+    @Override
+    public boolean remove(String runId) {
+        if (delayed.cancel(runId)) {
+            return true;
+        }
+        if (ready.remove(runId)) {
+            readySize.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void disableProcessing() {
+        processingEnabled.set(false);
+    }
+
+    @Override
+    public void enableProcessing() {
+        processingEnabled.set(true);
+    }
+
+    @Override
+    public boolean isProcessingEnabled() {
+        return processingEnabled.get();
+    }
+
+    /**
+     * Clears all ready and delayed run IDs.
+     */
+    @Override
+    public void clear() {
+        delayed.clear();
+        while (dequeue() != null) {
+            // drain so the size counter stays exact
+        }
+    }
+
+    /**
+     * Stops the timing wheel; delayed run IDs are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        delayed.close();
+    }
+}
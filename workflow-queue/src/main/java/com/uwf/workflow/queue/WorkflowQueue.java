@@ -1,5 +1,12 @@
 package com.uwf.workflow.queue;
 
+import com.uwf.workflow.common.model.WorkflowPriority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Interface for workflow queue implementations.
  * Provides abstraction for different queue backends (in-memory, database, message brokers).
@@ -13,6 +20,60 @@ public interface WorkflowQueue {
      */
     void enqueue(String runId);
 
+    /**
+     * Enqueues a workflow run ID for processing with a priority.
+     * Queues without priority support ignore the priority and keep FIFO order.
+     *
+     * @param runId the workflow run ID to enqueue
+     * @param priority the priority of the run
+     */
+    default void enqueue(String runId, WorkflowPriority priority) {
+        enqueue(runId);
+    }
+
+    /**
+     * Enqueues a workflow run ID with a priority and a partition key, typically the workflow
+     * definition ID. Partitioned queues keep run IDs with the same key on the same partition and
+     * fair-share queues look up the tenant of the key; other queues ignore the key.
+     *
+     * @param runId the workflow run ID to enqueue
+     * @param priority the priority of the run
+     * @param partitionKey the key the run ID is partitioned by, or null to partition by run ID
+     */
+    default void enqueue(String runId, WorkflowPriority priority, String partitionKey) {
+        enqueue(runId, priority);
+    }
+
+    /**
+     * Gets the number of partitions consumers can dequeue from separately with
+     * {@link #dequeueBatch(int, int, long, TimeUnit)}.
+     *
+     * @return the number of partitions, 1 if the queue is not partitioned
+     */
+    default int getPartitionCount() {
+        return 1;
+    }
+
+    /**
+     * Removes a queued run ID with a lower priority than the given one, to make room for a
+     * run of that priority in a full queue. Queues without priority support shed nothing.
+     *
+     * @param priority the priority of the run that needs room
+     * @return the removed run ID, or null if no queued run ID has a lower priority
+     */
+    default String shedLowerPriority(WorkflowPriority priority) {
+        return null;
+    }
+
+    /**
+     * Checks if {@link #shedLowerPriority(WorkflowPriority)} can remove run IDs from this queue.
+     *
+     * @return true if the queue sheds by priority, false if it never sheds
+     */
+    default boolean supportsPriorityShedding() {
+        return false;
+    }
+
     /**
      * Dequeues a workflow run ID for processing.
      *
@@ -20,9 +81,67 @@ public interface WorkflowQueue {
      */
     String dequeue();
 
+    /**
+     * Dequeues a workflow run ID, waiting up to the given time for one to become available.
+     * Implementations park the consumer until a run ID is enqueued or becomes due, for instance
+     * on a condition signalled by producers, rather than re-polling {@link #dequeue()} on a timer.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the next run ID to process, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    String poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Dequeues up to {@code maxItems} run IDs at once, waiting up to the given time for the first.
+     * Further run IDs are only taken if they are available immediately, so a batch never waits
+     * to fill up. Durable backends can fetch and lock a batch in a single round trip.
+     *
+     * @param maxItems the maximum number of run IDs to return
+     * @param timeout the maximum time to wait for the first run ID
+     * @param unit the unit of the timeout
+     * @return the dequeued run IDs in queue order, empty if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    default List<String> dequeueBatch(int maxItems, long timeout, TimeUnit unit) throws InterruptedException {
+        if (maxItems <= 0) {
+            return List.of();
+        }
+        String first = poll(timeout, unit);
+        if (first == null) {
+            return List.of();
+        }
+        List<String> batch = new ArrayList<>(Math.min(maxItems, 64));
+        batch.add(first);
+        String next;
+        while (batch.size() < maxItems && (next = dequeue()) != null) {
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * Dequeues up to {@code maxItems} run IDs for a consumer that owns the given partition.
+     * Partitioned queues serve the partition first and fall back to the others when it is empty;
+     * the default implementation ignores the partition.
+     *
+     * @param partition the partition of the consumer, between 0 and {@link #getPartitionCount()}
+     * @param maxItems the maximum number of run IDs to return
+     * @param timeout the maximum time to wait for the first run ID
+     * @param unit the unit of the timeout
+     * @return the dequeued run IDs, empty if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    default List<String> dequeueBatch(int partition, int maxItems, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return dequeueBatch(maxItems, timeout, unit);
+    }
+
     /**
      * Acknowledges successful processing of a message.
-     * Used in message broker implementations with explicit acknowledgement.
+     * Used in message broker implementations with explicit acknowledgement,
+     * and in queues with leases to release the lease of a delivered run ID.
      *
      * @param messageId the message identifier to acknowledge
      */
@@ -32,13 +151,87 @@ public interface WorkflowQueue {
 
     /**
      * Rejects a message and schedules it for retry.
-     * Used in message broker implementations with retry logic.
+     * The message becomes available to {@link #dequeue()} again once the delay has elapsed;
+     * no thread is held while it waits.
      *
      * @param messageId the message identifier to reject
      * @param delayMs delay in milliseconds before retry
      */
     default void reject(String messageId, long delayMs) {
-        // Default implementation for in-memory queues (no-op)
+        // Default implementation for queues without delayed delivery: retry immediately
+        enqueue(messageId);
+    }
+
+    /**
+     * Gets the visibility timeout of delivered run IDs.
+     * In queues with leases, every run ID handed out by {@link #dequeue()} is leased for this long;
+     * unless it is acknowledged, rejected or its lease is extended in time, it is delivered again.
+     *
+     * @return the visibility timeout in milliseconds, 0 if delivered run IDs are never redelivered
+     */
+    default long getVisibilityTimeoutMillis() {
+        return 0;
+    }
+
+    /**
+     * Extends the lease of a delivered run ID by another visibility timeout.
+     * Consumers call this as a heartbeat while a run executes longer than the timeout.
+     *
+     * @param runId the delivered run ID
+     * @return true if the lease was extended, false if the run ID holds no lease,
+     *         for instance because it already expired and was delivered again
+     */
+    default boolean extendLease(String runId) {
+        return false;
+    }
+
+    /**
+     * Gets the number of delivered run IDs whose lease has neither been settled nor expired.
+     *
+     * @return the number of leased run IDs
+     */
+    default int leasedSize() {
+        return 0;
+    }
+
+    /**
+     * Gets the number of run IDs delivered again because their lease expired.
+     *
+     * @return the number of expired leases
+     */
+    default long getExpiredLeaseCount() {
+        return 0;
+    }
+
+    /**
+     * Gets the number of rejected run IDs waiting for their delay to elapse.
+     * These are not counted by {@link #size()}.
+     *
+     * @return the number of delayed run IDs
+     */
+    default int delayedSize() {
+        return 0;
+    }
+
+    /**
+     * Groups the delayed run IDs by how soon they are due.
+     * Each key is a horizon in milliseconds from now and each value the number of delayed
+     * run IDs due within it but after the previous horizon.
+     *
+     * @return the delayed depth per due-time horizon, nearest horizon first; empty if not tracked
+     */
+    default Map<Long, Long> getDelayedDepthByDueTime() {
+        return Map.of();
+    }
+
+    /**
+     * Takes a snapshot of the tenants of a fair-share queue: each tenant's share of the
+     * dequeued runs, its runs in flight and how long its runs waited.
+     *
+     * @return the statistics per tenant; empty if the queue does not share fairly between tenants
+     */
+    default List<TenantStats> getTenantStats() {
+        return List.of();
     }
 
     /**
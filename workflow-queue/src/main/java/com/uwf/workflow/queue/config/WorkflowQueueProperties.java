@@ -0,0 +1,365 @@
+package com.uwf.workflow.queue.config;
+
+import com.uwf.workflow.queue.PartitionKey;
+import com.uwf.workflow.queue.ring.WaitStrategy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for the workflow queue.
+ * Selects the queue implementation, tunes the timing wheel that holds delayed run IDs
+ * and sets the visibility timeout of delivered run IDs.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "workflow.queue")
+public class WorkflowQueueProperties {
+
+    /**
+     * Queue implementation: {@code in-memory}, {@code timing-wheel}, {@code priority}, {@code indexed}, {@code segment-log}, {@code ring-buffer},
+     * {@code partitioned} or {@code fair}.
+     */
+    private String type = "in-memory";
+
+    /**
+     * Resolution of the timing wheel in milliseconds.
+     */
+    private long timingWheelTickMillis = 1;
+
+    /**
+     * Number of slots per level of the timing wheel.
+     */
+    private int timingWheelSize = 512;
+
+    /**
+     * Share of dequeues given to {@code LOW} priority runs by the priority queue.
+     */
+    private int lowPriorityWeight = 1;
+
+    /**
+     * Share of dequeues given to {@code NORMAL} priority runs by the priority queue.
+     */
+    private int normalPriorityWeight = 4;
+
+    /**
+     * Share of dequeues given to {@code HIGH} priority runs by the priority queue.
+     */
+    private int highPriorityWeight = 16;
+
+    /**
+     * Time in milliseconds after which a waiting run is dequeued ahead of higher priorities.
+     */
+    private long priorityAgingMillis = 5000;
+
+    /**
+     * Directory holding the segment files of the segment log queue.
+     */
+    private String logDirectory = "data/workflow-queue";
+
+    /**
+     * Size in bytes of each memory-mapped segment file of the segment log queue.
+     */
+    private int logSegmentBytes = 64 * 1024 * 1024;
+
+    /**
+     * Maximum time in milliseconds between group-commit flushes of the segment log queue.
+     */
+    private long logFlushIntervalMillis = 5;
+
+    /**
+     * Whether enqueueing waits until the record has been flushed to disk.
+     * Otherwise a crash may lose the run IDs enqueued within the last flush interval.
+     */
+    private boolean logSyncWrites = false;
+
+    /**
+     * Maximum number of run IDs the in-memory queue holds in memory; beyond it they are spilled
+     * to disk and read back as the queue drains. 0 never spills.
+     */
+    private int spillThreshold = 0;
+
+    /**
+     * Directory of the spill segment files of the in-memory queue, emptied on startup.
+     */
+    private String spillDirectory = "data/workflow-queue-spill";
+
+    /**
+     * Size in bytes of each spill segment file of the in-memory queue.
+     */
+    private int spillSegmentBytes = 16 * 1024 * 1024;
+
+    /**
+     * Time in milliseconds a dequeued run ID stays invisible before it is delivered again,
+     * unless it is acknowledged, rejected or its lease is extended. 0, the default, disables leases.
+     * Leases are opt-in because a run whose lease lapses while it still executes, for instance
+     * when the heartbeat falls behind, is delivered and executed a second time; when enabling
+     * them, set the timeout well above the longest expected step.
+     */
+    private long visibilityTimeoutMillis = 0;
+
+    /**
+     * Maximum number of runs kept in the dead-letter queue; the oldest are evicted beyond it.
+     */
+    private int deadLetterCapacity = 100000;
+
+    /**
+     * Number of slots of the ring buffer queue, rounded up to a power of two.
+     */
+    private int ringBufferSize = 131072;
+
+    /**
+     * How consumers of the ring buffer queue wait for run IDs: {@code BUSY_SPIN}, {@code YIELD} or {@code PARK}.
+     */
+    private WaitStrategy ringBufferWaitStrategy = WaitStrategy.PARK;
+
+    /**
+     * How long producers of the ring buffer queue wait for a free slot before the run ID goes to the overflow list.
+     */
+    private long ringBufferOfferTimeoutMillis = 10;
+
+    /**
+     * Number of partitions of the partitioned queue, 0 for one per available processor.
+     * Workers are spread over the partitions, so keep it at most the number of workers.
+     */
+    private int partitionCount = 0;
+
+    /**
+     * What the partitioned queue partitions run IDs by: {@code RUN_ID} or {@code WORKFLOW_ID}.
+     */
+    private PartitionKey partitionKey = PartitionKey.WORKFLOW_ID;
+
+    /**
+     * Tenant of each workflow definition ID for the fair queue; unmapped definitions are a tenant of their own.
+     */
+    private Map<String, String> fairTenants = new HashMap<>();
+
+    /**
+     * Number of runs each tenant may dequeue per round of the fair queue.
+     */
+    private Map<String, Integer> fairWeights = new HashMap<>();
+
+    /**
+     * Maximum number of runs of each tenant executing at once in the fair queue.
+     */
+    private Map<String, Integer> fairMaxInFlight = new HashMap<>();
+
+    /**
+     * Number of runs per round of tenants without a configured weight.
+     */
+    private int fairDefaultWeight = 1;
+
+    /**
+     * Maximum number of runs executing at once of tenants without a configured cap, 0 for unlimited.
+     */
+    private int fairDefaultMaxInFlight = 0;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getTimingWheelTickMillis() {
+        return timingWheelTickMillis;
+    }
+
+    public void setTimingWheelTickMillis(long timingWheelTickMillis) {
+        this.timingWheelTickMillis = timingWheelTickMillis;
+    }
+
+    public int getTimingWheelSize() {
+        return timingWheelSize;
+    }
+
+    public void setTimingWheelSize(int timingWheelSize) {
+        this.timingWheelSize = timingWheelSize;
+    }
+
+    public int getLowPriorityWeight() {
+        return lowPriorityWeight;
+    }
+
+    public void setLowPriorityWeight(int lowPriorityWeight) {
+        this.lowPriorityWeight = lowPriorityWeight;
+    }
+
+    public int getNormalPriorityWeight() {
+        return normalPriorityWeight;
+    }
+
+    public void setNormalPriorityWeight(int normalPriorityWeight) {
+        this.normalPriorityWeight = normalPriorityWeight;
+    }
+
+    public int getHighPriorityWeight() {
+        return highPriorityWeight;
+    }
+
+    public void setHighPriorityWeight(int highPriorityWeight) {
+        this.highPriorityWeight = highPriorityWeight;
+    }
+
+    public long getPriorityAgingMillis() {
+        return priorityAgingMillis;
+    }
+
+    public void setPriorityAgingMillis(long priorityAgingMillis) {
+        this.priorityAgingMillis = priorityAgingMillis;
+    }
+
+    public String getLogDirectory() {
+        return logDirectory;
+    }
+
+    public void setLogDirectory(String logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+
+    public int getLogSegmentBytes() {
+        return logSegmentBytes;
+    }
+
+    public void setLogSegmentBytes(int logSegmentBytes) {
+        this.logSegmentBytes = logSegmentBytes;
+    }
+
+    public long getLogFlushIntervalMillis() {
+        return logFlushIntervalMillis;
+    }
+
+    public void setLogFlushIntervalMillis(long logFlushIntervalMillis) {
+        this.logFlushIntervalMillis = logFlushIntervalMillis;
+    }
+
+    public boolean isLogSyncWrites() {
+        return logSyncWrites;
+    }
+
+    public void setLogSyncWrites(boolean logSyncWrites) {
+        this.logSyncWrites = logSyncWrites;
+    }
+
+    public int getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    public void setSpillThreshold(int spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public void setSpillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public int getSpillSegmentBytes() {
+        return spillSegmentBytes;
+    }
+
+    public void setSpillSegmentBytes(int spillSegmentBytes) {
+        this.spillSegmentBytes = spillSegmentBytes;
+    }
+
+    public long getVisibilityTimeoutMillis() {
+        return visibilityTimeoutMillis;
+    }
+
+    public void setVisibilityTimeoutMillis(long visibilityTimeoutMillis) {
+        this.visibilityTimeoutMillis = visibilityTimeoutMillis;
+    }
+
+    public int getDeadLetterCapacity() {
+        return deadLetterCapacity;
+    }
+
+    public void setDeadLetterCapacity(int deadLetterCapacity) {
+        this.deadLetterCapacity = deadLetterCapacity;
+    }
+
+    public int getRingBufferSize() {
+        return ringBufferSize;
+    }
+
+    public void setRingBufferSize(int ringBufferSize) {
+        this.ringBufferSize = ringBufferSize;
+    }
+
+    public WaitStrategy getRingBufferWaitStrategy() {
+        return ringBufferWaitStrategy;
+    }
+
+    public void setRingBufferWaitStrategy(WaitStrategy ringBufferWaitStrategy) {
+        this.ringBufferWaitStrategy = ringBufferWaitStrategy;
+    }
+
+    public long getRingBufferOfferTimeoutMillis() {
+        return ringBufferOfferTimeoutMillis;
+    }
+
+    public void setRingBufferOfferTimeoutMillis(long ringBufferOfferTimeoutMillis) {
+        this.ringBufferOfferTimeoutMillis = ringBufferOfferTimeoutMillis;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public void setPartitionCount(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    public PartitionKey getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(PartitionKey partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public Map<String, String> getFairTenants() {
+        return fairTenants;
+    }
+
+    public void setFairTenants(Map<String, String> fairTenants) {
+        this.fairTenants = fairTenants;
+    }
+
+    public Map<String, Integer> getFairWeights() {
+        return fairWeights;
+    }
+
+    public void setFairWeights(Map<String, Integer> fairWeights) {
+        this.fairWeights = fairWeights;
+    }
+
+    public Map<String, Integer> getFairMaxInFlight() {
+        return fairMaxInFlight;
+    }
+
+    public void setFairMaxInFlight(Map<String, Integer> fairMaxInFlight) {
+        this.fairMaxInFlight = fairMaxInFlight;
+    }
+
+    public int getFairDefaultWeight() {
+        return fairDefaultWeight;
+    }
+
+    public void setFairDefaultWeight(int fairDefaultWeight) {
+        this.fairDefaultWeight = fairDefaultWeight;
+    }
+
+    public int getFairDefaultMaxInFlight() {
+        return fairDefaultMaxInFlight;
+    }
+
+    public void setFairDefaultMaxInFlight(int fairDefaultMaxInFlight) {
+        this.fairDefaultMaxInFlight = fairDefaultMaxInFlight;
+    }
+}
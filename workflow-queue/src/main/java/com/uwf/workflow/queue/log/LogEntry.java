@@ -0,0 +1,15 @@
+package com.uwf.workflow.queue.log;
+
+/**
+ * Record read from a {@link SegmentLog} together with its position.
+ *
+ * @param offset the log offset of the record
+ * @param record the record
+ * @param nextOffset the log offset to read the following record from
+ */
+public record LogEntry(
+        long offset,
+        LogRecord record,
+        long nextOffset
+) {
+}
@@ -0,0 +1,131 @@
+package com.uwf.workflow.queue.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Entry of a {@link SegmentLog}.
+ * <p>
+ * On disk a record is a 4-byte body length and a 4-byte CRC32C of the body, followed by the
+ * body: a type byte, the not-before time in epoch milliseconds and the UTF-8 run ID. A zero
+ * length marks the unwritten tail of a segment; a bad checksum marks a torn write.
+ *
+ * @param type the record type
+ * @param runId the workflow run ID
+ * @param notBeforeMillis the epoch millisecond before which an enqueued run ID is not delivered, 0 for none
+ */
+public record LogRecord(
+        Type type,
+        String runId,
+        long notBeforeMillis
+) {
+
+    /**
+     * Size of the length and checksum preceding each record body.
+     */
+    public static final int HEADER_BYTES = 8;
+
+    /**
+     * Maximum encoded size of a run ID.
+     */
+    public static final int MAX_RUN_ID_BYTES = 1024;
+
+    private static final int FIXED_BODY_BYTES = 1 + 8;
+
+    /**
+     * Record types.
+     */
+    public enum Type {
+        /**
+         * A run ID was enqueued.
+         */
+        ENQUEUE,
+
+        /**
+         * An enqueued run ID was acknowledged or removed and must not be delivered again.
+         */
+        DONE
+    }
+
+    /**
+     * Creates the record of an enqueued run ID.
+     *
+     * @param runId the workflow run ID
+     * @param notBeforeMillis the epoch millisecond before which the run ID is not delivered, 0 for none
+     * @return the record
+     */
+    public static LogRecord enqueue(String runId, long notBeforeMillis) {
+        return new LogRecord(Type.ENQUEUE, runId, notBeforeMillis);
+    }
+
+    /**
+     * Creates the record of a finished run ID.
+     *
+     * @param runId the workflow run ID
+     * @return the record
+     */
+    public static LogRecord done(String runId) {
+        return new LogRecord(Type.DONE, runId, 0);
+    }
+
+    /**
+     * Encodes this record including its header.
+     *
+     * @return the encoded record
+     * @throws IllegalArgumentException if the run ID is too long
+     */
+    public byte[] encode() {
+        byte[] runIdBytes = runId.getBytes(StandardCharsets.UTF_8);
+        if (runIdBytes.length > MAX_RUN_ID_BYTES) {
+            throw new IllegalArgumentException("Run ID exceeds " + MAX_RUN_ID_BYTES + " bytes: " + runId);
+        }
+        int bodyLength = FIXED_BODY_BYTES + runIdBytes.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        buffer.putInt(bodyLength);
+        buffer.putInt(0);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(notBeforeMillis);
+        buffer.put(runIdBytes);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, bodyLength);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Decodes and verifies the record body that follows a header.
+     *
+     * @param body the record body
+     * @param checksum the checksum from the header
+     * @return the record, or null if the body is corrupt
+     */
+    static LogRecord decode(byte[] body, int checksum) {
+        if (body.length < FIXED_BODY_BYTES) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        int typeIndex = buffer.get();
+        if (typeIndex < 0 || typeIndex >= Type.values().length) {
+            return null;
+        }
+        long notBefore = buffer.getLong();
+        String runId = new String(body, FIXED_BODY_BYTES, body.length - FIXED_BODY_BYTES, StandardCharsets.UTF_8);
+        return new LogRecord(Type.values()[typeIndex], runId, notBefore);
+    }
+
+    /**
+     * Checks if a body length read from a header can belong to a valid record.
+     *
+     * @param bodyLength the body length
+     * @return true if the length is plausible, false otherwise
+     */
+    static boolean isValidBodyLength(int bodyLength) {
+        return bodyLength >= FIXED_BODY_BYTES && bodyLength <= FIXED_BODY_BYTES + MAX_RUN_ID_BYTES;
+    }
+}
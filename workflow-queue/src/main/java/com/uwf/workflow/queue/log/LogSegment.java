@@ -0,0 +1,113 @@
+package com.uwf.workflow.queue.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size, memory-mapped file holding a contiguous range of a {@link SegmentLog}.
+ * <p>
+ * Writes and reads use absolute buffer positions only, so one appender and any number
+ * of readers can share the mapping; visibility is established by the log publishing its
+ * write position. A new file is zero-filled, which reads as the end of the records.
+ */
+final class LogSegment {
+
+    private final long baseOffset;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    private LogSegment(long baseOffset, Path path, FileChannel channel, MappedByteBuffer buffer, int size) {
+        this.baseOffset = baseOffset;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Maps a segment file, creating it with the given size if it does not exist.
+     *
+     * @param directory the log directory
+     * @param baseOffset the log offset of the first byte of the segment
+     * @param size the segment size in bytes
+     * @return the mapped segment
+     */
+    static LogSegment open(Path directory, long baseOffset, int size) {
+        Path path = directory.resolve(fileName(baseOffset));
+        try {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new LogSegment(baseOffset, path, channel, buffer, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map log segment " + path, e);
+        }
+    }
+
+    /**
+     * Gets the file name of the segment starting at the given offset.
+     *
+     * @param baseOffset the log offset of the first byte of the segment
+     * @return the file name
+     */
+    static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SegmentLog.SEGMENT_SUFFIX);
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void put(int position, byte[] bytes) {
+        buffer.put(position, bytes);
+    }
+
+    int getInt(int position) {
+        return buffer.getInt(position);
+    }
+
+    void get(int position, byte[] destination) {
+        buffer.get(position, destination);
+    }
+
+    /**
+     * Forces the written pages of the segment to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Closes the channel. The mapping stays valid until the buffer is garbage collected.
+     */
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[LogSegment] Failed to close " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes and deletes the segment file.
+     */
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("[LogSegment] Failed to delete " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.uwf.workflow.queue.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of {@link LogRecord}s stored in fixed-size, memory-mapped segment files.
+ * <p>
+ * Records are addressed by their log offset, a byte position that grows across segments;
+ * the segment holding an offset starts at the offset rounded down to the segment size.
+ * Appends are serialized and copy the encoded record into the mapping of the active segment,
+ * rolling over to a new segment when the record does not fit. Readers only read below the
+ * published write offset, so they never observe a partially written record.
+ * <p>
+ * Durability uses group commit: a flusher thread forces the written pages to disk every flush
+ * interval, and writers that need durability wait in {@link #awaitFlushed(long)} for the next
+ * force that covers their record, so one fsync serves every writer that arrived meanwhile.
+ * <p>
+ * The consumer offset is kept in a small side file. Segments that end before it are deleted.
+ */
+public class SegmentLog implements AutoCloseable {
+
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final String CONSUMER_OFFSET_FILE = "consumer.offset";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final Runnable afterFlush;
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private final FileChannel consumerOffsetChannel;
+    private final Thread flusher;
+    private volatile LogSegment active;
+    private volatile long writeOffset;
+    private volatile long flushedOffset;
+    private volatile boolean running = true;
+
+    /**
+     * Opens the log in a directory, recovering the segments found there, and starts the flusher.
+     *
+     * @param directory the log directory, created if missing
+     * @param segmentSize the size of each segment file in bytes
+     * @param flushIntervalMillis the maximum time in milliseconds between forces of the written pages
+     * @param afterFlush called on the flusher thread after each flush, e.g. to commit the consumer offset
+     */
+    public SegmentLog(Path directory, int segmentSize, long flushIntervalMillis, Runnable afterFlush) {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("segmentSize must be at least 4096 bytes: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.afterFlush = afterFlush;
+        try {
+            Files.createDirectories(directory);
+            this.consumerOffsetChannel = FileChannel.open(directory.resolve(CONSUMER_OFFSET_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open log directory " + directory, e);
+        }
+        recover();
+        this.flusher = new Thread(this::flushLoop, "workflow-queue-log-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param record the record to append
+     * @param onAppended called with the record's offset before the record becomes visible to readers
+     * @return the log offset of the record
+     */
+    public long append(LogRecord record, LongConsumer onAppended) {
+        byte[] bytes = record.encode();
+        appendLock.lock();
+        try {
+            long offset = writeOffset;
+            LogSegment segment = active;
+            int position = (int) (offset - segment.baseOffset());
+            if (position + bytes.length > segmentSize) {
+                // The unwritten tail stays zero, which readers take as the end of the segment
+                segment.force();
+                segment = LogSegment.open(directory, segment.baseOffset() + segmentSize, segmentSize);
+                segments.put(segment.baseOffset(), segment);
+                active = segment;
+                offset = segment.baseOffset();
+                position = 0;
+            }
+            segment.put(position, bytes);
+            onAppended.accept(offset);
+            writeOffset = offset + bytes.length;
+            return offset;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the first record at or after an offset.
+     *
+     * @param offset the log offset to read from
+     * @return the entry, or null if no record has been written there yet
+     * @throws IllegalStateException if the record is corrupt
+     */
+    public LogEntry read(long offset) {
+        while (offset < writeOffset) {
+            Map.Entry<Long, LogSegment> floor = segments.floorEntry(offset);
+            if (floor == null) {
+                // The offset lies in a deleted segment
+                offset = segments.firstKey();
+                continue;
+            }
+            LogSegment segment = floor.getValue();
+            int position = (int) (offset - segment.baseOffset());
+            int bodyLength = position + LogRecord.HEADER_BYTES <= segmentSize ? segment.getInt(position) : 0;
+            if (bodyLength == 0) {
+                offset = segment.baseOffset() + segmentSize;
+                continue;
+            }
+            LogRecord record = readRecord(segment, position, bodyLength);
+            if (record == null) {
+                throw new IllegalStateException("Corrupt log record at offset " + offset + " in " + directory);
+            }
+            return new LogEntry(offset, record, offset + LogRecord.HEADER_BYTES + bodyLength);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the offset the next record will be appended at.
+     *
+     * @return the write offset
+     */
+    public long getWriteOffset() {
+        return writeOffset;
+    }
+
+    /**
+     * Gets the offset of the oldest retained record.
+     *
+     * @return the start offset of the first segment
+     */
+    public long getStartOffset() {
+        return segments.firstKey();
+    }
+
+    /**
+     * Gets the number of segment files.
+     *
+     * @return the segment count
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Waits until the record at an offset has been forced to disk, triggering a flush
+     * right away instead of waiting for the flush interval.
+     *
+     * @param offset the log offset of the record
+     */
+    public void awaitFlushed(long offset) {
+        if (flushedOffset > offset) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        flushLock.lock();
+        try {
+            while (flushedOffset <= offset && running) {
+                flushed.awaitNanos(flushIntervalNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything written so far to disk and runs the after-flush callback.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            long target = writeOffset;
+            if (target > flushedOffset) {
+                // Segments before the one holding the last flushed offset were forced when they rolled over
+                Long from = segments.floorKey(flushedOffset);
+                for (LogSegment segment : (from == null ? segments : segments.tailMap(from)).values()) {
+                    segment.force();
+                }
+                flushedOffset = target;
+                flushed.signalAll();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            afterFlush.run();
+        } catch (RuntimeException e) {
+            System.err.println("[SegmentLog] After-flush callback failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the committed consumer offset.
+     *
+     * @return the committed offset, or the start offset of the log if none was committed
+     */
+    public long loadConsumerOffset() {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            if (consumerOffsetChannel.read(buffer, 0) < Long.BYTES) {
+                return getStartOffset();
+            }
+            return Math.max(buffer.getLong(0), getStartOffset());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read consumer offset in " + directory, e);
+        }
+    }
+
+    /**
+     * Durably commits the consumer offset: every record before it has been consumed.
+     *
+     * @param offset the consumer offset
+     */
+    public void storeConsumerOffset(long offset) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+            consumerOffsetChannel.write(buffer, 0);
+            consumerOffsetChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write consumer offset in " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes the segments that end at or before an offset. The active segment is kept.
+     *
+     * @param offset the log offset below which no record is needed any more
+     * @return the number of deleted segments
+     */
+    public int deleteSegmentsBefore(long offset) {
+        int deleted = 0;
+        for (LogSegment segment : segments.headMap(offset).values()) {
+            if (segment.baseOffset() + segmentSize > offset || segment == active) {
+                break;
+            }
+            segments.remove(segment.baseOffset());
+            segment.delete();
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Stops the flusher, forces the remaining writes and closes the segment files.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        segments.values().forEach(LogSegment::close);
+        try {
+            consumerOffsetChannel.close();
+        } catch (IOException e) {
+            System.err.println("[SegmentLog] Failed to close consumer offset file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the segment files and the consumer offset of a log that is not open.
+     *
+     * @param directory the log directory; nothing happens if it does not exist
+     */
+    public static void deleteLog(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX) || name.equals(CONSUMER_OFFSET_FILE)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete log in " + directory, e);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                System.err.println("[SegmentLog] Flush failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Maps the existing segments and finds the write offset by scanning the last one
+     * up to its first missing or corrupt record. A torn tail is zeroed so that it reads
+     * as the end of the segment.
+     */
+    private void recover() {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segmentFiles = files
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+            for (Path file : segmentFiles) {
+                String name = file.getFileName().toString();
+                long baseOffset = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(baseOffset, LogSegment.open(directory, baseOffset, segmentSize));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list log segments in " + directory, e);
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, LogSegment.open(directory, 0L, segmentSize));
+        }
+
+        LogSegment last = segments.lastEntry().getValue();
+        int position = 0;
+        while (position + LogRecord.HEADER_BYTES <= segmentSize) {
+            int bodyLength = last.getInt(position);
+            if (!LogRecord.isValidBodyLength(bodyLength)
+                    || position + LogRecord.HEADER_BYTES + bodyLength > segmentSize
+                    || readRecord(last, position, bodyLength) == null) {
+                if (bodyLength != 0) {
+                    System.err.println("[SegmentLog] Truncating torn record at offset "
+                            + (last.baseOffset() + position) + " in " + directory);
+                    zeroTail(last, position);
+                }
+                break;
+            }
+            position += LogRecord.HEADER_BYTES + bodyLength;
+        }
+        active = last;
+        writeOffset = last.baseOffset() + position;
+        flushedOffset = writeOffset;
+    }
+
+    private LogRecord readRecord(LogSegment segment, int position, int bodyLength) {
+        if (!LogRecord.isValidBodyLength(bodyLength)
+                || position + LogRecord.HEADER_BYTES + bodyLength > segmentSize) {
+            return null;
+        }
+        int checksum = segment.getInt(position + 4);
+        byte[] body = new byte[bodyLength];
+        segment.get(position + LogRecord.HEADER_BYTES, body);
+        return LogRecord.decode(body, checksum);
+    }
+
+    private void zeroTail(LogSegment segment, int position) {
+        byte[] zeros = new byte[64 * 1024];
+        for (int at = position; at < segmentSize; at += zeros.length) {
+            int length = Math.min(zeros.length, segmentSize - at);
+            segment.put(at, length == zeros.length ? zeros : new byte[length]);
+        }
+        segment.force();
+    }
+}
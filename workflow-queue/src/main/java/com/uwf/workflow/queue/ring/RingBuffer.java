@@ -0,0 +1,134 @@
+package com.uwf.workflow.queue.ring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, pre-allocated multi-producer multi-consumer ring buffer.
+ * <p>
+ * Producers and consumers claim positions by advancing their padded {@link Sequence} cursor
+ * with a single CAS. Each slot carries its own sequence number, which tells whose turn the
+ * slot is: a slot at position {@code p} may be written when its sequence is {@code p} and read
+ * when it is {@code p + 1}; the reader hands it to the next lap by setting it to
+ * {@code p + capacity}. Publishing an element is a release store of the slot sequence, so an
+ * offer or poll costs one CAS and no allocation.
+ *
+ * @param <E> the element type
+ */
+public class RingBuffer<E> {
+
+    private static final VarHandle SLOT_SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int mask;
+    private final Object[] elements;
+    private final long[] slotSequences;
+    private final Sequence producerCursor = new Sequence(0);
+    private final Sequence consumerCursor = new Sequence(0);
+
+    /**
+     * Creates a ring buffer.
+     *
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new Object[size];
+        this.slotSequences = new long[size];
+        for (int i = 0; i < size; i++) {
+            SLOT_SEQUENCES.setRelease(slotSequences, i, (long) i);
+        }
+    }
+
+    /**
+     * Adds an element if a slot is free.
+     *
+     * @param element the element to add
+     * @return true if the element was added, false if the buffer is full
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = producerCursor.get();
+            int index = (int) position & mask;
+            long slotSequence = (long) SLOT_SEQUENCES.getAcquire(slotSequences, index);
+            if (slotSequence == position) {
+                if (producerCursor.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    SLOT_SEQUENCES.setRelease(slotSequences, index, position + 1);
+                    return true;
+                }
+            } else if (slotSequence < position) {
+                // The consumer of the previous lap has not freed the slot yet
+                return false;
+            }
+            // Another producer claimed the position; retry with the advanced cursor
+        }
+    }
+
+    /**
+     * Removes the oldest element.
+     *
+     * @return the element, or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        while (true) {
+            long position = consumerCursor.get();
+            int index = (int) position & mask;
+            long slotSequence = (long) SLOT_SEQUENCES.getAcquire(slotSequences, index);
+            if (slotSequence == position + 1) {
+                if (consumerCursor.compareAndSet(position, position + 1)) {
+                    E element = (E) elements[index];
+                    elements[index] = null;
+                    SLOT_SEQUENCES.setRelease(slotSequences, index, position + mask + 1);
+                    return element;
+                }
+            } else if (slotSequence < position + 1) {
+                // Not published yet
+                return null;
+            }
+            // Another consumer claimed the position; retry with the advanced cursor
+        }
+    }
+
+    /**
+     * Finds the oldest element waiting in the buffer that matches a predicate.
+     * Linear in the number of elements; a snapshot under concurrent updates.
+     *
+     * @param matcher the predicate elements are tested with
+     * @return the first matching element, or null if none was found
+     */
+    @SuppressWarnings("unchecked")
+    public E find(Predicate<? super E> matcher) {
+        long from = consumerCursor.get();
+        long to = producerCursor.get();
+        for (long position = from; position < to; position++) {
+            int index = (int) position & mask;
+            E candidate = (E) elements[index];
+            if (candidate != null && (long) SLOT_SEQUENCES.getAcquire(slotSequences, index) == position + 1
+                    && matcher.test(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of claimed slots not yet consumed. A snapshot under concurrent updates.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        long consumed = consumerCursor.get();
+        long produced = producerCursor.get();
+        return (int) Math.max(0, Math.min(produced - consumed, mask + 1L));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,76 @@
+package com.uwf.workflow.queue.ring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Cursor of a {@link RingBuffer}, padded on both sides to a cache line of its own,
+ * so that producers advancing one cursor do not invalidate the line consumers spin on.
+ * <p>
+ * The padding lives in superclasses and a subclass, since the JVM lays out the fields of a
+ * class hierarchy in declaration order by class but may reorder fields within one class.
+ */
+public final class Sequence extends SequenceRightPadding {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Creates a sequence.
+     *
+     * @param initialValue the initial value
+     */
+    public Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    /**
+     * Reads the value with acquire semantics.
+     *
+     * @return the current value
+     */
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Writes the value with release semantics.
+     *
+     * @param newValue the new value
+     */
+    public void set(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    /**
+     * Atomically sets the value if it still equals the expected value.
+     *
+     * @param expected the expected value
+     * @param newValue the new value
+     * @return true if the value was set
+     */
+    public boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceLeftPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    protected volatile long value;
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceRightPadding extends SequenceValue {
+    protected long p11, p12, p13, p14, p15, p16, p17;
+}
@@ -0,0 +1,63 @@
+package com.uwf.workflow.queue.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Enum describing how a thread waits for a {@link RingBuffer} slot to become available,
+ * trading CPU usage for hand-off latency.
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the CPU without ever giving it up: the lowest latency, but each waiting
+     * thread occupies a core. Only for dedicated cores with fewer waiters than cores.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+
+    /**
+     * Spins briefly, then yields the CPU to other runnable threads between attempts.
+     */
+    YIELD {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_ATTEMPTS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * Spins, then yields, then parks for short intervals: close to idle CPU usage when the
+     * buffer stays empty, at the cost of up to the park interval of extra latency.
+     */
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_ATTEMPTS) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_ATTEMPTS + YIELD_ATTEMPTS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_ATTEMPTS = 100;
+    private static final int YIELD_ATTEMPTS = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Waits once before the next attempt.
+     *
+     * @param attempt the number of failed attempts so far, starting at 0
+     */
+    public abstract void idle(int attempt);
+}
@@ -0,0 +1,14 @@
+package com.uwf.workflow.queue.timer;
+
+/**
+ * Number of pending timeouts of a {@link TimingWheel} due within a horizon
+ * and after the horizon of the previous group.
+ *
+ * @param dueWithinMillis the horizon of the group in milliseconds from now
+ * @param count the number of pending timeouts in the group
+ */
+public record DueTimeDepth(
+        long dueWithinMillis,
+        long count
+) {
+}
@@ -0,0 +1,392 @@
+package com.uwf.workflow.queue.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel firing millions of timeouts with O(1) schedule and cancel.
+ * <p>
+ * Level 0 has {@code wheelSize} slots of {@code tickMillis} each; every further level has
+ * the same number of slots, each spanning a full rotation of the level below. A timeout is
+ * placed in the lowest level whose horizon covers its deadline and cascades down one level
+ * each time its slot comes around, until it fires from level 0. Levels are added on demand,
+ * so arbitrarily long delays cost one more slot per factor of {@code wheelSize}.
+ * <p>
+ * Schedule and cancel only enqueue on lock-free queues; all slot lists are owned by a single
+ * ticker thread, which also invokes the expiry handler. The handler must therefore be quick
+ * and must not block. Each pending timeout costs one small linked node and no timer task.
+ *
+ * @param <T> the payload type of the timeouts
+ */
+public class TimingWheel<T> implements AutoCloseable {
+
+    private static final int MAX_LEVELS = 8;
+
+    private final String name;
+    private final long tickMillis;
+    private final int wheelSize;
+    private final Consumer<T> expiryHandler;
+    private final long originNanos = System.nanoTime();
+    private final List<Level<T>> levels = new ArrayList<>(MAX_LEVELS);
+    private final ConcurrentLinkedQueue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLongArray levelCounts = new AtomicLongArray(MAX_LEVELS);
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final Thread ticker;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+    private volatile int levelCount;
+    private long tickTime;
+
+    /**
+     * Creates and starts a timing wheel.
+     *
+     * @param name the name of the ticker thread
+     * @param tickMillis the resolution of the wheel in milliseconds
+     * @param wheelSize the number of slots per level
+     * @param expiryHandler called on the ticker thread with the payload of each expired timeout
+     */
+    public TimingWheel(String name, long tickMillis, int wheelSize, Consumer<T> expiryHandler) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be at least 1: " + tickMillis);
+        }
+        if (wheelSize < 2) {
+            throw new IllegalArgumentException("wheelSize must be at least 2: " + wheelSize);
+        }
+        this.name = name;
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.expiryHandler = expiryHandler;
+        this.levels.add(new Level<>(tickMillis, wheelSize));
+        this.levelCount = 1;
+        this.ticker = new Thread(this::tickLoop, name);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedules a payload to expire after a delay.
+     *
+     * @param payload the payload handed to the expiry handler
+     * @param delayMillis the delay in milliseconds
+     * @return the handle of the timeout, used to cancel it
+     */
+    public Timeout<T> schedule(T payload, long delayMillis) {
+        Timeout<T> timeout = new Timeout<>(this, payload, nowMillis() + Math.max(0, delayMillis));
+        pendingCount.incrementAndGet();
+        scheduled.offer(timeout);
+        if (idle) {
+            LockSupport.unpark(ticker);
+        }
+        return timeout;
+    }
+
+    /**
+     * Gets the number of scheduled timeouts that have neither expired nor been cancelled.
+     *
+     * @return the number of pending timeouts
+     */
+    public int size() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Gets the total number of timeouts that have expired since the wheel was created.
+     *
+     * @return the expired timeout count
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Takes a snapshot of the pending timeouts grouped by how soon they are due.
+     * Each level of the wheel covers the deadlines up to its horizon that the levels below
+     * do not, so the groups are disjoint and their counts add up to the pending total.
+     * Timeouts not yet placed by the ticker are reported in the first group.
+     *
+     * @return the depth per due-time horizon, nearest horizon first
+     */
+    public List<DueTimeDepth> getDepthByDueTime() {
+        List<DueTimeDepth> depth = new ArrayList<>();
+        long placed = 0;
+        long horizon = tickMillis;
+        int levelsInUse = levelCount;
+        for (int level = 0; level < levelsInUse; level++) {
+            horizon = horizon > Long.MAX_VALUE / wheelSize ? Long.MAX_VALUE : horizon * wheelSize;
+            long count = levelCounts.get(level);
+            placed += count;
+            depth.add(new DueTimeDepth(horizon, count));
+        }
+        long unplaced = Math.max(0, pendingCount.get() - placed);
+        if (unplaced > 0 && !depth.isEmpty()) {
+            DueTimeDepth first = depth.get(0);
+            depth.set(0, new DueTimeDepth(first.dueWithinMillis(), first.count() + unplaced));
+        }
+        return depth;
+    }
+
+    /**
+     * Stops the ticker thread. Pending timeouts never fire.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - originNanos);
+    }
+
+    private void tickLoop() {
+        tickTime = nowMillis() - nowMillis() % tickMillis;
+        while (running) {
+            try {
+                transferCancelled();
+                transferScheduled();
+                advance(nowMillis());
+            } catch (Throwable t) {
+                System.err.println("[TimingWheel] " + name + " ticker failed: " + t.getMessage());
+            }
+
+            if (pendingCount.get() == 0) {
+                idle = true;
+                if (scheduled.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                // Jump over the ticks that passed while nothing was scheduled
+                long now = nowMillis();
+                tickTime = Math.max(tickTime, now - now % tickMillis);
+            } else {
+                long sleepMillis = tickTime - nowMillis();
+                if (sleepMillis > 0) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(sleepMillis));
+                }
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout<T> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state.get() == Timeout.PENDING) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void transferCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.level >= 0) {
+                levels.get(timeout.level).unlink(timeout);
+                levelCounts.decrementAndGet(timeout.level);
+                timeout.level = -1;
+            }
+        }
+    }
+
+    /**
+     * Processes every tick up to the given time: flushes the slot each level reaches,
+     * cascading its timeouts down, then fires the level 0 slot.
+     */
+    private void advance(long now) {
+        while (tickTime <= now) {
+            for (int level = levelCount - 1; level >= 1; level--) {
+                Level<T> current = levels.get(level);
+                if (tickTime % current.slotMillis == 0) {
+                    Timeout<T> timeout = current.drain(current.slotIndex(tickTime));
+                    while (timeout != null) {
+                        Timeout<T> next = timeout.next;
+                        timeout.next = null;
+                        levelCounts.decrementAndGet(level);
+                        timeout.level = -1;
+                        place(timeout);
+                        timeout = next;
+                    }
+                }
+            }
+            Timeout<T> timeout = levels.get(0).drain(levels.get(0).slotIndex(tickTime));
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                levelCounts.decrementAndGet(0);
+                timeout.level = -1;
+                expire(timeout);
+                timeout = next;
+            }
+            tickTime += tickMillis;
+        }
+    }
+
+    /**
+     * Places a timeout in the lowest level whose horizon covers its deadline,
+     * or expires it if its deadline falls within the current tick.
+     */
+    private void place(Timeout<T> timeout) {
+        if (timeout.deadline < tickTime + tickMillis) {
+            expire(timeout);
+            return;
+        }
+        for (int level = 0; level < MAX_LEVELS; level++) {
+            if (level == levelCount) {
+                levels.add(new Level<>(levels.get(level - 1).slotMillis * wheelSize, wheelSize));
+                levelCount++;
+            }
+            Level<T> current = levels.get(level);
+            long levelStart = tickTime - tickTime % current.slotMillis;
+            if (timeout.deadline < levelStart + current.slotMillis * wheelSize || level == MAX_LEVELS - 1) {
+                current.link(current.slotIndex(timeout.deadline), timeout);
+                timeout.level = level;
+                levelCounts.incrementAndGet(level);
+                return;
+            }
+        }
+    }
+
+    private void expire(Timeout<T> timeout) {
+        if (!timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+            return;
+        }
+        pendingCount.decrementAndGet();
+        expiredCount.incrementAndGet();
+        try {
+            expiryHandler.accept(timeout.payload);
+        } catch (Throwable t) {
+            System.err.println("[TimingWheel] " + name + " expiry handler failed: " + t.getMessage());
+        }
+    }
+
+    private void cancelled(Timeout<T> timeout) {
+        pendingCount.decrementAndGet();
+        cancelled.offer(timeout);
+    }
+
+    /**
+     * One level of the wheel: an array of doubly linked slot lists.
+     */
+    private static final class Level<T> {
+        private final long slotMillis;
+        private final Timeout<T>[] slots;
+
+        @SuppressWarnings("unchecked")
+        Level(long slotMillis, int wheelSize) {
+            this.slotMillis = slotMillis;
+            this.slots = (Timeout<T>[]) new Timeout[wheelSize];
+        }
+
+        int slotIndex(long time) {
+            return (int) ((time / slotMillis) % slots.length);
+        }
+
+        void link(int slot, Timeout<T> timeout) {
+            Timeout<T> head = slots[slot];
+            timeout.slot = slot;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            slots[slot] = timeout;
+        }
+
+        void unlink(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                slots[timeout.slot] = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        Timeout<T> drain(int slot) {
+            Timeout<T> head = slots[slot];
+            slots[slot] = null;
+            for (Timeout<T> timeout = head; timeout != null; timeout = timeout.next) {
+                timeout.prev = null;
+            }
+            return head;
+        }
+    }
+
+    /**
+     * Handle of a scheduled timeout.
+     *
+     * @param <T> the payload type
+     */
+    public static final class Timeout<T> {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final TimingWheel<T> wheel;
+        private final T payload;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Owned by the ticker thread
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(TimingWheel<T> wheel, T payload, long deadline) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Gets the payload of the timeout.
+         *
+         * @return the payload
+         */
+        public T payload() {
+            return payload;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return true if the timeout was cancelled, false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled(this);
+            return true;
+        }
+
+        /**
+         * Checks if the timeout has expired.
+         *
+         * @return true if expired, false otherwise
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * Checks if the timeout has been cancelled.
+         *
+         * @return true if cancelled, false otherwise
+         */
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.common.model.WorkflowPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for FairWorkflowQueue.
+ */
+class FairWorkflowQueueTest {
+
+    private static final Map<String, String> TENANTS = Map.of("workflow-a", "tenant-a", "workflow-b", "tenant-b");
+
+    @Test
+    void testTenantsAreServedByWeightInDeficitRoundRobin() {
+        FairWorkflowQueue queue = new FairWorkflowQueue(TENANTS, Map.of("tenant-a", 2), Map.of(), 1, 0, 0, 10, 64);
+        try {
+            for (int i = 0; i < 6; i++) {
+                queue.enqueue("a-" + i, WorkflowPriority.NORMAL, "workflow-a");
+            }
+            for (int i = 0; i < 6; i++) {
+                queue.enqueue("b-" + i, WorkflowPriority.NORMAL, "workflow-b");
+            }
+
+            List<String> delivered = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                delivered.add(queue.dequeue());
+            }
+            assertEquals(List.of("a-0", "a-1", "b-0", "a-2", "a-3", "b-1"), delivered);
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testTenantAtItsInFlightCapIsSkippedUntilARunSettles() throws Exception {
+        FairWorkflowQueue queue = new FairWorkflowQueue(TENANTS, Map.of(), Map.of("tenant-a", 1), 1, 0, 0, 10, 64);
+        try {
+            queue.enqueue("a-0", WorkflowPriority.NORMAL, "workflow-a");
+            queue.enqueue("a-1", WorkflowPriority.NORMAL, "workflow-a");
+            queue.enqueue("b-0", WorkflowPriority.NORMAL, "workflow-b");
+
+            assertEquals("a-0", queue.dequeue());
+            assertEquals("b-0", queue.dequeue());
+            assertNull(queue.dequeue(), "tenant-a is at its cap");
+
+            Thread settler = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                queue.acknowledge("a-0");
+            });
+            settler.start();
+            assertEquals("a-1", queue.poll(2, TimeUnit.SECONDS), "Settling a run should wake the waiting consumer");
+            settler.join();
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testExpiredLeaseRedeliversTheRunToItsTenant() throws Exception {
+        FairWorkflowQueue queue = new FairWorkflowQueue(TENANTS, Map.of(), Map.of("tenant-a", 1), 1, 0, 100, 10, 64);
+        try {
+            queue.enqueue("a-0", WorkflowPriority.NORMAL, "workflow-a");
+            assertEquals("a-0", queue.dequeue());
+            assertEquals(1, queue.leasedSize());
+
+            assertEquals("a-0", queue.poll(2, TimeUnit.SECONDS));
+            assertEquals(1, queue.getExpiredLeaseCount());
+            queue.acknowledge("a-0");
+            assertEquals(0, queue.leasedSize());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedRunIsRedeliveredAfterTheDelayUnlessRemoved() throws Exception {
+        FairWorkflowQueue queue = new FairWorkflowQueue(TENANTS, Map.of(), Map.of(), 1, 0, 0, 10, 64);
+        try {
+            queue.enqueue("a-0", WorkflowPriority.NORMAL, "workflow-a");
+            queue.enqueue("a-1", WorkflowPriority.NORMAL, "workflow-a");
+            assertTrue(queue.remove("a-1"));
+            assertEquals("a-0", queue.dequeue());
+            assertNull(queue.dequeue());
+
+            long start = System.nanoTime();
+            queue.reject("a-0", 100);
+            assertTrue(queue.contains("a-0"));
+            assertEquals("a-0", queue.poll(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+        } finally {
+            queue.shutdown();
+        }
+    }
+}
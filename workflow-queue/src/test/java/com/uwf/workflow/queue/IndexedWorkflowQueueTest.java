@@ -0,0 +1,114 @@
+package com.uwf.workflow.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for IndexedWorkflowQueue.
+ */
+class IndexedWorkflowQueueTest {
+
+    @Test
+    void testRunsAreDeliveredInFifoOrderAndReenqueuedRunsMoveToTheBack() {
+        IndexedWorkflowQueue queue = new IndexedWorkflowQueue(10, 64);
+        try {
+            queue.enqueue("run-1");
+            queue.enqueue("run-2");
+            queue.enqueue("run-3");
+            queue.enqueue("run-1");
+            assertEquals(3, queue.size());
+
+            assertEquals("run-2", queue.dequeue());
+            assertEquals("run-3", queue.dequeue());
+            assertEquals("run-1", queue.dequeue());
+            assertNull(queue.dequeue());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRemovedRunsAreSkippedAndTheirTombstonesPurged() {
+        IndexedWorkflowQueue queue = new IndexedWorkflowQueue(10, 64);
+        try {
+            for (int i = 0; i < 3000; i++) {
+                queue.enqueue("run-" + i);
+            }
+            for (int i = 0; i < 3000; i++) {
+                if (i % 3 != 0) {
+                    assertTrue(queue.remove("run-" + i));
+                }
+            }
+            assertFalse(queue.remove("run-1"));
+            assertFalse(queue.contains("run-1"));
+            assertEquals(1000, queue.size());
+
+            for (int i = 0; i < 3000; i += 3) {
+                assertEquals("run-" + i, queue.dequeue());
+            }
+            assertNull(queue.dequeue());
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testExpiredLeaseRedeliversTheRun() throws Exception {
+        IndexedWorkflowQueue queue = new IndexedWorkflowQueue(10, 64, 100);
+        try {
+            queue.enqueue("expires");
+            queue.enqueue("acknowledged");
+            assertEquals("expires", queue.dequeue());
+            assertEquals("acknowledged", queue.dequeue());
+            queue.acknowledge("acknowledged");
+            assertEquals(1, queue.leasedSize());
+
+            assertEquals("expires", queue.poll(2, TimeUnit.SECONDS));
+            assertEquals(1, queue.getExpiredLeaseCount());
+            queue.acknowledge("expires");
+            assertNull(queue.poll(300, TimeUnit.MILLISECONDS), "An acknowledged run should not come back");
+            assertEquals(0, queue.leasedSize());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedRunIsRedeliveredAfterTheDelayUnlessRemoved() throws Exception {
+        IndexedWorkflowQueue queue = new IndexedWorkflowQueue(10, 64);
+        try {
+            long start = System.nanoTime();
+            queue.reject("delayed", 100);
+            queue.reject("cancelled", 100);
+            assertTrue(queue.contains("delayed"));
+            assertEquals(2, queue.delayedSize());
+            assertTrue(queue.remove("cancelled"));
+
+            assertEquals("delayed", queue.poll(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+            assertNull(queue.poll(200, TimeUnit.MILLISECONDS));
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testClearedRunsAreNotLeased() throws Exception {
+        IndexedWorkflowQueue queue = new IndexedWorkflowQueue(10, 64, 100);
+        try {
+            queue.enqueue("run-1");
+            queue.enqueue("run-2");
+            queue.clear();
+
+            assertEquals(0, queue.size());
+            assertEquals(0, queue.leasedSize());
+            assertNull(queue.poll(300, TimeUnit.MILLISECONDS));
+        } finally {
+            queue.shutdown();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.uwf.workflow.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for LeaseTracker.
+ */
+class LeaseTrackerTest {
+
+    @Test
+    void testExpiredLeaseIsHandedBack() throws Exception {
+        BlockingQueue<String> redelivered = new LinkedBlockingQueue<>();
+        LeaseTracker leases = new LeaseTracker("test-leases", 50, redelivered::add);
+        try {
+            leases.acquire("run-1");
+            assertEquals(1, leases.size());
+
+            assertEquals("run-1", redelivered.poll(2, TimeUnit.SECONDS));
+            assertEquals(0, leases.size());
+            assertEquals(1, leases.getExpiredCount());
+            assertFalse(leases.release("run-1"), "An expired lease is no longer held");
+        } finally {
+            leases.close();
+        }
+    }
+
+    @Test
+    void testReleasedLeaseIsNotHandedBack() throws Exception {
+        BlockingQueue<String> redelivered = new LinkedBlockingQueue<>();
+        LeaseTracker leases = new LeaseTracker("test-leases", 50, redelivered::add);
+        try {
+            leases.acquire("run-1");
+            assertTrue(leases.release("run-1"));
+            assertFalse(leases.release("run-1"));
+
+            assertNull(redelivered.poll(200, TimeUnit.MILLISECONDS));
+            assertEquals(0, leases.getExpiredCount());
+        } finally {
+            leases.close();
+        }
+    }
+
+    @Test
+    void testExtendedLeaseOutlivesItsFirstTimeout() throws Exception {
+        BlockingQueue<String> redelivered = new LinkedBlockingQueue<>();
+        LeaseTracker leases = new LeaseTracker("test-leases", 200, redelivered::add);
+        try {
+            assertFalse(leases.extend("run-1"), "Only a held lease can be extended");
+            leases.acquire("run-1");
+            for (int i = 0; i < 8; i++) {
+                Thread.sleep(50);
+                assertTrue(leases.extend("run-1"));
+            }
+            assertTrue(redelivered.isEmpty(), "A lease kept extended should not expire");
+
+            assertEquals("run-1", redelivered.poll(2, TimeUnit.SECONDS));
+            assertEquals(1, leases.getExpiredCount());
+        } finally {
+            leases.close();
+        }
+    }
+
+    @Test
+    void testLeaseExpiringWhileAcquiredIsStillHandedBack() throws Exception {
+        BlockingQueue<String> redelivered = new LinkedBlockingQueue<>();
+        LeaseTracker leases = new LeaseTracker("test-leases", 0, redelivered::add);
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                leases.acquire("run-" + i);
+            }
+            for (int i = 0; i < 10_000; i++) {
+                assertNotNull(redelivered.poll(2, TimeUnit.SECONDS), "Every expired lease should be handed back");
+            }
+            assertEquals(0, leases.size());
+        } finally {
+            leases.close();
+        }
+    }
+
+    @Test
+    void testReacquiredLeaseExpiresOnce() throws Exception {
+        BlockingQueue<String> redelivered = new LinkedBlockingQueue<>();
+        LeaseTracker leases = new LeaseTracker("test-leases", 50, redelivered::add);
+        try {
+            leases.acquire("run-1");
+            leases.acquire("run-1");
+
+            assertEquals("run-1", redelivered.poll(2, TimeUnit.SECONDS));
+            assertNull(redelivered.poll(200, TimeUnit.MILLISECONDS), "The replaced lease should not expire");
+        } finally {
+            leases.close();
+        }
+    }
+}
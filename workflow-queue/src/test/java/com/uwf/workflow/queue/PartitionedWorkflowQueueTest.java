@@ -0,0 +1,88 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.common.model.WorkflowPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for PartitionedWorkflowQueue.
+ */
+class PartitionedWorkflowQueueTest {
+
+    private static int busiestPartition(PartitionedWorkflowQueue queue) {
+        int[] sizes = queue.getPartitionSizes();
+        int busiest = 0;
+        for (int partition = 1; partition < sizes.length; partition++) {
+            if (sizes[partition] > sizes[busiest]) {
+                busiest = partition;
+            }
+        }
+        return busiest;
+    }
+
+    @Test
+    void testPartitionIsDrainedInFifoOrderAndStolenFromWhenIdle() throws Exception {
+        PartitionedWorkflowQueue queue = new PartitionedWorkflowQueue(2, PartitionKey.WORKFLOW_ID, 0, 10, 64);
+        try {
+            for (int i = 0; i < 8; i++) {
+                queue.enqueue("run-" + i, WorkflowPriority.NORMAL, "hot-workflow");
+            }
+            int home = busiestPartition(queue);
+            int idle = 1 - home;
+            assertEquals(8, queue.getPartitionSizes()[home], "Runs of one workflow share a partition");
+
+            assertEquals(List.of("run-0", "run-1"), queue.dequeueBatch(home, 2, 0, TimeUnit.MILLISECONDS));
+            assertEquals(List.of("run-2", "run-3", "run-4"), queue.dequeueBatch(idle, 10, 0, TimeUnit.MILLISECONDS),
+                    "An idle worker should steal half of the busiest partition");
+            assertEquals(3, queue.getStolenCount());
+            assertEquals(List.of("run-5", "run-6", "run-7"), queue.dequeueBatch(home, 10, 0, TimeUnit.MILLISECONDS));
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testExpiredLeaseReturnsTheRunToItsPartition() throws Exception {
+        PartitionedWorkflowQueue queue = new PartitionedWorkflowQueue(2, PartitionKey.WORKFLOW_ID, 100, 10, 64);
+        try {
+            queue.enqueue("expires", WorkflowPriority.NORMAL, "workflow");
+            queue.enqueue("acknowledged", WorkflowPriority.NORMAL, "workflow");
+            int home = busiestPartition(queue);
+            assertEquals(List.of("expires", "acknowledged"), queue.dequeueBatch(home, 2, 0, TimeUnit.MILLISECONDS));
+            queue.acknowledge("acknowledged");
+            assertEquals(1, queue.leasedSize());
+
+            assertEquals(List.of("expires"), queue.dequeueBatch(home, 2, 2, TimeUnit.SECONDS));
+            assertEquals(1, queue.getExpiredLeaseCount());
+            assertEquals(0, queue.getStolenCount(), "The expired run should return to its own partition");
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedRunIsRedeliveredAfterTheDelayUnlessRemoved() throws Exception {
+        PartitionedWorkflowQueue queue = new PartitionedWorkflowQueue(2, PartitionKey.RUN_ID, 0, 10, 64);
+        try {
+            queue.enqueue("run-1");
+            queue.enqueue("run-2");
+            assertTrue(queue.remove("run-2"));
+            assertFalse(queue.contains("run-2"));
+            assertEquals("run-1", queue.dequeue());
+            assertNull(queue.dequeue());
+
+            long start = System.nanoTime();
+            queue.reject("run-1", 100);
+            assertEquals(1, queue.delayedSize());
+            assertEquals("run-1", queue.poll(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+        } finally {
+            queue.shutdown();
+        }
+    }
+}
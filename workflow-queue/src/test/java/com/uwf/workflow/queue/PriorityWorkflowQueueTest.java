@@ -0,0 +1,113 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.common.model.WorkflowPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for PriorityWorkflowQueue.
+ */
+class PriorityWorkflowQueueTest {
+
+    private static final Map<WorkflowPriority, Integer> WEIGHTS = Map.of(
+            WorkflowPriority.LOW, 1, WorkflowPriority.NORMAL, 1, WorkflowPriority.HIGH, 4);
+
+    @Test
+    void testLanesAreServedByWeightInFifoOrder() {
+        PriorityWorkflowQueue queue = new PriorityWorkflowQueue(WEIGHTS, 60_000, 10, 64);
+        try {
+            for (int i = 0; i < 10; i++) {
+                queue.enqueue("low-" + i, WorkflowPriority.LOW);
+                queue.enqueue("high-" + i, WorkflowPriority.HIGH);
+            }
+
+            // One round of the schedule has six turns; the empty NORMAL lane yields its turn to HIGH
+            List<String> round = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                round.add(queue.dequeue());
+            }
+            assertEquals(List.of("low-0"), round.stream().filter(runId -> runId.startsWith("low")).toList());
+            assertEquals(List.of("high-0", "high-1", "high-2", "high-3", "high-4"),
+                    round.stream().filter(runId -> runId.startsWith("high")).toList());
+            assertEquals(14, queue.size());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testAgedRunIsDequeuedAheadOfTheSchedule() throws Exception {
+        PriorityWorkflowQueue queue = new PriorityWorkflowQueue(
+                Map.of(WorkflowPriority.HIGH, 100), 50, 10, 64);
+        try {
+            queue.enqueue("low-old", WorkflowPriority.LOW);
+            Thread.sleep(100);
+            for (int i = 0; i < 10; i++) {
+                queue.enqueue("high-" + i, WorkflowPriority.HIGH);
+            }
+
+            assertEquals("low-old", queue.dequeue());
+            assertEquals("high-0", queue.dequeue());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedRunIsRedeliveredInItsLaneAfterTheDelay() throws Exception {
+        PriorityWorkflowQueue queue = new PriorityWorkflowQueue(WEIGHTS, 60_000, 10, 64);
+        try {
+            queue.enqueue("run-1", WorkflowPriority.HIGH);
+            assertEquals("run-1", queue.dequeue());
+
+            long start = System.nanoTime();
+            queue.reject("run-1", 100);
+            assertTrue(queue.contains("run-1"));
+            assertEquals(1, queue.delayedSize());
+            assertNull(queue.dequeue(), "A delayed run should not be delivered early");
+
+            assertEquals("run-1", queue.poll(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+            assertEquals(0, queue.delayedSize());
+
+            // Requeued in the HIGH lane, so only the LOW run can be shed to make room for HIGH runs
+            queue.enqueue("low-1", WorkflowPriority.LOW);
+            queue.reject("run-1", 0);
+            assertEquals(2, queue.size());
+            assertEquals("low-1", queue.shedLowerPriority(WorkflowPriority.HIGH));
+            assertNull(queue.shedLowerPriority(WorkflowPriority.HIGH));
+            assertEquals("run-1", queue.dequeue());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRemovedRunsAreNeverDelivered() {
+        PriorityWorkflowQueue queue = new PriorityWorkflowQueue(WEIGHTS, 60_000, 10, 64);
+        try {
+            queue.enqueue("run-1");
+            queue.enqueue("run-2");
+            queue.enqueue("run-3");
+            queue.reject("run-4", 60_000);
+
+            assertTrue(queue.remove("run-2"));
+            assertFalse(queue.remove("run-2"));
+            assertTrue(queue.remove("run-4"), "A delayed run can be cancelled");
+            assertFalse(queue.contains("run-4"));
+
+            assertEquals("run-1", queue.dequeue());
+            assertEquals("run-3", queue.dequeue());
+            assertNull(queue.dequeue());
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.shutdown();
+        }
+    }
+}
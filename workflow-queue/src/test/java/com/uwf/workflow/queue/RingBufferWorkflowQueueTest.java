@@ -0,0 +1,99 @@
+package com.uwf.workflow.queue;
+
+import com.uwf.workflow.queue.ring.WaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for RingBufferWorkflowQueue.
+ */
+class RingBufferWorkflowQueueTest {
+
+    @Test
+    void testFullRingOverflowsWithoutLosingFifoOrder() {
+        RingBufferWorkflowQueue queue = new RingBufferWorkflowQueue(4, WaitStrategy.PARK, 10, 10, 64);
+        try {
+            for (int i = 0; i < 10; i++) {
+                queue.enqueue("run-" + i);
+            }
+            assertEquals(10, queue.size(), "Overflowed runs should count towards the size");
+
+            queue.enqueue("run-10");
+            for (int i = 0; i <= 10; i++) {
+                assertEquals("run-" + i, queue.dequeue());
+            }
+            assertNull(queue.dequeue());
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRemovedRunsAreSkippedInTheRingAndTheOverflow() {
+        RingBufferWorkflowQueue queue = new RingBufferWorkflowQueue(4, WaitStrategy.PARK, 0, 10, 64);
+        try {
+            for (int i = 0; i < 6; i++) {
+                queue.enqueue("run-" + i);
+            }
+            assertTrue(queue.remove("run-1"), "Removes a run from the ring");
+            assertTrue(queue.remove("run-5"), "Removes a run from the overflow");
+            assertFalse(queue.remove("run-5"));
+            assertFalse(queue.contains("run-1"));
+            assertTrue(queue.contains("run-4"));
+
+            assertEquals("run-0", queue.dequeue());
+            assertEquals("run-2", queue.dequeue());
+            assertEquals("run-3", queue.dequeue());
+            assertEquals("run-4", queue.dequeue());
+            assertNull(queue.dequeue());
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedRunIsRedeliveredAfterTheDelay() throws Exception {
+        RingBufferWorkflowQueue queue = new RingBufferWorkflowQueue(4, WaitStrategy.PARK, 10, 10, 64);
+        try {
+            long start = System.nanoTime();
+            queue.reject("run-1", 100);
+            assertTrue(queue.contains("run-1"));
+            assertEquals(1, queue.delayedSize());
+            assertNull(queue.dequeue());
+
+            assertEquals("run-1", queue.poll(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testPollingConsumerReceivesRunsPublishedByAnotherThread() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferWorkflowQueue queue = new RingBufferWorkflowQueue(4, waitStrategy, 10, 10, 64);
+            try {
+                Thread producer = new Thread(() -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    queue.enqueue("run-1");
+                });
+                producer.start();
+
+                assertEquals("run-1", queue.poll(2, TimeUnit.SECONDS), waitStrategy + " should hand off the run");
+                assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+                producer.join();
+            } finally {
+                queue.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.uwf.workflow.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for SegmentLogWorkflowQueue against a temporary log directory.
+ */
+class SegmentLogWorkflowQueueTest {
+
+    private static SegmentLogWorkflowQueue open(Path directory) {
+        return new SegmentLogWorkflowQueue(directory, 64 * 1024, 10, false, 10, 64);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void testRunsAreDeliveredInFifoOrderUnlessRemoved() throws Exception {
+        Path directory = Files.createTempDirectory("segment-log-order");
+        SegmentLogWorkflowQueue queue = open(directory);
+        try {
+            queue.enqueue("run-1");
+            queue.enqueue("run-2");
+            queue.enqueue("run-3");
+            assertTrue(queue.remove("run-2"));
+            assertFalse(queue.contains("run-2"));
+            assertEquals(2, queue.size());
+
+            assertEquals("run-1", queue.dequeue());
+            assertEquals("run-3", queue.dequeue());
+            assertNull(queue.dequeue());
+        } finally {
+            queue.shutdown();
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testUnacknowledgedRunsAreRedeliveredAfterRestart() throws Exception {
+        Path directory = Files.createTempDirectory("segment-log-restart");
+        try {
+            SegmentLogWorkflowQueue queue = open(directory);
+            queue.enqueue("acknowledged");
+            queue.enqueue("in-flight");
+            queue.enqueue("queued");
+            assertEquals("acknowledged", queue.dequeue());
+            queue.acknowledge("acknowledged");
+            assertEquals("in-flight", queue.dequeue());
+            queue.shutdown();
+
+            SegmentLogWorkflowQueue reopened = open(directory);
+            try {
+                assertEquals("in-flight", reopened.dequeue());
+                assertEquals("queued", reopened.dequeue());
+                assertNull(reopened.dequeue());
+            } finally {
+                reopened.shutdown();
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testRejectedRunIsRedeliveredAfterTheDelayEvenAcrossRestart() throws Exception {
+        Path directory = Files.createTempDirectory("segment-log-delay");
+        try {
+            SegmentLogWorkflowQueue queue = open(directory);
+            queue.enqueue("run-1");
+            assertEquals("run-1", queue.dequeue());
+            long start = System.nanoTime();
+            queue.reject("run-1", 300);
+            assertNull(queue.dequeue(), "A delayed run should not be delivered early");
+            queue.shutdown();
+
+            SegmentLogWorkflowQueue reopened = open(directory);
+            try {
+                assertEquals("run-1", reopened.poll(2, TimeUnit.SECONDS));
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(290));
+            } finally {
+                reopened.shutdown();
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.uwf.workflow.queue.ring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for RingBuffer and its wait strategies.
+ */
+class RingBufferTest {
+
+    private static final int PRODUCERS = 2;
+    private static final int CONSUMERS = 2;
+    private static final int ELEMENTS_PER_PRODUCER = 20_000;
+
+    @Test
+    void testCapacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new RingBuffer<String>(5).capacity());
+        assertEquals(8, new RingBuffer<String>(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<String>(1));
+    }
+
+    @Test
+    void testFullBufferRejectsOffersUntilASlotIsFreed() {
+        RingBuffer<String> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer("e" + i));
+        }
+        assertFalse(ring.offer("e4"), "A full buffer should reject the offer");
+        assertEquals(4, ring.size());
+
+        assertEquals("e0", ring.poll());
+        assertTrue(ring.offer("e4"));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals("e" + i, ring.poll());
+        }
+        assertNull(ring.poll());
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void testFindReturnsTheOldestMatchingElement() {
+        RingBuffer<String> ring = new RingBuffer<>(8);
+        ring.offer("a1");
+        ring.offer("b1");
+        ring.offer("b2");
+
+        assertEquals("b1", ring.find(element -> element.startsWith("b")));
+        assertNull(ring.find(element -> element.startsWith("c")));
+        ring.poll();
+        ring.poll();
+        assertEquals("b2", ring.find(element -> element.startsWith("b")));
+    }
+
+    @Test
+    void testEveryWaitStrategyHandsOffEachElementExactlyOnce() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBuffer<Integer> ring = new RingBuffer<>(64);
+            int total = PRODUCERS * ELEMENTS_PER_PRODUCER;
+            AtomicIntegerArray received = new AtomicIntegerArray(total);
+            AtomicInteger consumed = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int first = p * ELEMENTS_PER_PRODUCER;
+                threads.add(new Thread(() -> {
+                    for (int element = first; element < first + ELEMENTS_PER_PRODUCER; element++) {
+                        for (int attempt = 0; !ring.offer(element); attempt++) {
+                            waitStrategy.idle(attempt);
+                        }
+                    }
+                }));
+            }
+            for (int c = 0; c < CONSUMERS; c++) {
+                threads.add(new Thread(() -> {
+                    int attempt = 0;
+                    while (consumed.get() < total) {
+                        Integer element = ring.poll();
+                        if (element == null) {
+                            waitStrategy.idle(attempt++);
+                            continue;
+                        }
+                        attempt = 0;
+                        received.incrementAndGet(element);
+                        consumed.incrementAndGet();
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join(30_000);
+                assertFalse(thread.isAlive(), waitStrategy + " should not stall");
+            }
+
+            for (int element = 0; element < total; element++) {
+                assertEquals(1, received.get(element), waitStrategy + " delivered element " + element);
+            }
+            assertEquals(0, ring.size());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.uwf.workflow.queue.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for TimingWheel.
+ */
+class TimingWheelTest {
+
+    @Test
+    void testTimeoutsExpireInDeadlineOrder() throws Exception {
+        BlockingQueue<String> expired = new LinkedBlockingQueue<>();
+        TimingWheel<String> wheel = new TimingWheel<>("test-wheel", 5, 64, expired::add);
+        try {
+            long start = System.nanoTime();
+            wheel.schedule("third", 150);
+            wheel.schedule("first", 30);
+            wheel.schedule("second", 90);
+            assertEquals(3, wheel.size());
+
+            assertEquals("first", expired.poll(2, TimeUnit.SECONDS));
+            assertEquals("second", expired.poll(2, TimeUnit.SECONDS));
+            assertEquals("third", expired.poll(2, TimeUnit.SECONDS));
+            // Timeouts fire with the tick of the deadline, up to one tick early
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(145),
+                    "No timeout should expire before its tick");
+            assertEquals(0, wheel.size());
+            assertEquals(3, wheel.getExpiredCount());
+        } finally {
+            wheel.close();
+        }
+    }
+
+    @Test
+    void testCancelledTimeoutNeverExpires() throws Exception {
+        BlockingQueue<String> expired = new LinkedBlockingQueue<>();
+        TimingWheel<String> wheel = new TimingWheel<>("test-wheel", 5, 64, expired::add);
+        try {
+            TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 50);
+            wheel.schedule("kept", 100);
+
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel(), "A timeout is cancelled only once");
+            assertTrue(cancelled.isCancelled());
+
+            assertEquals("kept", expired.poll(2, TimeUnit.SECONDS));
+            assertNull(expired.poll(100, TimeUnit.MILLISECONDS));
+            assertFalse(cancelled.isExpired());
+            assertEquals(0, wheel.size());
+        } finally {
+            wheel.close();
+        }
+    }
+
+    @Test
+    void testLongDelaysCascadeThroughLevels() throws Exception {
+        BlockingQueue<String> expired = new LinkedBlockingQueue<>();
+        TimingWheel<String> wheel = new TimingWheel<>("test-wheel", 1, 4, expired::add);
+        try {
+            long start = System.nanoTime();
+            wheel.schedule("late", 200);
+            wheel.schedule("early", 2);
+
+            assertEquals("early", expired.poll(2, TimeUnit.SECONDS));
+            List<DueTimeDepth> depth = wheel.getDepthByDueTime();
+            assertTrue(depth.size() > 1, "A delay past the first level should add levels");
+            assertEquals(1, depth.stream().mapToLong(DueTimeDepth::count).sum());
+
+            assertEquals("late", expired.poll(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(199));
+        } finally {
+            wheel.close();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.uwf.workflow.registry;
 
 import com.uwf.workflow.common.model.Workflow;
+import com.uwf.workflow.common.plan.ExecutionPlan;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -10,11 +11,13 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * In-memory implementation of the workflow registry.
  * Uses ConcurrentHashMap for thread-safe operations.
+ * Each definition's execution plan is compiled once at registration and cached alongside it.
  */
 @Component
 public class InMemoryWorkflowRegistry implements WorkflowRegistry {
 
     private final Map<String, Workflow> workflows = new ConcurrentHashMap<>();
+    private final Map<String, ExecutionPlan> executionPlans = new ConcurrentHashMap<>();
 
     /**
      * Registers a workflow with the registry.
@@ -23,6 +26,7 @@ public class InMemoryWorkflowRegistry implements WorkflowRegistry {
      */
     @Override
     public void registerWorkflow(Workflow workflow) {
+        executionPlans.put(workflow.getId(), workflow.getExecutionPlan());
         workflows.put(workflow.getId(), workflow);
     }
 
@@ -37,6 +41,17 @@ public class InMemoryWorkflowRegistry implements WorkflowRegistry {
         return Optional.ofNullable(workflows.get(workflowId));
     }
 
+    /**
+     * Retrieves the cached execution plan of a workflow by its ID.
+     *
+     * @param workflowId the workflow ID
+     * @return an Optional containing the execution plan if the workflow is found, empty otherwise
+     */
+    @Override
+    public Optional<ExecutionPlan> getExecutionPlan(String workflowId) {
+        return Optional.ofNullable(executionPlans.get(workflowId));
+    }
+
     /**
      * Checks if a workflow exists in the registry.
      *
@@ -56,6 +71,7 @@ public class InMemoryWorkflowRegistry implements WorkflowRegistry {
      */
     @Override
     public boolean removeWorkflow(String workflowId) {
+        executionPlans.remove(workflowId);
         return workflows.remove(workflowId) != null;
     }
 
@@ -85,5 +101,6 @@ public class InMemoryWorkflowRegistry implements WorkflowRegistry {
     @Override
     public void clear() {
         workflows.clear();
+        executionPlans.clear();
     }
 }
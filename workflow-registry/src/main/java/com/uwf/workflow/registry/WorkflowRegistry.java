@@ -1,6 +1,7 @@
 package com.uwf.workflow.registry;
 
 import com.uwf.workflow.common.model.Workflow;
+import com.uwf.workflow.common.plan.ExecutionPlan;
 
 import java.util.Optional;
 
@@ -25,6 +26,16 @@ public interface WorkflowRegistry {
      */
     Optional<Workflow> getWorkflow(String workflowId);
 
+    /**
+     * Retrieves the compiled execution plan of a workflow by its ID.
+     *
+     * @param workflowId the workflow ID
+     * @return an Optional containing the execution plan if the workflow is found, empty otherwise
+     */
+    default Optional<ExecutionPlan> getExecutionPlan(String workflowId) {
+        return getWorkflow(workflowId).map(Workflow::getExecutionPlan);
+    }
+
     /**
      * Checks if a workflow exists in the registry.
      *
@@ -137,8 +137,6 @@ public class RestWorkflowClientService implements WorkflowClientService {
     public Mono<CancelWorkflowOutput> cancelWorkflow(CancelWorkflowInput input) {
         input.validate();
         
-        // Note: The cancel endpoint doesn't exist in the current controller
-        // This is a placeholder for future implementation
         return webClient.post()
                 .uri(config.getApiPaths().getCancelWorkflow(), input.getRunId())
                 .retrieve()
@@ -148,7 +146,7 @@ public class RestWorkflowClientService implements WorkflowClientService {
                 )
                 .bodyToMono(new ParameterizedTypeReference<Map<String, Boolean>>() {})
                 .map(response -> CancelWorkflowOutput.success(response.get("canceled")))
-                .onErrorResume(e -> Mono.just(CancelWorkflowOutput.failure("Cancel workflow endpoint not implemented yet: " + e.getMessage())));
+                .onErrorResume(e -> Mono.just(CancelWorkflowOutput.failure("Failed to cancel workflow: " + e.getMessage())));
     }
     
     @Override